@@ -0,0 +1,172 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.BulkSubmissionOutcome;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.GetBulkSubmission200Response;
+
+/**
+ * Compares the time taken to normalise a bulk submission of 10,000 outcomes using the compiled
+ * {@link SubmissionDataNormaliser} against the reflective walk it replaced.
+ *
+ * <p>Run with {@code ./gradlew :data-claims-event-service:jmh}. Before measuring, both normalisers
+ * are checked to produce the same result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SubmissionDataNormaliserBenchmark {
+
+  private static final int OUTCOMES = 10_000;
+
+  private final ObjectMapper objectMapper =
+      new ObjectMapper()
+          .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+          .registerModule(new JavaTimeModule());
+  private final SubmissionDataNormaliser compiled = new SubmissionDataNormaliser();
+  private final ReflectiveNormaliser reflective = new ReflectiveNormaliser();
+
+  private String payloadJson;
+  private GetBulkSubmission200Response payload;
+
+  /**
+   * Builds the bulk submission, and checks that both normalisers produce the same result from it.
+   *
+   * @throws IOException if the sample bulk submission could not be read
+   */
+  @Setup(Level.Trial)
+  public void buildPayload() throws IOException {
+    payloadJson = objectMapper.writeValueAsString(samplePayload());
+
+    GetBulkSubmission200Response expected = readPayload();
+    reflective.normalise(expected);
+    GetBulkSubmission200Response actual = readPayload();
+    compiled.normalise(actual);
+    if (!Objects.equals(actual, expected)) {
+      throw new IllegalStateException("Compiled and reflective normalisers differ");
+    }
+  }
+
+  /**
+   * Reads a fresh copy of the bulk submission, as normalising changes it.
+   *
+   * @throws IOException if the bulk submission could not be read
+   */
+  @Setup(Level.Invocation)
+  public void copyPayload() throws IOException {
+    payload = readPayload();
+  }
+
+  /**
+   * Normalises the bulk submission with the compiled normaliser.
+   *
+   * @return the normalised bulk submission
+   */
+  @Benchmark
+  public GetBulkSubmission200Response compiled() {
+    return compiled.normalise(payload);
+  }
+
+  /**
+   * Normalises the bulk submission with the reflective walk.
+   *
+   * @return the normalised bulk submission
+   */
+  @Benchmark
+  public GetBulkSubmission200Response reflective() {
+    reflective.normalise(payload);
+    return payload;
+  }
+
+  private GetBulkSubmission200Response readPayload() throws IOException {
+    return objectMapper.readValue(payloadJson, GetBulkSubmission200Response.class);
+  }
+
+  /** Builds a bulk submission with 10,000 distinct copies of the outcome of the sample payload. */
+  private GetBulkSubmission200Response samplePayload() throws IOException {
+    GetBulkSubmission200Response response;
+    try (InputStream sample = getClass().getResourceAsStream("/bulk-submission-response.json")) {
+      response = objectMapper.readValue(sample, GetBulkSubmission200Response.class);
+    }
+    String outcome =
+        objectMapper.writeValueAsString(response.getDetails().getOutcomes().getFirst());
+    List<BulkSubmissionOutcome> outcomes = new ArrayList<>(OUTCOMES);
+    for (int i = 0; i < OUTCOMES; i++) {
+      BulkSubmissionOutcome copy = objectMapper.readValue(outcome, BulkSubmissionOutcome.class);
+      copy.setUfn("  " + copy.getUfn() + "  ");
+      copy.setLineNumber(" " + (i + 1) + " ");
+      outcomes.add(copy);
+    }
+    response.getDetails().setOutcomes(outcomes);
+    return response;
+  }
+
+  /** The reflective walk used before field plans were compiled, kept here as a baseline. */
+  private static final class ReflectiveNormaliser {
+
+    void normalise(GetBulkSubmission200Response response) {
+      normaliseObject(response, new HashSet<>());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void normaliseObject(Object object, Set<Object> visited) {
+      if (object == null || visited.contains(object)) {
+        return;
+      }
+      visited.add(object);
+      if (object instanceof List<?> list) {
+        list.forEach(element -> normaliseObject(element, visited));
+        return;
+      }
+      if (object instanceof Map<?, ?> map) {
+        new SubmissionDataNormaliser().normaliseMap((Map<Object, Object>) map);
+        return;
+      }
+      if (object.getClass().getPackageName().startsWith("java.")) {
+        return;
+      }
+      for (Field field : object.getClass().getDeclaredFields()) {
+        try {
+          field.setAccessible(true);
+          Object value = field.get(object);
+          if (value instanceof String s) {
+            String normalised = s.isBlank() ? null : s.trim();
+            Set<String> upperFields =
+                SubmissionDataNormaliser.UPPERCASE_FIELDS.getOrDefault(
+                    object.getClass(), Set.of());
+            if (normalised != null && upperFields.contains(field.getName())) {
+              normalised = normalised.toUpperCase(Locale.ENGLISH);
+            }
+            field.set(object, normalised);
+          } else if (value != null && !value.getClass().getPackageName().startsWith("java.")
+              || value instanceof List
+              || value instanceof Map) {
+            normaliseObject(value, visited);
+          }
+        } catch (IllegalAccessException e) {
+          throw new IllegalStateException(e);
+        }
+      }
+    }
+  }
+}
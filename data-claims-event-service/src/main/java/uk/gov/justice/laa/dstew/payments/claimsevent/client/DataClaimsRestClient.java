@@ -3,17 +3,20 @@ package uk.gov.justice.laa.dstew.payments.claimsevent.client;
 import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.service.annotation.GetExchange;
 import org.springframework.web.service.annotation.HttpExchange;
 import org.springframework.web.service.annotation.PatchExchange;
 import org.springframework.web.service.annotation.PostExchange;
+import reactor.core.publisher.Flux;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.AreaOfLaw;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.BulkSubmissionPatch;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.ClaimPatch;
@@ -31,6 +34,8 @@ import uk.gov.justice.laa.dstew.payments.claimsdata.model.SubmissionPost;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.SubmissionResponse;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.SubmissionStatus;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.SubmissionsResultSet;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.model.CreatedClaim;
+import uk.gov.justice.laa.dstew.payments.claimsevent.util.IdempotencyKeyUtil;
 
 /**
  * REST client interface for fetching claims data. This interface communicates with the Data Claims
@@ -42,6 +47,9 @@ import uk.gov.justice.laa.dstew.payments.claimsdata.model.SubmissionsResultSet;
     contentType = MediaType.APPLICATION_JSON_VALUE)
 public interface DataClaimsRestClient {
 
+  /** The header carrying the key by which the Data Claims API recognises a repeated request. */
+  String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
   /**
    * Get the raw JSON document of a bulk submission.
    *
@@ -51,6 +59,16 @@ public interface DataClaimsRestClient {
   @GetExchange("/bulk-submissions/{id}")
   ResponseEntity<GetBulkSubmission200Response> getBulkSubmission(@PathVariable("id") UUID id);
 
+  /**
+   * Get the raw JSON document of a bulk submission as a stream of buffers, so that it can be read
+   * as it arrives rather than being held in memory as a whole.
+   *
+   * @param id UUID of the bulk submission
+   * @return the stored JSON document, as it is received
+   */
+  @GetExchange("/bulk-submissions/{id}")
+  Flux<DataBuffer> streamBulkSubmission(@PathVariable("id") UUID id);
+
   /**
    * Update (patch) an existing bulk submission's fields (typically status).
    *
@@ -108,17 +126,74 @@ public interface DataClaimsRestClient {
       @RequestParam(value = "area_of_law", required = false) AreaOfLaw areaOfLaw,
       @RequestParam(value = "submission_period", required = false) String submissionPeriod);
 
+  /**
+   * Add a claim to a submission, with an idempotency key derived from the submission and the line
+   * number of the claim, so that sending the same claim again does not create it twice.
+   *
+   * @param submissionId parent submission UUID
+   * @param claim payload shaped like {@code ClaimPost}
+   * @return 201 Created with JSON body containing the created claim {@code id}; {@code Location}
+   *     header points to the created resource
+   */
+  default ResponseEntity<CreateClaim201Response> createClaim(
+      String submissionId, ClaimPost claim) {
+    return createClaim(
+        submissionId,
+        claim,
+        IdempotencyKeyUtil.claimKey(submissionId, claim != null ? claim.getLineNumber() : null));
+  }
+
   /**
    * Add a claim to a submission.
    *
    * @param submissionId parent submission UUID
    * @param claim payload shaped like {@code ClaimPost}
+   * @param idempotencyKey the key by which the Data Claims API recognises the claim if it is sent
+   *     again
    * @return 201 Created with JSON body containing the created claim {@code id}; {@code Location}
    *     header points to the created resource
    */
   @PostExchange("/submissions/{id}/claims")
   ResponseEntity<CreateClaim201Response> createClaim(
-      @PathVariable("id") String submissionId, @RequestBody ClaimPost claim);
+      @PathVariable("id") String submissionId,
+      @RequestBody ClaimPost claim,
+      @RequestHeader(IDEMPOTENCY_KEY_HEADER) String idempotencyKey);
+
+  /**
+   * Add several claims to a submission in a single request, with an idempotency key derived from
+   * the submission and the line numbers of the claims, so that sending the same batch again does
+   * not create its claims twice.
+   *
+   * @param submissionId parent submission UUID
+   * @param claims payloads shaped like {@code ClaimPost}
+   * @return 201 Created with JSON body listing the {@code id} and {@code line_number} of each
+   *     created claim, in the order the claims were sent; 404 if the endpoint is not available
+   */
+  default ResponseEntity<List<CreatedClaim>> createClaims(
+      String submissionId, List<ClaimPost> claims) {
+    return createClaims(
+        submissionId,
+        claims,
+        IdempotencyKeyUtil.claimBatchKey(
+            submissionId,
+            claims.stream().map(claim -> claim != null ? claim.getLineNumber() : null).toList()));
+  }
+
+  /**
+   * Add several claims to a submission in a single request.
+   *
+   * @param submissionId parent submission UUID
+   * @param claims payloads shaped like {@code ClaimPost}
+   * @param idempotencyKey the key by which the Data Claims API recognises the batch if it is sent
+   *     again
+   * @return 201 Created with JSON body listing the {@code id} and {@code line_number} of each
+   *     created claim, in the order the claims were sent; 404 if the endpoint is not available
+   */
+  @PostExchange("/submissions/{id}/claims/bulk")
+  ResponseEntity<List<CreatedClaim>> createClaims(
+      @PathVariable("id") String submissionId,
+      @RequestBody List<ClaimPost> claims,
+      @RequestHeader(IDEMPOTENCY_KEY_HEADER) String idempotencyKey);
 
   /**
    * Get claims in an office, filtering on certain criteria.
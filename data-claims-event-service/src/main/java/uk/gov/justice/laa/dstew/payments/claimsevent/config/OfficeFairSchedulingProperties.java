@@ -0,0 +1,55 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.config;
+
+import java.util.Map;
+import lombok.Getter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration properties for sharing submission validation fairly between offices.
+ *
+ * <p>Offices without a configured weight have a weight of one.
+ */
+@Getter
+@ConfigurationProperties(prefix = "claim.validation.fair-scheduling")
+public class OfficeFairSchedulingProperties {
+
+  private final int maxConcurrent;
+  private final int maxConcurrentPerOffice;
+  private final int quantum;
+  private final Map<String, Integer> officeWeights;
+  private final FastLane fastLane;
+
+  /**
+   * Constructs a new {@code OfficeFairSchedulingProperties}.
+   *
+   * @param maxConcurrent the maximum number of submissions validated at once across all offices
+   * @param maxConcurrentPerOffice the maximum number of submissions validated at once for a single
+   *     office
+   * @param quantum the number of claims an office of weight one may have validated each time its
+   *     turn comes round
+   * @param officeWeights the weight of each office, keyed by office account number
+   * @param fastLane the capacity reserved for nil and small submissions
+   */
+  public OfficeFairSchedulingProperties(
+      @DefaultValue("4") int maxConcurrent,
+      @DefaultValue("2") int maxConcurrentPerOffice,
+      @DefaultValue("1000") int quantum,
+      Map<String, Integer> officeWeights,
+      @DefaultValue FastLane fastLane) {
+    this.maxConcurrent = maxConcurrent;
+    this.maxConcurrentPerOffice = maxConcurrentPerOffice;
+    this.quantum = quantum;
+    this.officeWeights = officeWeights == null ? Map.of() : officeWeights;
+    this.fastLane = fastLane;
+  }
+
+  /**
+   * Capacity reserved for nil and small submissions, in addition to the shared capacity.
+   *
+   * @param maxClaims the largest number of claims a submission can contain to use the fast lane
+   * @param concurrency the number of small submissions which can be validated at once in the fast
+   *     lane
+   */
+  public record FastLane(@DefaultValue("20") int maxClaims, @DefaultValue("2") int concurrency) {}
+}
@@ -0,0 +1,182 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.config;
+
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.http.HttpContent;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.reactive.ClientHttpRequest;
+import org.springframework.http.client.reactive.ClientHttpRequestDecorator;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.netty.NettyPipeline;
+import reactor.netty.http.client.HttpClient;
+import uk.gov.justice.laa.dstew.payments.claimsevent.metrics.EventServiceMetricService;
+
+/**
+ * {@link ExchangeFilterFunction} which compresses large request bodies sent to a downstream API,
+ * and records the size of every payload before and after compression.
+ *
+ * <p>Request bodies at least as large as the threshold are gzipped and sent with a {@code
+ * Content-Encoding: gzip} header. Responses are decompressed as they stream in by the HTTP client
+ * returned by {@link #connector}, which asks for gzip and decompresses gzip and deflate responses
+ * without holding the compressed body in memory.
+ */
+public class PayloadCompressionFilter implements ExchangeFilterFunction {
+
+  private static final String SENT = "sent";
+  private static final String RECEIVED = "received";
+  private static final String BEFORE_COMPRESSION = "before_compression";
+  private static final String AFTER_COMPRESSION = "after_compression";
+
+  private final String client;
+  private final EventServiceMetricService eventServiceMetricService;
+  private final boolean compressRequests;
+  private final int requestThresholdBytes;
+
+  /**
+   * Constructs a new {@code PayloadCompressionFilter}.
+   *
+   * @param client the name of the downstream API client, used to label the recorded metrics
+   * @param eventServiceMetricService the service used to record payload sizes
+   * @param properties whether, and from what size, request bodies are compressed
+   */
+  public PayloadCompressionFilter(
+      String client,
+      EventServiceMetricService eventServiceMetricService,
+      PayloadCompressionProperties properties) {
+    this.client = client;
+    this.eventServiceMetricService = eventServiceMetricService;
+    this.compressRequests = properties.isCompressRequests();
+    this.requestThresholdBytes = properties.getRequestThresholdBytes();
+  }
+
+  /**
+   * Creates a connector whose HTTP client asks for compressed responses and decompresses them as
+   * they stream in, recording the size of each response as it was received.
+   *
+   * @param client the name of the downstream API client, used to label the recorded metrics
+   * @param eventServiceMetricService the service used to record payload sizes
+   * @return a connector for a WebClient
+   */
+  public static ReactorClientHttpConnector connector(
+      String client, EventServiceMetricService eventServiceMetricService) {
+    ReceivedBytesCounter counter = new ReceivedBytesCounter(client, eventServiceMetricService);
+    HttpClient httpClient =
+        HttpClient.create()
+            .compress(true)
+            .doOnChannelInit(
+                (observer, channel, remoteAddress) -> {
+                  // Counted before the decompressor, so the size is as it was received
+                  ChannelPipeline pipeline = channel.pipeline();
+                  if (pipeline.get(NettyPipeline.HttpDecompressor) != null) {
+                    pipeline.addBefore(
+                        NettyPipeline.HttpDecompressor, "receivedBytesCounter", counter);
+                  }
+                });
+    return new ReactorClientHttpConnector(httpClient);
+  }
+
+  @Override
+  public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+    ClientRequest compressing =
+        ClientRequest.from(request)
+            .body(
+                (outputMessage, context) ->
+                    request.body().insert(new CompressingRequest(outputMessage), context))
+            .build();
+    return next.exchange(compressing)
+        .map(
+            response ->
+                response
+                    .mutate()
+                    .body(
+                        body ->
+                            body.doOnNext(
+                                buffer ->
+                                    record(
+                                        RECEIVED,
+                                        BEFORE_COMPRESSION,
+                                        buffer.readableByteCount())))
+                    .build());
+  }
+
+  private void record(String direction, String stage, long bytes) {
+    eventServiceMetricService.recordDownstreamBytes(client, direction, stage, bytes);
+  }
+
+  private static byte[] gzip(DataBuffer buffer) {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream(buffer.readableByteCount() / 4);
+    try (InputStream in = buffer.asInputStream(true);
+        GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+      in.transferTo(out);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+    return compressed.toByteArray();
+  }
+
+  /** Gzips the body of a request, once written, if it is at least as large as the threshold. */
+  private final class CompressingRequest extends ClientHttpRequestDecorator {
+
+    private CompressingRequest(ClientHttpRequest delegate) {
+      super(delegate);
+    }
+
+    @Override
+    public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+      return DataBufferUtils.join(body)
+          .switchIfEmpty(Mono.fromSupplier(() -> bufferFactory().allocateBuffer(0)))
+          .flatMap(
+              buffer -> {
+                int size = buffer.readableByteCount();
+                record(SENT, BEFORE_COMPRESSION, size);
+                if (!compressRequests || size < requestThresholdBytes) {
+                  record(SENT, AFTER_COMPRESSION, size);
+                  return super.writeWith(Mono.just(buffer));
+                }
+                byte[] compressed = gzip(buffer);
+                record(SENT, AFTER_COMPRESSION, compressed.length);
+                getHeaders().set(HttpHeaders.CONTENT_ENCODING, "gzip");
+                getHeaders().setContentLength(compressed.length);
+                return super.writeWith(Mono.just(bufferFactory().wrap(compressed)));
+              });
+    }
+  }
+
+  /** Counts the bytes of each response body as they arrive, before they are decompressed. */
+  @ChannelHandler.Sharable
+  private static final class ReceivedBytesCounter extends ChannelInboundHandlerAdapter {
+
+    private final String client;
+    private final EventServiceMetricService eventServiceMetricService;
+
+    private ReceivedBytesCounter(
+        String client, EventServiceMetricService eventServiceMetricService) {
+      this.client = client;
+      this.eventServiceMetricService = eventServiceMetricService;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+      if (msg instanceof HttpContent content) {
+        eventServiceMetricService.recordDownstreamBytes(
+            client, RECEIVED, AFTER_COMPRESSION, content.content().readableBytes());
+      }
+      ctx.fireChannelRead(msg);
+    }
+  }
+}
@@ -0,0 +1,37 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.config;
+
+import lombok.Getter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration properties for compressing the payloads exchanged with downstream APIs.
+ *
+ * <p>Responses are only compressed by APIs which support it, so accepting compressed responses is
+ * safe to enable for every API. Request bodies are only compressed when {@code compress-requests}
+ * is also enabled, as the downstream API must be able to decompress them.
+ */
+@Getter
+@ConfigurationProperties(prefix = "laa.web-client.compression")
+public class PayloadCompressionProperties {
+
+  private final boolean enabled;
+  private final boolean compressRequests;
+  private final int requestThresholdBytes;
+
+  /**
+   * Constructs a new {@code PayloadCompressionProperties}.
+   *
+   * @param enabled whether compressed responses are accepted, and payload sizes recorded
+   * @param compressRequests whether request bodies are compressed
+   * @param requestThresholdBytes the smallest request body, in bytes, which is compressed
+   */
+  public PayloadCompressionProperties(
+      @DefaultValue("false") boolean enabled,
+      @DefaultValue("false") boolean compressRequests,
+      @DefaultValue("8192") int requestThresholdBytes) {
+    this.enabled = enabled;
+    this.compressRequests = compressRequests;
+    this.requestThresholdBytes = requestThresholdBytes;
+  }
+}
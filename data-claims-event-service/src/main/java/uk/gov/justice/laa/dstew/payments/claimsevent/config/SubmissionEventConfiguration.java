@@ -5,11 +5,16 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 /** Configuration of beans related to submission events. */
 @Configuration
+@EnableConfigurationProperties({
+  SubmissionEventLaneProperties.class,
+  OfficeFairSchedulingProperties.class
+})
 public class SubmissionEventConfiguration {
 
   /**
@@ -0,0 +1,29 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.config;
+
+import java.util.Map;
+import lombok.Getter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import uk.gov.justice.laa.dstew.payments.claimsevent.model.SubmissionEventType;
+
+/**
+ * Configuration properties for the processing lane of each submission event type.
+ *
+ * <p>Event types without a configured lane are processed without a lane limit.
+ */
+@Getter
+@ConfigurationProperties(prefix = "laa.bulk-claim-queue")
+public class SubmissionEventLaneProperties {
+
+  private final Map<SubmissionEventType, Lane> lanes;
+
+  public SubmissionEventLaneProperties(Map<SubmissionEventType, Lane> lanes) {
+    this.lanes = lanes == null ? Map.of() : lanes;
+  }
+
+  /**
+   * The limit of a single processing lane.
+   *
+   * @param concurrency the maximum number of messages of this event type processed at once
+   */
+  public record Lane(int concurrency) {}
+}
@@ -1,16 +1,31 @@
 package uk.gov.justice.laa.dstew.payments.claimsevent.config;
 
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.util.MimeType;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
 import org.springframework.web.reactive.function.client.ExchangeStrategies;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.support.WebClientAdapter;
 import org.springframework.web.service.invoker.HttpServiceProxyFactory;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.GetBulkSubmission200Response;
 import uk.gov.justice.laa.dstew.payments.claimsevent.client.DataClaimsRestClient;
 import uk.gov.justice.laa.dstew.payments.claimsevent.client.FeeSchemePlatformRestClient;
 import uk.gov.justice.laa.dstew.payments.claimsevent.client.ProviderDetailsRestClient;
+import uk.gov.justice.laa.dstew.payments.claimsevent.metrics.BulkParsingProfileFilter;
+import uk.gov.justice.laa.dstew.payments.claimsevent.metrics.DownstreamRequestMetricsFilter;
+import uk.gov.justice.laa.dstew.payments.claimsevent.metrics.EventServiceMetricService;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.AdaptiveWriteLimiter;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.NormalisingDeserialisationModule;
 
 /**
  * Configuration class for creating and configuring WebClient instances.
@@ -24,7 +39,8 @@ import uk.gov.justice.laa.dstew.payments.claimsevent.client.ProviderDetailsRestC
 @EnableConfigurationProperties({
   ProviderDetailsApiProperties.class,
   DataClaimsApiProperties.class,
-  FeeSchemePlatformApiProperties.class
+  FeeSchemePlatformApiProperties.class,
+  PayloadCompressionProperties.class
 })
 public class WebClientConfiguration {
 
@@ -35,14 +51,21 @@ public class WebClientConfiguration {
    *
    * @param properties The configuration properties required to initialise the WebClient, including
    *     the base URL and access token for the Provider Details API.
+   * @param eventServiceMetricService The service used to record downstream request metrics.
+   * @param compression The configuration for compressing payloads.
    * @return An instance of {@link
    *     uk.gov.justice.laa.dstew.payments.claimsevent.client.ProviderDetailsRestClient} for
    *     interacting with the Provider Details API.
    */
   @Bean
   public ProviderDetailsRestClient providerDetailsClient(
-      final ProviderDetailsApiProperties properties) {
-    final WebClient webClient = createWebClient(properties);
+      final ProviderDetailsApiProperties properties,
+      final EventServiceMetricService eventServiceMetricService,
+      final PayloadCompressionProperties compression) {
+    final WebClient webClient =
+        createWebClientBuilder(
+                properties, "provider_details_api", eventServiceMetricService, compression)
+            .build();
     final WebClientAdapter webClientAdapter = WebClientAdapter.create(webClient);
     HttpServiceProxyFactory factory = HttpServiceProxyFactory.builderFor(webClientAdapter).build();
     return factory.createClient(ProviderDetailsRestClient.class);
@@ -54,29 +77,93 @@ public class WebClientConfiguration {
    *
    * @param properties The configuration properties required to initialise the WebClient, including
    *     the base URL and access token for the Data Claims API.
+   * @param eventServiceMetricService The service used to record downstream request metrics.
+   * @param compression The configuration for compressing payloads.
+   * @param dataClaimsWriteLimiter The limiter for write requests, if enabled.
+   * @param normaliseOnDeserialisation Whether the strings of bulk submissions should be normalised
+   *     as they are deserialised.
    * @return An instance of {@link DataClaimsRestClient} for interacting with the Claims API.
    */
   @Bean
-  public DataClaimsRestClient claimsApiClient(final DataClaimsApiProperties properties) {
-    final WebClient webClient = createWebClient(properties);
-    final WebClientAdapter webClientAdapter = WebClientAdapter.create(webClient);
+  public DataClaimsRestClient claimsApiClient(
+      final DataClaimsApiProperties properties,
+      final EventServiceMetricService eventServiceMetricService,
+      final PayloadCompressionProperties compression,
+      final ObjectProvider<AdaptiveWriteLimiter> dataClaimsWriteLimiter,
+      @Value("${laa.bulk-claim-queue.normalise-on-deserialisation.enabled:false}")
+          final boolean normaliseOnDeserialisation) {
+    final WebClient.Builder builder =
+        createWebClientBuilder(
+            properties, "data_claims_api", eventServiceMetricService, compression);
+    // The limiter comes before the metrics filter, so that time spent waiting for it is not
+    // recorded as latency, but after the parsing profile filter, which must run on the caller
+    dataClaimsWriteLimiter.ifAvailable(
+        limiter -> builder.filters(filters -> filters.add(1, limiter)));
+    if (normaliseOnDeserialisation) {
+      builder.codecs(
+          configurer ->
+              configurer.customCodecs().registerWithDefaultConfig(bulkSubmissionDecoder()));
+    }
+    final WebClientAdapter webClientAdapter = WebClientAdapter.create(builder.build());
     HttpServiceProxyFactory factory = HttpServiceProxyFactory.builderFor(webClientAdapter).build();
     return factory.createClient(DataClaimsRestClient.class);
   }
 
+  /**
+   * Creates an {@link AdaptiveWriteLimiter} bean which limits the write requests in flight to the
+   * Data Claims API, adapting the limit to how quickly the API responds.
+   *
+   * @param eventServiceMetricService The service used to publish the limit and rejections.
+   * @param minLimit The lowest the limit will be reduced to.
+   * @param initialLimit The limit before any write request has completed.
+   * @param maxLimit The highest the limit will be increased to.
+   * @param rttTolerance How many times slower than usual write requests can become before the
+   *     limit is reduced.
+   * @param backoffRatio The ratio the limit is multiplied by when a write request is refused.
+   * @param maxWaitMillis The longest a write request waits for the limit to allow it.
+   * @return An {@link AdaptiveWriteLimiter} for the Data Claims API.
+   */
+  @Bean
+  @ConditionalOnProperty(name = "laa.claims-api.write-limit.enabled", havingValue = "true")
+  public AdaptiveWriteLimiter dataClaimsWriteLimiter(
+      final EventServiceMetricService eventServiceMetricService,
+      @Value("${laa.claims-api.write-limit.min-limit:2}") final int minLimit,
+      @Value("${laa.claims-api.write-limit.initial-limit:16}") final int initialLimit,
+      @Value("${laa.claims-api.write-limit.max-limit:64}") final int maxLimit,
+      @Value("${laa.claims-api.write-limit.rtt-tolerance:1.5}") final double rttTolerance,
+      @Value("${laa.claims-api.write-limit.backoff-ratio:0.9}") final double backoffRatio,
+      @Value("${laa.claims-api.write-limit.max-wait-ms:30000}") final long maxWaitMillis) {
+    return new AdaptiveWriteLimiter(
+        "data_claims_api",
+        eventServiceMetricService,
+        minLimit,
+        initialLimit,
+        maxLimit,
+        rttTolerance,
+        backoffRatio,
+        maxWaitMillis);
+  }
+
   /**
    * Creates a {@link FeeSchemePlatformRestClient} bean to communicate with the Fee Scheme Platform
    * API using a WebClient instance.
    *
    * @param properties The configuration properties required to initialize the WebClient, including
    *     the base URL and access token for the Fee Scheme Platform API.
+   * @param eventServiceMetricService The service used to record downstream request metrics.
+   * @param compression The configuration for compressing payloads.
    * @return An instance of {@link FeeSchemePlatformRestClient} for interacting with the Fee Scheme
    *     Platform API.
    */
   @Bean
   public FeeSchemePlatformRestClient feeSchemePlatformRestClient(
-      final FeeSchemePlatformApiProperties properties) {
-    final WebClient webClient = createWebClient(properties);
+      final FeeSchemePlatformApiProperties properties,
+      final EventServiceMetricService eventServiceMetricService,
+      final PayloadCompressionProperties compression) {
+    final WebClient webClient =
+        createWebClientBuilder(
+                properties, "fee_scheme_platform_api", eventServiceMetricService, compression)
+            .build();
     final WebClientAdapter webClientAdapter = WebClientAdapter.create(webClient);
     HttpServiceProxyFactory factory = HttpServiceProxyFactory.builderFor(webClientAdapter).build();
 
@@ -90,6 +177,67 @@ public class WebClientConfiguration {
    * @return A WebClient instance.
    */
   public static WebClient createWebClient(final ApiProperties apiProperties) {
+    return createWebClientBuilder(apiProperties).build();
+  }
+
+  /**
+   * Creates a WebClient instance using the provided configuration properties, applying the given
+   * filter to every request.
+   *
+   * @param apiProperties The configuration properties for the API.
+   * @param filter The filter to apply to every request made by the WebClient.
+   * @return A WebClient instance.
+   */
+  public static WebClient createWebClient(
+      final ApiProperties apiProperties, final ExchangeFilterFunction filter) {
+    return createWebClientBuilder(apiProperties).filter(filter).build();
+  }
+
+  /**
+   * Creates a decoder for bulk submissions only, which normalises their strings as they are read
+   * using the {@link NormalisingDeserialisationModule}. It is registered ahead of the default JSON
+   * decoder, which still reads every other response.
+   */
+  @SuppressWarnings("removal")
+  private static Jackson2JsonDecoder bulkSubmissionDecoder() {
+    final JsonMapper mapper =
+        JsonMapper.builder()
+            .findAndAddModules()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .addModule(new NormalisingDeserialisationModule())
+            .build();
+    return new Jackson2JsonDecoder(mapper) {
+      @Override
+      public boolean canDecode(final ResolvableType elementType, final MimeType mimeType) {
+        return GetBulkSubmission200Response.class.equals(elementType.toClass())
+            && super.canDecode(elementType, mimeType);
+      }
+    };
+  }
+
+  /**
+   * Creates a WebClient builder for a downstream API client, which records the latency and outcome
+   * of every request, counts the requests made to parse bulk submissions and, if enabled,
+   * compresses payloads and records their sizes.
+   */
+  private static WebClient.Builder createWebClientBuilder(
+      final ApiProperties apiProperties,
+      final String client,
+      final EventServiceMetricService eventServiceMetricService,
+      final PayloadCompressionProperties compression) {
+    final WebClient.Builder builder =
+        createWebClientBuilder(apiProperties)
+            .filter(new BulkParsingProfileFilter())
+            .filter(new DownstreamRequestMetricsFilter(client, eventServiceMetricService));
+    if (compression.isEnabled()) {
+      builder
+          .clientConnector(PayloadCompressionFilter.connector(client, eventServiceMetricService))
+          .filter(new PayloadCompressionFilter(client, eventServiceMetricService, compression));
+    }
+    return builder;
+  }
+
+  private static WebClient.Builder createWebClientBuilder(final ApiProperties apiProperties) {
     final ExchangeStrategies strategies =
         ExchangeStrategies.builder()
             .codecs(
@@ -104,7 +252,6 @@ public class WebClientConfiguration {
     return WebClient.builder()
         .baseUrl(apiProperties.getUrl())
         .defaultHeader(apiProperties.getAuthHeader(), apiProperties.getAccessToken())
-        .exchangeStrategies(strategies)
-        .build();
+        .exchangeStrategies(strategies);
   }
 }
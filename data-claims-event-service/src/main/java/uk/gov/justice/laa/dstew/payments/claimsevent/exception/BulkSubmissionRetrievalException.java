@@ -15,4 +15,15 @@ public class BulkSubmissionRetrievalException extends RuntimeException {
   public BulkSubmissionRetrievalException(UUID bulkSubmissionId) {
     super("Bulk submission not retrievable: " + bulkSubmissionId.toString());
   }
+
+  /**
+   * Constructs the exception with the identifier of the bulk submission which could not be read,
+   * and the cause of the failure.
+   *
+   * @param bulkSubmissionId the bulk submission id that could not be retrieved
+   * @param cause the cause of the failure
+   */
+  public BulkSubmissionRetrievalException(UUID bulkSubmissionId, Throwable cause) {
+    super("Bulk submission not retrievable: " + bulkSubmissionId.toString(), cause);
+  }
 }
@@ -0,0 +1,16 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.exception;
+
+/**
+ * Exception thrown when a write request to a downstream API waited too long for the adaptive limit
+ * on write requests to allow it.
+ */
+public class DownstreamWriteRejectedException extends RuntimeException {
+  /**
+   * Creates a new exception with the specified message.
+   *
+   * @param message description of the rejection
+   */
+  public DownstreamWriteRejectedException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,16 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.exception;
+
+/**
+ * Exception thrown when a message cannot wait for its processing lane, as the lane already
+ * occupies every listener thread it is allowed. The message should be returned to the queue.
+ */
+public class LaneFullException extends SubmissionEventProcessingException {
+  /**
+   * Constructs the exception with a description of the lane which is full.
+   *
+   * @param message the description of the problem encountered
+   */
+  public LaneFullException(String message) {
+    super(message);
+  }
+}
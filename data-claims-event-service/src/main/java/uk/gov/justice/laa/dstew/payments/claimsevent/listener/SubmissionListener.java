@@ -6,19 +6,28 @@ import io.awspring.cloud.sqs.annotation.SqsListener;
 import java.util.Optional;
 import java.util.UUID;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 import software.amazon.awssdk.services.sqs.model.Message;
 import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+import uk.gov.justice.laa.dstew.payments.claimsevent.exception.LaneFullException;
 import uk.gov.justice.laa.dstew.payments.claimsevent.exception.SubmissionEventProcessingException;
 import uk.gov.justice.laa.dstew.payments.claimsevent.metrics.EventServiceMetricService;
 import uk.gov.justice.laa.dstew.payments.claimsevent.model.BulkSubmissionMessage;
 import uk.gov.justice.laa.dstew.payments.claimsevent.model.SubmissionEventType;
 import uk.gov.justice.laa.dstew.payments.claimsevent.model.SubmissionValidationMessage;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.AdaptiveConcurrencyLimiter;
 import uk.gov.justice.laa.dstew.payments.claimsevent.service.BulkParsingService;
-import uk.gov.justice.laa.dstew.payments.claimsevent.service.SqsVisibilityExtender;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.ClaimRetryScheduler;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.DistributedBulkParsingCoordinator;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.DistributedClaimValidationCoordinator;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.ParallelSubmissionParsingService;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.SqsVisibilityHeartbeat;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.SubmissionEventIdempotencyRegistry;
 import uk.gov.justice.laa.dstew.payments.claimsevent.service.SubmissionValidationService;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.model.ClaimPageRange;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.model.ClaimRetryTask;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.model.OutcomeRange;
 
 /**
  * Listener for bulk submissions from the Data Claims service.
@@ -34,30 +43,50 @@ import uk.gov.justice.laa.dstew.payments.claimsevent.service.SubmissionValidatio
 @Component
 public class SubmissionListener {
 
+  /** How long a message turned away by a full lane stays invisible before it is redelivered. */
+  static final int LANE_FULL_REDELIVERY_DELAY_SECONDS = 5;
+
+  private final ParallelSubmissionParsingService parallelSubmissionParsingService;
   private final BulkParsingService bulkParsingService;
   private final SubmissionValidationService submissionValidationService;
   private final ObjectMapper objectMapper;
   private final EventServiceMetricService eventServiceMetricService;
-  private final ObjectProvider<SqsVisibilityExtender> sqsVisibilityExtenderProvider;
+  private final SqsVisibilityHeartbeat sqsVisibilityHeartbeat;
+  private final AdaptiveConcurrencyLimiter adaptiveConcurrencyLimiter;
+  private final SubmissionEventIdempotencyRegistry submissionEventIdempotencyRegistry;
 
   /**
    * Construct a new {@code SubmissionListener}.
    *
-   * @param bulkParsingService the service responsible for parsing bulk submissions
+   * @param parallelSubmissionParsingService the service responsible for parsing the submissions of
+   *     a bulk submission
+   * @param bulkParsingService the service responsible for parsing ranges of outcomes of a sharded
+   *     bulk submission
    * @param submissionValidationService the service responsible for validating parsed submissions
    * @param objectMapper object mapper for deserializing event messages
+   * @param sqsVisibilityHeartbeat heartbeat keeping in-flight messages invisible on the queue
+   * @param adaptiveConcurrencyLimiter limiter controlling how many messages, and how many of each
+   *     event type, are processed at once
+   * @param submissionEventIdempotencyRegistry registry of recent events, used to suppress
+   *     redeliveries
    */
   public SubmissionListener(
+      ParallelSubmissionParsingService parallelSubmissionParsingService,
       BulkParsingService bulkParsingService,
       SubmissionValidationService submissionValidationService,
       EventServiceMetricService eventServiceMetricService,
       @Qualifier("submissionEventMapper") ObjectMapper objectMapper,
-      ObjectProvider<SqsVisibilityExtender> sqsVisibilityExtenderProvider) {
+      SqsVisibilityHeartbeat sqsVisibilityHeartbeat,
+      AdaptiveConcurrencyLimiter adaptiveConcurrencyLimiter,
+      SubmissionEventIdempotencyRegistry submissionEventIdempotencyRegistry) {
+    this.parallelSubmissionParsingService = parallelSubmissionParsingService;
     this.bulkParsingService = bulkParsingService;
     this.submissionValidationService = submissionValidationService;
     this.eventServiceMetricService = eventServiceMetricService;
     this.objectMapper = objectMapper;
-    this.sqsVisibilityExtenderProvider = sqsVisibilityExtenderProvider;
+    this.sqsVisibilityHeartbeat = sqsVisibilityHeartbeat;
+    this.adaptiveConcurrencyLimiter = adaptiveConcurrencyLimiter;
+    this.submissionEventIdempotencyRegistry = submissionEventIdempotencyRegistry;
   }
 
   /**
@@ -74,10 +103,22 @@ public class SubmissionListener {
 
     String receiptHandle = message.receiptHandle();
 
-    try (SqsVisibilityExtender extender = sqsVisibilityExtenderProvider.getObject()) {
-      extender.start(receiptHandle);
+    // The message is registered with the heartbeat before waiting for a permit, so it stays
+    // invisible on the queue while the limiter holds it back.
+    try (SqsVisibilityHeartbeat.Registration registration =
+        sqsVisibilityHeartbeat.register(receiptHandle)) {
       SubmissionEventType submissionEventType = getSubmissionEventType(message);
-      processMessageByType(message, submissionEventType);
+      AdaptiveConcurrencyLimiter.Permit permit;
+      try {
+        permit = adaptiveConcurrencyLimiter.acquire(submissionEventType);
+      } catch (LaneFullException ex) {
+        // Frees the listener thread for messages of other types, rather than waiting on it.
+        sqsVisibilityHeartbeat.returnToQueue(receiptHandle, LANE_FULL_REDELIVERY_DELAY_SECONDS);
+        throw ex;
+      }
+      try (permit) {
+        processMessageByType(message, submissionEventType);
+      }
     } catch (SubmissionEventProcessingException | IllegalArgumentException ex) {
       throw ex;
     } catch (Exception ex) {
@@ -111,21 +152,121 @@ public class SubmissionListener {
   }
 
   private void handleSubmissionValidationMessage(Message message) {
+    if (isClaimPageRangeTask(message)) {
+      handleClaimPageRangeMessage(message);
+      return;
+    }
+    if (isClaimRetryTask(message)) {
+      handleClaimRetryMessage(message);
+      return;
+    }
     try {
       SubmissionValidationMessage submissionValidationMessage =
           objectMapper.readValue(message.body(), SubmissionValidationMessage.class);
 
-      log.info(
-          "Received validation request for submission {}",
-          submissionValidationMessage.submissionId());
-      submissionValidationService.validateSubmission(submissionValidationMessage.submissionId());
+      UUID submissionId = submissionValidationMessage.submissionId();
+      log.info("Received validation request for submission {}", submissionId);
+      processOnce(
+          SubmissionEventType.VALIDATE_SUBMISSION,
+          submissionId,
+          message.messageId(),
+          () -> submissionValidationService.validateSubmission(submissionId));
     } catch (JsonProcessingException e) {
       throw new SubmissionEventProcessingException(
           "Unable to read submission validation message", e);
     }
   }
 
+  private static boolean isClaimPageRangeTask(Message message) {
+    return Optional.ofNullable(
+            message
+                .messageAttributes()
+                .get(DistributedClaimValidationCoordinator.VALIDATION_TASK_ATTRIBUTE))
+        .map(MessageAttributeValue::stringValue)
+        .filter(DistributedClaimValidationCoordinator.CLAIM_PAGE_RANGE_TASK::equals)
+        .isPresent();
+  }
+
+  private static boolean isClaimRetryTask(Message message) {
+    return Optional.ofNullable(
+            message.messageAttributes().get(ClaimRetryScheduler.VALIDATION_TASK_ATTRIBUTE))
+        .map(MessageAttributeValue::stringValue)
+        .filter(ClaimRetryScheduler.CLAIM_RETRY_TASK::equals)
+        .isPresent();
+  }
+
+  private void handleClaimRetryMessage(Message message) {
+    try {
+      ClaimRetryTask claimRetryTask = objectMapper.readValue(message.body(), ClaimRetryTask.class);
+
+      log.info(
+          "Received retry {} of {} claims of submission {}",
+          claimRetryTask.attempt(),
+          claimRetryTask.claimIds().size(),
+          claimRetryTask.submissionId());
+      processOnce(
+          SubmissionEventType.VALIDATE_SUBMISSION,
+          claimRetryTask.taskId(),
+          message.messageId(),
+          () -> submissionValidationService.revalidateFlaggedClaims(claimRetryTask));
+    } catch (JsonProcessingException e) {
+      throw new SubmissionEventProcessingException("Unable to read claim retry message", e);
+    }
+  }
+
+  private void handleClaimPageRangeMessage(Message message) {
+    try {
+      ClaimPageRange claimPageRange = objectMapper.readValue(message.body(), ClaimPageRange.class);
+
+      log.info(
+          "Received validation request for claim pages {} to {} of submission {}",
+          claimPageRange.firstPage(),
+          claimPageRange.lastPage(),
+          claimPageRange.submissionId());
+      processOnce(
+          SubmissionEventType.VALIDATE_SUBMISSION,
+          claimPageRange.taskId(),
+          message.messageId(),
+          () -> submissionValidationService.validateClaimPageRange(claimPageRange));
+    } catch (JsonProcessingException e) {
+      throw new SubmissionEventProcessingException("Unable to read claim page range message", e);
+    }
+  }
+
+  private static boolean isOutcomeRangeTask(Message message) {
+    return Optional.ofNullable(
+            message
+                .messageAttributes()
+                .get(DistributedBulkParsingCoordinator.PARSING_TASK_ATTRIBUTE))
+        .map(MessageAttributeValue::stringValue)
+        .filter(DistributedBulkParsingCoordinator.OUTCOME_RANGE_TASK::equals)
+        .isPresent();
+  }
+
+  private void handleOutcomeRangeMessage(Message message) {
+    try {
+      OutcomeRange outcomeRange = objectMapper.readValue(message.body(), OutcomeRange.class);
+
+      log.info(
+          "Received parsing request for outcomes {} to {} of bulk submission {}",
+          outcomeRange.fromIndex(),
+          outcomeRange.toIndex(),
+          outcomeRange.bulkSubmissionId());
+      processOnce(
+          SubmissionEventType.PARSE_BULK_SUBMISSION,
+          outcomeRange.taskId(),
+          message.messageId(),
+          () -> bulkParsingService.parseOutcomeRange(outcomeRange));
+    } catch (JsonProcessingException e) {
+      throw new SubmissionEventProcessingException("Unable to read outcome range message", e);
+    }
+  }
+
   private void handleBulkSubmissionMessage(Message message) {
+    if (isOutcomeRangeTask(message)) {
+      handleOutcomeRangeMessage(message);
+      return;
+    }
     try {
       BulkSubmissionMessage bulkSubmissionMessage =
           objectMapper.readValue(message.body(), BulkSubmissionMessage.class);
@@ -135,17 +276,39 @@ public class SubmissionListener {
           bulkSubmissionMessage.bulkSubmissionId(),
           bulkSubmissionMessage.submissionIds().size());
 
-      // Loop through submission IDs and parse data for each one. NOTE: we do not catch individual
-      // failures any error is caught when parsing the individual submission and it marks the whole
-      // bulk submission as failed, so we want to allow any exception to propagate up and be handled
-      // by the global exception handler which will mark the message as failed and stop it being
-      // retried.
-      for (UUID submissionId : bulkSubmissionMessage.submissionIds()) {
-        bulkParsingService.parseData(bulkSubmissionMessage.bulkSubmissionId(), submissionId);
-      }
+      // A failure propagates so that the message is not acknowledged and is redelivered once its
+      // visibility timeout lapses. The redelivered message skips submissions already parsed and
+      // resumes the rest, creating only the claims which are missing.
+      processOnce(
+          SubmissionEventType.PARSE_BULK_SUBMISSION,
+          bulkSubmissionMessage.bulkSubmissionId(),
+          message.messageId(),
+          () ->
+              parallelSubmissionParsingService.parseSubmissions(
+                  bulkSubmissionMessage.bulkSubmissionId(),
+                  bulkSubmissionMessage.submissionIds()));
     } catch (JsonProcessingException e) {
       throw new SubmissionEventProcessingException(
           "Unable to read parse bulk submission message", e);
     }
   }
+
+  /**
+   * Runs the work for an event, unless the message is a redelivery of one this instance has
+   * recently processed. A message for an event which is already in progress fails, leaving it on
+   * the queue. Failed work is forgotten so that a redelivery can retry it.
+   */
+  private void processOnce(
+      SubmissionEventType eventType, UUID id, String messageId, Runnable work) {
+    if (!submissionEventIdempotencyRegistry.tryBegin(eventType, id, messageId)) {
+      return;
+    }
+    try {
+      work.run();
+    } catch (RuntimeException ex) {
+      submissionEventIdempotencyRegistry.abandon(eventType, id);
+      throw ex;
+    }
+    submissionEventIdempotencyRegistry.complete(eventType, id);
+  }
 }
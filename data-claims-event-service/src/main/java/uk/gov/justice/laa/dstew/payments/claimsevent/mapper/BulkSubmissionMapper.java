@@ -18,6 +18,7 @@ import uk.gov.justice.laa.dstew.payments.claimsdata.model.AreaOfLaw;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.BulkSubmissionMatterStart;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.BulkSubmissionOutcome;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.ClaimPost;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.ClaimResponse;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.ClaimStatus;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.GetBulkSubmission200Response;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.GetBulkSubmission200ResponseDetails;
@@ -233,6 +234,15 @@ public interface BulkSubmissionMapper {
   List<ClaimPost> mapToClaimPosts(
       List<BulkSubmissionOutcome> outcomes, @Context AreaOfLaw areaOfLaw);
 
+  /**
+   * Maps a claim as it was created to a claim as the Claims Data API would return it, so that it
+   * can be validated without being fetched back.
+   *
+   * @param claimPost the claim as it was created
+   * @return the claim, without the ID and status assigned when it was created
+   */
+  ClaimResponse mapToClaimResponse(ClaimPost claimPost);
+
   @Mapping(target = "categoryCode", source = "categoryCode")
   @Mapping(target = "accessPointCode", source = "accessPoint")
   @Mapping(target = "deliveryLocation", source = "deliveryLocation")
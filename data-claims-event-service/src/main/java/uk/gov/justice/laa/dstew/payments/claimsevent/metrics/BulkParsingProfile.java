@@ -0,0 +1,199 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.metrics;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * The time spent in each phase of parsing a single bulk submission, and the HTTP calls made and
+ * bytes transferred while doing so.
+ *
+ * <p>A profile is made current on the thread parsing the bulk submission, and is carried onto the
+ * threads creating its claims and matter starts by {@link #propagate}. The HTTP calls of any thread
+ * with a current profile are counted against it by {@link BulkParsingProfileFilter}. Phases run
+ * concurrently on several threads add up their time, so a phase may take longer than the parse.
+ */
+public final class BulkParsingProfile {
+
+  /** Fetching the bulk submission, including reading streamed outcomes. */
+  public static final String FETCH = "fetch";
+
+  /** Normalising the strings of the bulk submission. */
+  public static final String NORMALISE = "normalise";
+
+  /** Mapping the bulk submission to a submission, claims and matter starts. */
+  public static final String MAP = "map";
+
+  /** Creating the submission. */
+  public static final String CREATE_SUBMISSION = "create_submission";
+
+  /** Finding the claims an earlier attempt already created, when resuming a submission. */
+  public static final String RESUME = "resume";
+
+  /** Creating the claims. */
+  public static final String CLAIMS = "claims";
+
+  /** Checking the submission before its claims are created, and the claims held for validation. */
+  public static final String VALIDATE = "validate";
+
+  /** Creating the matter starts. */
+  public static final String MATTER_STARTS = "matter_starts";
+
+  /** Updating the status of the submission and bulk submission. */
+  public static final String STATUS_UPDATES = "status_updates";
+
+  private static final ThreadLocal<BulkParsingProfile> CURRENT = new ThreadLocal<>();
+
+  private final Map<String, LongAdder> phaseNanos = new ConcurrentHashMap<>();
+  private final LongAdder httpCalls = new LongAdder();
+  private final LongAdder bytesSent = new LongAdder();
+  private final LongAdder bytesReceived = new LongAdder();
+
+  /**
+   * Returns the profile of the bulk submission being parsed on this thread.
+   *
+   * @return the current profile, or {@code null} if none is being parsed
+   */
+  public static BulkParsingProfile current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Wraps a task so that it runs with the profile current on this thread, if any.
+   *
+   * @param task the task to wrap
+   * @return a task which makes the profile current while it runs
+   */
+  public static <T> Callable<T> propagate(Callable<T> task) {
+    BulkParsingProfile profile = current();
+    if (profile == null) {
+      return task;
+    }
+    return () -> {
+      try (Scope scope = profile.activate()) {
+        return task.call();
+      }
+    };
+  }
+
+  /**
+   * Runs some work, adding the time it takes to a phase of the profile current on this thread, if
+   * any.
+   *
+   * @param phase the phase the work belongs to
+   * @param work the work to run
+   * @return the result of the work
+   */
+  public static <T> T timeCurrent(String phase, Supplier<T> work) {
+    BulkParsingProfile profile = current();
+    return profile != null ? profile.time(phase, work) : work.get();
+  }
+
+  /**
+   * Makes this profile current on this thread until the returned scope is closed.
+   *
+   * @return a scope which restores the previous profile once closed
+   */
+  public Scope activate() {
+    BulkParsingProfile previous = CURRENT.get();
+    CURRENT.set(this);
+    return new Scope(previous);
+  }
+
+  /**
+   * Runs some work, adding the time it takes to a phase.
+   *
+   * @param phase the phase the work belongs to
+   * @param work the work to run
+   * @return the result of the work
+   */
+  public <T> T time(String phase, Supplier<T> work) {
+    long startNanos = System.nanoTime();
+    try {
+      return work.get();
+    } finally {
+      addNanos(phase, System.nanoTime() - startNanos);
+    }
+  }
+
+  /**
+   * Runs some work, adding the time it takes to a phase.
+   *
+   * @param phase the phase the work belongs to
+   * @param work the work to run
+   */
+  public void time(String phase, Runnable work) {
+    time(
+        phase,
+        () -> {
+          work.run();
+          return null;
+        });
+  }
+
+  /**
+   * Adds time to a phase.
+   *
+   * @param phase the phase
+   * @param nanos the time to add, in nanoseconds
+   */
+  public void addNanos(String phase, long nanos) {
+    phaseNanos.computeIfAbsent(phase, key -> new LongAdder()).add(nanos);
+  }
+
+  /**
+   * Returns the time spent in each phase which has been timed.
+   *
+   * @return the time spent in each phase, in seconds
+   */
+  public Map<String, Double> getPhaseSeconds() {
+    Map<String, Double> seconds = new ConcurrentHashMap<>();
+    phaseNanos.forEach((phase, nanos) -> seconds.put(phase, nanos.sum() / 1_000_000_000d));
+    return seconds;
+  }
+
+  void recordHttpCall() {
+    httpCalls.increment();
+  }
+
+  void recordBytesSent(long bytes) {
+    bytesSent.add(bytes);
+  }
+
+  void recordBytesReceived(long bytes) {
+    bytesReceived.add(bytes);
+  }
+
+  public long getHttpCalls() {
+    return httpCalls.sum();
+  }
+
+  public long getBytesSent() {
+    return bytesSent.sum();
+  }
+
+  public long getBytesReceived() {
+    return bytesReceived.sum();
+  }
+
+  /** Restores the profile which was current before a profile was activated. */
+  public static final class Scope implements AutoCloseable {
+
+    private final BulkParsingProfile previous;
+
+    private Scope(BulkParsingProfile previous) {
+      this.previous = previous;
+    }
+
+    @Override
+    public void close() {
+      if (previous == null) {
+        CURRENT.remove();
+      } else {
+        CURRENT.set(previous);
+      }
+    }
+  }
+}
@@ -0,0 +1,62 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.metrics;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.client.reactive.ClientHttpRequestDecorator;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link ExchangeFilterFunction} which counts each request made while a bulk submission is being
+ * parsed, and the bytes of its body and response, against the {@link BulkParsingProfile} of that
+ * bulk submission.
+ *
+ * <p>The profile is looked up on the thread making the request, so this filter must come before
+ * any filter which may carry on with the request on another thread. Bytes are counted as the
+ * payloads are written and read, before compression and after decompression.
+ */
+public class BulkParsingProfileFilter implements ExchangeFilterFunction {
+
+  @Override
+  public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+    BulkParsingProfile profile = BulkParsingProfile.current();
+    if (profile == null) {
+      return next.exchange(request);
+    }
+    profile.recordHttpCall();
+    ClientRequest counting =
+        ClientRequest.from(request)
+            .body(
+                (outputMessage, context) ->
+                    request
+                        .body()
+                        .insert(
+                            new ClientHttpRequestDecorator(outputMessage) {
+                              @Override
+                              public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                                return super.writeWith(
+                                    Flux.from(body)
+                                        .doOnNext(
+                                            buffer ->
+                                                profile.recordBytesSent(
+                                                    buffer.readableByteCount())));
+                              }
+                            },
+                            context))
+            .build();
+    return next.exchange(counting)
+        .map(
+            response ->
+                response
+                    .mutate()
+                    .body(
+                        body ->
+                            body.doOnNext(
+                                buffer -> profile.recordBytesReceived(buffer.readableByteCount())))
+                    .build());
+  }
+}
@@ -0,0 +1,12 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.metrics;
+
+/**
+ * Cumulative totals for requests made to downstream APIs, taken at a single point in time.
+ * Differences between two samples give the request volume, average latency and error rate for the
+ * period between them.
+ *
+ * @param requestCount total number of downstream requests completed
+ * @param totalSeconds total time spent waiting on downstream requests, in seconds
+ * @param errorCount total number of downstream requests which failed
+ */
+public record DownstreamLoadSample(long requestCount, double totalSeconds, long errorCount) {}
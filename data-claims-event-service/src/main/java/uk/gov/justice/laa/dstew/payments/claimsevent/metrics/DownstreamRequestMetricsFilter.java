@@ -0,0 +1,56 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.metrics;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link ExchangeFilterFunction} which records the latency and outcome of every request made by a
+ * downstream API client.
+ *
+ * <p>A request is counted as failed when it errors without a response, or when the downstream API
+ * responds with a server error or {@code 429 Too Many Requests}. Client errors such as {@code 404}
+ * are expected responses and are not treated as a sign of the downstream API struggling.
+ */
+public class DownstreamRequestMetricsFilter implements ExchangeFilterFunction {
+
+  private final String client;
+  private final EventServiceMetricService eventServiceMetricService;
+
+  /**
+   * Constructs a new {@code DownstreamRequestMetricsFilter}.
+   *
+   * @param client the name of the downstream API client, used to label the recorded metrics
+   * @param eventServiceMetricService the service used to record downstream request metrics
+   */
+  public DownstreamRequestMetricsFilter(
+      String client, EventServiceMetricService eventServiceMetricService) {
+    this.client = client;
+    this.eventServiceMetricService = eventServiceMetricService;
+  }
+
+  @Override
+  public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+    return Mono.defer(
+        () -> {
+          long startNanos = System.nanoTime();
+          return next.exchange(request)
+              .doOnSuccess(response -> record(startNanos, isFailure(response)))
+              .doOnError(ex -> record(startNanos, true));
+        });
+  }
+
+  private void record(long startNanos, boolean failed) {
+    double durationSeconds = (System.nanoTime() - startNanos) / 1_000_000_000d;
+    eventServiceMetricService.recordDownstreamRequest(client, durationSeconds, failed);
+  }
+
+  private static boolean isFailure(ClientResponse response) {
+    return response == null
+        || response.statusCode().is5xxServerError()
+        || response.statusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS);
+  }
+}
@@ -1,7 +1,11 @@
 package uk.gov.justice.laa.dstew.payments.claimsevent.metrics;
 
 import io.prometheus.metrics.core.metrics.Counter;
+import io.prometheus.metrics.core.metrics.Gauge;
+import io.prometheus.metrics.core.metrics.Histogram;
 import io.prometheus.metrics.core.metrics.Summary;
+import io.prometheus.metrics.model.snapshots.CounterSnapshot.CounterDataPointSnapshot;
+import io.prometheus.metrics.model.snapshots.SummarySnapshot.SummaryDataPointSnapshot;
 import io.prometheus.metrics.model.registry.PrometheusRegistry;
 import java.util.HashMap;
 import java.util.Objects;
@@ -12,6 +16,9 @@ import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Component;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.ValidationMessagePatch;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.ValidationMessageType;
+import uk.gov.justice.laa.dstew.payments.claimsevent.model.SubmissionEventType;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.model.SubmissionParsingOutcome;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.model.SubmissionSizeClass;
 
 /**
  * Service for publishing metrics to Prometheus.
@@ -34,6 +41,36 @@ public class EventServiceMetricService {
 
   private final Counter warningTypeCounter;
   private final Counter errorTypeCounter;
+  private final Counter submissionParsingOutcomeCounter;
+  private final Counter downstreamRequestErrorCounter;
+  private final Counter redeliveriesSuppressedCounter;
+  private final Counter claimValidationPagesResumedCounter;
+  private final Counter claimsAlreadyValidatedCounter;
+  private final Counter claimsValidatedFromParsingCounter;
+  private final Counter submissionsRejectedBeforeClaimsCounter;
+  private final Counter listenerBackpressureEventCounter;
+  private final Counter listenerThrottledSecondsCounter;
+  private final Counter claimValidationTasksCounter;
+  private final Counter bulkParsingShardsCounter;
+  private final Counter claimRetriesCounter;
+  private final Counter claimCreationsCancelledCounter;
+  private final Counter claimCreationBatchesCounter;
+  private final Counter claimCreationRetriesCounter;
+  private final Counter downstreamWriteRejectionsCounter;
+  private final Counter downstreamBytesCounter;
+
+  private final Gauge listenerConcurrencyLimitGauge;
+  private final Gauge laneInFlightMessagesGauge;
+  private final Gauge laneActiveMessagesGauge;
+  private final Gauge officeQueueDepthGauge;
+  private final Gauge officesWaitingGauge;
+  private final Gauge listenerPausedGauge;
+  private final Gauge downstreamWriteLimitGauge;
+  private final Gauge downstreamWritesInFlightGauge;
+
+  private final Histogram bulkParsingPhaseHistogram;
+  private final Histogram bulkParsingHttpCallsHistogram;
+  private final Histogram bulkParsingBytesHistogram;
 
   private final Summary fileParsingSummary;
   private final HashMap<UUID, TimerLifecycle> fileParsingTimers;
@@ -43,6 +80,10 @@ public class EventServiceMetricService {
   private final HashMap<UUID, TimerLifecycle> claimValidationTimers;
   private final Summary fspValidationTimeSummary;
   private final HashMap<UUID, TimerLifecycle> fspValidationTimers;
+  private final Summary downstreamRequestTimeSummary;
+  private final Summary laneWaitTimeSummary;
+  private final Summary officeWaitTimeSummary;
+  private final Summary submissionLatencySummary;
 
   private static final String METRIC_NAMESPACE = "claims_event_service_";
 
@@ -105,6 +146,169 @@ public class EventServiceMetricService {
             .help("Different types of warning messages found by the event service")
             .labelNames("error_source", "type", "message")
             .register(meterRegistry);
+    this.submissionParsingOutcomeCounter =
+        Counter.builder()
+            .name(METRIC_NAMESPACE + "submission_parsing_outcomes")
+            .help("Outcome of parsing each submission within a bulk submission message")
+            .labelNames("outcome")
+            .register(meterRegistry);
+    this.downstreamRequestErrorCounter =
+        Counter.builder()
+            .name(METRIC_NAMESPACE + "downstream_request_errors")
+            .help("Total number of failed requests to downstream APIs")
+            .labelNames("client")
+            .register(meterRegistry);
+    this.redeliveriesSuppressedCounter =
+        Counter.builder()
+            .name(METRIC_NAMESPACE + "redeliveries_suppressed")
+            .help("Total number of redelivered messages skipped because the work was already done")
+            .labelNames("event_type", "reason")
+            .register(meterRegistry);
+    this.claimValidationPagesResumedCounter =
+        Counter.builder()
+            .name(METRIC_NAMESPACE + "claim_validation_pages_resumed")
+            .help("Total number of claim pages skipped by resuming validation from a checkpoint")
+            .register(meterRegistry);
+    this.claimsAlreadyValidatedCounter =
+        Counter.builder()
+            .name(METRIC_NAMESPACE + "claims_already_validated")
+            .help("Total number of claims skipped because they were no longer ready to process")
+            .register(meterRegistry);
+    this.claimsValidatedFromParsingCounter =
+        Counter.builder()
+            .name(METRIC_NAMESPACE + "claims_validated_from_parsing")
+            .help("Total number of claims validated as held from parsing, without being fetched")
+            .register(meterRegistry);
+    this.submissionsRejectedBeforeClaimsCounter =
+        Counter.builder()
+            .name(METRIC_NAMESPACE + "submissions_rejected_before_claims")
+            .help("Total number of submissions failed by checks run before creating their claims")
+            .register(meterRegistry);
+    this.listenerBackpressureEventCounter =
+        Counter.builder()
+            .name(METRIC_NAMESPACE + "listener_backpressure_events")
+            .help("Total number of times processing was paused or resumed due to heap pressure")
+            .labelNames("action")
+            .register(meterRegistry);
+    this.claimValidationTasksCounter =
+        Counter.builder()
+            .name(METRIC_NAMESPACE + "claim_validation_tasks")
+            .help("Total number of tasks validating a range of claims from a large submission")
+            .labelNames("action")
+            .register(meterRegistry);
+    this.bulkParsingShardsCounter =
+        Counter.builder()
+            .name(METRIC_NAMESPACE + "bulk_parsing_shards")
+            .help("Total number of tasks parsing a range of outcomes from a large bulk submission")
+            .labelNames("action")
+            .register(meterRegistry);
+    this.claimRetriesCounter =
+        Counter.builder()
+            .name(METRIC_NAMESPACE + "claim_retries")
+            .help("Total number of claims flagged for retry and validated again on their own")
+            .labelNames("action")
+            .register(meterRegistry);
+    this.claimCreationsCancelledCounter =
+        Counter.builder()
+            .name(METRIC_NAMESPACE + "claim_creations_cancelled")
+            .help("Total number of claim creations cancelled after another claim failed")
+            .register(meterRegistry);
+    this.claimCreationBatchesCounter =
+        Counter.builder()
+            .name(METRIC_NAMESPACE + "claim_creation_batches")
+            .help("Total number of batches of claims created in a single request")
+            .labelNames("action")
+            .register(meterRegistry);
+    this.claimCreationRetriesCounter =
+        Counter.builder()
+            .name(METRIC_NAMESPACE + "claim_creation_retries")
+            .help("Total number of claim creations retried after a transient error")
+            .labelNames("action")
+            .register(meterRegistry);
+    this.downstreamWriteRejectionsCounter =
+        Counter.builder()
+            .name(METRIC_NAMESPACE + "downstream_write_rejections")
+            .help("Total number of downstream write requests rejected by the adaptive limit")
+            .labelNames("client")
+            .register(meterRegistry);
+    this.downstreamBytesCounter =
+        Counter.builder()
+            .name(METRIC_NAMESPACE + "downstream_bytes")
+            .help("Total bytes of payloads exchanged with downstream APIs")
+            .labelNames("client", "direction", "stage")
+            .register(meterRegistry);
+    this.listenerThrottledSecondsCounter =
+        Counter.builder()
+            .name(METRIC_NAMESPACE + "listener_throttled_seconds")
+            .help("Total time message processing has been paused due to heap pressure, in seconds")
+            .register(meterRegistry);
+
+    this.listenerConcurrencyLimitGauge =
+        Gauge.builder()
+            .name(METRIC_NAMESPACE + "listener_concurrency_limit")
+            .help("Current number of queue messages allowed to be processed at once")
+            .register(meterRegistry);
+    this.laneInFlightMessagesGauge =
+        Gauge.builder()
+            .name(METRIC_NAMESPACE + "lane_in_flight_messages")
+            .help("Number of messages held by each processing lane, including those waiting")
+            .labelNames("event_type")
+            .register(meterRegistry);
+    this.laneActiveMessagesGauge =
+        Gauge.builder()
+            .name(METRIC_NAMESPACE + "lane_active_messages")
+            .help("Number of messages currently being processed by each processing lane")
+            .labelNames("event_type")
+            .register(meterRegistry);
+    this.officeQueueDepthGauge =
+        Gauge.builder()
+            .name(METRIC_NAMESPACE + "office_queue_depth")
+            .help("Number of submissions waiting for their office's turn to be validated")
+            .register(meterRegistry);
+    this.officesWaitingGauge =
+        Gauge.builder()
+            .name(METRIC_NAMESPACE + "offices_waiting")
+            .help("Number of offices with submissions waiting for their turn to be validated")
+            .register(meterRegistry);
+    this.listenerPausedGauge =
+        Gauge.builder()
+            .name(METRIC_NAMESPACE + "listener_paused")
+            .help("Whether message processing is currently paused due to heap pressure")
+            .register(meterRegistry);
+    this.downstreamWriteLimitGauge =
+        Gauge.builder()
+            .name(METRIC_NAMESPACE + "downstream_write_limit")
+            .help("Current number of write requests allowed in flight to each downstream API")
+            .labelNames("client")
+            .register(meterRegistry);
+    this.downstreamWritesInFlightGauge =
+        Gauge.builder()
+            .name(METRIC_NAMESPACE + "downstream_writes_in_flight")
+            .help("Number of write requests currently in flight to each downstream API")
+            .labelNames("client")
+            .register(meterRegistry);
+
+    this.bulkParsingPhaseHistogram =
+        Histogram.builder()
+            .name(METRIC_NAMESPACE + "bulk_parsing_phase_seconds")
+            .help("Time taken by each phase of parsing a bulk submission")
+            .labelNames("phase", "area_of_law", "claims")
+            .classicUpperBounds(0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 120, 300, 600)
+            .register(meterRegistry);
+    this.bulkParsingHttpCallsHistogram =
+        Histogram.builder()
+            .name(METRIC_NAMESPACE + "bulk_parsing_http_calls")
+            .help("Number of HTTP calls made to parse each bulk submission")
+            .labelNames("area_of_law", "claims")
+            .classicUpperBounds(5, 10, 50, 100, 500, 1_000, 5_000, 10_000, 50_000, 100_000)
+            .register(meterRegistry);
+    this.bulkParsingBytesHistogram =
+        Histogram.builder()
+            .name(METRIC_NAMESPACE + "bulk_parsing_bytes")
+            .help("Bytes sent and received over HTTP to parse each bulk submission")
+            .labelNames("direction", "area_of_law", "claims")
+            .classicExponentialUpperBounds(1024, 4, 10)
+            .register(meterRegistry);
 
     this.fileParsingSummary =
         Summary.builder()
@@ -146,6 +350,45 @@ public class EventServiceMetricService {
             .quantile(0.99, 0.001) // P99 with 0.1% error tolerance
             .register(meterRegistry);
     this.fspValidationTimers = new HashMap<>();
+    this.downstreamRequestTimeSummary =
+        Summary.builder()
+            .name(METRIC_NAMESPACE + "downstream_request_time")
+            .help("Time taken for downstream APIs to respond to a request")
+            .labelNames("client")
+            .quantile(0.5, 0.05) // P50 with 5% error tolerance
+            .quantile(0.9, 0.02) // P90 with 2% error tolerance
+            .quantile(0.95, 0.01) // P95 with 1% error tolerance
+            .quantile(0.99, 0.001) // P99 with 0.1% error tolerance
+            .register(meterRegistry);
+    this.laneWaitTimeSummary =
+        Summary.builder()
+            .name(METRIC_NAMESPACE + "lane_wait_time")
+            .help("Time messages spent waiting for a free slot in their processing lane")
+            .labelNames("event_type")
+            .quantile(0.5, 0.05) // P50 with 5% error tolerance
+            .quantile(0.9, 0.02) // P90 with 2% error tolerance
+            .quantile(0.95, 0.01) // P95 with 1% error tolerance
+            .quantile(0.99, 0.001) // P99 with 0.1% error tolerance
+            .register(meterRegistry);
+    this.officeWaitTimeSummary =
+        Summary.builder()
+            .name(METRIC_NAMESPACE + "office_wait_time")
+            .help("Time submissions spent waiting for their office's turn to be validated")
+            .quantile(0.5, 0.05) // P50 with 5% error tolerance
+            .quantile(0.9, 0.02) // P90 with 2% error tolerance
+            .quantile(0.95, 0.01) // P95 with 1% error tolerance
+            .quantile(0.99, 0.001) // P99 with 0.1% error tolerance
+            .register(meterRegistry);
+    this.submissionLatencySummary =
+        Summary.builder()
+            .name(METRIC_NAMESPACE + "submission_latency")
+            .help("Time taken to validate a submission, including any wait, by size class")
+            .labelNames("size_class")
+            .quantile(0.5, 0.05) // P50 with 5% error tolerance
+            .quantile(0.9, 0.02) // P90 with 2% error tolerance
+            .quantile(0.95, 0.01) // P95 with 1% error tolerance
+            .quantile(0.99, 0.001) // P99 with 0.1% error tolerance
+            .register(meterRegistry);
   }
 
   /**
@@ -232,6 +475,318 @@ public class EventServiceMetricService {
     }
   }
 
+  /**
+   * Records the outcome of parsing a single submission belonging to a bulk submission message.
+   *
+   * @param outcome the outcome of parsing the submission
+   */
+  public void recordSubmissionParsingOutcome(SubmissionParsingOutcome outcome) {
+    submissionParsingOutcomeCounter.labelValues(outcome.getLabel()).inc();
+  }
+
+  /**
+   * Records a completed request to a downstream API.
+   *
+   * @param client the name of the downstream API client
+   * @param durationSeconds the time taken for the downstream API to respond, in seconds
+   * @param failed whether the request failed
+   */
+  public void recordDownstreamRequest(String client, double durationSeconds, boolean failed) {
+    downstreamRequestTimeSummary.labelValues(client).observe(durationSeconds);
+    if (failed) {
+      downstreamRequestErrorCounter.labelValues(client).inc();
+    }
+  }
+
+  /**
+   * Takes a sample of the cumulative downstream request totals across all clients.
+   *
+   * @return the current downstream request totals
+   */
+  public DownstreamLoadSample sampleDownstreamLoad() {
+    long requestCount = 0;
+    double totalSeconds = 0;
+    for (SummaryDataPointSnapshot dataPoint :
+        downstreamRequestTimeSummary.collect().getDataPoints()) {
+      requestCount += dataPoint.getCount();
+      totalSeconds += dataPoint.getSum();
+    }
+    double errorCount = 0;
+    for (CounterDataPointSnapshot dataPoint :
+        downstreamRequestErrorCounter.collect().getDataPoints()) {
+      errorCount += dataPoint.getValue();
+    }
+    return new DownstreamLoadSample(requestCount, totalSeconds, (long) errorCount);
+  }
+
+  /**
+   * Sets the number of queue messages currently allowed to be processed at once.
+   *
+   * @param limit the current listener concurrency limit
+   */
+  public void setListenerConcurrencyLimit(int limit) {
+    listenerConcurrencyLimitGauge.set(limit);
+  }
+
+  /**
+   * Records the number of messages held and being processed by a processing lane.
+   *
+   * @param eventType the event type of the lane
+   * @param inFlight the number of messages held by the lane, including those waiting
+   * @param active the number of messages being processed by the lane
+   */
+  public void setLaneOccupancy(SubmissionEventType eventType, int inFlight, int active) {
+    laneInFlightMessagesGauge.labelValues(eventType.name()).set(inFlight);
+    laneActiveMessagesGauge.labelValues(eventType.name()).set(active);
+  }
+
+  /**
+   * Records the time a message waited for a free slot in its processing lane.
+   *
+   * @param eventType the event type of the lane
+   * @param waitSeconds the time spent waiting, in seconds
+   */
+  public void recordLaneWaitTime(SubmissionEventType eventType, double waitSeconds) {
+    laneWaitTimeSummary.labelValues(eventType.name()).observe(waitSeconds);
+  }
+
+
+  /**
+   * Increments the suppressed redeliveries counter. Should be called when a message is skipped
+   * because the work it asks for is already in progress or complete.
+   *
+   * @param eventType the event type of the message
+   * @param reason why the message was skipped
+   */
+  public void incrementRedeliveriesSuppressed(SubmissionEventType eventType, String reason) {
+    redeliveriesSuppressedCounter.labelValues(eventType.name(), reason).inc();
+  }
+
+  /**
+   * Increments the resumed claim validation pages counter. Should be called when validation of a
+   * submission resumes from a checkpoint rather than from the first page.
+   *
+   * @param pages the number of pages skipped
+   */
+  public void incrementClaimValidationPagesResumed(int pages) {
+    claimValidationPagesResumedCounter.inc(pages);
+  }
+
+  /**
+   * Increments the already validated claims counter. Should be called when a claim is skipped
+   * because an earlier attempt has already moved it out of {@code READY_TO_PROCESS}.
+   *
+   * @param claims the number of claims skipped
+   */
+  public void incrementClaimsAlreadyValidated(int claims) {
+    claimsAlreadyValidatedCounter.inc(claims);
+  }
+
+  /**
+   * Increments the number of claims validated as they were held from parsing their submission.
+   *
+   * @param claims the number of claims validated without being fetched
+   */
+  public void incrementClaimsValidatedFromParsing(int claims) {
+    claimsValidatedFromParsingCounter.inc(claims);
+  }
+
+  /** Increments the number of submissions failed by checks run before creating their claims. */
+  public void incrementSubmissionsRejectedBeforeClaims() {
+    submissionsRejectedBeforeClaimsCounter.inc();
+  }
+
+  /**
+   * Sets the number of submissions waiting for their office's turn to be validated, and the number
+   * of offices they are from.
+   *
+   * @param depth the number of submissions waiting
+   * @param offices the number of offices with submissions waiting
+   */
+  public void setOfficeQueueDepth(int depth, int offices) {
+    officeQueueDepthGauge.set(depth);
+    officesWaitingGauge.set(offices);
+  }
+
+  /**
+   * Records how long a submission waited for its office's turn to be validated.
+   *
+   * @param waitSeconds the time spent waiting, in seconds
+   */
+  public void recordOfficeWaitTime(double waitSeconds) {
+    officeWaitTimeSummary.observe(waitSeconds);
+  }
+
+  /**
+   * Records how long a submission took to validate, from when it started waiting for a slot.
+   *
+   * @param sizeClass the size class of the submission
+   * @param latencySeconds the time taken, in seconds
+   */
+  public void recordSubmissionLatency(SubmissionSizeClass sizeClass, double latencySeconds) {
+    submissionLatencySummary.labelValues(sizeClass.getLabel()).observe(latencySeconds);
+  }
+
+  /**
+   * Records message processing being paused or resumed due to heap pressure.
+   *
+   * @param action either {@code pause} or {@code resume}
+   */
+  public void recordListenerBackpressureEvent(String action) {
+    listenerBackpressureEventCounter.labelValues(action).inc();
+  }
+
+  /**
+   * Adds to the total time message processing has been paused due to heap pressure.
+   *
+   * @param seconds the time paused since it was last recorded, in seconds
+   */
+  public void incrementListenerThrottledTime(double seconds) {
+    listenerThrottledSecondsCounter.inc(seconds);
+  }
+
+  /**
+   * Sets whether message processing is currently paused due to heap pressure.
+   *
+   * @param paused whether message processing is paused
+   */
+  public void setListenerPaused(boolean paused) {
+    listenerPausedGauge.set(paused ? 1 : 0);
+  }
+
+  /**
+   * Records tasks validating a range of claims from a large submission.
+   *
+   * @param action either {@code enqueued}, {@code completed} or {@code retried}
+   * @param count the number of tasks
+   */
+  public void recordClaimValidationTasks(String action, int count) {
+    claimValidationTasksCounter.labelValues(action).inc(count);
+  }
+
+  /**
+   * Records tasks parsing a range of outcomes from a large bulk submission.
+   *
+   * @param action either {@code enqueued}, {@code completed} or {@code failed}
+   * @param count the number of tasks
+   */
+  public void recordBulkParsingShards(String action, int count) {
+    bulkParsingShardsCounter.labelValues(action).inc(count);
+  }
+
+  /**
+   * Records claims flagged for retry after a transient error.
+   *
+   * @param action either {@code scheduled}, {@code recovered} or {@code exhausted}
+   * @param count the number of claims
+   */
+  public void recordClaimRetries(String action, int count) {
+    claimRetriesCounter.labelValues(action).inc(count);
+  }
+
+  /**
+   * Records claim creations which were cancelled, or never started, because another claim in the
+   * same submission could not be created.
+   *
+   * @param count the number of claim creations cancelled
+   */
+  public void recordClaimCreationsCancelled(int count) {
+    claimCreationsCancelledCounter.inc(count);
+  }
+
+  /**
+   * Records batches of claims created in a single request.
+   *
+   * @param action either {@code created}, or {@code fallback} when bulk creation is unavailable
+   * @param count the number of batches
+   */
+  public void recordClaimCreationBatches(String action, int count) {
+    claimCreationBatchesCounter.labelValues(action).inc(count);
+  }
+
+  /**
+   * Records claim creations retried after a transient error.
+   *
+   * @param action {@code retried} for each retry, then {@code recovered} if the claim was created
+   *     or {@code failed} if it was not
+   */
+  public void recordClaimCreationRetries(String action) {
+    claimCreationRetriesCounter.labelValues(action).inc();
+  }
+
+  /**
+   * Records the adaptive limit on write requests to a downstream API, and how many are in flight.
+   *
+   * @param client the name of the downstream API client
+   * @param limit the number of write requests currently allowed in flight
+   * @param inFlight the number of write requests currently in flight
+   */
+  public void setDownstreamWriteLimit(String client, int limit, int inFlight) {
+    downstreamWriteLimitGauge.labelValues(client).set(limit);
+    downstreamWritesInFlightGauge.labelValues(client).set(inFlight);
+  }
+
+  /**
+   * Increments the downstream write rejections counter. Should be called when a write request
+   * waited too long for the adaptive limit to allow it.
+   *
+   * @param client the name of the downstream API client
+   */
+  public void incrementDownstreamWriteRejections(String client) {
+    downstreamWriteRejectionsCounter.labelValues(client).inc();
+  }
+
+  /**
+   * Records the size of a payload exchanged with a downstream API.
+   *
+   * @param client the name of the downstream API client
+   * @param direction {@code sent} for request bodies or {@code received} for response bodies
+   * @param stage {@code before_compression} for the size of the payload itself, or {@code
+   *     after_compression} for its size as transferred
+   * @param bytes the number of bytes
+   */
+  public void recordDownstreamBytes(String client, String direction, String stage, long bytes) {
+    downstreamBytesCounter.labelValues(client, direction, stage).inc(bytes);
+  }
+
+  /**
+   * Records the time spent in each phase of parsing a bulk submission, and the HTTP calls made and
+   * bytes transferred while doing so.
+   *
+   * @param profile the profile of the bulk submission
+   * @param areaOfLaw the area of law of the bulk submission, if known
+   * @param numberOfClaims the number of claims in the bulk submission
+   */
+  public void recordBulkParsingProfile(
+      BulkParsingProfile profile, String areaOfLaw, int numberOfClaims) {
+    String area = areaOfLaw != null ? areaOfLaw : "unknown";
+    String claims = claimCountBucket(numberOfClaims);
+    profile
+        .getPhaseSeconds()
+        .forEach(
+            (phase, seconds) ->
+                bulkParsingPhaseHistogram.labelValues(phase, area, claims).observe(seconds));
+    bulkParsingHttpCallsHistogram.labelValues(area, claims).observe(profile.getHttpCalls());
+    bulkParsingBytesHistogram.labelValues("sent", area, claims).observe(profile.getBytesSent());
+    bulkParsingBytesHistogram
+        .labelValues("received", area, claims)
+        .observe(profile.getBytesReceived());
+  }
+
+  /** Buckets a number of claims by order of magnitude, to keep the number of label values low. */
+  static String claimCountBucket(int numberOfClaims) {
+    if (numberOfClaims <= 0) {
+      return "0";
+    } else if (numberOfClaims <= 100) {
+      return "1-100";
+    } else if (numberOfClaims <= 1_000) {
+      return "101-1000";
+    } else if (numberOfClaims <= 10_000) {
+      return "1001-10000";
+    }
+    return "10001+";
+  }
+
   private void incrementWarningType(String source, String type, String warningType) {
     warningTypeCounter.labelValues(source, type, warningType).inc();
   }
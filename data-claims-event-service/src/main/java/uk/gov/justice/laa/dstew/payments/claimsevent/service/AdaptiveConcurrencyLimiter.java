@@ -0,0 +1,378 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import uk.gov.justice.laa.dstew.payments.claimsevent.config.SubmissionEventLaneProperties;
+import uk.gov.justice.laa.dstew.payments.claimsevent.exception.LaneFullException;
+import uk.gov.justice.laa.dstew.payments.claimsevent.exception.SubmissionEventProcessingException;
+import uk.gov.justice.laa.dstew.payments.claimsevent.metrics.DownstreamLoadSample;
+import uk.gov.justice.laa.dstew.payments.claimsevent.metrics.EventServiceMetricService;
+import uk.gov.justice.laa.dstew.payments.claimsevent.model.SubmissionEventType;
+
+/**
+ * Limits how many queue messages are processed at once, adapting the limit to how the downstream
+ * APIs are coping.
+ *
+ * <p>The limit is adjusted on a fixed interval using additive-increase/multiplicative-decrease.
+ * The downstream request totals recorded by {@link EventServiceMetricService} are sampled, and the
+ * average latency and error rate since the previous sample are compared against:
+ *
+ * <ul>
+ *   <li>an error rate threshold, and
+ *   <li>a slowly moving baseline latency multiplied by a tolerance.
+ * </ul>
+ *
+ * <p>If either is exceeded the limit is reduced by the backoff ratio. Otherwise, if messages had
+ * to wait for a permit since the previous adjustment, the limit is increased by one. The limit
+ * starts at, and never exceeds, the maximum, which should match the listener container's {@code
+ * max-concurrent-messages} so that the container never holds more messages than can be processed.
+ *
+ * <p>When disabled, the limit is neither applied nor adjusted, and the container's own concurrency
+ * settings are the only limit.
+ *
+ * <p>Each {@link SubmissionEventType} can also be given a lane, limiting how many messages of that
+ * type are processed at once whether or not the adaptive limit is enabled. A long running
+ * validation then cannot hold every listener thread while short parse jobs wait behind it. A
+ * message waiting for its lane or the limit stays on the listener thread, kept invisible on the
+ * queue by the visibility heartbeat. The listener threads each lane can occupy, waiting or
+ * processing, are bounded so that the slots reserved by every other lane always remain free. A
+ * message arriving once its lane has used up its listener threads is turned away with a {@link
+ * LaneFullException} rather than waiting, so that messages of other types are still polled.
+ *
+ * <p>Processing can also be paused, for example while the heap is under pressure. Messages then
+ * wait for a permit as they would for a busy lane, and once every listener thread is waiting the
+ * container stops polling for more, without the container itself being stopped.
+ */
+@Slf4j
+@Service
+public class AdaptiveConcurrencyLimiter {
+
+  /** Weight given to each new observation when updating the baseline latency. */
+  private static final double BASELINE_SMOOTHING = 0.1;
+
+  private final EventServiceMetricService eventServiceMetricService;
+  private final boolean enabled;
+  private final int minLimit;
+  private final int maxLimit;
+  private final double latencyTolerance;
+  private final double errorRateThreshold;
+  private final double backoffRatio;
+  private final Map<SubmissionEventType, Lane> lanes = new EnumMap<>(SubmissionEventType.class);
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition permitReleased = lock.newCondition();
+  private int limit;
+  private int inFlight;
+  private boolean saturated;
+  private volatile boolean paused;
+  private double baselineLatencySeconds = Double.NaN;
+  private DownstreamLoadSample previousSample;
+
+  /**
+   * Constructs a new {@code AdaptiveConcurrencyLimiter}.
+   *
+   * @param eventServiceMetricService the service used to sample downstream request metrics and
+   *     publish the current limit
+   * @param laneProperties the configured lane of each event type
+   * @param listenerThreads the number of messages the listener container processes at once,
+   *     shared by every lane
+   * @param enabled whether the number of messages processed at once is limited
+   * @param minLimit the lowest the limit will be reduced to
+   * @param maxLimit the highest the limit will be increased to, and the initial limit
+   * @param latencyTolerance how many times slower than the baseline latency downstream requests
+   *     can become before the limit is reduced
+   * @param errorRateThreshold the proportion of failed downstream requests above which the limit
+   *     is reduced
+   * @param backoffRatio the ratio the limit is multiplied by when it is reduced
+   */
+  public AdaptiveConcurrencyLimiter(
+      EventServiceMetricService eventServiceMetricService,
+      SubmissionEventLaneProperties laneProperties,
+      @Value("${spring.cloud.aws.sqs.listener.max-concurrent-messages:10}") int listenerThreads,
+      @Value("${laa.bulk-claim-queue.adaptive-concurrency.enabled:false}") boolean enabled,
+      @Value("${laa.bulk-claim-queue.adaptive-concurrency.min-limit:1}") int minLimit,
+      @Value("${laa.bulk-claim-queue.adaptive-concurrency.max-limit:10}") int maxLimit,
+      @Value("${laa.bulk-claim-queue.adaptive-concurrency.latency-tolerance:2.0}")
+          double latencyTolerance,
+      @Value("${laa.bulk-claim-queue.adaptive-concurrency.error-rate-threshold:0.1}")
+          double errorRateThreshold,
+      @Value("${laa.bulk-claim-queue.adaptive-concurrency.backoff-ratio:0.7}")
+          double backoffRatio) {
+    this.eventServiceMetricService = eventServiceMetricService;
+    this.enabled = enabled;
+    this.minLimit = Math.max(1, minLimit);
+    this.maxLimit = Math.max(this.minLimit, maxLimit);
+    this.latencyTolerance = latencyTolerance;
+    this.errorRateThreshold = errorRateThreshold;
+    this.backoffRatio = backoffRatio;
+    this.limit = this.maxLimit;
+    int reserved =
+        laneProperties.getLanes().values().stream()
+            .mapToInt(lane -> Math.max(1, lane.concurrency()))
+            .sum();
+    laneProperties
+        .getLanes()
+        .forEach(
+            (eventType, lane) -> {
+              int concurrency = Math.max(1, lane.concurrency());
+              // The slots reserved by the other lanes are never taken by this lane's waiters.
+              int maxOccupancy = Math.max(concurrency, listenerThreads - (reserved - concurrency));
+              lanes.put(eventType, new Lane(concurrency, maxOccupancy));
+              log.info(
+                  "Processing lane for {} configured with concurrency={}, maxOccupancy={}",
+                  eventType,
+                  concurrency,
+                  maxOccupancy);
+            });
+    if (enabled) {
+      eventServiceMetricService.setListenerConcurrencyLimit(limit);
+    }
+  }
+
+  /**
+   * Waits until a message of the given event type is allowed to be processed under its lane and
+   * the current limit.
+   *
+   * @param eventType the event type of the message
+   * @return a permit which must be closed once the message has been processed
+   * @throws LaneFullException if the message would have to wait, but its lane already occupies
+   *     every listener thread it is allowed
+   * @throws SubmissionEventProcessingException if interrupted while waiting for a permit
+   */
+  public Permit acquire(SubmissionEventType eventType) {
+    Lane lane = lanes.get(eventType);
+    if (!enabled && lane == null && !paused) {
+      return new Permit(eventType, true);
+    }
+    long waitStart = System.nanoTime();
+    lock.lock();
+    try {
+      if (lane != null) {
+        if (!hasCapacity(lane) && lane.waiting + lane.active >= lane.maxOccupancy) {
+          log.info(
+              "Lane for {} is occupying {} listener threads, turning message away",
+              eventType,
+              lane.maxOccupancy);
+          throw new LaneFullException("Lane for " + eventType + " is full");
+        }
+        lane.waiting++;
+        recordOccupancy(eventType, lane);
+      }
+      try {
+        while (!hasCapacity(lane)) {
+          permitReleased.await();
+        }
+      } finally {
+        if (lane != null) {
+          lane.waiting--;
+        }
+      }
+      inFlight++;
+      if (enabled && inFlight >= limit) {
+        saturated = true;
+      }
+      if (lane != null) {
+        lane.active++;
+        recordOccupancy(eventType, lane);
+        eventServiceMetricService.recordLaneWaitTime(
+            eventType, (System.nanoTime() - waitStart) / 1_000_000_000d);
+      }
+      return new Permit(eventType, false);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      if (lane != null) {
+        recordOccupancy(eventType, lane);
+      }
+      throw new SubmissionEventProcessingException(
+          "Interrupted while waiting to process message", ex);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private boolean hasCapacity(Lane lane) {
+    if (paused) {
+      return false;
+    }
+    if (enabled && inFlight >= limit) {
+      saturated = true;
+      return false;
+    }
+    return lane == null || lane.active < lane.concurrency;
+  }
+
+  /**
+   * Stops further messages being processed until {@link #resume()} is called. Messages already
+   * being processed are not affected.
+   */
+  public void pause() {
+    lock.lock();
+    try {
+      paused = true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Allows messages waiting while processing was paused to be processed. */
+  public void resume() {
+    lock.lock();
+    try {
+      paused = false;
+      permitReleased.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the number of messages currently allowed to be processed at once.
+   *
+   * @return the current limit
+   */
+  public int getLimit() {
+    lock.lock();
+    try {
+      return limit;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Samples the downstream request metrics and adjusts the limit accordingly. */
+  @Scheduled(
+      fixedDelayString = "${laa.bulk-claim-queue.adaptive-concurrency.adjustment-interval:10}",
+      timeUnit = TimeUnit.SECONDS)
+  public void adjustLimit() {
+    if (!enabled) {
+      return;
+    }
+    try {
+      DownstreamLoadSample sample = eventServiceMetricService.sampleDownstreamLoad();
+      DownstreamLoadSample previous = previousSample;
+      previousSample = sample;
+      if (previous == null) {
+        return;
+      }
+
+      long requests = sample.requestCount() - previous.requestCount();
+      if (requests <= 0) {
+        // No downstream traffic since the last sample, so there is nothing to learn from.
+        return;
+      }
+      double averageLatencySeconds = (sample.totalSeconds() - previous.totalSeconds()) / requests;
+      double errorRate = (double) (sample.errorCount() - previous.errorCount()) / requests;
+      updateLimit(averageLatencySeconds, errorRate);
+    } catch (Exception ex) {
+      log.warn("Failed to adjust listener concurrency limit", ex);
+    }
+  }
+
+  /**
+   * Adjusts the limit based on the downstream latency and error rate observed since the last
+   * adjustment.
+   *
+   * @param averageLatencySeconds the average downstream request latency, in seconds
+   * @param errorRate the proportion of downstream requests which failed
+   */
+  void updateLimit(double averageLatencySeconds, double errorRate) {
+    lock.lock();
+    try {
+      int previousLimit = limit;
+      boolean latencyDegraded =
+          !Double.isNaN(baselineLatencySeconds)
+              && averageLatencySeconds > baselineLatencySeconds * latencyTolerance;
+
+      if (errorRate > errorRateThreshold || latencyDegraded) {
+        limit = Math.max(minLimit, (int) Math.floor(limit * backoffRatio));
+      } else if (saturated) {
+        limit = Math.min(maxLimit, limit + 1);
+        permitReleased.signalAll();
+      }
+      saturated = inFlight >= limit;
+
+      // The baseline follows the observed latency slowly, so a sustained change in downstream
+      // performance eventually becomes the new normal rather than holding the limit down forever.
+      baselineLatencySeconds =
+          Double.isNaN(baselineLatencySeconds)
+              ? averageLatencySeconds
+              : baselineLatencySeconds * (1 - BASELINE_SMOOTHING)
+                  + averageLatencySeconds * BASELINE_SMOOTHING;
+
+      if (limit != previousLimit) {
+        log.info(
+            "Listener concurrency limit changed from {} to {} "
+                + "(latency={}s, baseline={}s, errorRate={})",
+            previousLimit,
+            limit,
+            averageLatencySeconds,
+            baselineLatencySeconds,
+            errorRate);
+        eventServiceMetricService.setListenerConcurrencyLimit(limit);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void release(SubmissionEventType eventType) {
+    lock.lock();
+    try {
+      inFlight--;
+      Lane lane = lanes.get(eventType);
+      if (lane != null) {
+        lane.active--;
+        recordOccupancy(eventType, lane);
+      }
+      // Waiting messages may be of any event type, so all are woken to check their own lane.
+      permitReleased.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void recordOccupancy(SubmissionEventType eventType, Lane lane) {
+    eventServiceMetricService.setLaneOccupancy(eventType, lane.waiting + lane.active, lane.active);
+  }
+
+  /** The messages of a single event type waiting for and holding a permit. */
+  private static final class Lane {
+
+    private final int concurrency;
+    private final int maxOccupancy;
+    private int waiting;
+    private int active;
+
+    private Lane(int concurrency, int maxOccupancy) {
+      this.concurrency = concurrency;
+      this.maxOccupancy = maxOccupancy;
+    }
+  }
+
+  /** Permission to process a single message. Closing it allows another message to be processed. */
+  public final class Permit implements AutoCloseable {
+
+    private final SubmissionEventType eventType;
+    private boolean released;
+
+    private Permit(SubmissionEventType eventType, boolean released) {
+      this.eventType = eventType;
+      this.released = released;
+    }
+
+    @Override
+    public void close() {
+      if (!released) {
+        released = true;
+        release(eventType);
+      }
+    }
+  }
+}
@@ -0,0 +1,293 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import uk.gov.justice.laa.dstew.payments.claimsevent.exception.DownstreamWriteRejectedException;
+import uk.gov.justice.laa.dstew.payments.claimsevent.exception.SubmissionEventProcessingException;
+import uk.gov.justice.laa.dstew.payments.claimsevent.metrics.EventServiceMetricService;
+
+/**
+ * {@link ExchangeFilterFunction} which limits how many write requests are in flight to a
+ * downstream API at once, adapting the limit to how quickly the downstream API responds.
+ *
+ * <p>The limit is adjusted after every write request using a gradient of two moving averages of
+ * the round trip time: a short one following the latest requests, and a long one following the
+ * downstream API's usual latency. While the short average stays within the tolerance of the long
+ * average the limit grows, by roughly the square root of the limit, so that a healthy API is used
+ * fully; as the short average rises above it the limit shrinks in proportion. A request which
+ * fails without a response, or is answered with a server error or {@code 429 Too Many Requests},
+ * reduces the limit by the backoff ratio straight away. The limit only grows while at least half
+ * of it is in use, so a quiet period does not leave it far above what has been shown to be safe.
+ *
+ * <p>Read requests pass straight through. A write request waits for the limit to allow it, and is
+ * rejected with a {@link DownstreamWriteRejectedException} if it waits longer than the maximum
+ * wait. The wait happens on a bounded elastic thread when the limit is reached, so that no event
+ * loop thread is ever blocked. Every permit taken is released exactly once, including when the
+ * request is cancelled while waiting for it.
+ */
+@Slf4j
+public class AdaptiveWriteLimiter implements ExchangeFilterFunction {
+
+  private static final Set<HttpMethod> WRITE_METHODS =
+      Set.of(HttpMethod.POST, HttpMethod.PUT, HttpMethod.PATCH, HttpMethod.DELETE);
+
+  /** Weight given to each round trip time in the short moving average, roughly 10 requests. */
+  private static final double SHORT_RTT_SMOOTHING = 0.1;
+
+  /** Weight given to each round trip time in the long moving average, roughly 500 requests. */
+  private static final double LONG_RTT_SMOOTHING = 0.002;
+
+  /** Weight given to each newly calculated limit, so that a single slow request moves it little. */
+  private static final double LIMIT_SMOOTHING = 0.2;
+
+  private final String client;
+  private final EventServiceMetricService eventServiceMetricService;
+  private final int minLimit;
+  private final int maxLimit;
+  private final double rttTolerance;
+  private final double backoffRatio;
+  private final long maxWaitNanos;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition permitReleased = lock.newCondition();
+  private double limit;
+  private int inFlight;
+  private double shortRttNanos = Double.NaN;
+  private double longRttNanos = Double.NaN;
+
+  /**
+   * Constructs a new {@code AdaptiveWriteLimiter}.
+   *
+   * @param client the name of the downstream API client, used to label the recorded metrics
+   * @param eventServiceMetricService the service used to publish the limit and rejections
+   * @param minLimit the lowest the limit will be reduced to
+   * @param initialLimit the limit before any write request has completed
+   * @param maxLimit the highest the limit will be increased to
+   * @param rttTolerance how many times slower than usual write requests can become before the
+   *     limit is reduced
+   * @param backoffRatio the ratio the limit is multiplied by when a write request is refused
+   * @param maxWaitMillis the longest a write request waits for the limit to allow it, in
+   *     milliseconds
+   */
+  public AdaptiveWriteLimiter(
+      String client,
+      EventServiceMetricService eventServiceMetricService,
+      int minLimit,
+      int initialLimit,
+      int maxLimit,
+      double rttTolerance,
+      double backoffRatio,
+      long maxWaitMillis) {
+    this.client = client;
+    this.eventServiceMetricService = eventServiceMetricService;
+    this.minLimit = Math.max(1, minLimit);
+    this.maxLimit = Math.max(this.minLimit, maxLimit);
+    this.rttTolerance = Math.max(1, rttTolerance);
+    this.backoffRatio = backoffRatio;
+    this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxWaitMillis));
+    this.limit = Math.clamp(initialLimit, this.minLimit, this.maxLimit);
+    publish();
+  }
+
+  @Override
+  public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+    if (!WRITE_METHODS.contains(request.method())) {
+      return next.exchange(request);
+    }
+    Mono<Permit> permit =
+        Mono.defer(
+                () ->
+                    tryAcquire()
+                        ? Mono.just(new Permit())
+                        : Mono.fromCallable(this::acquirePermit)
+                            .subscribeOn(Schedulers.boundedElastic()))
+            // A permit taken once the request has been cancelled is discarded, not used
+            .doOnDiscard(Permit.class, Permit::release);
+    return Mono.usingWhen(
+        permit,
+        acquired ->
+            next.exchange(request)
+                .doOnSuccess(
+                    response -> acquired.complete(response == null || isRefusal(response))),
+        acquired -> Mono.empty(),
+        (acquired, ex) -> Mono.fromRunnable(() -> acquired.complete(true)),
+        acquired -> Mono.fromRunnable(acquired::release));
+  }
+
+  /**
+   * Returns the number of write requests currently allowed in flight at once.
+   *
+   * @return the current limit
+   */
+  public int getLimit() {
+    lock.lock();
+    try {
+      return (int) limit;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Takes a permit if the limit allows it without waiting. */
+  boolean tryAcquire() {
+    lock.lock();
+    try {
+      if (inFlight >= (int) limit) {
+        return false;
+      }
+      inFlight++;
+      publish();
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Waits for the limit to allow another write request, for no longer than the maximum wait.
+   *
+   * @return {@code true} once a permit has been taken
+   * @throws DownstreamWriteRejectedException if the maximum wait passes first
+   * @throws SubmissionEventProcessingException if interrupted while waiting
+   */
+  Boolean acquire() {
+    lock.lock();
+    try {
+      long remainingNanos = maxWaitNanos;
+      while (inFlight >= (int) limit) {
+        if (remainingNanos <= 0) {
+          eventServiceMetricService.incrementDownstreamWriteRejections(client);
+          throw new DownstreamWriteRejectedException(
+              "Write request to %s rejected after waiting %d ms for the limit of %d"
+                  .formatted(client, TimeUnit.NANOSECONDS.toMillis(maxWaitNanos), (int) limit));
+        }
+        remainingNanos = permitReleased.awaitNanos(remainingNanos);
+      }
+      inFlight++;
+      publish();
+      return Boolean.TRUE;
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new SubmissionEventProcessingException(
+          "Interrupted while waiting to write to " + client, ex);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private Permit acquirePermit() {
+    acquire();
+    return new Permit();
+  }
+
+  /**
+   * Releases the permit of a completed write request, adjusting the limit using its round trip
+   * time or, if it was refused, the backoff ratio.
+   *
+   * @param rttNanos the time taken for the downstream API to respond, in nanoseconds
+   * @param refused whether the request failed in a way that suggests the API is overloaded
+   */
+  void onResponse(long rttNanos, boolean refused) {
+    lock.lock();
+    try {
+      int previousLimit = (int) limit;
+      if (refused) {
+        limit = Math.max(minLimit, limit * backoffRatio);
+      } else {
+        updateRtt(rttNanos);
+        // A limit which is not being used says nothing about whether it could safely be higher
+        if (inFlight >= limit / 2) {
+          double gradient = Math.clamp(rttTolerance * longRttNanos / shortRttNanos, 0.5, 1.0);
+          double newLimit = limit * gradient + Math.sqrt(limit);
+          limit =
+              Math.clamp(
+                  limit * (1 - LIMIT_SMOOTHING) + newLimit * LIMIT_SMOOTHING, minLimit, maxLimit);
+        }
+      }
+      inFlight--;
+      permitReleased.signalAll();
+      if ((int) limit != previousLimit) {
+        log.debug(
+            "Write limit for {} changed from {} to {} (rtt={}ms, usual={}ms, refused={})",
+            client,
+            previousLimit,
+            (int) limit,
+            TimeUnit.NANOSECONDS.toMillis(rttNanos),
+            TimeUnit.NANOSECONDS.toMillis((long) longRttNanos),
+            refused);
+      }
+      publish();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void updateRtt(long rttNanos) {
+    if (Double.isNaN(shortRttNanos)) {
+      shortRttNanos = rttNanos;
+      longRttNanos = rttNanos;
+      return;
+    }
+    shortRttNanos = shortRttNanos * (1 - SHORT_RTT_SMOOTHING) + rttNanos * SHORT_RTT_SMOOTHING;
+    longRttNanos = longRttNanos * (1 - LONG_RTT_SMOOTHING) + rttNanos * LONG_RTT_SMOOTHING;
+    // Once latency falls back after a period of overload, the long average is brought down
+    // quickly rather than holding the limit high against an inflated idea of usual latency
+    if (longRttNanos > shortRttNanos * 2) {
+      longRttNanos *= 0.95;
+    }
+  }
+
+  private void release() {
+    lock.lock();
+    try {
+      inFlight--;
+      permitReleased.signalAll();
+      publish();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void publish() {
+    eventServiceMetricService.setDownstreamWriteLimit(client, (int) limit, inFlight);
+  }
+
+  private static boolean isRefusal(ClientResponse response) {
+    HttpStatusCode status = response.statusCode();
+    return status.is5xxServerError() || status.isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS);
+  }
+
+  /** A permit held by a single write request, released at most once. */
+  private final class Permit {
+
+    private final long startNanos = System.nanoTime();
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    /** Releases the permit of an answered request, adjusting the limit by how it was answered. */
+    private void complete(boolean refused) {
+      if (released.compareAndSet(false, true)) {
+        onResponse(System.nanoTime() - startNanos, refused);
+      }
+    }
+
+    /** Releases the permit of a request which was never answered, leaving the limit as it is. */
+    private void release() {
+      if (released.compareAndSet(false, true)) {
+        AdaptiveWriteLimiter.this.release();
+      }
+    }
+  }
+}
@@ -0,0 +1,229 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.ClaimPost;
+import uk.gov.justice.laa.dstew.payments.claimsevent.client.DataClaimsRestClient;
+import uk.gov.justice.laa.dstew.payments.claimsevent.exception.ClaimCreateException;
+import uk.gov.justice.laa.dstew.payments.claimsevent.metrics.EventServiceMetricService;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.model.CreatedClaim;
+
+/**
+ * Creates the claims of a submission in batches, each sent to the Data Claims API in a single
+ * request, rather than with a request for each claim.
+ *
+ * <p>The first batch of each submission is sent on its own. If the Data Claims API does not offer
+ * bulk creation, no claims are created and the caller falls back to creating them one at a time.
+ * This is remembered for a while, so that later submissions fall back without sending a request
+ * first. Otherwise the remaining batches are sent concurrently on the {@link
+ * ClaimCreationExecutor}. The IDs returned for each batch are matched back to the line numbers of
+ * the claims sent.
+ *
+ * <p>Each batch is sent with an idempotency key derived from the line numbers of its claims, and
+ * retried by the {@link ClaimCreationRetryPolicy} while it fails with a transient error, as single
+ * claims are.
+ *
+ * <p>Batched creation is disabled by default.
+ */
+@Slf4j
+@Service
+public class BatchedClaimCreator {
+
+  /** The statuses returned when the Data Claims API does not offer bulk creation of claims. */
+  private static final Set<Integer> UNAVAILABLE_STATUSES = Set.of(404, 405, 501);
+
+  /** How long bulk creation is assumed to be unavailable before it is tried again. */
+  private static final long UNAVAILABLE_RECHECK_NANOS = Duration.ofMinutes(10).toNanos();
+
+  private final DataClaimsRestClient dataClaimsRestClient;
+  private final ClaimCreationExecutor claimCreationExecutor;
+  private final ClaimCreationRetryPolicy claimCreationRetryPolicy;
+  private final EventServiceMetricService eventServiceMetricService;
+  private final boolean enabled;
+  private final int batchSize;
+  private volatile Long unavailableSinceNanos;
+
+  /**
+   * Constructs a new {@code BatchedClaimCreator}.
+   *
+   * @param dataClaimsRestClient the client used to create claims
+   * @param claimCreationExecutor the executor the batches are sent on
+   * @param claimCreationRetryPolicy the policy retrying batches which fail with a transient error
+   * @param eventServiceMetricService the service used to record batch metrics
+   * @param enabled whether claims should be created in batches
+   * @param batchSize the number of claims sent in each request
+   */
+  public BatchedClaimCreator(
+      DataClaimsRestClient dataClaimsRestClient,
+      ClaimCreationExecutor claimCreationExecutor,
+      ClaimCreationRetryPolicy claimCreationRetryPolicy,
+      EventServiceMetricService eventServiceMetricService,
+      @Value("${laa.bulk-claim-queue.batched-claim-creation.enabled:false}") boolean enabled,
+      @Value("${laa.bulk-claim-queue.batched-claim-creation.batch-size:100}") int batchSize) {
+    this.dataClaimsRestClient = dataClaimsRestClient;
+    this.claimCreationExecutor = claimCreationExecutor;
+    this.claimCreationRetryPolicy = claimCreationRetryPolicy;
+    this.eventServiceMetricService = eventServiceMetricService;
+    this.enabled = enabled;
+    this.batchSize = Math.max(1, batchSize);
+  }
+
+  /**
+   * Returns whether claims should be created in batches.
+   *
+   * @return {@code true} if batched creation is enabled
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Creates claims in batches, returning their IDs in the order of the claims given. Each claim
+   * must already have its line number.
+   *
+   * @param submissionId the ID of the submission the claims belong to
+   * @param claims the claims to create
+   * @return the IDs of the created claims, or an empty list if the Data Claims API does not offer
+   *     bulk creation and none were created
+   * @throws ClaimCreateException if any batch of claims could not be created
+   */
+  public List<String> createClaims(String submissionId, List<ClaimPost> claims) {
+    if (claims.isEmpty()) {
+      return Collections.emptyList();
+    }
+    if (isKnownUnavailable()) {
+      eventServiceMetricService.recordClaimCreationBatches("fallback", 1);
+      return Collections.emptyList();
+    }
+
+    List<String> ids = new ArrayList<>(claims.size());
+    int firstBatchEnd = Math.min(batchSize, claims.size());
+    try {
+      ids.addAll(createBatchWithRetry(submissionId, claims.subList(0, firstBatchEnd)));
+    } catch (BulkCreationUnavailableException ex) {
+      log.warn(
+          "Bulk creation of claims is unavailable (HTTP {}), creating the claims of submission "
+              + "[{}] one at a time",
+          ex.status,
+          submissionId);
+      unavailableSinceNanos = System.nanoTime();
+      eventServiceMetricService.recordClaimCreationBatches("fallback", 1);
+      return Collections.emptyList();
+    } catch (RuntimeException ex) {
+      throw batchFailure(0, firstBatchEnd, ex);
+    }
+    unavailableSinceNanos = null;
+
+    List<Callable<List<String>>> batches = new ArrayList<>();
+    for (int start = firstBatchEnd; start < claims.size(); start += batchSize) {
+      final int from = start;
+      final int to = Math.min(start + batchSize, claims.size());
+      batches.add(
+          () -> {
+            try {
+              return createBatchWithRetry(submissionId, claims.subList(from, to));
+            } catch (RuntimeException ex) {
+              throw batchFailure(from, to, ex);
+            }
+          });
+    }
+    claimCreationExecutor.invokeAll(batches).forEach(ids::addAll);
+
+    log.info(
+        "Created {} claims for submission [{}] in {} batches",
+        ids.size(),
+        submissionId,
+        batches.size() + 1);
+    return ids;
+  }
+
+  /** Returns whether bulk creation was recently found to be unavailable. */
+  private boolean isKnownUnavailable() {
+    Long since = unavailableSinceNanos;
+    return since != null && System.nanoTime() - since < UNAVAILABLE_RECHECK_NANOS;
+  }
+
+  /**
+   * Creates a batch of claims, retrying it while it fails with a transient error. A response
+   * showing that bulk creation is unavailable is not retried, even though 501 is a server error.
+   */
+  private List<String> createBatchWithRetry(String submissionId, List<ClaimPost> batch) {
+    return claimCreationRetryPolicy.call(
+        () -> {
+          try {
+            return createBatch(submissionId, batch);
+          } catch (WebClientResponseException ex) {
+            if (UNAVAILABLE_STATUSES.contains(ex.getStatusCode().value())) {
+              throw new BulkCreationUnavailableException(ex.getStatusCode().value());
+            }
+            throw ex;
+          }
+        });
+  }
+
+  private List<String> createBatch(String submissionId, List<ClaimPost> batch) {
+    log.debug("Creating {} claims for submission [{}]", batch.size(), submissionId);
+    ResponseEntity<List<CreatedClaim>> response =
+        dataClaimsRestClient.createClaims(submissionId, batch);
+
+    if (response == null || response.getStatusCode().value() != 201) {
+      throw new ClaimCreateException(
+          "Failed to create claims for submission "
+              + submissionId
+              + ". HTTP status: "
+              + (response == null ? "null response" : response.getStatusCode().value()));
+    }
+
+    List<CreatedClaim> created = response.getBody();
+    if (created == null || created.size() != batch.size()) {
+      throw new ClaimCreateException(
+          "Created %d claims for submission %s but %s IDs were returned"
+              .formatted(batch.size(), submissionId, created == null ? "no" : created.size()));
+    }
+
+    List<String> ids = new ArrayList<>(batch.size());
+    for (int i = 0; i < batch.size(); i++) {
+      Integer lineNumber = batch.get(i).getLineNumber();
+      CreatedClaim claim = created.get(i);
+      if (claim.id() == null || !Objects.equals(lineNumber, claim.lineNumber())) {
+        throw new ClaimCreateException(
+            "Claim created for submission %s at line %s did not match the claim sent at line %s"
+                .formatted(submissionId, claim.lineNumber(), lineNumber));
+      }
+      ids.add(claim.id().toString());
+      eventServiceMetricService.incrementTotalClaimsCreated();
+    }
+    eventServiceMetricService.recordClaimCreationBatches("created", 1);
+    return ids;
+  }
+
+  private static ClaimCreateException batchFailure(int from, int to, RuntimeException ex) {
+    return new ClaimCreateException(
+        "Failed to create claims at index %d to %d: %s".formatted(from, to - 1, ex.getMessage()),
+        ex);
+  }
+
+  /**
+   * Thrown when the Data Claims API does not offer bulk creation. It has no cause, so that the
+   * retry policy does not find the server error behind it and retry it.
+   */
+  private static final class BulkCreationUnavailableException extends RuntimeException {
+
+    private final int status;
+
+    private BulkCreationUnavailableException(int status) {
+      super("Bulk creation of claims is unavailable (HTTP " + status + ")");
+      this.status = status;
+    }
+  }
+}
@@ -1,35 +1,57 @@
 package uk.gov.justice.laa.dstew.payments.claimsevent.service;
 
+import static uk.gov.justice.laa.dstew.payments.claimsevent.metrics.BulkParsingProfile.CLAIMS;
+import static uk.gov.justice.laa.dstew.payments.claimsevent.metrics.BulkParsingProfile.CREATE_SUBMISSION;
+import static uk.gov.justice.laa.dstew.payments.claimsevent.metrics.BulkParsingProfile.FETCH;
+import static uk.gov.justice.laa.dstew.payments.claimsevent.metrics.BulkParsingProfile.MAP;
+import static uk.gov.justice.laa.dstew.payments.claimsevent.metrics.BulkParsingProfile.MATTER_STARTS;
+import static uk.gov.justice.laa.dstew.payments.claimsevent.metrics.BulkParsingProfile.NORMALISE;
+import static uk.gov.justice.laa.dstew.payments.claimsevent.metrics.BulkParsingProfile.RESUME;
+import static uk.gov.justice.laa.dstew.payments.claimsevent.metrics.BulkParsingProfile.STATUS_UPDATES;
+import static uk.gov.justice.laa.dstew.payments.claimsevent.metrics.BulkParsingProfile.VALIDATE;
+import static uk.gov.justice.laa.dstew.payments.claimsevent.metrics.BulkParsingProfile.timeCurrent;
+
 import java.net.URI;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.CompletionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.AreaOfLaw;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.BulkSubmissionErrorCode;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.BulkSubmissionMatterStart;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.BulkSubmissionOutcome;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.BulkSubmissionPatch;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.BulkSubmissionStatus;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.ClaimPost;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.ClaimResponse;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.ClaimResultSet;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.ClaimStatus;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.CreateClaim201Response;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.CreateSubmission201Response;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.GetBulkSubmission200Response;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.MatterStartPost;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.SubmissionPatch;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.SubmissionPost;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.SubmissionResponse;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.SubmissionStatus;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.ValidationMessagePatch;
 import uk.gov.justice.laa.dstew.payments.claimsevent.client.DataClaimsRestClient;
 import uk.gov.justice.laa.dstew.payments.claimsevent.exception.BulkSubmissionRetrievalException;
 import uk.gov.justice.laa.dstew.payments.claimsevent.exception.BulkSubmissionUpdateException;
@@ -37,7 +59,11 @@ import uk.gov.justice.laa.dstew.payments.claimsevent.exception.ClaimCreateExcept
 import uk.gov.justice.laa.dstew.payments.claimsevent.exception.MatterStartCreateException;
 import uk.gov.justice.laa.dstew.payments.claimsevent.exception.SubmissionCreateException;
 import uk.gov.justice.laa.dstew.payments.claimsevent.mapper.BulkSubmissionMapper;
+import uk.gov.justice.laa.dstew.payments.claimsevent.metrics.BulkParsingProfile;
 import uk.gov.justice.laa.dstew.payments.claimsevent.metrics.EventServiceMetricService;
+import uk.gov.justice.laa.dstew.payments.claimsevent.model.SubmissionEventType;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.model.BulkSubmissionHeader;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.model.OutcomeRange;
 
 /** Service responsible for retrieving bulk submissions and sending them to the Claims Data API. */
 @Service
@@ -49,9 +75,25 @@ public class BulkParsingService {
   private final BulkSubmissionMapper bulkSubmissionMapper;
   private final EventServiceMetricService eventServiceMetricService;
   private final SubmissionDataNormaliser submissionDataNormaliser;
-
-  private static final int MAX_CONCURRENCY =
-      Math.max(2, Runtime.getRuntime().availableProcessors());
+  private final DistributedBulkParsingCoordinator distributedBulkParsingCoordinator;
+  private final BulkSubmissionStreamReader bulkSubmissionStreamReader;
+  private final ClaimCreationExecutor claimCreationExecutor;
+  private final BatchedClaimCreator batchedClaimCreator;
+  private final ClaimCreationRetryPolicy claimCreationRetryPolicy;
+  private final ClaimValidationService claimValidationService;
+  private final PreflightSubmissionValidationService preflightSubmissionValidationService;
+
+  /** The number of claims read at a time when resuming a submission. */
+  private static final int CREATED_CLAIMS_PAGE_SIZE = 500;
+
+  // A submission only reaches these statuses once a claim exists for every line, or once it has
+  // failed in a way a redelivered message could not recover from
+  private static final Set<SubmissionStatus> PARSED_STATUSES =
+      EnumSet.of(
+          SubmissionStatus.READY_FOR_VALIDATION,
+          SubmissionStatus.VALIDATION_IN_PROGRESS,
+          SubmissionStatus.VALIDATION_SUCCEEDED,
+          SubmissionStatus.VALIDATION_FAILED);
 
   /**
    * Retrieves a bulk submission by its identifier and processes it.
@@ -60,25 +102,125 @@ public class BulkParsingService {
    * @param submissionId identifier to use when creating the submission
    */
   public void parseData(UUID bulkSubmissionId, UUID submissionId) {
-    String createdSubmissionId = null;
-    try {
-      GetBulkSubmission200Response bulkSubmission = getBulkSubmission(bulkSubmissionId);
+    SubmissionResponse existingSubmission = findSubmission(submissionId);
+    if (isParsed(existingSubmission)) {
+      log.info(
+          "Submission [{}] of bulk submission [{}] has already been parsed, skipping",
+          submissionId,
+          bulkSubmissionId);
+      eventServiceMetricService.incrementRedeliveriesSuppressed(
+          SubmissionEventType.PARSE_BULK_SUBMISSION, "status");
+      return;
+    }
 
-      bulkSubmission = submissionDataNormaliser.normalise(bulkSubmission);
+    // Each phase is timed, and every HTTP call counted, so that a slow parse can be explained
+    BulkParsingProfile profile = new BulkParsingProfile();
+    AreaOfLaw areaOfLaw = null;
+    int outcomes = 0;
+    String createdSubmissionId = null;
+    try (BulkParsingProfile.Scope scope = profile.activate()) {
+      // When streaming, the outcomes are left out and read in chunks once the submission exists
+      BulkSubmissionHeader header =
+          bulkSubmissionStreamReader.isEnabled()
+              ? profile.time(FETCH, () -> bulkSubmissionStreamReader.readHeader(bulkSubmissionId))
+              : null;
+      GetBulkSubmission200Response fetched =
+          header != null
+              ? header.bulkSubmission()
+              : profile.time(FETCH, () -> getBulkSubmission(bulkSubmissionId));
+
+      GetBulkSubmission200Response bulkSubmission =
+          profile.time(NORMALISE, () -> submissionDataNormaliser.normalise(fetched));
 
       SubmissionPost submissionPost =
-          bulkSubmissionMapper.mapToSubmissionPost(bulkSubmission, submissionId);
-      submissionPost.setSubmitted(OffsetDateTime.now(ZoneId.systemDefault()));
-      createdSubmissionId = createSubmission(submissionPost);
-
-      List<String> claimIds =
-          createClaimsForSubmission(
-              createdSubmissionId, bulkSubmission, submissionPost.getAreaOfLaw());
-
-      createMatterStartsForSubmission(createdSubmissionId, bulkSubmission);
+          profile.time(
+              MAP, () -> bulkSubmissionMapper.mapToSubmissionPost(bulkSubmission, submissionId));
+      // A resumed submission keeps the time it was first submitted, so that preflight orders it
+      // against duplicates as it did when it was created
+      submissionPost.setSubmitted(
+          existingSubmission != null && existingSubmission.getSubmitted() != null
+              ? existingSubmission.getSubmitted()
+              : OffsetDateTime.now(ZoneId.systemDefault()));
+      areaOfLaw = submissionPost.getAreaOfLaw();
+      outcomes = header != null ? header.outcomeCount() : getOutcomes(bulkSubmission).size();
+      List<ValidationMessagePatch> preflightErrors =
+          profile.time(
+              VALIDATE, () -> preflightSubmissionValidationService.validate(submissionPost));
+      // A redelivered message resumes the submission created by an earlier attempt, creating only
+      // the claims that attempt did not
+      String submissionIdCreated =
+          existingSubmission != null
+              ? submissionId.toString()
+              : profile.time(CREATE_SUBMISSION, () -> createSubmission(submissionPost));
+      createdSubmissionId = submissionIdCreated;
+      if (!preflightErrors.isEmpty()) {
+        // The submission is still created, so that the errors are reported against it as they
+        // would be once validated, but none of its claims or matter starts are
+        profile.time(
+            STATUS_UPDATES,
+            () -> rejectSubmission(bulkSubmissionId, submissionIdCreated, preflightErrors));
+        return;
+      }
+      Set<Integer> createdLineNumbers =
+          existingSubmission != null
+              ? profile.time(
+                  RESUME,
+                  () ->
+                      findCreatedLineNumbers(
+                          submissionPost.getOfficeAccountNumber(), submissionIdCreated))
+              : Set.of();
+      // Matter starts have no line numbers to resume from, so are only created if none exist
+      boolean createMatterStarts =
+          existingSubmission == null || !hasMatterStarts(existingSubmission);
+
+      if (distributedBulkParsingCoordinator.shouldShard(outcomes)) {
+        // Matter starts are created before the outcomes are sharded, as the shards completing the
+        // submission may do so concurrently and so must only make idempotent status updates.
+        if (createMatterStarts) {
+          createMatterStartsForSubmission(createdSubmissionId, bulkSubmission);
+        }
+        distributedBulkParsingCoordinator.shard(
+            bulkSubmissionId,
+            submissionId,
+            createdSubmissionId,
+            submissionPost.getOfficeAccountNumber(),
+            submissionPost.getAreaOfLaw(),
+            outcomes);
+        return;
+      }
 
-      updateSubmission(createdSubmissionId, claimIds.size(), SubmissionStatus.READY_FOR_VALIDATION);
-      updateBulkSubmissionStatus(bulkSubmissionId, BulkSubmissionStatus.PARSING_COMPLETED);
+      // Matter starts do not depend on the claims, so are created alongside them
+      Future<List<String>> matterStartsCreated =
+          createMatterStarts
+              ? startMatterStartsForSubmission(createdSubmissionId, bulkSubmission)
+              : CompletableFuture.completedFuture(List.of());
+      int numberOfClaims;
+      try {
+        numberOfClaims =
+            header != null
+                ? createClaimsFromStream(
+                    bulkSubmissionId,
+                    createdSubmissionId,
+                    submissionPost.getAreaOfLaw(),
+                    createdLineNumbers)
+                : createClaimsForSubmission(
+                    createdSubmissionId,
+                    bulkSubmission,
+                    submissionPost.getAreaOfLaw(),
+                    createdLineNumbers);
+      } catch (RuntimeException ex) {
+        matterStartsCreated.cancel(true);
+        throw ex;
+      }
+      awaitMatterStarts(matterStartsCreated);
+
+      profile.time(
+          STATUS_UPDATES,
+          () -> {
+            updateSubmission(
+                submissionIdCreated, numberOfClaims, SubmissionStatus.READY_FOR_VALIDATION);
+            updateBulkSubmissionStatus(bulkSubmissionId, BulkSubmissionStatus.PARSING_COMPLETED);
+          });
     } catch (Exception ex) {
       log.error(
           "Failed to parse bulk submission [{}] for submission [{}]: {}",
@@ -86,35 +228,331 @@ public class BulkParsingService {
           submissionId,
           ex.getMessage(),
           ex);
-      updateBulkSubmissionStatusOnError(bulkSubmissionId, createdSubmissionId);
+      updateBulkSubmissionStatusOnError(bulkSubmissionId, createdSubmissionId, ex);
+      throw ex;
+    } finally {
+      recordProfile(profile, bulkSubmissionId, areaOfLaw, outcomes);
+    }
+  }
+
+  private void recordProfile(
+      BulkParsingProfile profile, UUID bulkSubmissionId, AreaOfLaw areaOfLaw, int outcomes) {
+    log.info(
+        "Parsed bulk submission [{}] with {} HTTP calls, {} bytes sent and {} received, phases {}",
+        bulkSubmissionId,
+        profile.getHttpCalls(),
+        profile.getBytesSent(),
+        profile.getBytesReceived(),
+        profile.getPhaseSeconds());
+    eventServiceMetricService.recordBulkParsingProfile(
+        profile, areaOfLaw != null ? areaOfLaw.name() : null, outcomes);
+  }
+
+  /**
+   * Creates the claims for a range of the outcomes of a sharded bulk submission. Once a claim has
+   * been created for every outcome, the submission is marked as ready for validation and the bulk
+   * submission as parsed.
+   *
+   * @param range the range of outcomes to create claims for
+   */
+  public void parseOutcomeRange(OutcomeRange range) {
+    UUID bulkSubmissionId = range.bulkSubmissionId();
+    String createdSubmissionId = range.createdSubmissionId();
+    if (isAlreadyParsed(range.submissionId())) {
+      log.info(
+          "Submission [{}] of bulk submission [{}] has already been parsed, skipping outcomes {}"
+              + " to {}",
+          range.submissionId(),
+          bulkSubmissionId,
+          range.fromIndex(),
+          range.toIndex());
+      eventServiceMetricService.incrementRedeliveriesSuppressed(
+          SubmissionEventType.PARSE_BULK_SUBMISSION, "status");
+      return;
+    }
+
+    try {
+      // Only the outcomes in the range are read and normalised, rather than the whole payload
+      List<BulkSubmissionOutcome> outcomes =
+          bulkSubmissionStreamReader.readOutcomeRange(
+              bulkSubmissionId, range.fromIndex(), range.toIndex());
+      outcomes.forEach(submissionDataNormaliser::normaliseOutcome);
+
+      List<ClaimPost> claims = bulkSubmissionMapper.mapToClaimPosts(outcomes, range.areaOfLaw());
+      // Line numbers are assigned from the position in the whole bulk submission, so that they
+      // match those of an unsharded submission.
+      assignLineNumbers(claims, range.fromIndex());
+      createClaims(createdSubmissionId, claims);
+      eventServiceMetricService.recordBulkParsingShards("completed", 1);
+
+      if (distributedBulkParsingCoordinator.areAllClaimsCreated(range)
+          && !isAlreadyParsed(range.submissionId())) {
+        updateSubmission(
+            createdSubmissionId, range.totalOutcomes(), SubmissionStatus.READY_FOR_VALIDATION);
+        updateBulkSubmissionStatus(bulkSubmissionId, BulkSubmissionStatus.PARSING_COMPLETED);
+      }
+    } catch (Exception ex) {
+      log.error(
+          "Failed to parse outcomes {} to {} of bulk submission [{}] for submission [{}]: {}",
+          range.fromIndex(),
+          range.toIndex(),
+          bulkSubmissionId,
+          range.submissionId(),
+          ex.getMessage(),
+          ex);
+      eventServiceMetricService.recordBulkParsingShards("failed", 1);
+      updateBulkSubmissionStatusOnError(bulkSubmissionId, createdSubmissionId, ex);
       throw ex;
     }
   }
 
-  private List<String> createClaimsForSubmission(
+  /**
+   * Checks whether a submission has already been created and fully parsed, for example by another
+   * worker which received the same message.
+   */
+  private boolean isAlreadyParsed(UUID submissionId) {
+    return isParsed(findSubmission(submissionId));
+  }
+
+  private static boolean isParsed(SubmissionResponse submission) {
+    return submission != null && PARSED_STATUSES.contains(submission.getStatus());
+  }
+
+  private static boolean hasMatterStarts(SubmissionResponse submission) {
+    return submission.getMatterStarts() != null && !submission.getMatterStarts().isEmpty();
+  }
+
+  /**
+   * Finds a submission, returning {@code null} if it has not been created. Any other failure to
+   * find it is thrown, so that the message is delivered again rather than creating the submission
+   * a second time.
+   */
+  private SubmissionResponse findSubmission(UUID submissionId) {
+    try {
+      ResponseEntity<SubmissionResponse> response =
+          dataClaimsRestClient.getSubmission(submissionId);
+      return response != null ? response.getBody() : null;
+    } catch (WebClientResponseException.NotFound ex) {
+      return null;
+    }
+  }
+
+  /**
+   * Finds the line numbers of the claims created for a submission by an earlier attempt to parse
+   * it, so that a redelivered message creates only the claims which are missing.
+   */
+  private Set<Integer> findCreatedLineNumbers(String officeAccountNumber, String submissionId) {
+    Set<Integer> lineNumbers = new HashSet<>();
+    int page = 0;
+    int totalPages = 0;
+    do {
+      ResponseEntity<ClaimResultSet> response =
+          dataClaimsRestClient.getClaims(
+              officeAccountNumber,
+              submissionId,
+              Collections.emptyList(),
+              null,
+              null,
+              null,
+              null,
+              Collections.emptyList(),
+              page,
+              CREATED_CLAIMS_PAGE_SIZE,
+              "id,asc");
+      ClaimResultSet claims = response != null ? response.getBody() : null;
+      if (claims == null || claims.getContent() == null) {
+        break;
+      }
+      claims.getContent().stream()
+          .map(ClaimResponse::getLineNumber)
+          .filter(Objects::nonNull)
+          .forEach(lineNumbers::add);
+      totalPages = claims.getTotalPages() != null ? claims.getTotalPages() : 0;
+      page++;
+    } while (page < totalPages);
+
+    log.info(
+        "Resuming submission [{}], {} claims were created by an earlier attempt",
+        submissionId,
+        lineNumbers.size());
+    return lineNumbers;
+  }
+
+  /**
+   * Creates the claims for a submission which were not created by an earlier attempt.
+   *
+   * @return the number of claims in the submission, including those created earlier
+   */
+  private int createClaimsForSubmission(
       String createdSubmissionId,
       GetBulkSubmission200Response bulkSubmission,
-      AreaOfLaw areaOfLaw) {
-    List<BulkSubmissionOutcome> outcomes =
-        bulkSubmission.getDetails() != null
-            ? bulkSubmission.getDetails().getOutcomes()
-            : Collections.emptyList();
-    List<ClaimPost> claims = bulkSubmissionMapper.mapToClaimPosts(outcomes, areaOfLaw);
-    return createClaims(createdSubmissionId, claims);
+      AreaOfLaw areaOfLaw,
+      Set<Integer> createdLineNumbers) {
+    List<ClaimPost> claims =
+        timeCurrent(
+            MAP,
+            () -> bulkSubmissionMapper.mapToClaimPosts(getOutcomes(bulkSubmission), areaOfLaw));
+    assignLineNumbers(claims, 0);
+    List<ClaimPost> missing = withoutCreated(claims, createdLineNumbers);
+    List<String> claimIds = timeCurrent(CLAIMS, () -> createClaims(createdSubmissionId, missing));
+    if (createdLineNumbers.isEmpty()) {
+      holdForValidation(createdSubmissionId, areaOfLaw, claims, claimIds);
+    }
+    return claims.size() - missing.size() + claimIds.size();
   }
 
-  private void createMatterStartsForSubmission(
+  /**
+   * Holds the claims just created for a submission, once checked by the validators which need
+   * nothing else, so that validating the submission does not fetch them back. Only claims which
+   * were all created by this attempt are held, and failing to hold them does not fail the parse.
+   */
+  private void holdForValidation(
+      String createdSubmissionId,
+      AreaOfLaw areaOfLaw,
+      List<ClaimPost> claims,
+      List<String> claimIds) {
+    if (!claimValidationService.holdsParsedClaims(claims.size())
+        || claimIds.size() != claims.size()
+        || claims.stream().anyMatch(Objects::isNull)) {
+      return;
+    }
+    try {
+      List<ClaimResponse> claimResponses = new ArrayList<>(claims.size());
+      for (int i = 0; i < claims.size(); i++) {
+        claimResponses.add(
+            bulkSubmissionMapper
+                .mapToClaimResponse(claims.get(i))
+                .id(claimIds.get(i))
+                .status(ClaimStatus.READY_TO_PROCESS));
+      }
+      timeCurrent(
+          VALIDATE,
+          () -> {
+            claimValidationService.holdParsedClaims(
+                UUID.fromString(createdSubmissionId), claimResponses, areaOfLaw);
+            return null;
+          });
+    } catch (RuntimeException ex) {
+      log.warn(
+          "Failed to hold the claims of submission [{}] for validation, they will be fetched: {}",
+          createdSubmissionId,
+          ex.getMessage());
+    }
+  }
+
+  /**
+   * Creates the claims for a submission from outcomes streamed in chunks, normalising and mapping
+   * each chunk as it arrives, so that only one chunk of outcomes and claims is held at a time.
+   *
+   * @return the number of claims in the submission, including those created earlier
+   */
+  private int createClaimsFromStream(
+      UUID bulkSubmissionId,
+      String createdSubmissionId,
+      AreaOfLaw areaOfLaw,
+      Set<Integer> createdLineNumbers) {
+    int[] numberOfClaims = {0};
+    // Reading the stream is interleaved with handling each chunk, so is timed as what remains
+    long[] chunkNanos = {0};
+    long startNanos = System.nanoTime();
+    bulkSubmissionStreamReader.readOutcomes(
+        bulkSubmissionId,
+        (outcomes, offset) -> {
+          long chunkStartNanos = System.nanoTime();
+          timeCurrent(
+              NORMALISE,
+              () -> {
+                outcomes.forEach(submissionDataNormaliser::normaliseOutcome);
+                return null;
+              });
+          List<ClaimPost> claims =
+              timeCurrent(MAP, () -> bulkSubmissionMapper.mapToClaimPosts(outcomes, areaOfLaw));
+          assignLineNumbers(claims, offset);
+          List<ClaimPost> missing = withoutCreated(claims, createdLineNumbers);
+          numberOfClaims[0] +=
+              claims.size()
+                  - missing.size()
+                  + timeCurrent(CLAIMS, () -> createClaims(createdSubmissionId, missing)).size();
+          chunkNanos[0] += System.nanoTime() - chunkStartNanos;
+        });
+    BulkParsingProfile profile = BulkParsingProfile.current();
+    if (profile != null) {
+      profile.addNanos(FETCH, System.nanoTime() - startNanos - chunkNanos[0]);
+    }
+    return numberOfClaims[0];
+  }
+
+  private static List<ClaimPost> withoutCreated(
+      List<ClaimPost> claims, Set<Integer> createdLineNumbers) {
+    if (createdLineNumbers.isEmpty()) {
+      return claims;
+    }
+    return claims.stream()
+        .filter(claim -> claim == null || !createdLineNumbers.contains(claim.getLineNumber()))
+        .toList();
+  }
+
+  /**
+   * Assigns line numbers to claims without one, from their position in the whole bulk submission.
+   */
+  private static void assignLineNumbers(List<ClaimPost> claims, int offset) {
+    for (int i = 0; i < claims.size(); i++) {
+      ClaimPost claim = claims.get(i);
+      if (claim != null && claim.getLineNumber() == null) {
+        claim.setLineNumber(offset + i + 1);
+      }
+    }
+  }
+
+  private static List<BulkSubmissionOutcome> getOutcomes(
+      GetBulkSubmission200Response bulkSubmission) {
+    return bulkSubmission.getDetails() != null && bulkSubmission.getDetails().getOutcomes() != null
+        ? bulkSubmission.getDetails().getOutcomes()
+        : Collections.emptyList();
+  }
+
+  private List<String> createMatterStartsForSubmission(
       String createdSubmissionId, GetBulkSubmission200Response bulkSubmission) {
     List<BulkSubmissionMatterStart> matterStarts =
         bulkSubmission.getDetails() != null
             ? bulkSubmission.getDetails().getMatterStarts()
             : List.of();
     List<MatterStartPost> matterStartRequests =
-        bulkSubmissionMapper.mapToMatterStartRequests(matterStarts);
-    createMatterStarts(createdSubmissionId, matterStartRequests);
+        timeCurrent(MAP, () -> bulkSubmissionMapper.mapToMatterStartRequests(matterStarts));
+    return timeCurrent(
+        MATTER_STARTS, () -> createMatterStarts(createdSubmissionId, matterStartRequests));
+  }
+
+  private Future<List<String>> startMatterStartsForSubmission(
+      String createdSubmissionId, GetBulkSubmission200Response bulkSubmission) {
+    return claimCreationExecutor.submit(
+        () -> createMatterStartsForSubmission(createdSubmissionId, bulkSubmission));
   }
 
-  private void updateBulkSubmissionStatusOnError(UUID bulkSubmissionId, String submissionId) {
+  /** Waits for the matter starts of a submission, rethrowing the failure of any of them. */
+  private static void awaitMatterStarts(Future<List<String>> matterStartsCreated) {
+    try {
+      matterStartsCreated.get();
+    } catch (ExecutionException ex) {
+      if (ex.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw new MatterStartCreateException(
+          "Failed to create matter starts: " + ex.getCause().getMessage(), ex.getCause());
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      matterStartsCreated.cancel(true);
+      throw new MatterStartCreateException("Interrupted while creating matter starts", ex);
+    }
+  }
+
+  /**
+   * Marks a bulk submission as {@code PARSING_FAILED}. Any failure to update the status is logged
+   * rather than thrown, so that the original parsing failure is not masked.
+   *
+   * @param bulkSubmissionId identifier of the bulk submission to mark as failed
+   */
+  public void markBulkSubmissionAsFailed(UUID bulkSubmissionId) {
     try {
       updateBulkSubmissionStatus(bulkSubmissionId, BulkSubmissionStatus.PARSING_FAILED);
     } catch (Exception statusEx) {
@@ -123,6 +561,25 @@ public class BulkParsingService {
           bulkSubmissionId,
           statusEx.getMessage());
     }
+  }
+
+  /**
+   * Marks a bulk submission, and its submission if created, as failed. A transient failure leaves
+   * both as they are, as the message is delivered again and resumes the submission, creating only
+   * the claims which are missing. Marking the submission as failed would instead have the
+   * redelivered message treat it as already parsed.
+   */
+  private void updateBulkSubmissionStatusOnError(
+      UUID bulkSubmissionId, String submissionId, Exception ex) {
+    if (ClaimCreationRetryPolicy.isTransient(ex)) {
+      log.warn(
+          "Parsing of bulk submission [{}] failed with a transient error, leaving submission [{}]"
+              + " to be resumed",
+          bulkSubmissionId,
+          submissionId);
+      return;
+    }
+    markBulkSubmissionAsFailed(bulkSubmissionId);
     if (submissionId != null) {
       try {
         markSubmissionAsFailed(submissionId);
@@ -224,79 +681,99 @@ public class BulkParsingService {
       }
     }
 
-    // 2) Post concurrently (preserve order in results)
-    ExecutorService pool = Executors.newFixedThreadPool(Math.min(claims.size(), MAX_CONCURRENCY));
-    try {
-      List<CompletableFuture<Result>> futures = new ArrayList<>(claims.size());
-
-      for (int i = 0; i < claims.size(); i++) {
-        final int index = i;
-        final ClaimPost claim = claims.get(i);
-
-        CompletableFuture<Result> fut =
-            CompletableFuture.supplyAsync(
-                () -> {
-                  try {
-                    String id = createClaim(submissionId, claim);
-                    return new Result(index, id);
-                  } catch (RuntimeException ex) {
-                    String ln = (claim != null ? String.valueOf(claim.getLineNumber()) : "null");
-                    throw new ClaimCreateException(
-                        "Failed to create claim at index "
-                            + index
-                            + " (lineNumber="
-                            + ln
-                            + "): "
-                            + ex.getMessage(),
-                        ex);
-                  }
-                },
-                pool);
-
-        futures.add(fut);
-      }
-
-      // Wait for all to complete, fail fast if any failed
-      CompletableFuture<Void> all =
-          CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    // 2) Post in batches where the Data Claims API allows it
+    List<String> batchedIds =
+        batchedClaimCreator.isEnabled()
+            ? batchedClaimCreator.createClaims(submissionId, claims)
+            : Collections.emptyList();
+    if (!batchedIds.isEmpty()) {
+      return batchedIds;
+    }
 
-      all.join();
+    // 3) Otherwise post concurrently on the shared executor (preserve order in results)
+    List<Callable<String>> creations = new ArrayList<>(claims.size());
+    for (int i = 0; i < claims.size(); i++) {
+      final int index = i;
+      final ClaimPost claim = claims.get(i);
+      creations.add(
+          () -> {
+            try {
+              // Each claim is sent with the same idempotency key on every attempt
+              return claimCreationRetryPolicy.call(() -> createClaim(submissionId, claim));
+            } catch (RuntimeException ex) {
+              String ln = (claim != null ? String.valueOf(claim.getLineNumber()) : "null");
+              throw new ClaimCreateException(
+                  "Failed to create claim at index "
+                      + index
+                      + " (lineNumber="
+                      + ln
+                      + "): "
+                      + ex.getMessage(),
+                  ex);
+            }
+          });
+    }
 
-      // Collect IDs in index order
-      String[] ids = new String[claims.size()];
-      for (CompletableFuture<Result> f : futures) {
-        Result r = f.join();
-        ids[r.index] = r.id;
-      }
+    // Fails fast: the first failure cancels the creations still in flight and those not started
+    List<String> ids = claimCreationExecutor.invokeAll(creations);
+    log.info("Created {} claims for submission [{}]", ids.size(), submissionId);
+    return ids;
+  }
 
-      log.info("Created {} claims for submission [{}]", ids.length, submissionId);
-      return List.of(ids);
+  /**
+   * Fails a submission found to be invalid before any of its claims were created, as validating it
+   * would have done.
+   */
+  private void rejectSubmission(
+      UUID bulkSubmissionId, String submissionId, List<ValidationMessagePatch> errors) {
+    log.info(
+        "Submission [{}] of bulk submission [{}] failed {} checks before creating its claims",
+        submissionId,
+        bulkSubmissionId,
+        errors.size());
+    SubmissionPatch submissionPatch =
+        new SubmissionPatch()
+            .submissionId(UUID.fromString(submissionId))
+            .status(SubmissionStatus.VALIDATION_FAILED)
+            .validationMessages(errors);
+    ResponseEntity<Void> submissionResponse =
+        dataClaimsRestClient.updateSubmission(submissionId, submissionPatch);
+    if (submissionResponse == null || !submissionResponse.getStatusCode().is2xxSuccessful()) {
+      throw new SubmissionCreateException(
+          "Failed to update submission "
+              + submissionId
+              + ". HTTP status: "
+              + getResponseStatus(submissionResponse));
+    }
 
-    } catch (CompletionException ce) {
-      Throwable cause = ce.getCause();
-      if (cause instanceof ClaimCreateException cce) {
-        throw cce;
-      }
-      throw new ClaimCreateException("Failed to create claims: " + cause.getMessage(), cause);
-    } finally {
-      pool.shutdown();
+    BulkSubmissionPatch bulkSubmissionPatch =
+        new BulkSubmissionPatch()
+            .bulkSubmissionId(bulkSubmissionId)
+            .status(BulkSubmissionStatus.VALIDATION_FAILED)
+            .errorCode(BulkSubmissionErrorCode.V100)
+            .errorDescription(
+                "Validation completed for bulk submission %s with errors"
+                    .formatted(bulkSubmissionId));
+    ResponseEntity<Void> bulkSubmissionResponse =
+        dataClaimsRestClient.updateBulkSubmission(bulkSubmissionId.toString(), bulkSubmissionPatch);
+    if (bulkSubmissionResponse == null
+        || !bulkSubmissionResponse.getStatusCode().is2xxSuccessful()) {
+      throw new BulkSubmissionUpdateException(
+          "Failed to update bulk submission status for bulk submission "
+              + bulkSubmissionId
+              + ". HTTP status: "
+              + getResponseStatus(bulkSubmissionResponse));
     }
+
+    eventServiceMetricService.incrementTotalInvalidSubmissions();
+    eventServiceMetricService.incrementSubmissionsRejectedBeforeClaims();
+    errors.forEach(error -> eventServiceMetricService.recordValidationMessage(error, false));
   }
 
   private void markSubmissionAsFailed(String submissionId) {
     updateSubmission(submissionId, null, SubmissionStatus.VALIDATION_FAILED);
   }
 
-  private static final class Result {
-    final int index;
-    final String id;
-
-    Result(int index, String id) {
-      this.index = index;
-      this.id = id;
-    }
-  }
-
   /**
    * Post a claim to a submission and return the created claim ID.
    *
@@ -349,18 +826,23 @@ public class BulkParsingService {
       return Collections.emptyList();
     }
 
-    List<String> createdIds = new ArrayList<>(matterStarts.size());
-    int index = 0;
-    for (MatterStartPost ms : matterStarts) {
-      try {
-        createdIds.add(createMatterStart(submissionId, ms));
-      } catch (RuntimeException ex) {
-        throw new MatterStartCreateException(
-            "Failed to create matter start at index " + index + ": " + ex.getMessage(), ex);
-      } finally {
-        index++;
-      }
+    // Post concurrently on the shared executor (preserve order in results)
+    List<Callable<String>> creations = new ArrayList<>(matterStarts.size());
+    for (int i = 0; i < matterStarts.size(); i++) {
+      final int index = i;
+      final MatterStartPost ms = matterStarts.get(i);
+      creations.add(
+          () -> {
+            try {
+              return createMatterStart(submissionId, ms);
+            } catch (RuntimeException ex) {
+              throw new MatterStartCreateException(
+                  "Failed to create matter start at index " + index + ": " + ex.getMessage(), ex);
+            }
+          });
     }
+
+    List<String> createdIds = claimCreationExecutor.invokeAll(creations);
     log.info("Created {} matter starts for submission [{}]", createdIds.size(), submissionId);
     return createdIds;
   }
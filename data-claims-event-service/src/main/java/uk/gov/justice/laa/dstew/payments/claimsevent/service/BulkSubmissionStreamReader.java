@@ -0,0 +1,256 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Service;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.BulkSubmissionOutcome;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.GetBulkSubmission200Response;
+import uk.gov.justice.laa.dstew.payments.claimsevent.client.DataClaimsRestClient;
+import uk.gov.justice.laa.dstew.payments.claimsevent.exception.BulkSubmissionRetrievalException;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.model.BulkSubmissionHeader;
+
+/**
+ * Reads bulk submissions from the Data Claims API as a stream of JSON tokens, so that large bulk
+ * submissions can be parsed without holding every outcome in memory at once.
+ *
+ * <p>A bulk submission is read in two passes. The first reads everything except the outcomes,
+ * which are counted and skipped, so that the submission can be created before any claims. The
+ * second reads only the outcomes, handing them on in chunks of a fixed size as they arrive. Only
+ * the buffers being read and the current chunk are held in memory, however large the bulk
+ * submission. A range of the outcomes can also be read on its own, skipping those before it and
+ * stopping once it has been read.
+ *
+ * <p>Streaming is disabled by default.
+ */
+@Slf4j
+@Service
+public class BulkSubmissionStreamReader {
+
+  private static final String DETAILS_FIELD = "details";
+  private static final String OUTCOMES_FIELD = "outcomes";
+
+  /** The number of buffers requested from the response body ahead of the parser. */
+  private static final int PREFETCH_BUFFERS = 4;
+
+  private final DataClaimsRestClient dataClaimsRestClient;
+  private final ObjectMapper objectMapper;
+  private final boolean enabled;
+  private final int chunkSize;
+
+  /**
+   * Constructs a new {@code BulkSubmissionStreamReader}.
+   *
+   * @param dataClaimsRestClient the client used to stream bulk submissions
+   * @param enabled whether bulk submissions should be streamed rather than read whole
+   * @param chunkSize the number of outcomes handed on at a time
+   * @param normaliseOnDeserialisation whether strings should be normalised as they are read
+   */
+  public BulkSubmissionStreamReader(
+      DataClaimsRestClient dataClaimsRestClient,
+      @Value("${laa.bulk-claim-queue.streaming-parsing.enabled:false}") boolean enabled,
+      @Value("${laa.bulk-claim-queue.streaming-parsing.chunk-size:500}") int chunkSize,
+      @Value("${laa.bulk-claim-queue.normalise-on-deserialisation.enabled:false}")
+          boolean normaliseOnDeserialisation) {
+    this.dataClaimsRestClient = dataClaimsRestClient;
+    JsonMapper.Builder builder =
+        JsonMapper.builder()
+            .findAndAddModules()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    if (normaliseOnDeserialisation) {
+      builder.addModule(new NormalisingDeserialisationModule());
+    }
+    this.objectMapper = builder.build();
+    this.enabled = enabled;
+    this.chunkSize = Math.max(1, chunkSize);
+  }
+
+  /**
+   * Returns whether bulk submissions should be streamed rather than read whole.
+   *
+   * @return {@code true} if streaming is enabled
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Reads a bulk submission without its outcomes, counting the outcomes as they are skipped.
+   *
+   * @param bulkSubmissionId the ID of the bulk submission
+   * @return the bulk submission, with an empty list of outcomes, and the number of outcomes
+   * @throws BulkSubmissionRetrievalException if the bulk submission could not be read
+   */
+  public BulkSubmissionHeader readHeader(UUID bulkSubmissionId) {
+    ObjectNode header = objectMapper.createObjectNode();
+    int outcomeCount = read(bulkSubmissionId, header, null, 0, Integer.MAX_VALUE);
+    try {
+      return new BulkSubmissionHeader(
+          objectMapper.treeToValue(header, GetBulkSubmission200Response.class), outcomeCount);
+    } catch (IOException ex) {
+      throw new BulkSubmissionRetrievalException(bulkSubmissionId, ex);
+    }
+  }
+
+  /**
+   * Reads the outcomes of a bulk submission, handing them on in chunks as they arrive. Each chunk
+   * is handed on with the index of its first outcome in the bulk submission.
+   *
+   * @param bulkSubmissionId the ID of the bulk submission
+   * @param chunkConsumer receives each chunk of outcomes and the index of its first outcome
+   * @return the number of outcomes read
+   * @throws BulkSubmissionRetrievalException if the bulk submission could not be read
+   */
+  public int readOutcomes(
+      UUID bulkSubmissionId, ObjIntConsumer<List<BulkSubmissionOutcome>> chunkConsumer) {
+    List<BulkSubmissionOutcome> chunk = new ArrayList<>(chunkSize);
+    int[] offset = {0};
+    int outcomeCount =
+        read(
+            bulkSubmissionId,
+            null,
+            outcome -> {
+              chunk.add(outcome);
+              if (chunk.size() == chunkSize) {
+                chunkConsumer.accept(List.copyOf(chunk), offset[0]);
+                offset[0] += chunk.size();
+                chunk.clear();
+              }
+            },
+            0,
+            Integer.MAX_VALUE);
+    if (!chunk.isEmpty()) {
+      chunkConsumer.accept(List.copyOf(chunk), offset[0]);
+    }
+    return outcomeCount;
+  }
+
+  /**
+   * Reads a range of the outcomes of a bulk submission. The outcomes before the range are skipped
+   * without being read into objects, and the bulk submission is not read beyond the range.
+   *
+   * @param bulkSubmissionId the ID of the bulk submission
+   * @param fromIndex the index of the first outcome to read, inclusive
+   * @param toIndex the index of the last outcome to read, exclusive
+   * @return the outcomes in the range
+   * @throws BulkSubmissionRetrievalException if the bulk submission could not be read, or has
+   *     fewer outcomes than the range
+   */
+  public List<BulkSubmissionOutcome> readOutcomeRange(
+      UUID bulkSubmissionId, int fromIndex, int toIndex) {
+    List<BulkSubmissionOutcome> outcomes = new ArrayList<>(toIndex - fromIndex);
+    read(bulkSubmissionId, null, outcomes::add, fromIndex, toIndex);
+    if (outcomes.size() != toIndex - fromIndex) {
+      log.warn(
+          "Bulk submission [{}] has {} of the outcomes {} to {}",
+          bulkSubmissionId,
+          outcomes.size(),
+          fromIndex,
+          toIndex);
+      throw new BulkSubmissionRetrievalException(bulkSubmissionId);
+    }
+    return outcomes;
+  }
+
+  /**
+   * Reads a bulk submission, copying everything but the outcomes into the header if one is given,
+   * and handing each outcome from {@code fromIndex} up to {@code toIndex} to the consumer if one is
+   * given. Without a header, reading stops once the outcome before {@code toIndex} has been read.
+   *
+   * @return the number of outcomes read, which is every outcome unless reading stopped early
+   */
+  private int read(
+      UUID bulkSubmissionId,
+      ObjectNode header,
+      Consumer<BulkSubmissionOutcome> outcomeConsumer,
+      int fromIndex,
+      int toIndex) {
+    log.debug("Streaming bulk submission [{}] from Data Claims service", bulkSubmissionId);
+    try (InputStream body =
+            DataBufferUtils.subscriberInputStream(
+                dataClaimsRestClient.streamBulkSubmission(bulkSubmissionId), PREFETCH_BUFFERS);
+        JsonParser parser = objectMapper.getFactory().createParser(body)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new BulkSubmissionRetrievalException(bulkSubmissionId);
+      }
+      int outcomeCount = 0;
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.currentName();
+        JsonToken value = parser.nextToken();
+        if (DETAILS_FIELD.equals(field) && value == JsonToken.START_OBJECT) {
+          ObjectNode details = header != null ? header.putObject(DETAILS_FIELD) : null;
+          outcomeCount += readDetails(parser, details, outcomeConsumer, fromIndex, toIndex);
+          if (header == null && outcomeCount >= toIndex) {
+            return outcomeCount;
+          }
+        } else {
+          copyOrSkip(parser, header, field);
+        }
+      }
+      return outcomeCount;
+    } catch (IOException ex) {
+      throw new BulkSubmissionRetrievalException(bulkSubmissionId, ex);
+    }
+  }
+
+  private int readDetails(
+      JsonParser parser,
+      ObjectNode details,
+      Consumer<BulkSubmissionOutcome> outcomeConsumer,
+      int fromIndex,
+      int toIndex)
+      throws IOException {
+    int outcomeCount = 0;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.currentName();
+      JsonToken value = parser.nextToken();
+      if (OUTCOMES_FIELD.equals(field) && value == JsonToken.START_ARRAY) {
+        if (details != null) {
+          details.putArray(OUTCOMES_FIELD);
+        }
+        for (JsonToken outcome = parser.nextToken();
+            outcome != JsonToken.END_ARRAY;
+            outcome = parser.nextToken()) {
+          if (outcome == null) {
+            throw new EOFException("Bulk submission ended part way through its outcomes");
+          }
+          if (outcomeConsumer != null && outcomeCount >= fromIndex && outcomeCount < toIndex) {
+            outcomeConsumer.accept(objectMapper.readValue(parser, BulkSubmissionOutcome.class));
+          } else {
+            parser.skipChildren();
+          }
+          outcomeCount++;
+          if (details == null && outcomeCount >= toIndex) {
+            // Nothing more is wanted, so the rest of the bulk submission is not read
+            return outcomeCount;
+          }
+        }
+      } else {
+        copyOrSkip(parser, details, field);
+      }
+    }
+    return outcomeCount;
+  }
+
+  private void copyOrSkip(JsonParser parser, ObjectNode target, String field) throws IOException {
+    if (target != null) {
+      target.set(field, objectMapper.readTree(parser));
+    } else {
+      parser.skipChildren();
+    }
+  }
+}
@@ -24,6 +24,7 @@ import uk.gov.justice.laa.fee.scheme.model.FeeDetailsResponseV2;
 public class CategoryOfLawValidationService {
 
   private final FeeSchemePlatformRestClient feeSchemePlatformRestClient;
+  private final FeeDetailsCache feeDetailsCache;
 
   /**
    * Validates whether the claim's fee code is associated with a category of law that the provider
@@ -122,7 +123,10 @@ public class CategoryOfLawValidationService {
         claims.stream().map(ClaimResponse::getFeeCode).collect(Collectors.toSet());
 
     return uniqueFeeCodes.stream()
-        .collect(Collectors.toMap(feeCode -> feeCode, this::getFeeDetails));
+        .collect(
+            Collectors.toMap(
+                feeCode -> feeCode,
+                feeCode -> feeDetailsCache.getFeeDetails(feeCode, this::getFeeDetails)));
   }
 
   private FeeDetailsResponseWrapper getFeeDetails(String feeCode) {
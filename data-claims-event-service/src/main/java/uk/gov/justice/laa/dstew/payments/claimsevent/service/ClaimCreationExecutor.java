@@ -0,0 +1,175 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import uk.gov.justice.laa.dstew.payments.claimsevent.exception.SubmissionEventProcessingException;
+import uk.gov.justice.laa.dstew.payments.claimsevent.metrics.BulkParsingProfile;
+import uk.gov.justice.laa.dstew.payments.claimsevent.metrics.EventServiceMetricService;
+
+/**
+ * Runs the claim creations of submissions on a single executor shared by every submission being
+ * parsed, rather than a pool of threads for each submission. The matter starts of submissions are
+ * created on the same executor, alongside their claims.
+ *
+ * <p>Claim creation waits on the Data Claims API rather than the CPU, so each creation runs on its
+ * own virtual thread. The number of creations in flight is bounded both across all submissions and
+ * for each submission, so that one large submission cannot take every permit. A submission's
+ * creations are only started once it holds a permit, so none are left queued on the executor.
+ *
+ * <p>Creations fail fast: once one creation fails, those in flight are cancelled and no more are
+ * started, so a submission which cannot be created stops sending requests straight away.
+ */
+@Slf4j
+@Service
+public class ClaimCreationExecutor {
+
+  private final EventServiceMetricService eventServiceMetricService;
+  private final Semaphore permits;
+  private final int submissionConcurrency;
+  private final ExecutorService executor =
+      Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("claim-creator-", 0).factory());
+
+  /**
+   * Constructs a new {@code ClaimCreationExecutor}.
+   *
+   * @param eventServiceMetricService the service used to record cancelled creations
+   * @param maxConcurrency the most claim creations in flight at once across all submissions
+   * @param submissionConcurrency the most claim creations in flight at once for one submission
+   */
+  public ClaimCreationExecutor(
+      EventServiceMetricService eventServiceMetricService,
+      @Value("${laa.bulk-claim-queue.claim-creation.max-concurrency:64}") int maxConcurrency,
+      @Value("${laa.bulk-claim-queue.claim-creation.submission-concurrency:16}")
+          int submissionConcurrency) {
+    this.eventServiceMetricService = eventServiceMetricService;
+    this.permits = new Semaphore(Math.max(1, maxConcurrency));
+    this.submissionConcurrency = Math.max(1, submissionConcurrency);
+  }
+
+  /**
+   * Runs the claim creations of a single submission, returning their results in the order of the
+   * creations given.
+   *
+   * @param creations the claim creations to run
+   * @return the result of each creation
+   * @throws RuntimeException the exception thrown by the first creation to fail, once the other
+   *     creations have been cancelled
+   */
+  public <T> List<T> invokeAll(List<? extends Callable<T>> creations) {
+    if (creations.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    Semaphore submissionPermits = new Semaphore(submissionConcurrency);
+    AtomicReference<Exception> failure = new AtomicReference<>();
+    List<Future<T>> futures = Collections.synchronizedList(new ArrayList<>(creations.size()));
+    try {
+      for (Callable<T> creation : creations) {
+        submissionPermits.acquire();
+        if (failure.get() != null) {
+          submissionPermits.release();
+          break;
+        }
+        futures.add(
+            executor.submit(
+                BulkParsingProfile.propagate(
+                    () -> run(creation, submissionPermits, failure, futures))));
+      }
+
+      List<T> results = new ArrayList<>(creations.size());
+      for (Future<T> future : futures) {
+        results.add(future.get());
+      }
+      return results;
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      cancel(futures, creations.size(), false);
+      throw new SubmissionEventProcessingException("Interrupted while creating claims", ex);
+    } catch (ExecutionException | CancellationException ex) {
+      cancel(futures, creations.size(), true);
+      Exception cause = failure.get() != null ? failure.get() : ex;
+      if (cause instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw new SubmissionEventProcessingException("Failed to create claims", cause);
+    }
+  }
+
+  /**
+   * Starts a task alongside the caller, such as the creation of a submission's matter starts while
+   * its claims are created. Any creations the task runs through {@link #invokeAll} are bounded as
+   * usual, and cancelling the task cancels them. Like each creation, the task is profiled as part
+   * of the bulk submission being parsed by the caller.
+   *
+   * @param task the task to start
+   * @return the pending result of the task
+   */
+  public <T> Future<T> submit(Callable<T> task) {
+    return executor.submit(BulkParsingProfile.propagate(task));
+  }
+
+  private <T> T run(
+      Callable<T> creation,
+      Semaphore submissionPermits,
+      AtomicReference<Exception> failure,
+      List<Future<T>> futures)
+      throws Exception {
+    try {
+      permits.acquire();
+      try {
+        return creation.call();
+      } finally {
+        permits.release();
+      }
+    } catch (Exception ex) {
+      if (failure.compareAndSet(null, ex)) {
+        // Cancel the other creations straight away, rather than once their results are collected
+        cancelOthers(futures);
+      }
+      throw ex;
+    } finally {
+      submissionPermits.release();
+    }
+  }
+
+  private static void cancelOthers(List<? extends Future<?>> futures) {
+    synchronized (futures) {
+      futures.forEach(future -> future.cancel(true));
+    }
+  }
+
+  /**
+   * Cancels any creations still in flight once a submission has failed, and records those
+   * cancelled along with those never started.
+   */
+  private void cancel(List<? extends Future<?>> futures, int creationCount, boolean failed) {
+    cancelOthers(futures);
+    long succeeded;
+    synchronized (futures) {
+      succeeded = futures.stream().filter(f -> f.state() == Future.State.SUCCESS).count();
+    }
+    int cancelled = (int) (creationCount - succeeded - (failed ? 1 : 0));
+    if (cancelled > 0) {
+      log.info("Cancelled {} of {} claim creations", cancelled, creationCount);
+      eventServiceMetricService.recordClaimCreationsCancelled(cancelled);
+    }
+  }
+
+  @PreDestroy
+  void shutdown() {
+    executor.shutdownNow();
+  }
+}
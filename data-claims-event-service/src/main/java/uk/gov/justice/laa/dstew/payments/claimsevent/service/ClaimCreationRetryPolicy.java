@@ -0,0 +1,120 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service;
+
+import java.util.Set;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import uk.gov.justice.laa.dstew.payments.claimsevent.exception.DownstreamWriteRejectedException;
+import uk.gov.justice.laa.dstew.payments.claimsevent.metrics.EventServiceMetricService;
+
+/**
+ * Retries the creation of a claim, or of a batch of claims, which failed with a transient error,
+ * waiting twice as long before each further attempt, so that one dropped request does not fail
+ * the whole submission.
+ *
+ * <p>Each claim or batch is sent with the same idempotency key on every attempt, so claims whose
+ * creation succeeded but whose response was lost are recognised by the Data Claims API rather than
+ * created twice. Errors reaching the Data Claims API, responses of 408, 429 or 5xx, and rejections
+ * by the {@link AdaptiveWriteLimiter}, are treated as transient; any other failure is thrown
+ * straight away.
+ *
+ * <p>A creation keeps its place on the {@link ClaimCreationExecutor} while it waits, so an outage
+ * of the Data Claims API slows claim creation rather than sending more requests.
+ */
+@Slf4j
+@Service
+public class ClaimCreationRetryPolicy {
+
+  private static final Set<Integer> TRANSIENT_STATUSES = Set.of(408, 429);
+
+  private final EventServiceMetricService eventServiceMetricService;
+  private final int maxAttempts;
+  private final long initialBackoffMillis;
+  private final long maxBackoffMillis;
+
+  /**
+   * Constructs a new {@code ClaimCreationRetryPolicy}.
+   *
+   * @param eventServiceMetricService the service used to record retries
+   * @param maxAttempts the most times a claim is sent, including the first
+   * @param initialBackoffMillis how long to wait before the first retry, in milliseconds
+   * @param maxBackoffMillis the longest wait before any retry, in milliseconds
+   */
+  public ClaimCreationRetryPolicy(
+      EventServiceMetricService eventServiceMetricService,
+      @Value("${laa.bulk-claim-queue.claim-creation.retry.max-attempts:3}") int maxAttempts,
+      @Value("${laa.bulk-claim-queue.claim-creation.retry.initial-backoff-ms:200}")
+          long initialBackoffMillis,
+      @Value("${laa.bulk-claim-queue.claim-creation.retry.max-backoff-ms:2000}")
+          long maxBackoffMillis) {
+    this.eventServiceMetricService = eventServiceMetricService;
+    this.maxAttempts = Math.max(1, maxAttempts);
+    this.initialBackoffMillis = Math.max(0, initialBackoffMillis);
+    this.maxBackoffMillis = Math.max(this.initialBackoffMillis, maxBackoffMillis);
+  }
+
+  /**
+   * Creates a claim, retrying it while it fails with a transient error.
+   *
+   * @param creation the creation of the claim
+   * @return the result of the first attempt to succeed
+   * @throws RuntimeException the failure of the last attempt, once no more attempts are allowed,
+   *     the failure is not transient, or the thread is interrupted while waiting
+   */
+  public <T> T call(Supplier<T> creation) {
+    long backoffMillis = initialBackoffMillis;
+    for (int attempt = 1; ; attempt++) {
+      try {
+        T result = creation.get();
+        if (attempt > 1) {
+          eventServiceMetricService.recordClaimCreationRetries("recovered");
+        }
+        return result;
+      } catch (RuntimeException ex) {
+        if (attempt >= maxAttempts || !isTransient(ex) || !backOff(backoffMillis)) {
+          if (attempt > 1) {
+            eventServiceMetricService.recordClaimCreationRetries("failed");
+          }
+          throw ex;
+        }
+        log.warn(
+            "Claim creation failed on attempt {} of {}, retried after {} ms: {}",
+            attempt,
+            maxAttempts,
+            backoffMillis,
+            ex.getMessage());
+        eventServiceMetricService.recordClaimCreationRetries("retried");
+        backoffMillis = Math.min(backoffMillis * 2, maxBackoffMillis);
+      }
+    }
+  }
+
+  /** Returns whether a failure, or any failure causing it, is worth retrying. */
+  static boolean isTransient(Throwable failure) {
+    for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+      if (cause instanceof WebClientRequestException
+          || cause instanceof DownstreamWriteRejectedException) {
+        return true;
+      }
+      if (cause instanceof WebClientResponseException response) {
+        return response.getStatusCode().is5xxServerError()
+            || TRANSIENT_STATUSES.contains(response.getStatusCode().value());
+      }
+    }
+    return false;
+  }
+
+  /** Waits before the next attempt, returning {@code false} if interrupted while waiting. */
+  private static boolean backOff(long backoffMillis) {
+    try {
+      Thread.sleep(backoffMillis);
+      return true;
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+}
@@ -0,0 +1,116 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import uk.gov.justice.laa.dstew.payments.claimsevent.exception.SubmissionEventProcessingException;
+import uk.gov.justice.laa.dstew.payments.claimsevent.metrics.EventServiceMetricService;
+import uk.gov.justice.laa.dstew.payments.claimsevent.model.SubmissionEventType;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.model.ClaimRetryTask;
+
+/**
+ * Schedules claims flagged for retry after a transient error to be validated again, without
+ * validating the rest of their submission.
+ *
+ * <p>The claims are sent back to the submission queue as a {@code VALIDATE_SUBMISSION} message,
+ * marked with the {@value #VALIDATION_TASK_ATTRIBUTE} attribute and delayed so that the error has a
+ * chance to clear. The delay doubles with each attempt, up to a maximum, and once the maximum
+ * number of attempts has been made the claims are left ready to process.
+ *
+ * <p>Retries are disabled by default.
+ */
+@Slf4j
+@Service
+public class ClaimRetryScheduler {
+
+  /** The message attribute marking a validation message as a task for part of a submission. */
+  public static final String VALIDATION_TASK_ATTRIBUTE =
+      DistributedClaimValidationCoordinator.VALIDATION_TASK_ATTRIBUTE;
+
+  /** The value of {@value #VALIDATION_TASK_ATTRIBUTE} for claims flagged for retry. */
+  public static final String CLAIM_RETRY_TASK = "CLAIM_RETRY";
+
+  private final SubmissionTaskPublisher submissionTaskPublisher;
+  private final EventServiceMetricService eventServiceMetricService;
+  private final boolean enabled;
+  private final int maxAttempts;
+  private final Duration initialDelay;
+  private final Duration maxDelay;
+
+  /**
+   * Constructs a new {@code ClaimRetryScheduler}.
+   *
+   * @param submissionTaskPublisher the publisher used to send tasks to the submission queue
+   * @param eventServiceMetricService the service used to record retry metrics
+   * @param enabled whether claims flagged for retry should be validated again
+   * @param maxAttempts the number of times claims are validated again before being left
+   * @param initialDelaySeconds the delay before the first retry, in seconds
+   * @param maxDelaySeconds the longest delay between retries, in seconds
+   */
+  public ClaimRetryScheduler(
+      SubmissionTaskPublisher submissionTaskPublisher,
+      EventServiceMetricService eventServiceMetricService,
+      @Value("${claim.validation.retry.enabled:false}") boolean enabled,
+      @Value("${claim.validation.retry.max-attempts:5}") int maxAttempts,
+      @Value("${claim.validation.retry.initial-delay-seconds:30}") long initialDelaySeconds,
+      @Value("${claim.validation.retry.max-delay-seconds:900}") long maxDelaySeconds) {
+    this.submissionTaskPublisher = submissionTaskPublisher;
+    this.eventServiceMetricService = eventServiceMetricService;
+    this.enabled = enabled;
+    this.maxAttempts = maxAttempts;
+    this.initialDelay = Duration.ofSeconds(Math.max(1, initialDelaySeconds));
+    this.maxDelay = Duration.ofSeconds(Math.max(initialDelaySeconds, maxDelaySeconds));
+  }
+
+  /**
+   * Schedules claims of a submission to be validated again, unless retries are disabled or the
+   * claims have already been retried the maximum number of times.
+   *
+   * @param submissionId the ID of the submission the claims belong to
+   * @param claimIds the IDs of the claims flagged for retry
+   * @param attempt the number of the retry, starting at one
+   * @return {@code true} if the retry was scheduled, so the claims will be validated again
+   * @throws SubmissionEventProcessingException if the retry could not be sent
+   */
+  public boolean schedule(UUID submissionId, List<String> claimIds, int attempt) {
+    if (!enabled || claimIds.isEmpty()) {
+      return false;
+    }
+    if (attempt > maxAttempts) {
+      log.warn(
+          "{} claims of submission {} still flagged for retry after {} attempts, leaving them",
+          claimIds.size(),
+          submissionId,
+          maxAttempts);
+      eventServiceMetricService.recordClaimRetries("exhausted", claimIds.size());
+      return false;
+    }
+
+    Duration delay = delay(attempt);
+    submissionTaskPublisher.publish(
+        SubmissionEventType.VALIDATE_SUBMISSION,
+        VALIDATION_TASK_ATTRIBUTE,
+        CLAIM_RETRY_TASK,
+        List.of(new ClaimRetryTask(submissionId, claimIds, attempt)),
+        delay);
+
+    log.info(
+        "Scheduled retry {} of {} claims of submission {} in {} seconds",
+        attempt,
+        claimIds.size(),
+        submissionId,
+        delay.toSeconds());
+    eventServiceMetricService.recordClaimRetries("scheduled", claimIds.size());
+    return true;
+  }
+
+  /** Returns the delay before a retry, doubling with each attempt up to the maximum delay. */
+  Duration delay(int attempt) {
+    int doublings = Math.min(Math.max(0, attempt - 1), 30);
+    Duration delay = initialDelay.multipliedBy(1L << doublings);
+    return delay.compareTo(maxDelay) > 0 ? maxDelay : delay;
+  }
+}
@@ -0,0 +1,95 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Records how far claim validation has got through each submission, so that a redelivered
+ * validation message can resume from the page after the last one flushed to the Data Claims API
+ * rather than starting again from the first page.
+ *
+ * <p>A checkpoint is only valid for the page size it was recorded with, and expires after a
+ * configurable time to live. Checkpoints are held in memory, so a redelivery to another instance
+ * starts again from the first page; claims which have already been validated are still skipped by
+ * {@link ClaimValidationService} as they are no longer ready to process.
+ */
+@Slf4j
+@Service
+public class ClaimValidationCheckpointStore {
+
+  private final Duration ttl;
+  private final Clock clock;
+  private final Map<UUID, Checkpoint> checkpoints = new ConcurrentHashMap<>();
+
+  /**
+   * Constructs a new {@code ClaimValidationCheckpointStore}.
+   *
+   * @param ttlSeconds how long, in seconds, a checkpoint is kept after it was last recorded
+   */
+  @Autowired
+  public ClaimValidationCheckpointStore(
+      @Value("${claim.validation.checkpoint-ttl-seconds:86400}") long ttlSeconds) {
+    this(Duration.ofSeconds(ttlSeconds), Clock.systemUTC());
+  }
+
+  ClaimValidationCheckpointStore(Duration ttl, Clock clock) {
+    this.ttl = ttl;
+    this.clock = clock;
+  }
+
+  /**
+   * Returns the page validation of a submission should start from.
+   *
+   * @param submissionId the ID of the submission
+   * @param pageSize the number of claims in each page
+   * @return the page after the last flushed page, or {@code 0} if there is no usable checkpoint
+   */
+  public int getResumePage(UUID submissionId, int pageSize) {
+    Instant now = clock.instant();
+    checkpoints.values().removeIf(checkpoint -> !checkpoint.expiresAt().isAfter(now));
+
+    Checkpoint checkpoint = checkpoints.get(submissionId);
+    if (checkpoint == null) {
+      return 0;
+    }
+    if (checkpoint.pageSize() != pageSize) {
+      log.info(
+          "Ignoring validation checkpoint for submission {} recorded with page size {}",
+          submissionId,
+          checkpoint.pageSize());
+      return 0;
+    }
+    return checkpoint.lastFlushedPage() + 1;
+  }
+
+  /**
+   * Records that a page of claims has been validated and flushed to the Data Claims API.
+   *
+   * @param submissionId the ID of the submission
+   * @param pageNumber the page which was flushed
+   * @param pageSize the number of claims in each page
+   */
+  public void recordFlushedPage(UUID submissionId, int pageNumber, int pageSize) {
+    checkpoints.put(
+        submissionId, new Checkpoint(pageNumber, pageSize, clock.instant().plus(ttl)));
+  }
+
+  /**
+   * Removes the checkpoint of a submission once all of its claims have been validated.
+   *
+   * @param submissionId the ID of the submission
+   */
+  public void clear(UUID submissionId) {
+    checkpoints.remove(submissionId);
+  }
+
+  private record Checkpoint(int lastFlushedPage, int pageSize, Instant expiresAt) {}
+}
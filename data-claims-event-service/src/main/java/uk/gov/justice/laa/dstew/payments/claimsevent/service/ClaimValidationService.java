@@ -4,22 +4,27 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.AreaOfLaw;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.ClaimResponse;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.ClaimResultSet;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.ClaimStatus;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.SubmissionResponse;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.ValidationMessagePatch;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.ValidationMessageType;
 import uk.gov.justice.laa.dstew.payments.claimsevent.client.DataClaimsRestClient;
 import uk.gov.justice.laa.dstew.payments.claimsevent.exception.EventServiceIllegalArgumentException;
 import uk.gov.justice.laa.dstew.payments.claimsevent.metrics.EventServiceMetricService;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.model.ParsedClaims;
 import uk.gov.justice.laa.dstew.payments.claimsevent.validation.ClaimValidationError;
 import uk.gov.justice.laa.dstew.payments.claimsevent.validation.ClaimValidationReport;
 import uk.gov.justice.laa.dstew.payments.claimsevent.validation.SubmissionValidationContext;
@@ -44,6 +49,8 @@ public class ClaimValidationService {
   private final DataClaimsRestClient dataClaimsRestClient;
   private final EventServiceMetricService eventServiceMetricService;
   private final BulkClaimUpdater bulkClaimUpdater;
+  private final ClaimValidationCheckpointStore claimValidationCheckpointStore;
+  private final ParsedClaimStore parsedClaimStore;
   private final List<ClaimValidator> claimValidator;
   private final int claimValidationBatchSize;
 
@@ -54,6 +61,8 @@ public class ClaimValidationService {
    * @param dataClaimsRestClient The data claims rest client
    * @param eventServiceMetricService The event service
    * @param bulkClaimUpdater The bulk claim updater
+   * @param claimValidationCheckpointStore The store of pages already validated per submission
+   * @param parsedClaimStore The store of claims held from parsing per submission
    * @param claimValidator The claim validator
    * @param claimValidationBatchSize The batch size of claims to validate at once
    */
@@ -62,12 +71,16 @@ public class ClaimValidationService {
       DataClaimsRestClient dataClaimsRestClient,
       EventServiceMetricService eventServiceMetricService,
       BulkClaimUpdater bulkClaimUpdater,
+      ClaimValidationCheckpointStore claimValidationCheckpointStore,
+      ParsedClaimStore parsedClaimStore,
       List<ClaimValidator> claimValidator,
       @Value("${claim.validation.claim-validation-batch-size}") int claimValidationBatchSize) {
     this.categoryOfLawValidationService = categoryOfLawValidationService;
     this.dataClaimsRestClient = dataClaimsRestClient;
     this.eventServiceMetricService = eventServiceMetricService;
     this.bulkClaimUpdater = bulkClaimUpdater;
+    this.claimValidationCheckpointStore = claimValidationCheckpointStore;
+    this.parsedClaimStore = parsedClaimStore;
     this.claimValidator = claimValidator;
     this.claimValidationBatchSize = claimValidationBatchSize;
   }
@@ -75,78 +88,298 @@ public class ClaimValidationService {
   /**
    * Validate a list of claims in a submission and Updates it in the Data Claims API.
    *
+   * <p>Validation resumes from the page after the last one flushed by an earlier attempt, and
+   * claims which are no longer ready to process are skipped, so that a redelivered message does not
+   * repeat work that has already been saved. Pages from the first with claims flagged for retry
+   * onwards are not recorded as flushed, so that a resumed attempt validates those claims again. If
+   * the claims of the submission are held from parsing it, they are validated without being fetched
+   * from the Data Claims API.
+   *
    * @param submission the submission
    */
   public void validateAndUpdateClaims(
       SubmissionResponse submission, SubmissionValidationContext context) {
 
-    int pageNumber = 0;
+    UUID submissionId = submission.getSubmissionId();
+    int pageNumber =
+        claimValidationCheckpointStore.getResumePage(submissionId, claimValidationBatchSize);
     Integer totalPages = Integer.MAX_VALUE;
 
+    // Held claims are taken, so that a redelivered message falls back to fetching the claims and
+    // skips those already saved
+    Optional<ParsedClaims> parsedClaims =
+        pageNumber == 0 ? parsedClaimStore.take(submissionId) : Optional.empty();
+    if (parsedClaims.isPresent()) {
+      validateParsedClaims(submission, context, parsedClaims.get());
+      claimValidationCheckpointStore.clear(submissionId);
+      return;
+    }
+
+    if (pageNumber > 0) {
+      log.info("Resuming validation of submission {} from page {}", submissionId, pageNumber);
+      eventServiceMetricService.incrementClaimValidationPagesResumed(pageNumber);
+    }
+
     // Loop over multiple pages in order to process claims in batches
     while (pageNumber < totalPages) {
+      totalPages = validatePage(submission, context, pageNumber);
 
-      ClaimResultSet claims =
-          dataClaimsRestClient
-              .getClaims(
-                  submission.getOfficeAccountNumber(),
-                  String.valueOf(submission.getSubmissionId()),
-                  Collections.emptyList(),
-                  null,
-                  null,
-                  null,
-                  null,
-                  null,
-                  pageNumber,
-                  claimValidationBatchSize,
-                  "id,asc")
-              .getBody();
-
-      if (claims == null) {
-        throw new EventServiceIllegalArgumentException("Claims response is null from Claims API");
+      // Claims flagged for retry are left ready to process, and would never be validated again if
+      // a redelivery resumed past their page, so the checkpoint stops before the first such page
+      if (!context.hasClaimsToRetry()) {
+        claimValidationCheckpointStore.recordFlushedPage(
+            submissionId, pageNumber, claimValidationBatchSize);
       }
 
-      log.info(
-          "Validating claims page {} from submission {}", pageNumber, submission.getSubmissionId());
+      // Increment page number
+      pageNumber++;
+    }
 
-      // Set total pages
-      totalPages = claims.getTotalPages();
+    claimValidationCheckpointStore.clear(submissionId);
+  }
 
-      List<ClaimResponse> submissionClaims = claims.getContent();
+  /**
+   * Validate the claims on a range of pages of a submission and update them in the Data Claims API.
+   *
+   * <p>Used when the claims of a large submission are validated across several workers, each
+   * validating a range of pages. Claims which are no longer ready to process are skipped, as they
+   * are when validating the whole submission.
+   *
+   * @param submission the submission
+   * @param context the validation context for the submission
+   * @param firstPage the first page to validate
+   * @param lastPage the last page to validate, inclusive
+   */
+  public void validateAndUpdateClaims(
+      SubmissionResponse submission,
+      SubmissionValidationContext context,
+      int firstPage,
+      int lastPage) {
+    int pageNumber = firstPage;
+    int totalPages = Integer.MAX_VALUE;
+    while (pageNumber <= lastPage && pageNumber < totalPages) {
+      totalPages = validatePage(submission, context, pageNumber);
+      pageNumber++;
+    }
+  }
 
-      Map<String, FeeDetailsResponseWrapper> feeDetailsResponseMap =
-          categoryOfLawValidationService.getFeeDetailsResponseForAllFeeCodesInClaims(
-              submissionClaims);
+  /**
+   * Validates the claims on a single page of a submission and saves them to the Data Claims API.
+   *
+   * @return the total number of pages of claims in the submission
+   */
+  private int validatePage(
+      SubmissionResponse submission, SubmissionValidationContext context, int pageNumber) {
+    UUID submissionId = submission.getSubmissionId();
+    ClaimResultSet claims =
+        dataClaimsRestClient
+            .getClaims(
+                submission.getOfficeAccountNumber(),
+                String.valueOf(submissionId),
+                Collections.emptyList(),
+                null,
+                null,
+                null,
+                null,
+                null,
+                pageNumber,
+                claimValidationBatchSize,
+                "id,asc")
+            .getBody();
 
-      List<ClaimResponse> finalSubmissionClaims = submissionClaims;
+    if (claims == null) {
+      throw new EventServiceIllegalArgumentException("Claims response is null from Claims API");
+    }
 
-      // Submit validation tasks for each claim
-      for (ClaimResponse claim : submissionClaims) {
-        validateClaim(
-            claim,
-            finalSubmissionClaims,
-            feeDetailsResponseMap,
-            submission.getAreaOfLaw(),
-            submission.getOfficeAccountNumber(),
-            context);
-      }
+    log.info("Validating claims page {} from submission {}", pageNumber, submissionId);
 
-      // Increment page number
-      pageNumber++;
+    List<ClaimResponse> submissionClaims = claims.getContent();
+
+    // Claims moved out of READY_TO_PROCESS have already been validated and saved
+    List<ClaimResponse> claimsToValidate =
+        submissionClaims.stream().filter(ClaimValidationService::isReadyToProcess).toList();
+    int alreadyValidated = submissionClaims.size() - claimsToValidate.size();
+    if (alreadyValidated > 0) {
+      log.info(
+          "Skipping {} already validated claims on page {} from submission {}",
+          alreadyValidated,
+          pageNumber,
+          submissionId);
+      eventServiceMetricService.incrementClaimsAlreadyValidated(alreadyValidated);
+    }
 
+    if (!claimsToValidate.isEmpty()) {
       log.debug(
           "Saving claims from page {} for submission {} to Data Claims API",
           pageNumber,
-          submission.getSubmissionId());
+          submissionId);
+      validateAndUpdate(submission, context, claimsToValidate, submissionClaims);
+    }
+
+    return claims.getTotalPages();
+  }
+
+  /**
+   * Validate only the given claims of a submission and update them in the Data Claims API.
+   *
+   * <p>Used to validate claims again after they were flagged for retry, without validating the
+   * rest of the submission. Claims which are no longer ready to process are skipped, and duplicates
+   * within the submission are only checked for amongst the given claims.
+   *
+   * @param submission the submission
+   * @param context the validation context, holding a report for each of the claims
+   * @param claimIds the IDs of the claims to validate
+   */
+  public void validateAndUpdateClaims(
+      SubmissionResponse submission, SubmissionValidationContext context, List<String> claimIds) {
+    UUID submissionId = submission.getSubmissionId();
+    List<ClaimResponse> claimsToValidate =
+        claimIds.stream()
+            .map(claimId -> dataClaimsRestClient.getClaim(submissionId, UUID.fromString(claimId)))
+            .map(ResponseEntity::getBody)
+            .filter(Objects::nonNull)
+            .filter(ClaimValidationService::isReadyToProcess)
+            .toList();
+
+    log.info(
+        "Validating {} of {} claims flagged for retry from submission {}",
+        claimsToValidate.size(),
+        claimIds.size(),
+        submissionId);
+    if (!claimsToValidate.isEmpty()) {
+      validateAndUpdate(submission, context, claimsToValidate, claimsToValidate);
+    }
+  }
 
-      // Update claims status after all validations
-      bulkClaimUpdater.updateClaims(
-          submission.getSubmissionId(),
+  /**
+   * Runs the validators which depend on nothing but the claim and the area of law on the claims of
+   * a submission which has just been parsed, and holds the claims and any messages found until the
+   * submission is validated.
+   *
+   * <p>The validators which depend on fee details, previous claims or other external lookups, and
+   * saving the results, are left until the submission is validated.
+   *
+   * @param submissionId the ID of the submission
+   * @param claims the claims of the submission, as they were created
+   * @param areaOfLaw the area of law of the submission
+   */
+  public void holdParsedClaims(UUID submissionId, List<ClaimResponse> claims, AreaOfLaw areaOfLaw) {
+    SubmissionValidationContext context = new SubmissionValidationContext();
+    context.addClaimReports(
+        claims.stream().map(ClaimResponse::getId).map(ClaimValidationReport::new).toList());
+    List<ClaimValidator> validators =
+        claimValidator.stream()
+            .filter(ClaimValidationService::isStandalone)
+            .sorted(Comparator.comparingInt(ClaimValidator::priority))
+            .toList();
+    for (ClaimResponse claim : claims) {
+      validators.forEach(
+          x -> {
+            switch (x) {
+              case BasicClaimValidator validator -> validator.validate(claim, context);
+              case ClaimWithAreaOfLawValidator validator ->
+                  validator.validate(claim, context, areaOfLaw);
+              default -> throw new EventServiceIllegalArgumentException("Unknown validator used");
+            }
+          });
+    }
+
+    Map<String, List<ValidationMessagePatch>> messages =
+        context.getClaimReports().stream()
+            .filter(report -> !report.getMessages().isEmpty())
+            .collect(
+                Collectors.toMap(
+                    ClaimValidationReport::getClaimId, ClaimValidationReport::getMessages));
+    parsedClaimStore.put(submissionId, new ParsedClaims(claims, messages));
+  }
+
+  /**
+   * Returns whether the claims of a submission with the given number of claims would be held by
+   * {@link #holdParsedClaims}.
+   *
+   * @param numberOfClaims the number of claims in the submission
+   * @return {@code true} if the claims would be held
+   */
+  public boolean holdsParsedClaims(int numberOfClaims) {
+    return parsedClaimStore.accepts(numberOfClaims);
+  }
+
+  /**
+   * Validates the claims held from parsing a submission in batches, adding the messages found when
+   * they were held and running only the validators which were left until now.
+   */
+  private void validateParsedClaims(
+      SubmissionResponse submission,
+      SubmissionValidationContext context,
+      ParsedClaims parsedClaims) {
+    List<ClaimResponse> claims = parsedClaims.claims();
+    log.info(
+        "Validating {} claims held from parsing submission {}",
+        claims.size(),
+        submission.getSubmissionId());
+    parsedClaims.messages().forEach(context::addClaimMessages);
+    eventServiceMetricService.incrementClaimsValidatedFromParsing(claims.size());
+
+    // Batched as pages are, so that duplicates are checked for amongst the same number of claims
+    for (int from = 0; from < claims.size(); from += claimValidationBatchSize) {
+      List<ClaimResponse> batch =
+          claims.subList(from, Math.min(from + claimValidationBatchSize, claims.size()));
+      validateAndUpdate(submission, context, batch, batch, true);
+    }
+  }
+
+  /** Validates claims and saves them to the Data Claims API. */
+  private void validateAndUpdate(
+      SubmissionResponse submission,
+      SubmissionValidationContext context,
+      List<ClaimResponse> claimsToValidate,
+      List<ClaimResponse> submissionClaims) {
+    validateAndUpdate(submission, context, claimsToValidate, submissionClaims, false);
+  }
+
+  /**
+   * Validates claims and saves them to the Data Claims API, skipping the standalone validators if
+   * the claims were already validated by them when they were parsed.
+   */
+  private void validateAndUpdate(
+      SubmissionResponse submission,
+      SubmissionValidationContext context,
+      List<ClaimResponse> claimsToValidate,
+      List<ClaimResponse> submissionClaims,
+      boolean prevalidated) {
+    Map<String, FeeDetailsResponseWrapper> feeDetailsResponseMap =
+        categoryOfLawValidationService.getFeeDetailsResponseForAllFeeCodesInClaims(
+            claimsToValidate);
+
+    // Submit validation tasks for each claim, checking for duplicates against the whole page
+    for (ClaimResponse claim : claimsToValidate) {
+      validateClaim(
+          claim,
           submissionClaims,
+          feeDetailsResponseMap,
           submission.getAreaOfLaw(),
+          submission.getOfficeAccountNumber(),
           context,
-          feeDetailsResponseMap);
+          prevalidated);
     }
+
+    // Update claims status after all validations
+    bulkClaimUpdater.updateClaims(
+        submission.getSubmissionId(),
+        claimsToValidate,
+        submission.getAreaOfLaw(),
+        context,
+        feeDetailsResponseMap);
+  }
+
+  /** Returns whether a validator depends on nothing but the claim and the area of law. */
+  private static boolean isStandalone(ClaimValidator validator) {
+    return validator instanceof BasicClaimValidator
+        || validator instanceof ClaimWithAreaOfLawValidator;
+  }
+
+  private static boolean isReadyToProcess(ClaimResponse claim) {
+    return claim.getStatus() == null || ClaimStatus.READY_TO_PROCESS.equals(claim.getStatus());
   }
 
   /**
@@ -161,6 +394,7 @@ public class ClaimValidationService {
    *     feeCodes
    * @param areaOfLaw the area of law for the parent submission: some validations change depending
    *     on the area of law.
+   * @param prevalidated whether the standalone validators already ran when the claim was parsed
    */
   private void validateClaim(
       ClaimResponse claim,
@@ -168,7 +402,8 @@ public class ClaimValidationService {
       Map<String, FeeDetailsResponseWrapper> feeDetailsResponseMap,
       AreaOfLaw areaOfLaw,
       String officeCode,
-      SubmissionValidationContext context) {
+      SubmissionValidationContext context,
+      boolean prevalidated) {
 
     Assert.notNull(claim.getId(), "Claim ID must not be null");
     eventServiceMetricService.startClaimValidationTimer(UUID.fromString(claim.getId()));
@@ -198,6 +433,7 @@ public class ClaimValidationService {
             ? feeDetailsResponseWrapper.getFeeDetailsResponse().getFeeType()
             : null;
     claimValidator.stream()
+        .filter(x -> !prevalidated || !isStandalone(x))
         .sorted(
             Comparator.comparingInt(ClaimValidator::priority)) // Ensure validators are run in order
         .forEach(
@@ -0,0 +1,198 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.AreaOfLaw;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.ClaimResponse;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.ClaimResultSet;
+import uk.gov.justice.laa.dstew.payments.claimsevent.client.DataClaimsRestClient;
+import uk.gov.justice.laa.dstew.payments.claimsevent.exception.SubmissionEventProcessingException;
+import uk.gov.justice.laa.dstew.payments.claimsevent.metrics.EventServiceMetricService;
+import uk.gov.justice.laa.dstew.payments.claimsevent.model.SubmissionEventType;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.model.OutcomeRange;
+
+/**
+ * Shards the outcomes of large bulk submissions into ranges which are parsed into claims as
+ * separate tasks, so that any instance of the service can create part of the claims of a
+ * submission rather than one instance creating them all.
+ *
+ * <p>Each range is sent back to the submission queue as a {@code PARSE_BULK_SUBMISSION} message,
+ * marked with the {@value #PARSING_TASK_ATTRIBUTE} attribute so that it is parsed as a range of
+ * outcomes rather than a whole bulk submission. Once every claim of the submission has been
+ * created, the worker which finished last completes the parsing of the submission. Claims are
+ * counted by their distinct line numbers, so that claims created twice by a retried task do not
+ * complete the submission while other claims are still missing.
+ *
+ * <p>Sharding is disabled by default.
+ */
+@Slf4j
+@Service
+public class DistributedBulkParsingCoordinator {
+
+  /** The message attribute marking a parsing message as a task for a range of outcomes. */
+  public static final String PARSING_TASK_ATTRIBUTE = "ParsingTask";
+
+  /** The value of {@value #PARSING_TASK_ATTRIBUTE} for a range of outcomes. */
+  public static final String OUTCOME_RANGE_TASK = "OUTCOME_RANGE";
+
+  /** The number of claims read at a time when checking their line numbers. */
+  private static final int CREATED_CLAIMS_PAGE_SIZE = 500;
+
+  private final SubmissionTaskPublisher submissionTaskPublisher;
+  private final DataClaimsRestClient dataClaimsRestClient;
+  private final EventServiceMetricService eventServiceMetricService;
+  private final boolean enabled;
+  private final int minOutcomes;
+  private final int outcomesPerShard;
+
+  /**
+   * Constructs a new {@code DistributedBulkParsingCoordinator}.
+   *
+   * @param submissionTaskPublisher the publisher used to send tasks to the submission queue
+   * @param dataClaimsRestClient the client used to check how many claims have been created
+   * @param eventServiceMetricService the service used to record shard metrics
+   * @param enabled whether large bulk submissions should be sharded
+   * @param minOutcomes the smallest number of outcomes in a bulk submission which is sharded
+   * @param outcomesPerShard the number of outcomes parsed by each task
+   */
+  public DistributedBulkParsingCoordinator(
+      SubmissionTaskPublisher submissionTaskPublisher,
+      DataClaimsRestClient dataClaimsRestClient,
+      EventServiceMetricService eventServiceMetricService,
+      @Value("${laa.bulk-claim-queue.distributed-parsing.enabled:false}") boolean enabled,
+      @Value("${laa.bulk-claim-queue.distributed-parsing.min-outcomes:5000}") int minOutcomes,
+      @Value("${laa.bulk-claim-queue.distributed-parsing.outcomes-per-shard:1000}")
+          int outcomesPerShard) {
+    this.submissionTaskPublisher = submissionTaskPublisher;
+    this.dataClaimsRestClient = dataClaimsRestClient;
+    this.eventServiceMetricService = eventServiceMetricService;
+    this.enabled = enabled;
+    this.minOutcomes = minOutcomes;
+    this.outcomesPerShard = Math.max(1, outcomesPerShard);
+  }
+
+  /**
+   * Returns whether the outcomes of a bulk submission should be sharded into tasks.
+   *
+   * @param outcomes the number of outcomes in the bulk submission
+   * @return {@code true} if the outcomes should be sharded
+   */
+  public boolean shouldShard(int outcomes) {
+    return enabled && outcomes >= minOutcomes && outcomes > outcomesPerShard;
+  }
+
+  /**
+   * Shards the outcomes of a bulk submission into ranges, and sends a task for each range to the
+   * submission queue.
+   *
+   * @param bulkSubmissionId the ID of the bulk submission
+   * @param submissionId the ID of the submission the claims are created for
+   * @param createdSubmissionId the ID returned when the submission was created
+   * @param officeAccountNumber the office account number of the submission
+   * @param areaOfLaw the area of law of the submission
+   * @param outcomes the number of outcomes in the bulk submission
+   * @return the ranges sent
+   * @throws SubmissionEventProcessingException if any of the tasks could not be sent
+   */
+  public List<OutcomeRange> shard(
+      UUID bulkSubmissionId,
+      UUID submissionId,
+      String createdSubmissionId,
+      String officeAccountNumber,
+      AreaOfLaw areaOfLaw,
+      int outcomes) {
+    List<OutcomeRange> ranges = new ArrayList<>();
+    for (int fromIndex = 0; fromIndex < outcomes; fromIndex += outcomesPerShard) {
+      ranges.add(
+          new OutcomeRange(
+              bulkSubmissionId,
+              submissionId,
+              createdSubmissionId,
+              officeAccountNumber,
+              areaOfLaw,
+              fromIndex,
+              Math.min(fromIndex + outcomesPerShard, outcomes),
+              outcomes));
+    }
+
+    submissionTaskPublisher.publish(
+        SubmissionEventType.PARSE_BULK_SUBMISSION,
+        PARSING_TASK_ATTRIBUTE,
+        OUTCOME_RANGE_TASK,
+        ranges);
+
+    log.info(
+        "Sharded {} outcomes of submission {} into {} tasks",
+        outcomes,
+        submissionId,
+        ranges.size());
+    eventServiceMetricService.recordBulkParsingShards("enqueued", ranges.size());
+    return ranges;
+  }
+
+  /**
+   * Returns whether a claim has been created for every outcome of a sharded submission.
+   *
+   * <p>The number of claims is checked first, as it is found with a single request. Only once there
+   * are enough claims are their line numbers read, to check that every line has a claim rather
+   * than some lines having more than one.
+   *
+   * @param range any range of the submission
+   * @return {@code true} if a claim has been created for every line of the submission
+   */
+  public boolean areAllClaimsCreated(OutcomeRange range) {
+    ClaimResultSet created = getCreatedClaims(range, 0, 1, null);
+    if (created == null
+        || created.getTotalElements() == null
+        || created.getTotalElements() < range.totalOutcomes()) {
+      return false;
+    }
+    return countCreatedLines(range) >= range.totalOutcomes();
+  }
+
+  /** Counts the distinct line numbers, within the bulk submission, of the claims created. */
+  private int countCreatedLines(OutcomeRange range) {
+    Set<Integer> lineNumbers = new HashSet<>();
+    int page = 0;
+    int totalPages = 0;
+    do {
+      ClaimResultSet claims = getCreatedClaims(range, page, CREATED_CLAIMS_PAGE_SIZE, "id,asc");
+      if (claims == null || claims.getContent() == null) {
+        break;
+      }
+      claims.getContent().stream()
+          .map(ClaimResponse::getLineNumber)
+          .filter(Objects::nonNull)
+          .filter(lineNumber -> lineNumber >= 1 && lineNumber <= range.totalOutcomes())
+          .forEach(lineNumbers::add);
+      totalPages = claims.getTotalPages() != null ? claims.getTotalPages() : 0;
+      page++;
+    } while (page < totalPages);
+    return lineNumbers.size();
+  }
+
+  private ClaimResultSet getCreatedClaims(OutcomeRange range, int page, int size, String sort) {
+    return dataClaimsRestClient
+        .getClaims(
+            range.officeAccountNumber(),
+            range.createdSubmissionId(),
+            Collections.emptyList(),
+            null,
+            null,
+            null,
+            null,
+            Collections.emptyList(),
+            page,
+            size,
+            sort)
+        .getBody();
+  }
+}
@@ -0,0 +1,161 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.ClaimResultSet;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.ClaimStatus;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.SubmissionResponse;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.SubmissionStatus;
+import uk.gov.justice.laa.dstew.payments.claimsevent.client.DataClaimsRestClient;
+import uk.gov.justice.laa.dstew.payments.claimsevent.exception.SubmissionEventProcessingException;
+import uk.gov.justice.laa.dstew.payments.claimsevent.metrics.EventServiceMetricService;
+import uk.gov.justice.laa.dstew.payments.claimsevent.model.SubmissionEventType;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.model.ClaimPageRange;
+
+/**
+ * Splits the claims of large submissions into ranges of pages which are validated as separate
+ * tasks, so that any instance of the service can validate part of a submission and large
+ * submissions scale with the number of instances rather than being limited to one.
+ *
+ * <p>Each range is sent back to the submission queue as a {@code VALIDATE_SUBMISSION} message,
+ * marked with the {@value #VALIDATION_TASK_ATTRIBUTE} attribute so that it is validated as a range
+ * of claims rather than a whole submission. Once no claims in the submission are left ready to
+ * process, the worker which finished last completes the validation of the submission, which sets
+ * its status from the claims already validated.
+ *
+ * <p>Splitting is disabled by default.
+ */
+@Slf4j
+@Service
+public class DistributedClaimValidationCoordinator {
+
+  /** The message attribute marking a validation message as a task for a range of claims. */
+  public static final String VALIDATION_TASK_ATTRIBUTE = "ValidationTask";
+
+  /** The value of {@value #VALIDATION_TASK_ATTRIBUTE} for a range of pages of claims. */
+  public static final String CLAIM_PAGE_RANGE_TASK = "CLAIM_PAGE_RANGE";
+
+  private final SubmissionTaskPublisher submissionTaskPublisher;
+  private final DataClaimsRestClient dataClaimsRestClient;
+  private final EventServiceMetricService eventServiceMetricService;
+  private final boolean enabled;
+  private final int minClaims;
+  private final int pagesPerTask;
+  private final int claimValidationBatchSize;
+
+  /**
+   * Constructs a new {@code DistributedClaimValidationCoordinator}.
+   *
+   * @param submissionTaskPublisher the publisher used to send tasks to the submission queue
+   * @param dataClaimsRestClient the client used to check which claims are left to validate
+   * @param eventServiceMetricService the service used to record task metrics
+   * @param enabled whether large submissions should be split into tasks
+   * @param minClaims the smallest number of claims in a submission which is split into tasks
+   * @param pagesPerTask the number of pages of claims validated by each task
+   * @param claimValidationBatchSize the number of claims on each page
+   */
+  public DistributedClaimValidationCoordinator(
+      SubmissionTaskPublisher submissionTaskPublisher,
+      DataClaimsRestClient dataClaimsRestClient,
+      EventServiceMetricService eventServiceMetricService,
+      @Value("${claim.validation.distributed.enabled:false}") boolean enabled,
+      @Value("${claim.validation.distributed.min-claims:10000}") int minClaims,
+      @Value("${claim.validation.distributed.pages-per-task:10}") int pagesPerTask,
+      @Value("${claim.validation.claim-validation-batch-size}") int claimValidationBatchSize) {
+    this.submissionTaskPublisher = submissionTaskPublisher;
+    this.dataClaimsRestClient = dataClaimsRestClient;
+    this.eventServiceMetricService = eventServiceMetricService;
+    this.enabled = enabled;
+    this.minClaims = minClaims;
+    this.pagesPerTask = Math.max(1, pagesPerTask);
+    this.claimValidationBatchSize = claimValidationBatchSize;
+  }
+
+  /**
+   * Returns whether the claims of a submission should be split into tasks.
+   *
+   * <p>Only submissions being validated for the first time are split. A submission which is
+   * already being validated is validated in full, so that a redelivered message, or the
+   * completion of a split submission, does not split it again.
+   *
+   * @param submission the submission about to have its claims validated
+   * @return {@code true} if the claims should be split into tasks
+   */
+  public boolean shouldSplit(SubmissionResponse submission) {
+    Integer numberOfClaims = submission.getNumberOfClaims();
+    return enabled
+        && SubmissionStatus.READY_FOR_VALIDATION.equals(submission.getStatus())
+        && numberOfClaims != null
+        && numberOfClaims >= minClaims
+        && pageCount(numberOfClaims) > pagesPerTask;
+  }
+
+  /**
+   * Splits the claims of a submission into ranges of pages, and sends a task for each range to the
+   * submission queue.
+   *
+   * @param submission the submission to split
+   * @return the ranges sent
+   * @throws SubmissionEventProcessingException if any of the tasks could not be sent
+   */
+  public List<ClaimPageRange> split(SubmissionResponse submission) {
+    int pages = pageCount(submission.getNumberOfClaims());
+    List<ClaimPageRange> ranges = new ArrayList<>();
+    for (int firstPage = 0; firstPage < pages; firstPage += pagesPerTask) {
+      ranges.add(
+          new ClaimPageRange(
+              submission.getSubmissionId(),
+              firstPage,
+              Math.min(firstPage + pagesPerTask, pages) - 1));
+    }
+
+    submissionTaskPublisher.publish(
+        SubmissionEventType.VALIDATE_SUBMISSION,
+        VALIDATION_TASK_ATTRIBUTE,
+        CLAIM_PAGE_RANGE_TASK,
+        ranges);
+
+    log.info(
+        "Split {} claims of submission {} into {} tasks",
+        submission.getNumberOfClaims(),
+        submission.getSubmissionId(),
+        ranges.size());
+    eventServiceMetricService.recordClaimValidationTasks("enqueued", ranges.size());
+    return ranges;
+  }
+
+  /**
+   * Returns whether every claim in a submission has been validated, leaving none ready to process.
+   *
+   * @param submission the submission to check
+   * @return {@code true} if no claims are left ready to process
+   */
+  public boolean isClaimValidationComplete(SubmissionResponse submission) {
+    ClaimResultSet remaining =
+        dataClaimsRestClient
+            .getClaims(
+                submission.getOfficeAccountNumber(),
+                String.valueOf(submission.getSubmissionId()),
+                Collections.emptyList(),
+                null,
+                null,
+                null,
+                null,
+                List.of(ClaimStatus.READY_TO_PROCESS),
+                0,
+                1,
+                null)
+            .getBody();
+    return remaining != null
+        && remaining.getTotalElements() != null
+        && remaining.getTotalElements() == 0;
+  }
+
+  private int pageCount(int numberOfClaims) {
+    return (numberOfClaims + claimValidationBatchSize - 1) / claimValidationBatchSize;
+  }
+}
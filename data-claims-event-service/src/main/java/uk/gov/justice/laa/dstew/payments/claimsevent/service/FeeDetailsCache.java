@@ -0,0 +1,111 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Holds the fee details of recently looked up fee codes, shared by every submission validated on
+ * this instance, so that submissions using the same fee codes do not look them up again.
+ *
+ * <p>Entries expire after a configurable time to live, and the cache holds a bounded number of
+ * fee codes, evicting the oldest once full. Failed lookups are not kept, so that the next
+ * submission using the fee code tries again. Lookups are made outside of the cache's lock, so
+ * that validations running at the same time are not held up by each other's lookups.
+ *
+ * <p>The cache is disabled by default, in which case every lookup goes straight to its loader.
+ */
+@Slf4j
+@Service
+public class FeeDetailsCache {
+
+  private final boolean enabled;
+  private final Duration ttl;
+  private final int maxEntries;
+  private final Clock clock;
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+  /**
+   * Constructs a new {@code FeeDetailsCache}.
+   *
+   * @param enabled whether the fee details of fee codes are cached
+   * @param ttlSeconds how long, in seconds, the fee details of a fee code are cached
+   * @param maxEntries the maximum number of fee codes cached at once
+   */
+  @Autowired
+  public FeeDetailsCache(
+      @Value("${laa.bulk-claim-queue.fee-details-cache.enabled:false}") boolean enabled,
+      @Value("${laa.bulk-claim-queue.fee-details-cache.ttl-seconds:600}") long ttlSeconds,
+      @Value("${laa.bulk-claim-queue.fee-details-cache.max-entries:1000}") int maxEntries) {
+    this(enabled, Duration.ofSeconds(ttlSeconds), maxEntries, Clock.systemUTC());
+  }
+
+  FeeDetailsCache(boolean enabled, Duration ttl, int maxEntries, Clock clock) {
+    this.enabled = enabled;
+    this.ttl = ttl;
+    this.maxEntries = Math.max(1, maxEntries);
+    this.clock = clock;
+  }
+
+  /**
+   * Returns the fee details of a fee code, looking them up if they are not already cached.
+   *
+   * @param feeCode the fee code to look up
+   * @param loader looks up the fee details when they are not already cached
+   * @return the fee details of the fee code
+   */
+  public FeeDetailsResponseWrapper getFeeDetails(
+      String feeCode, Function<String, FeeDetailsResponseWrapper> loader) {
+    if (!enabled || feeCode == null) {
+      return loader.apply(feeCode);
+    }
+
+    FeeDetailsResponseWrapper cached = get(feeCode);
+    if (cached != null) {
+      return cached;
+    }
+    FeeDetailsResponseWrapper loaded = loader.apply(feeCode);
+    if (!loaded.isError()) {
+      put(feeCode, loaded);
+    }
+    return loaded;
+  }
+
+  private synchronized FeeDetailsResponseWrapper get(String feeCode) {
+    Instant now = clock.instant();
+    removeExpired(now);
+    Entry entry = entries.get(feeCode);
+    return entry == null ? null : entry.feeDetails();
+  }
+
+  private synchronized void put(String feeCode, FeeDetailsResponseWrapper feeDetails) {
+    // Re-inserted so that entries stay ordered by when they were cached.
+    entries.remove(feeCode);
+    if (entries.size() >= maxEntries) {
+      Iterator<String> oldest = entries.keySet().iterator();
+      oldest.next();
+      oldest.remove();
+    }
+    entries.put(feeCode, new Entry(feeDetails, clock.instant().plus(ttl)));
+    log.debug("Cached fee details of fee code {}", feeCode);
+  }
+
+  /**
+   * Removes expired entries from the oldest onwards, stopping at the first which has not expired.
+   */
+  private void removeExpired(Instant now) {
+    Iterator<Entry> oldest = entries.values().iterator();
+    while (oldest.hasNext() && !oldest.next().expiresAt().isAfter(now)) {
+      oldest.remove();
+    }
+  }
+
+  private record Entry(FeeDetailsResponseWrapper feeDetails, Instant expiresAt) {}
+}
@@ -0,0 +1,193 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import uk.gov.justice.laa.dstew.payments.claimsevent.metrics.EventServiceMetricService;
+
+/**
+ * Pauses the processing of new SQS messages while the heap is under pressure, and resumes it once
+ * the heap has recovered.
+ *
+ * <p>On a fixed interval the occupancy of the old generation, as a proportion of its maximum size,
+ * and the rate at which memory is being allocated are sampled from the JVM memory MXBeans.
+ * Processing is paused when either:
+ *
+ * <ul>
+ *   <li>old generation occupancy reaches the pause watermark, or
+ *   <li>the allocation rate reaches its watermark while occupancy is above the resume watermark.
+ * </ul>
+ *
+ * <p>Processing is resumed once occupancy falls to the resume watermark and the allocation rate is
+ * below its watermark. Processing is paused through the {@link AdaptiveConcurrencyLimiter}, rather
+ * than by stopping the listener containers, which would interrupt long running messages once the
+ * container's shutdown timeout passed. Messages already being processed carry on, new messages
+ * wait for a permit, and the containers stop polling once all of their threads are waiting.
+ */
+@Slf4j
+@Service
+public class MemoryBackpressureController {
+
+  private static final double BYTES_PER_MEGABYTE = 1024d * 1024d;
+
+  private final AdaptiveConcurrencyLimiter adaptiveConcurrencyLimiter;
+  private final EventServiceMetricService eventServiceMetricService;
+  private final boolean enabled;
+  private final double pauseOccupancy;
+  private final double resumeOccupancy;
+  private final double pauseAllocationRateMbPerSecond;
+
+  private boolean paused;
+  private long lastAccountedNanos;
+  private long previousAllocatedBytes = -1;
+  private long previousSampleNanos;
+
+  /**
+   * Constructs a new {@code MemoryBackpressureController}.
+   *
+   * @param adaptiveConcurrencyLimiter the limiter through which message processing is paused
+   * @param eventServiceMetricService the service used to record pause and resume metrics
+   * @param enabled whether processing should be paused under memory pressure
+   * @param pauseOccupancy the old generation occupancy, between 0 and 1, at which processing is
+   *     paused
+   * @param resumeOccupancy the old generation occupancy, between 0 and 1, at or below which
+   *     processing is resumed
+   * @param pauseAllocationRateMbPerSecond the allocation rate, in megabytes per second, at which
+   *     processing is paused while occupancy is above the resume watermark; {@code 0} or less
+   *     ignores the allocation rate
+   */
+  public MemoryBackpressureController(
+      AdaptiveConcurrencyLimiter adaptiveConcurrencyLimiter,
+      EventServiceMetricService eventServiceMetricService,
+      @Value("${laa.bulk-claim-queue.memory-backpressure.enabled:false}") boolean enabled,
+      @Value("${laa.bulk-claim-queue.memory-backpressure.pause-occupancy:0.85}")
+          double pauseOccupancy,
+      @Value("${laa.bulk-claim-queue.memory-backpressure.resume-occupancy:0.7}")
+          double resumeOccupancy,
+      @Value("${laa.bulk-claim-queue.memory-backpressure.pause-allocation-rate-mb-per-second:0}")
+          double pauseAllocationRateMbPerSecond) {
+    this.adaptiveConcurrencyLimiter = adaptiveConcurrencyLimiter;
+    this.eventServiceMetricService = eventServiceMetricService;
+    this.enabled = enabled;
+    this.pauseOccupancy = pauseOccupancy;
+    this.resumeOccupancy = Math.min(resumeOccupancy, pauseOccupancy);
+    this.pauseAllocationRateMbPerSecond = pauseAllocationRateMbPerSecond;
+  }
+
+  /** Samples heap usage and pauses or resumes message processing accordingly. */
+  @Scheduled(
+      fixedDelayString = "${laa.bulk-claim-queue.memory-backpressure.check-interval:2}",
+      timeUnit = TimeUnit.SECONDS)
+  public void checkMemoryPressure() {
+    if (!enabled) {
+      return;
+    }
+    try {
+      evaluate(sampleOldGenOccupancy(), sampleAllocationRateMbPerSecond());
+    } catch (Exception ex) {
+      log.warn("Failed to check memory pressure", ex);
+    }
+  }
+
+  /**
+   * Pauses or resumes processing based on the sampled heap usage.
+   *
+   * @param oldGenOccupancy the old generation occupancy, between 0 and 1
+   * @param allocationRateMbPerSecond the allocation rate in megabytes per second, or a negative
+   *     value if it is not known
+   */
+  synchronized void evaluate(double oldGenOccupancy, double allocationRateMbPerSecond) {
+    long now = System.nanoTime();
+    boolean allocationHigh =
+        pauseAllocationRateMbPerSecond > 0
+            && allocationRateMbPerSecond >= pauseAllocationRateMbPerSecond;
+
+    if (paused) {
+      eventServiceMetricService.incrementListenerThrottledTime(
+          (now - lastAccountedNanos) / 1_000_000_000d);
+      lastAccountedNanos = now;
+      if (oldGenOccupancy <= resumeOccupancy && !allocationHigh) {
+        log.info(
+            "Heap pressure relieved (oldGenOccupancy={}, allocationRate={}MB/s), "
+                + "resuming message processing",
+            oldGenOccupancy,
+            allocationRateMbPerSecond);
+        paused = false;
+        eventServiceMetricService.recordListenerBackpressureEvent("resume");
+        adaptiveConcurrencyLimiter.resume();
+      }
+    } else if (oldGenOccupancy >= pauseOccupancy
+        || (allocationHigh && oldGenOccupancy > resumeOccupancy)) {
+      log.warn(
+          "Heap under pressure (oldGenOccupancy={}, allocationRate={}MB/s), "
+              + "pausing message processing",
+          oldGenOccupancy,
+          allocationRateMbPerSecond);
+      paused = true;
+      lastAccountedNanos = now;
+      eventServiceMetricService.recordListenerBackpressureEvent("pause");
+      adaptiveConcurrencyLimiter.pause();
+    }
+    eventServiceMetricService.setListenerPaused(paused);
+  }
+
+  /**
+   * Returns whether message processing is currently paused.
+   *
+   * @return {@code true} if message processing is paused
+   */
+  public synchronized boolean isPaused() {
+    return paused;
+  }
+
+  private static double sampleOldGenOccupancy() {
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() != MemoryType.HEAP || !isOldGen(pool.getName())) {
+        continue;
+      }
+      // Usage after the last collection shows what is really retained, but is empty until the old
+      // generation has been collected at least once.
+      MemoryUsage usage = pool.getCollectionUsage();
+      if (usage == null || usage.getUsed() == 0) {
+        usage = pool.getUsage();
+      }
+      long max = usage.getMax() > 0 ? usage.getMax() : Runtime.getRuntime().maxMemory();
+      return (double) usage.getUsed() / max;
+    }
+
+    MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+    long max = heap.getMax() > 0 ? heap.getMax() : Runtime.getRuntime().maxMemory();
+    return (double) heap.getUsed() / max;
+  }
+
+  private static boolean isOldGen(String poolName) {
+    return poolName.contains("Old Gen") || poolName.contains("Tenured");
+  }
+
+  private double sampleAllocationRateMbPerSecond() {
+    ThreadMXBean threadMxBean = ManagementFactory.getThreadMXBean();
+    if (!(threadMxBean instanceof com.sun.management.ThreadMXBean sunThreadMxBean)
+        || !sunThreadMxBean.isThreadAllocatedMemoryEnabled()) {
+      return -1;
+    }
+    long allocatedBytes = sunThreadMxBean.getTotalThreadAllocatedBytes();
+    long now = System.nanoTime();
+    long previousBytes = previousAllocatedBytes;
+    long previousNanos = previousSampleNanos;
+    previousAllocatedBytes = allocatedBytes;
+    previousSampleNanos = now;
+    if (allocatedBytes < 0 || previousBytes < 0 || now <= previousNanos) {
+      return -1;
+    }
+    return (allocatedBytes - previousBytes)
+        / BYTES_PER_MEGABYTE
+        / ((now - previousNanos) / 1_000_000_000d);
+  }
+}
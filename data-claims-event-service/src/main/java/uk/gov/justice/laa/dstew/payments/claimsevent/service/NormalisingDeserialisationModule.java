@@ -0,0 +1,148 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.KeyDeserializer;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerModifier;
+import com.fasterxml.jackson.databind.deser.ContextualDeserializer;
+import com.fasterxml.jackson.databind.deser.std.DelegatingDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StringDeserializer;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMethod;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.type.MapType;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import org.springframework.util.StringUtils;
+
+/**
+ * A Jackson module which normalises the strings of bulk submissions as they are deserialised, in
+ * the same way as {@link SubmissionDataNormaliser}, so that no second pass over the bulk submission
+ * is needed once it has been read.
+ *
+ * <p>Strings are trimmed, and blank strings are read as null. Each String property is given its own
+ * deserialiser, which also uppercases the value when the property is listed in {@link
+ * SubmissionDataNormaliser#UPPERCASE_FIELDS} for the class it belongs to. Map keys are trimmed in
+ * the same way, and entries with a blank key are dropped.
+ */
+public class NormalisingDeserialisationModule extends SimpleModule {
+
+  /** Constructs a new {@code NormalisingDeserialisationModule}. */
+  public NormalisingDeserialisationModule() {
+    super(NormalisingDeserialisationModule.class.getSimpleName());
+    addDeserializer(String.class, NormalisingStringDeserializer.TRIMMING);
+    addKeyDeserializer(String.class, new NormalisingKeyDeserializer());
+    setDeserializerModifier(
+        new BeanDeserializerModifier() {
+          @Override
+          public JsonDeserializer<?> modifyMapDeserializer(
+              DeserializationConfig config,
+              MapType type,
+              BeanDescription beanDesc,
+              JsonDeserializer<?> deserializer) {
+            return type.getKeyType().hasRawClass(String.class)
+                ? new BlankKeyDroppingDeserializer(deserializer)
+                : deserializer;
+          }
+        });
+  }
+
+  private static String normalise(String value) {
+    return StringUtils.hasText(value) ? value.trim() : null;
+  }
+
+  /**
+   * Reads a string, trimming it and uppercasing it if required. A deserialiser is chosen for each
+   * property as the bean deserialisers are built, so whether a value is uppercased is decided once
+   * per property rather than for every value read.
+   */
+  static final class NormalisingStringDeserializer extends StdScalarDeserializer<String>
+      implements ContextualDeserializer {
+
+    static final NormalisingStringDeserializer TRIMMING =
+        new NormalisingStringDeserializer(false);
+    static final NormalisingStringDeserializer UPPERCASING =
+        new NormalisingStringDeserializer(true);
+
+    private final boolean uppercase;
+
+    private NormalisingStringDeserializer(boolean uppercase) {
+      super(String.class);
+      this.uppercase = uppercase;
+    }
+
+    @Override
+    public JsonDeserializer<?> createContextual(
+        DeserializationContext ctxt, BeanProperty property) {
+      return isUppercased(property) ? UPPERCASING : TRIMMING;
+    }
+
+    @Override
+    public String deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+      String value = normalise(StringDeserializer.instance.deserialize(p, ctxt));
+      return value != null && uppercase ? value.toUpperCase(Locale.ENGLISH) : value;
+    }
+
+    /**
+     * Returns whether a property is listed in {@link SubmissionDataNormaliser#UPPERCASE_FIELDS},
+     * matching on the name of the Java field rather than the JSON property.
+     */
+    private static boolean isUppercased(BeanProperty property) {
+      AnnotatedMember member = property == null ? null : property.getMember();
+      if (member == null) {
+        return false;
+      }
+      Set<String> upperFields =
+          SubmissionDataNormaliser.UPPERCASE_FIELDS.getOrDefault(
+              member.getDeclaringClass(), Set.of());
+      return !upperFields.isEmpty() && upperFields.contains(fieldName(member));
+    }
+
+    private static String fieldName(AnnotatedMember member) {
+      String name = member.getName();
+      if (member instanceof AnnotatedMethod && name.length() > 3 && name.startsWith("set")) {
+        return Character.toLowerCase(name.charAt(3)) + name.substring(4);
+      }
+      return name;
+    }
+  }
+
+  /** Reads a map key, trimming it, and reading blank keys as null so they can be dropped. */
+  static final class NormalisingKeyDeserializer extends KeyDeserializer {
+
+    @Override
+    public Object deserializeKey(String key, DeserializationContext ctxt) {
+      return normalise(key);
+    }
+  }
+
+  /** Drops the entries of a map whose key was blank. */
+  static final class BlankKeyDroppingDeserializer extends DelegatingDeserializer {
+
+    BlankKeyDroppingDeserializer(JsonDeserializer<?> delegate) {
+      super(delegate);
+    }
+
+    @Override
+    protected JsonDeserializer<?> newDelegatingInstance(JsonDeserializer<?> newDelegatee) {
+      return new BlankKeyDroppingDeserializer(newDelegatee);
+    }
+
+    @Override
+    public Object deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+      Object value = super.deserialize(p, ctxt);
+      if (value instanceof Map<?, ?> map) {
+        map.keySet().removeIf(Objects::isNull);
+      }
+      return value;
+    }
+  }
+}
@@ -0,0 +1,328 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.SubmissionResponse;
+import uk.gov.justice.laa.dstew.payments.claimsevent.config.OfficeFairSchedulingProperties;
+import uk.gov.justice.laa.dstew.payments.claimsevent.exception.SubmissionEventProcessingException;
+import uk.gov.justice.laa.dstew.payments.claimsevent.metrics.EventServiceMetricService;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.model.SubmissionSizeClass;
+
+/**
+ * Shares submission validation fairly between offices, so that one office validating a very large
+ * submission cannot hold every worker while submissions from other offices wait.
+ *
+ * <p>Submissions waiting to be validated are queued per office, and dispatched using deficit round
+ * robin. Each time an office's turn comes round it is given a quantum of claims, multiplied by the
+ * office's weight, and the submissions at the front of its queue are dispatched for as long as the
+ * office has enough credit to cover their number of claims. Credit left over carries into the
+ * office's next turn, so large submissions are dispatched once their office has waited long
+ * enough, while small submissions from other offices are dispatched in between.
+ *
+ * <p>The number of submissions validated at once is limited both in total and for each office.
+ * Offices at their own limit are passed over, without being given a quantum, until one of their
+ * submissions completes.
+ *
+ * <p>Nil and small submissions also have a fast lane: capacity reserved for them on top of the
+ * shared capacity, which they use ahead of their office's turn so that they do not queue behind
+ * large submissions. Once the fast lane is full they are scheduled like any other submission. The
+ * time taken to validate each submission, including any wait, is published per size class.
+ */
+@Slf4j
+@Service
+public class OfficeFairScheduler {
+
+  private static final String UNKNOWN_OFFICE = "unknown";
+
+  private final EventServiceMetricService eventServiceMetricService;
+  private final int maxConcurrent;
+  private final int maxConcurrentPerOffice;
+  private final int quantum;
+  private final Map<String, Integer> officeWeights;
+  private final int fastLaneMaxClaims;
+  private final int fastLaneConcurrency;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Map<String, OfficeQueue> offices = new HashMap<>();
+  /** Offices with submissions waiting, in the order their turns come round. */
+  private final Deque<OfficeQueue> rotation = new ArrayDeque<>();
+  private int running;
+  private int fastLaneRunning;
+  private int waiting;
+
+  /**
+   * Constructs a new {@code OfficeFairScheduler}.
+   *
+   * @param properties the configured limits, quantum, office weights and fast lane
+   * @param eventServiceMetricService the service used to record queue depth and wait time metrics
+   */
+  public OfficeFairScheduler(
+      OfficeFairSchedulingProperties properties,
+      EventServiceMetricService eventServiceMetricService) {
+    this.eventServiceMetricService = eventServiceMetricService;
+    this.maxConcurrent = Math.max(1, properties.getMaxConcurrent());
+    this.maxConcurrentPerOffice = Math.max(1, properties.getMaxConcurrentPerOffice());
+    this.quantum = Math.max(1, properties.getQuantum());
+    this.officeWeights = properties.getOfficeWeights();
+    OfficeFairSchedulingProperties.FastLane fastLane = properties.getFastLane();
+    this.fastLaneMaxClaims = fastLane == null ? 0 : fastLane.maxClaims();
+    this.fastLaneConcurrency = fastLane == null ? 0 : Math.max(0, fastLane.concurrency());
+    log.info(
+        "Office fair scheduling configured with maxConcurrent={}, maxConcurrentPerOffice={}, "
+            + "quantum={}, fastLaneMaxClaims={}, fastLaneConcurrency={}",
+        maxConcurrent,
+        maxConcurrentPerOffice,
+        quantum,
+        fastLaneMaxClaims,
+        fastLaneConcurrency);
+  }
+
+  /**
+   * Waits for a slot to validate a submission, either in the fast lane or on the office's turn.
+   *
+   * @param submission the submission to be validated
+   * @return a slot which must be closed once the submission has been validated
+   * @throws SubmissionEventProcessingException if interrupted while waiting
+   */
+  public Slot acquire(SubmissionResponse submission) {
+    String office =
+        submission.getOfficeAccountNumber() == null
+            ? UNKNOWN_OFFICE
+            : submission.getOfficeAccountNumber();
+    Integer numberOfClaims = submission.getNumberOfClaims();
+    SubmissionSizeClass sizeClass =
+        SubmissionSizeClass.of(submission.getIsNilSubmission(), numberOfClaims, fastLaneMaxClaims);
+    long cost = Math.max(1, numberOfClaims == null ? 0 : numberOfClaims);
+    long waitStart = System.nanoTime();
+
+    Waiter waiter = new Waiter(cost, sizeClass, lock.newCondition());
+    OfficeQueue queue = null;
+    lock.lock();
+    try {
+      if (sizeClass.isFastLane() && fastLaneRunning < fastLaneConcurrency) {
+        fastLaneRunning++;
+        waiter.fastLane = true;
+        waiter.granted = true;
+      } else {
+        queue = offices.computeIfAbsent(office, OfficeQueue::new);
+        queue.waiting.addLast(waiter);
+        waiting++;
+        if (queue.waiting.size() == 1) {
+          rotation.addLast(queue);
+        }
+        recordQueueDepth();
+        dispatch();
+      }
+
+      while (!waiter.granted) {
+        waiter.condition.await();
+      }
+    } catch (InterruptedException ex) {
+      if (waiter.granted) {
+        release(waiter.fastLane ? null : queue);
+      } else {
+        removeWaiter(queue, waiter);
+        removeIfIdle(queue);
+      }
+      Thread.currentThread().interrupt();
+      throw new SubmissionEventProcessingException(
+          "Interrupted while waiting to validate submission for office " + office, ex);
+    } finally {
+      lock.unlock();
+    }
+
+    eventServiceMetricService.recordOfficeWaitTime(
+        (System.nanoTime() - waitStart) / 1_000_000_000d);
+    return new Slot(waiter.fastLane ? null : queue, sizeClass, waitStart);
+  }
+
+  /** Dispatches waiting submissions while there is capacity to validate them. */
+  private void dispatch() {
+    while (fastLaneRunning < fastLaneConcurrency) {
+      Waiter next = nextFastLaneWaiter();
+      if (next == null) {
+        break;
+      }
+      fastLaneRunning++;
+      next.fastLane = true;
+      grant(next);
+    }
+
+    while (running < maxConcurrent) {
+      Waiter next = nextWaiter();
+      if (next == null) {
+        return;
+      }
+      running++;
+      grant(next);
+    }
+  }
+
+  private void grant(Waiter waiter) {
+    waiter.granted = true;
+    waiter.condition.signal();
+  }
+
+  private Waiter nextFastLaneWaiter() {
+    for (OfficeQueue queue : rotation) {
+      for (Waiter waiter : queue.waiting) {
+        if (waiter.sizeClass.isFastLane()) {
+          removeWaiter(queue, waiter);
+          removeIfIdle(queue);
+          return waiter;
+        }
+      }
+    }
+    return null;
+  }
+
+  private Waiter nextWaiter() {
+    if (rotation.stream().noneMatch(queue -> queue.active < maxConcurrentPerOffice)) {
+      return null;
+    }
+
+    while (true) {
+      OfficeQueue queue = rotation.peekFirst();
+      if (queue.active >= maxConcurrentPerOffice) {
+        endTurn(queue);
+        continue;
+      }
+      if (!queue.inTurn) {
+        queue.inTurn = true;
+        queue.deficit += (long) quantum * weightOf(queue.office);
+      }
+
+      Waiter head = queue.waiting.peekFirst();
+      if (queue.deficit < head.cost) {
+        endTurn(queue);
+        continue;
+      }
+
+      queue.deficit -= head.cost;
+      queue.waiting.pollFirst();
+      waiting--;
+      queue.active++;
+      if (queue.waiting.isEmpty()) {
+        leaveRotation(queue);
+      }
+      recordQueueDepth();
+      return head;
+    }
+  }
+
+  private void endTurn(OfficeQueue queue) {
+    queue.inTurn = false;
+    rotation.addLast(rotation.pollFirst());
+  }
+
+  private void removeWaiter(OfficeQueue queue, Waiter waiter) {
+    if (queue.waiting.remove(waiter)) {
+      waiting--;
+    }
+    if (queue.waiting.isEmpty()) {
+      leaveRotation(queue);
+    }
+    recordQueueDepth();
+  }
+
+  private void leaveRotation(OfficeQueue queue) {
+    // As in deficit round robin, an office with nothing waiting does not keep its credit.
+    rotation.remove(queue);
+    queue.inTurn = false;
+    queue.deficit = 0;
+  }
+
+  /** Releases a slot, where a {@code null} queue is a slot in the fast lane. */
+  private void release(OfficeQueue queue) {
+    if (queue == null) {
+      fastLaneRunning--;
+    } else {
+      running--;
+      queue.active--;
+      removeIfIdle(queue);
+    }
+    dispatch();
+  }
+
+  private void removeIfIdle(OfficeQueue queue) {
+    if (queue.active == 0 && queue.waiting.isEmpty()) {
+      offices.remove(queue.office);
+    }
+  }
+
+  private int weightOf(String office) {
+    return Math.max(1, officeWeights.getOrDefault(office, 1));
+  }
+
+  /** Records queue depth across all offices, as a label per office would grow without bound. */
+  private void recordQueueDepth() {
+    eventServiceMetricService.setOfficeQueueDepth(waiting, rotation.size());
+  }
+
+  /** The submissions of a single office, waiting or being validated. */
+  private static final class OfficeQueue {
+
+    private final String office;
+    private final Deque<Waiter> waiting = new ArrayDeque<>();
+    private int active;
+    private long deficit;
+    private boolean inTurn;
+
+    private OfficeQueue(String office) {
+      this.office = office;
+    }
+  }
+
+  /** A submission waiting for its office's turn. */
+  private static final class Waiter {
+
+    private final long cost;
+    private final SubmissionSizeClass sizeClass;
+    private final Condition condition;
+    private boolean granted;
+    private boolean fastLane;
+
+    private Waiter(long cost, SubmissionSizeClass sizeClass, Condition condition) {
+      this.cost = cost;
+      this.sizeClass = sizeClass;
+      this.condition = condition;
+    }
+  }
+
+  /** Permission to validate a single submission. Closing it lets another submission start. */
+  public final class Slot implements AutoCloseable {
+
+    private final OfficeQueue queue;
+    private final SubmissionSizeClass sizeClass;
+    private final long startNanos;
+    private boolean released;
+
+    private Slot(OfficeQueue queue, SubmissionSizeClass sizeClass, long startNanos) {
+      this.queue = queue;
+      this.sizeClass = sizeClass;
+      this.startNanos = startNanos;
+    }
+
+    @Override
+    public void close() {
+      if (released) {
+        return;
+      }
+      released = true;
+      lock.lock();
+      try {
+        release(queue);
+      } finally {
+        lock.unlock();
+      }
+      eventServiceMetricService.recordSubmissionLatency(
+          sizeClass, (System.nanoTime() - startNanos) / 1_000_000_000d);
+    }
+  }
+}
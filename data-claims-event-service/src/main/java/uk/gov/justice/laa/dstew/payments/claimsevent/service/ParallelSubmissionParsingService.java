@@ -0,0 +1,159 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import uk.gov.justice.laa.dstew.payments.claimsevent.exception.SubmissionEventProcessingException;
+import uk.gov.justice.laa.dstew.payments.claimsevent.metrics.EventServiceMetricService;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.model.SubmissionParsingOutcome;
+
+/**
+ * Parses every submission belonging to a bulk submission message, either one after another or
+ * concurrently up to a configurable parallelism limit.
+ *
+ * <p>Failure semantics are the same in both modes: once a submission fails no further submissions
+ * are started, the bulk submission is left marked as {@code PARSING_FAILED}, and the failure of the
+ * earliest failing submission (in message order) is rethrown. A transient failure instead leaves
+ * the bulk submission's status as it is, so that the redelivered message can resume parsing.
+ */
+@Slf4j
+@Service
+public class ParallelSubmissionParsingService {
+
+  private final BulkParsingService bulkParsingService;
+  private final EventServiceMetricService eventServiceMetricService;
+  private final int parallelism;
+
+  /**
+   * Constructs a new {@code ParallelSubmissionParsingService}.
+   *
+   * @param bulkParsingService the service responsible for parsing a single submission
+   * @param eventServiceMetricService the service used to record per-submission outcomes
+   * @param parallelism the maximum number of submissions parsed at once for a single message; a
+   *     value of {@code 1} or less parses submissions sequentially
+   */
+  public ParallelSubmissionParsingService(
+      BulkParsingService bulkParsingService,
+      EventServiceMetricService eventServiceMetricService,
+      @Value("${laa.bulk-claim-queue.submission-parsing-parallelism:1}") int parallelism) {
+    this.bulkParsingService = bulkParsingService;
+    this.eventServiceMetricService = eventServiceMetricService;
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Parses each of the submissions belonging to a bulk submission.
+   *
+   * @param bulkSubmissionId the ID of the bulk submission
+   * @param submissionIds the IDs of the submissions to create from the bulk submission
+   */
+  public void parseSubmissions(UUID bulkSubmissionId, List<UUID> submissionIds) {
+    if (parallelism <= 1 || submissionIds.size() <= 1) {
+      parseSequentially(bulkSubmissionId, submissionIds);
+    } else {
+      parseConcurrently(bulkSubmissionId, submissionIds);
+    }
+  }
+
+  private void parseSequentially(UUID bulkSubmissionId, List<UUID> submissionIds) {
+    // NOTE: we do not catch individual failures. The exception propagates to the listener, which
+    // leaves the message on the queue to be redelivered. The redelivered message skips submissions
+    // already parsed and resumes the rest, creating only the claims which are missing.
+    for (int i = 0; i < submissionIds.size(); i++) {
+      try {
+        bulkParsingService.parseData(bulkSubmissionId, submissionIds.get(i));
+        eventServiceMetricService.recordSubmissionParsingOutcome(
+            SubmissionParsingOutcome.SUCCEEDED);
+      } catch (RuntimeException ex) {
+        eventServiceMetricService.recordSubmissionParsingOutcome(SubmissionParsingOutcome.FAILED);
+        recordSkipped(submissionIds.size() - i - 1);
+        throw ex;
+      }
+    }
+  }
+
+  private void parseConcurrently(UUID bulkSubmissionId, List<UUID> submissionIds) {
+    int poolSize = Math.min(parallelism, submissionIds.size());
+    log.debug(
+        "Parsing {} submissions for bulk submission {} with parallelism {}",
+        submissionIds.size(),
+        bulkSubmissionId,
+        poolSize);
+
+    AtomicBoolean failed = new AtomicBoolean(false);
+    List<Future<SubmissionParsingOutcome>> futures = new ArrayList<>(submissionIds.size());
+
+    // Tasks are queued in message order, so once a failure is seen any submission that has not
+    // yet started is skipped, mirroring the sequential behaviour.
+    try (ExecutorService executor =
+        Executors.newFixedThreadPool(
+            poolSize, Thread.ofVirtual().name("submission-parser-", 0).factory())) {
+      for (UUID submissionId : submissionIds) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  if (failed.get()) {
+                    return SubmissionParsingOutcome.SKIPPED;
+                  }
+                  try {
+                    bulkParsingService.parseData(bulkSubmissionId, submissionId);
+                    return SubmissionParsingOutcome.SUCCEEDED;
+                  } catch (RuntimeException ex) {
+                    failed.set(true);
+                    throw ex;
+                  }
+                }));
+      }
+    }
+
+    RuntimeException firstFailure = null;
+    for (Future<SubmissionParsingOutcome> future : futures) {
+      SubmissionParsingOutcome outcome;
+      try {
+        outcome = future.get();
+      } catch (ExecutionException ex) {
+        outcome = SubmissionParsingOutcome.FAILED;
+        if (firstFailure == null) {
+          firstFailure = asRuntimeException(ex.getCause());
+        }
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new SubmissionEventProcessingException(
+            "Interrupted while parsing bulk submission " + bulkSubmissionId, ex);
+      }
+      eventServiceMetricService.recordSubmissionParsingOutcome(outcome);
+    }
+
+    if (firstFailure != null) {
+      // A submission which completed after the failing one will have marked the bulk submission
+      // as PARSING_COMPLETED, so the failure is re-applied once every submission has finished. A
+      // transient failure left the statuses alone for the redelivered message to resume.
+      if (!ClaimCreationRetryPolicy.isTransient(firstFailure)) {
+        bulkParsingService.markBulkSubmissionAsFailed(bulkSubmissionId);
+      }
+      throw firstFailure;
+    }
+  }
+
+  private void recordSkipped(int count) {
+    for (int i = 0; i < count; i++) {
+      eventServiceMetricService.recordSubmissionParsingOutcome(SubmissionParsingOutcome.SKIPPED);
+    }
+  }
+
+  private static RuntimeException asRuntimeException(Throwable throwable) {
+    if (throwable instanceof RuntimeException runtimeException) {
+      return runtimeException;
+    }
+    return new SubmissionEventProcessingException(
+        "Unhandled exception when parsing submission", throwable);
+  }
+}
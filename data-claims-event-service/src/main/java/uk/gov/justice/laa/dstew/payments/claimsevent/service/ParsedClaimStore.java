@@ -0,0 +1,99 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.model.ParsedClaims;
+
+/**
+ * Holds the claims of submissions which have just been parsed, so that validating a submission
+ * does not have to fetch back every claim that this instance has just created.
+ *
+ * <p>Claims are held in memory until the submission is validated or a configurable time to live
+ * passes, and only for submissions with no more than a configurable number of claims. A submission
+ * validated by another instance, or whose claims are no longer held, has its claims fetched from
+ * the Data Claims API as usual.
+ */
+@Slf4j
+@Service
+public class ParsedClaimStore {
+
+  private final boolean enabled;
+  private final int maxClaims;
+  private final Duration ttl;
+  private final Clock clock;
+  private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+
+  /**
+   * Constructs a new {@code ParsedClaimStore}.
+   *
+   * @param enabled whether the claims of parsed submissions are held for validation
+   * @param maxClaims the largest number of claims held for a single submission
+   * @param ttlSeconds how long, in seconds, the claims of a submission are held
+   */
+  @Autowired
+  public ParsedClaimStore(
+      @Value("${claim.validation.fused.enabled:false}") boolean enabled,
+      @Value("${claim.validation.fused.max-claims:5000}") int maxClaims,
+      @Value("${claim.validation.fused.ttl-seconds:900}") long ttlSeconds) {
+    this(enabled, maxClaims, Duration.ofSeconds(ttlSeconds), Clock.systemUTC());
+  }
+
+  ParsedClaimStore(boolean enabled, int maxClaims, Duration ttl, Clock clock) {
+    this.enabled = enabled;
+    this.maxClaims = maxClaims;
+    this.ttl = ttl;
+    this.clock = clock;
+  }
+
+  /**
+   * Returns whether the claims of a submission with the given number of claims would be held.
+   *
+   * @param numberOfClaims the number of claims in the submission
+   * @return {@code true} if enabled and the submission is small enough
+   */
+  public boolean accepts(int numberOfClaims) {
+    return enabled && numberOfClaims > 0 && numberOfClaims <= maxClaims;
+  }
+
+  /**
+   * Holds the claims of a parsed submission until it is validated.
+   *
+   * @param submissionId the ID of the submission
+   * @param parsedClaims the claims of the submission
+   */
+  public void put(UUID submissionId, ParsedClaims parsedClaims) {
+    removeExpired();
+    entries.put(submissionId, new Entry(parsedClaims, clock.instant().plus(ttl)));
+    log.debug(
+        "Holding {} parsed claims of submission {} for validation",
+        parsedClaims.claims().size(),
+        submissionId);
+  }
+
+  /**
+   * Removes and returns the claims held for a submission.
+   *
+   * @param submissionId the ID of the submission
+   * @return the claims of the submission, or empty if none are held
+   */
+  public Optional<ParsedClaims> take(UUID submissionId) {
+    removeExpired();
+    return Optional.ofNullable(entries.remove(submissionId)).map(Entry::parsedClaims);
+  }
+
+  private void removeExpired() {
+    Instant now = clock.instant();
+    entries.values().removeIf(entry -> !entry.expiresAt().isAfter(now));
+  }
+
+  private record Entry(ParsedClaims parsedClaims, Instant expiresAt) {}
+}
@@ -0,0 +1,80 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service;
+
+import java.util.Comparator;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.SubmissionPost;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.SubmissionResponse;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.ValidationMessagePatch;
+import uk.gov.justice.laa.dstew.payments.claimsevent.validation.SubmissionValidationContext;
+import uk.gov.justice.laa.dstew.payments.claimsevent.validation.submission.PreflightSubmissionValidator;
+
+/**
+ * Runs the submission validators which only depend on the fields of a submission on a submission
+ * mapped from a bulk submission, before any of its claims are created. A submission which would
+ * fail them once validated can then be failed without creating its claims and matter starts.
+ *
+ * <p>A validator which cannot validate the mapped submission is skipped, leaving the submission to
+ * be checked by it once validated as usual.
+ */
+@Slf4j
+@Service
+public class PreflightSubmissionValidationService {
+
+  private final List<PreflightSubmissionValidator> preflightSubmissionValidators;
+  private final boolean enabled;
+
+  /**
+   * Constructs a new {@code PreflightSubmissionValidationService}.
+   *
+   * @param preflightSubmissionValidators the validators to run before claims are created
+   * @param enabled whether submissions are validated before their claims are created
+   */
+  public PreflightSubmissionValidationService(
+      List<PreflightSubmissionValidator> preflightSubmissionValidators,
+      @Value("${submission.validation.preflight.enabled:false}") boolean enabled) {
+    this.preflightSubmissionValidators =
+        preflightSubmissionValidators.stream()
+            .sorted(Comparator.comparingInt(PreflightSubmissionValidator::priority))
+            .toList();
+    this.enabled = enabled;
+  }
+
+  /**
+   * Validates a submission mapped from a bulk submission before it or any of its claims have been
+   * created.
+   *
+   * @param submissionPost the submission to be created
+   * @return the submission level errors found, empty if there are none or this is disabled
+   */
+  public List<ValidationMessagePatch> validate(SubmissionPost submissionPost) {
+    if (!enabled) {
+      return List.of();
+    }
+
+    SubmissionResponse submission =
+        SubmissionResponse.builder()
+            .submissionId(submissionPost.getSubmissionId())
+            .bulkSubmissionId(submissionPost.getBulkSubmissionId())
+            .officeAccountNumber(submissionPost.getOfficeAccountNumber())
+            .areaOfLaw(submissionPost.getAreaOfLaw())
+            .submissionPeriod(submissionPost.getSubmissionPeriod())
+            .submitted(submissionPost.getSubmitted())
+            .build();
+    SubmissionValidationContext context = new SubmissionValidationContext();
+    for (PreflightSubmissionValidator validator : preflightSubmissionValidators) {
+      try {
+        validator.validate(submission, context);
+      } catch (RuntimeException ex) {
+        log.warn(
+            "Skipping {} before creating the claims of submission {}: {}",
+            validator.getClass().getSimpleName(),
+            submission.getSubmissionId(),
+            ex.getMessage());
+      }
+    }
+    return context.getSubmissionValidationErrors();
+  }
+}
@@ -0,0 +1,221 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchResponse;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchResultEntry;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityRequest;
+import software.amazon.awssdk.services.sqs.model.GetQueueUrlRequest;
+
+/**
+ * Keeps every in-flight SQS message invisible while it is being processed.
+ *
+ * <p>A single application-wide heartbeat tracks the receipt handle of each message currently being
+ * processed. On every beat, messages whose visibility is due to be extended are grouped into {@code
+ * ChangeMessageVisibilityBatch} calls of up to {@value #MAX_BATCH_SIZE} entries. A message is
+ * extended as soon as it is registered, and again once half of the extended visibility timeout has
+ * elapsed, so the number of SQS calls depends on the visibility timeout rather than a fixed
+ * interval.
+ */
+@Slf4j
+@Service
+public class SqsVisibilityHeartbeat {
+
+  /** The maximum number of entries SQS accepts in a single batch request. */
+  static final int MAX_BATCH_SIZE = 10;
+
+  private static final String RECEIPT_HANDLE_INVALID = "ReceiptHandleIsInvalid";
+
+  private final SqsClient sqsClient;
+  private final String queueName;
+  private final int visibilityTimeoutSeconds;
+  private final Duration extensionInterval;
+  private final ScheduledExecutorService scheduler;
+  private final Map<String, Instant> nextExtensionByReceiptHandle = new ConcurrentHashMap<>();
+  private volatile String queueUrl;
+
+  /**
+   * Constructs an instance of SqsVisibilityHeartbeat.
+   *
+   * @param sqsClient the SqsClient to interact with Amazon SQS
+   * @param queueName the name of the SQS queue
+   * @param visibilityTimeoutSeconds the visibility timeout in seconds applied on each extension
+   * @param heartbeatIntervalSeconds how often, in seconds, registered messages are checked to see
+   *     whether their visibility is due to be extended
+   */
+  public SqsVisibilityHeartbeat(
+      final SqsClient sqsClient,
+      final @Value("${laa.bulk-claim-queue.name}") String queueName,
+      final @Value("${laa.bulk-claim-queue.visibility-timeout-seconds:600}") int
+              visibilityTimeoutSeconds,
+      final @Value("${laa.bulk-claim-queue.visibility-heartbeat-interval-seconds:5}") int
+              heartbeatIntervalSeconds) {
+    this.sqsClient = sqsClient;
+    this.queueName = queueName;
+    this.visibilityTimeoutSeconds = visibilityTimeoutSeconds;
+    this.extensionInterval = Duration.ofSeconds(visibilityTimeoutSeconds).dividedBy(2);
+    this.scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("sqs-visibility-heartbeat").daemon(true).factory());
+    this.scheduler.scheduleWithFixedDelay(
+        this::extendDueMessages,
+        heartbeatIntervalSeconds,
+        heartbeatIntervalSeconds,
+        TimeUnit.SECONDS);
+  }
+
+  /**
+   * Start extending the visibility of a message until the returned registration is closed.
+   *
+   * @param receiptHandle the receipt handle of the message to extend visibility for
+   * @return a registration which stops the visibility being extended when closed
+   */
+  public Registration register(final String receiptHandle) {
+    log.debug("Registering receiptHandle={} with visibility heartbeat", receiptHandle);
+    nextExtensionByReceiptHandle.put(receiptHandle, Instant.MIN);
+    return new Registration(receiptHandle);
+  }
+
+  /**
+   * Stops extending the visibility of a message and makes it visible on the queue again after the
+   * given delay, so that it is redelivered sooner than the visibility timeout would allow. If the
+   * visibility cannot be changed, the message is redelivered once its current timeout lapses.
+   *
+   * @param receiptHandle the receipt handle of the message to return
+   * @param delaySeconds how long, in seconds, until the message is visible again
+   */
+  public void returnToQueue(final String receiptHandle, final int delaySeconds) {
+    deregister(receiptHandle);
+    try {
+      sqsClient.changeMessageVisibility(
+          ChangeMessageVisibilityRequest.builder()
+              .queueUrl(getQueueUrl())
+              .receiptHandle(receiptHandle)
+              .visibilityTimeout(delaySeconds)
+              .build());
+    } catch (Exception ex) {
+      log.warn("Failed to return receiptHandle={} to the queue", receiptHandle, ex);
+    }
+  }
+
+  /**
+   * Returns the number of messages currently having their visibility extended.
+   *
+   * @return the number of registered receipt handles
+   */
+  public int getInFlightCount() {
+    return nextExtensionByReceiptHandle.size();
+  }
+
+  /** Extends the visibility of every registered message which is due an extension. */
+  void extendDueMessages() {
+    try {
+      Instant now = Instant.now();
+      List<String> due =
+          nextExtensionByReceiptHandle.entrySet().stream()
+              .filter(entry -> !entry.getValue().isAfter(now))
+              .map(Map.Entry::getKey)
+              .toList();
+
+      for (int start = 0; start < due.size(); start += MAX_BATCH_SIZE) {
+        extendBatch(due.subList(start, Math.min(start + MAX_BATCH_SIZE, due.size())));
+      }
+    } catch (Exception ex) {
+      log.error("Failed to extend SQS visibility for in-flight messages", ex);
+    }
+  }
+
+  private void extendBatch(final List<String> receiptHandles) {
+    List<ChangeMessageVisibilityBatchRequestEntry> entries = new ArrayList<>(receiptHandles.size());
+    for (int i = 0; i < receiptHandles.size(); i++) {
+      entries.add(
+          ChangeMessageVisibilityBatchRequestEntry.builder()
+              .id(String.valueOf(i))
+              .receiptHandle(receiptHandles.get(i))
+              .visibilityTimeout(visibilityTimeoutSeconds)
+              .build());
+    }
+
+    log.debug(
+        "Extending SQS visibility for {} messages by {} seconds",
+        entries.size(),
+        visibilityTimeoutSeconds);
+
+    ChangeMessageVisibilityBatchResponse response =
+        sqsClient.changeMessageVisibilityBatch(
+            ChangeMessageVisibilityBatchRequest.builder()
+                .queueUrl(getQueueUrl())
+                .entries(entries)
+                .build());
+
+    Instant nextExtension = Instant.now().plus(extensionInterval);
+    for (ChangeMessageVisibilityBatchResultEntry success : response.successful()) {
+      String receiptHandle = receiptHandles.get(Integer.parseInt(success.id()));
+      nextExtensionByReceiptHandle.computeIfPresent(receiptHandle, (key, due) -> nextExtension);
+    }
+
+    for (BatchResultErrorEntry failure : response.failed()) {
+      String receiptHandle = receiptHandles.get(Integer.parseInt(failure.id()));
+      log.error(
+          "Failed to extend SQS visibility for receiptHandle={}: {} {}",
+          receiptHandle,
+          failure.code(),
+          failure.message());
+      if (RECEIPT_HANDLE_INVALID.equals(failure.code())) {
+        // The message can no longer be extended, so stop retrying it on every beat.
+        nextExtensionByReceiptHandle.remove(receiptHandle);
+      }
+    }
+  }
+
+  private String getQueueUrl() {
+    if (queueUrl == null) {
+      queueUrl =
+          sqsClient
+              .getQueueUrl(GetQueueUrlRequest.builder().queueName(queueName).build())
+              .queueUrl();
+    }
+    return queueUrl;
+  }
+
+  private void deregister(final String receiptHandle) {
+    log.debug("Deregistering receiptHandle={} from visibility heartbeat", receiptHandle);
+    nextExtensionByReceiptHandle.remove(receiptHandle);
+  }
+
+  /** Stops the heartbeat when the application shuts down. */
+  @PreDestroy
+  public void shutdown() {
+    scheduler.shutdownNow();
+  }
+
+  /** A message registered with the heartbeat. Closing it stops the visibility being extended. */
+  public final class Registration implements AutoCloseable {
+
+    private final String receiptHandle;
+
+    private Registration(String receiptHandle) {
+      this.receiptHandle = receiptHandle;
+    }
+
+    @Override
+    public void close() {
+      deregister(receiptHandle);
+    }
+  }
+}
@@ -1,13 +1,20 @@
 package uk.gov.justice.laa.dstew.payments.claimsevent.service;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
-import java.util.Arrays;
-import java.util.HashSet;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.BulkSubmissionOutcome;
@@ -24,11 +31,24 @@ import uk.gov.justice.laa.dstew.payments.claimsevent.exception.SubmissionDataNor
  * precisely — a field named {@code gender} on an unrelated class will not be uppercased
  * unintentionally.
  *
+ * <p>The fields of each DTO class are only inspected once. The first time a class is normalised,
+ * a {@link FieldPlan} is compiled listing method handles for just its String fields, along with
+ * whether each is uppercased, and for the fields which may hold nested DTOs, lists or maps. Objects
+ * already visited are tracked by identity, so that the {@code equals} and {@code hashCode} of large
+ * generated DTOs are never called.
+ *
+ * <p>When bulk submissions are normalised as they are deserialised, by the {@link
+ * NormalisingDeserialisationModule}, they are returned by this normaliser unchanged.
+ *
  * <p>This normaliser does not alter numeric, boolean, enum, or other typed values.
  */
 @Service
 public class SubmissionDataNormaliser {
 
+  private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+  private static final MethodType SETTER_TYPE =
+      MethodType.methodType(void.class, Object.class, Object.class);
+
   /**
    * Defines the fields to be uppercased after trimming, scoped explicitly by DTO class. Field names
    * must match the Java bean property name exactly (camelCase). To add further fields, add an entry
@@ -47,6 +67,33 @@ public class SubmissionDataNormaliser {
           GetBulkSubmission200ResponseDetailsSchedule.class,
           Set.of("areaOfLaw"));
 
+  private final ClassValue<FieldPlan> fieldPlans =
+      new ClassValue<>() {
+        @Override
+        protected FieldPlan computeValue(Class<?> type) {
+          return FieldPlan.compile(type);
+        }
+      };
+
+  private final boolean normalisedOnDeserialisation;
+
+  /**
+   * Constructs a new {@code SubmissionDataNormaliser}.
+   *
+   * @param normalisedOnDeserialisation whether bulk submissions are already normalised as they are
+   *     deserialised, so need not be normalised again
+   */
+  @Autowired
+  public SubmissionDataNormaliser(
+      @Value("${laa.bulk-claim-queue.normalise-on-deserialisation.enabled:false}")
+          boolean normalisedOnDeserialisation) {
+    this.normalisedOnDeserialisation = normalisedOnDeserialisation;
+  }
+
+  SubmissionDataNormaliser() {
+    this(false);
+  }
+
   protected String normaliseString(String value) {
     if (!StringUtils.hasText(value)) {
       return null;
@@ -60,16 +107,32 @@ public class SubmissionDataNormaliser {
    * matter-starts, and immigration CLR entries.
    *
    * @param response the {@code GetBulkSubmission200Response} DTO retrieved from the claims api
-   * @return the same DTO instance with String values normalised
+   * @return the same DTO instance with String values normalised, or unchanged if it was
+   *     normalised as it was deserialised
    */
   public GetBulkSubmission200Response normalise(GetBulkSubmission200Response response) {
-    if (response == null) {
-      return null;
+    if (response == null || normalisedOnDeserialisation) {
+      return response;
     }
-    normaliseObject(response, new HashSet<>());
+    normaliseObject(response, newVisitedSet());
     return response;
   }
 
+  /**
+   * Normalises a single outcome, in the same way as the outcomes of a whole bulk submission. Used
+   * when the outcomes of a bulk submission are read one at a time rather than all at once.
+   *
+   * @param outcome the outcome retrieved from the claims api
+   * @return the same outcome instance with String values normalised
+   */
+  public BulkSubmissionOutcome normaliseOutcome(BulkSubmissionOutcome outcome) {
+    if (outcome == null || normalisedOnDeserialisation) {
+      return outcome;
+    }
+    normaliseObject(outcome, newVisitedSet());
+    return outcome;
+  }
+
   /**
    * Recursively normalises any object, trimming all String fields. Supports: POJOs / DTOs, Lists,
    * Maps
@@ -100,33 +163,7 @@ public class SubmissionDataNormaliser {
       return;
     }
 
-    Arrays.stream(object.getClass().getDeclaredFields())
-        .forEach(field -> normaliseFieldValue(object, field, visited));
-  }
-
-  protected void normaliseFieldValue(Object object, Field field, Set<Object> visited) {
-    if (object == null || field == null) {
-      return;
-    }
-    try {
-      field.setAccessible(true);
-      Object value = field.get(object);
-      if (value instanceof String s) {
-        String normalised = normaliseString(s);
-        Set<String> upperFields = UPPERCASE_FIELDS.getOrDefault(object.getClass(), Set.of());
-        if (normalised != null && upperFields.contains(field.getName())) {
-          normalised = normalised.toUpperCase(Locale.ENGLISH);
-        }
-        field.set(object, normalised);
-      } else if (isNormalisableObject(value)) {
-        normaliseObject(value, visited);
-      }
-    } catch (IllegalAccessException e) {
-      throw new SubmissionDataNormalisationException(
-          "Unable to normalise field '%s' on class '%s': %s"
-              .formatted(field.getName(), object.getClass().getSimpleName(), e.getMessage()),
-          e);
-    }
+    fieldPlans.get(object.getClass()).normalise(this, object, visited);
   }
 
   protected void normaliseMap(Map<Object, Object> map) {
@@ -150,6 +187,24 @@ public class SubmissionDataNormaliser {
     map.putAll(copy);
   }
 
+  /**
+   * Returns whether a field may hold a value which should be recursively traversed, judged from
+   * its declared type.
+   */
+  static boolean isNormalisableType(Class<?> type) {
+    return !type.isPrimitive()
+        && !type.isEnum()
+        && (List.class.isAssignableFrom(type)
+            || Map.class.isAssignableFrom(type)
+            || type.isAssignableFrom(List.class)
+            || type.isAssignableFrom(Map.class)
+            || !type.getPackageName().startsWith("java."));
+  }
+
+  private static Set<Object> newVisitedSet() {
+    return Collections.newSetFromMap(new IdentityHashMap<>());
+  }
+
   // Determines whether an object should be recursively traversed
   protected boolean isNormalisableObject(Object value) {
     if (value == null) {
@@ -161,4 +216,95 @@ public class SubmissionDataNormaliser {
         || value.getClass().isArray()
         || !value.getClass().getPackageName().startsWith("java.");
   }
+
+  /**
+   * The fields of a DTO class which are normalised: its String fields, and those which may hold
+   * nested DTOs, lists or maps. Static fields and those of any other type are left out.
+   *
+   * @param strings the String fields of the class
+   * @param nested getters for the fields which may hold values to traverse
+   */
+  record FieldPlan(List<StringField> strings, List<MethodHandle> nested) {
+
+    static FieldPlan compile(Class<?> type) {
+      Set<String> upperFields = UPPERCASE_FIELDS.getOrDefault(type, Set.of());
+      List<StringField> strings = new ArrayList<>();
+      List<MethodHandle> nested = new ArrayList<>();
+      for (Field field : type.getDeclaredFields()) {
+        if (Modifier.isStatic(field.getModifiers())) {
+          continue;
+        }
+        try {
+          if (field.getType() == String.class) {
+            field.setAccessible(true);
+            strings.add(
+                new StringField(
+                    field.getName(),
+                    MethodHandles.lookup().unreflectGetter(field).asType(GETTER_TYPE),
+                    MethodHandles.lookup().unreflectSetter(field).asType(SETTER_TYPE),
+                    upperFields.contains(field.getName())));
+          } else if (isNormalisableType(field.getType())) {
+            field.setAccessible(true);
+            nested.add(MethodHandles.lookup().unreflectGetter(field).asType(GETTER_TYPE));
+          }
+        } catch (IllegalAccessException | RuntimeException e) {
+          throw new SubmissionDataNormalisationException(
+              "Unable to normalise field '%s' on class '%s': %s"
+                  .formatted(field.getName(), type.getSimpleName(), e.getMessage()),
+              e);
+        }
+      }
+      return new FieldPlan(List.copyOf(strings), List.copyOf(nested));
+    }
+
+    void normalise(SubmissionDataNormaliser normaliser, Object object, Set<Object> visited) {
+      for (StringField field : strings) {
+        field.normalise(normaliser, object);
+      }
+      for (MethodHandle getter : nested) {
+        Object value;
+        try {
+          value = (Object) getter.invokeExact(object);
+        } catch (Throwable e) {
+          throw new SubmissionDataNormalisationException(
+              "Unable to normalise nested field on class '%s': %s"
+                  .formatted(object.getClass().getSimpleName(), e.getMessage()),
+              e);
+        }
+        if (normaliser.isNormalisableObject(value)) {
+          normaliser.normaliseObject(value, visited);
+        }
+      }
+    }
+  }
+
+  /**
+   * A String field of a DTO class, with handles to read and write it.
+   *
+   * @param name the name of the field
+   * @param getter reads the field from an instance of the class
+   * @param setter writes the field to an instance of the class
+   * @param uppercase whether the field is uppercased after trimming
+   */
+  record StringField(String name, MethodHandle getter, MethodHandle setter, boolean uppercase) {
+
+    void normalise(SubmissionDataNormaliser normaliser, Object object) {
+      try {
+        String value = (String) (Object) getter.invokeExact(object);
+        if (value == null) {
+          return;
+        }
+        String normalised = normaliser.normaliseString(value);
+        if (normalised != null && uppercase) {
+          normalised = normalised.toUpperCase(Locale.ENGLISH);
+        }
+        setter.invokeExact(object, (Object) normalised);
+      } catch (Throwable e) {
+        throw new SubmissionDataNormalisationException(
+            "Unable to normalise field '%s' on class '%s': %s"
+                .formatted(name, object.getClass().getSimpleName(), e.getMessage()),
+            e);
+      }
+    }
+  }
 }
@@ -0,0 +1,207 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import uk.gov.justice.laa.dstew.payments.claimsevent.exception.SubmissionEventProcessingException;
+import uk.gov.justice.laa.dstew.payments.claimsevent.metrics.EventServiceMetricService;
+import uk.gov.justice.laa.dstew.payments.claimsevent.model.SubmissionEventType;
+
+/**
+ * Tracks the submission events this instance has recently started or completed, so that SQS
+ * redeliveries of the same event can be suppressed without repeating any work.
+ *
+ * <p>An event is identified by its event type and the ID it acts on: the bulk submission ID for
+ * parse events, and the submission ID for validation events. A message for an event which is still
+ * in progress is left on the queue rather than acknowledged, so that it is still there to retry the
+ * event if the original fails. Only a redelivery of the same SQS message is suppressed once an
+ * event has completed, so a later request to process the same submission again is not lost.
+ *
+ * <p>Entries expire after a configurable time to live, with in-progress entries kept for longer
+ * than the visibility timeout so that a redelivery caused by a failed visibility extension is still
+ * caught. The registry holds a bounded number of entries, evicting the oldest completed event once
+ * full. Events in progress are never evicted, so the registry grows past its bound, with a warning,
+ * while more events than that are in progress at once.
+ *
+ * <p>This only suppresses redeliveries to the same instance. Redeliveries to another instance are
+ * caught by the submission status checks in {@link BulkParsingService} and {@link
+ * SubmissionValidationService}.
+ */
+@Slf4j
+@Service
+public class SubmissionEventIdempotencyRegistry {
+
+  private final EventServiceMetricService eventServiceMetricService;
+  private final Duration inProgressTtl;
+  private final Duration completedTtl;
+  private final int maxEntries;
+  private final Clock clock;
+  private final LinkedHashMap<EventKey, Entry> entries = new LinkedHashMap<>();
+
+  /**
+   * Constructs a new {@code SubmissionEventIdempotencyRegistry}.
+   *
+   * @param eventServiceMetricService the service used to record suppressed redeliveries
+   * @param inProgressTtlSeconds how long, in seconds, an event is considered in progress
+   * @param completedTtlSeconds how long, in seconds, a completed event is remembered
+   * @param maxEntries the maximum number of events remembered at once
+   */
+  @Autowired
+  public SubmissionEventIdempotencyRegistry(
+      EventServiceMetricService eventServiceMetricService,
+      @Value("${laa.bulk-claim-queue.idempotency.in-progress-ttl-seconds:3600}")
+          long inProgressTtlSeconds,
+      @Value("${laa.bulk-claim-queue.idempotency.completed-ttl-seconds:3600}")
+          long completedTtlSeconds,
+      @Value("${laa.bulk-claim-queue.idempotency.max-entries:10000}") int maxEntries) {
+    this(
+        eventServiceMetricService,
+        Duration.ofSeconds(inProgressTtlSeconds),
+        Duration.ofSeconds(completedTtlSeconds),
+        maxEntries,
+        Clock.systemUTC());
+  }
+
+  SubmissionEventIdempotencyRegistry(
+      EventServiceMetricService eventServiceMetricService,
+      Duration inProgressTtl,
+      Duration completedTtl,
+      int maxEntries,
+      Clock clock) {
+    this.eventServiceMetricService = eventServiceMetricService;
+    this.inProgressTtl = inProgressTtl;
+    this.completedTtl = completedTtl;
+    this.maxEntries = Math.max(1, maxEntries);
+    this.clock = clock;
+  }
+
+  /**
+   * Records that an event has started, unless it is already in progress or the message has
+   * recently been processed.
+   *
+   * @param eventType the type of the event
+   * @param id the ID the event acts on
+   * @param messageId the ID of the SQS message requesting the event
+   * @return {@code true} if the event should be processed, or {@code false} if the message is a
+   *     redelivery of one which has already been processed and should be acknowledged
+   * @throws SubmissionEventProcessingException if the event is in progress, so that the message is
+   *     left on the queue in case the event in progress fails
+   */
+  public synchronized boolean tryBegin(SubmissionEventType eventType, UUID id, String messageId) {
+    Instant now = clock.instant();
+    removeExpired(now);
+
+    EventKey key = new EventKey(eventType, id);
+    Entry existing = entries.get(key);
+    if (existing != null && existing.expiresAt().isAfter(now)) {
+      if (existing.state() == State.IN_PROGRESS) {
+        eventServiceMetricService.incrementRedeliveriesSuppressed(
+            eventType, State.IN_PROGRESS.label);
+        throw new SubmissionEventProcessingException(
+            "%s event for %s is already in progress, leaving message %s on the queue"
+                .formatted(eventType, id, messageId));
+      }
+      if (Objects.equals(existing.messageId(), messageId)) {
+        log.info(
+            "Suppressing redelivered {} event for {} which has already completed", eventType, id);
+        eventServiceMetricService.incrementRedeliveriesSuppressed(
+            eventType, State.COMPLETED.label);
+        return false;
+      }
+    }
+
+    // Re-inserted so that entries stay ordered by when they were last updated.
+    entries.remove(key);
+    put(key, new Entry(State.IN_PROGRESS, messageId, now.plus(inProgressTtl)));
+    return true;
+  }
+
+  /**
+   * Records that an event has completed, so that later redeliveries of its message are suppressed.
+   *
+   * @param eventType the type of the event
+   * @param id the ID the event acts on
+   */
+  public synchronized void complete(SubmissionEventType eventType, UUID id) {
+    EventKey key = new EventKey(eventType, id);
+    Entry started = entries.remove(key);
+    put(
+        key,
+        new Entry(
+            State.COMPLETED,
+            started == null ? null : started.messageId(),
+            clock.instant().plus(completedTtl)));
+  }
+
+  /**
+   * Forgets an event which did not complete, so that a redelivery is allowed to retry it.
+   *
+   * @param eventType the type of the event
+   * @param id the ID the event acts on
+   */
+  public synchronized void abandon(SubmissionEventType eventType, UUID id) {
+    entries.remove(new EventKey(eventType, id));
+  }
+
+  private void put(EventKey key, Entry entry) {
+    if (entries.size() >= maxEntries && !evictOldestCompleted()) {
+      log.warn(
+          "Idempotency registry holds {} events in progress, more than its limit of {}",
+          entries.size() + 1,
+          maxEntries);
+    }
+    entries.put(key, entry);
+  }
+
+  /**
+   * Evicts the oldest completed event. An event in progress is kept, as evicting it would let a
+   * redelivery of its message run the event a second time alongside it.
+   *
+   * @return {@code true} if a completed event was evicted
+   */
+  private boolean evictOldestCompleted() {
+    Iterator<Entry> oldest = entries.values().iterator();
+    while (oldest.hasNext()) {
+      if (oldest.next().state() == State.COMPLETED) {
+        oldest.remove();
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Removes expired entries from the oldest onwards, stopping at the first which has not expired.
+   * An entry given a shorter time to live than an older one is removed once that one has expired,
+   * and is ignored until then.
+   */
+  private void removeExpired(Instant now) {
+    Iterator<Entry> oldest = entries.values().iterator();
+    while (oldest.hasNext() && !oldest.next().expiresAt().isAfter(now)) {
+      oldest.remove();
+    }
+  }
+
+  private enum State {
+    IN_PROGRESS("in_progress"),
+    COMPLETED("completed");
+
+    private final String label;
+
+    State(String label) {
+      this.label = label;
+    }
+  }
+
+  private record EventKey(SubmissionEventType eventType, UUID id) {}
+
+  private record Entry(State state, String messageId, Instant expiresAt) {}
+}
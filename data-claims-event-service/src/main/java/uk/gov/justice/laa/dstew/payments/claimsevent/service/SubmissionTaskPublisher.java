@@ -0,0 +1,157 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.GetQueueUrlRequest;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+import uk.gov.justice.laa.dstew.payments.claimsevent.exception.SubmissionEventProcessingException;
+import uk.gov.justice.laa.dstew.payments.claimsevent.model.SubmissionEventType;
+
+/**
+ * Sends tasks, each covering part of a submission, back to the submission queue so that they can
+ * be picked up by any instance of the service.
+ *
+ * <p>Each task is written as JSON and sent with the {@code SubmissionEventType} attribute, so that
+ * it is handled by the lane for its event type, along with an attribute identifying the kind of
+ * task. Tasks are sent in {@code SendMessageBatch} calls of up to {@value #MAX_BATCH_SIZE}
+ * entries, and may be delayed by up to {@value #MAX_DELAY_SECONDS} seconds before they are
+ * delivered.
+ */
+@Slf4j
+@Service
+public class SubmissionTaskPublisher {
+
+  /** The maximum number of entries SQS accepts in a single batch request. */
+  static final int MAX_BATCH_SIZE = 10;
+
+  /** The longest delay SQS accepts before delivering a message, in seconds. */
+  static final int MAX_DELAY_SECONDS = 900;
+
+  private static final String SUBMISSION_EVENT_TYPE_ATTRIBUTE = "SubmissionEventType";
+
+  private final SqsClient sqsClient;
+  private final ObjectMapper objectMapper;
+  private final String queueName;
+  private volatile String queueUrl;
+
+  /**
+   * Constructs a new {@code SubmissionTaskPublisher}.
+   *
+   * @param sqsClient the client used to send tasks to the submission queue
+   * @param objectMapper the mapper used to write task messages
+   * @param queueName the name of the submission queue
+   */
+  public SubmissionTaskPublisher(
+      SqsClient sqsClient,
+      @Qualifier("submissionEventMapper") ObjectMapper objectMapper,
+      @Value("${laa.bulk-claim-queue.name}") String queueName) {
+    this.sqsClient = sqsClient;
+    this.objectMapper = objectMapper;
+    this.queueName = queueName;
+  }
+
+  /**
+   * Sends tasks to the submission queue.
+   *
+   * @param eventType the event type the tasks are handled as
+   * @param taskAttribute the name of the attribute identifying the kind of task
+   * @param taskType the kind of task
+   * @param tasks the tasks to send, each written as the body of a message
+   * @throws SubmissionEventProcessingException if any of the tasks could not be sent
+   */
+  public void publish(
+      SubmissionEventType eventType, String taskAttribute, String taskType, List<?> tasks) {
+    publish(eventType, taskAttribute, taskType, tasks, Duration.ZERO);
+  }
+
+  /**
+   * Sends tasks to the submission queue, to be delivered once a delay has passed. Delays longer
+   * than SQS allows are shortened to {@value #MAX_DELAY_SECONDS} seconds.
+   *
+   * @param eventType the event type the tasks are handled as
+   * @param taskAttribute the name of the attribute identifying the kind of task
+   * @param taskType the kind of task
+   * @param tasks the tasks to send, each written as the body of a message
+   * @param delay how long to wait before the tasks are delivered
+   * @throws SubmissionEventProcessingException if any of the tasks could not be sent
+   */
+  public void publish(
+      SubmissionEventType eventType,
+      String taskAttribute,
+      String taskType,
+      List<?> tasks,
+      Duration delay) {
+    int delaySeconds = Math.clamp(delay.toSeconds(), 0, MAX_DELAY_SECONDS);
+    Map<String, MessageAttributeValue> attributes =
+        Map.of(
+            SUBMISSION_EVENT_TYPE_ATTRIBUTE,
+            stringAttribute(eventType.name()),
+            taskAttribute,
+            stringAttribute(taskType));
+    for (int start = 0; start < tasks.size(); start += MAX_BATCH_SIZE) {
+      send(
+          tasks.subList(start, Math.min(start + MAX_BATCH_SIZE, tasks.size())),
+          attributes,
+          delaySeconds);
+    }
+    log.debug("Sent {} {} tasks to the submission queue", tasks.size(), taskType);
+  }
+
+  private void send(
+      List<?> tasks, Map<String, MessageAttributeValue> attributes, int delaySeconds) {
+    List<SendMessageBatchRequestEntry> entries = new ArrayList<>(tasks.size());
+    for (int i = 0; i < tasks.size(); i++) {
+      entries.add(
+          SendMessageBatchRequestEntry.builder()
+              .id(String.valueOf(i))
+              .messageBody(writeMessage(tasks.get(i)))
+              .messageAttributes(attributes)
+              .delaySeconds(delaySeconds)
+              .build());
+    }
+
+    SendMessageBatchResponse response =
+        sqsClient.sendMessageBatch(
+            SendMessageBatchRequest.builder().queueUrl(getQueueUrl()).entries(entries).build());
+    if (!response.failed().isEmpty()) {
+      throw new SubmissionEventProcessingException(
+          "Failed to send %d of %d tasks: %s"
+              .formatted(
+                  response.failed().size(), tasks.size(), response.failed().getFirst().message()));
+    }
+  }
+
+  private String writeMessage(Object task) {
+    try {
+      return objectMapper.writeValueAsString(task);
+    } catch (JsonProcessingException ex) {
+      throw new SubmissionEventProcessingException("Unable to write task message", ex);
+    }
+  }
+
+  private static MessageAttributeValue stringAttribute(String value) {
+    return MessageAttributeValue.builder().dataType("String").stringValue(value).build();
+  }
+
+  private String getQueueUrl() {
+    if (queueUrl == null) {
+      queueUrl =
+          sqsClient
+              .getQueueUrl(GetQueueUrlRequest.builder().queueName(queueName).build())
+              .queueUrl();
+    }
+    return queueUrl;
+  }
+}
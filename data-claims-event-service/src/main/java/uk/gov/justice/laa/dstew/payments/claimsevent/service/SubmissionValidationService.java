@@ -1,7 +1,9 @@
 package uk.gov.justice.laa.dstew.payments.claimsevent.service;
 
 import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -16,7 +18,11 @@ import uk.gov.justice.laa.dstew.payments.claimsdata.model.SubmissionPatch;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.SubmissionResponse;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.SubmissionStatus;
 import uk.gov.justice.laa.dstew.payments.claimsevent.client.DataClaimsRestClient;
+import uk.gov.justice.laa.dstew.payments.claimsevent.exception.SubmissionEventProcessingException;
 import uk.gov.justice.laa.dstew.payments.claimsevent.metrics.EventServiceMetricService;
+import uk.gov.justice.laa.dstew.payments.claimsevent.model.SubmissionEventType;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.model.ClaimPageRange;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.model.ClaimRetryTask;
 import uk.gov.justice.laa.dstew.payments.claimsevent.validation.ClaimValidationReport;
 import uk.gov.justice.laa.dstew.payments.claimsevent.validation.SubmissionValidationContext;
 import uk.gov.justice.laa.dstew.payments.claimsevent.validation.submission.SubmissionValidator;
@@ -36,6 +42,16 @@ public class SubmissionValidationService {
   private final DataClaimsRestClient dataClaimsRestClient;
   private final List<SubmissionValidator> submissionValidatorList;
   private final EventServiceMetricService eventServiceMetricService;
+  private final OfficeFairScheduler officeFairScheduler;
+  private final DistributedClaimValidationCoordinator distributedClaimValidationCoordinator;
+  private final ClaimRetryScheduler claimRetryScheduler;
+  private final SubmissionEventIdempotencyRegistry submissionEventIdempotencyRegistry;
+
+  /** Identifies the completion of a split submission to the idempotency registry. */
+  private static final String CLAIM_VALIDATION_COMPLETION = "claim-validation-completion";
+
+  private static final Set<SubmissionStatus> ALREADY_VALIDATED_STATUSES =
+      EnumSet.of(SubmissionStatus.VALIDATION_SUCCEEDED, SubmissionStatus.VALIDATION_FAILED);
 
   /**
    * Validates a claim submission inside the provided submissionResponse.
@@ -44,10 +60,159 @@ public class SubmissionValidationService {
    */
   public SubmissionValidationContext validateSubmission(UUID submissionId) {
     log.debug("Validating submission {}", submissionId);
-    eventServiceMetricService.startSubmissionValidationTimer(submissionId);
 
     SubmissionResponse submission = dataClaimsRestClient.getSubmission(submissionId).getBody();
     Assert.notNull(submission, "Submission not retrievable: " + submissionId.toString());
+    if (ALREADY_VALIDATED_STATUSES.contains(submission.getStatus())) {
+      // A redelivered message for a submission another worker has already finished validating.
+      // Validating it again would overwrite the result, so the message is skipped.
+      log.info(
+          "Submission {} has already been validated with status {}, skipping",
+          submissionId,
+          submission.getStatus());
+      eventServiceMetricService.incrementRedeliveriesSuppressed(
+          SubmissionEventType.VALIDATE_SUBMISSION, "status");
+      return new SubmissionValidationContext();
+    }
+
+    // Waits for the fast lane or the office's turn, so that large submissions from one office
+    // cannot hold every worker while small submissions and other offices wait.
+    try (OfficeFairScheduler.Slot officeSlot = officeFairScheduler.acquire(submission)) {
+      return validateSubmission(submissionId, submission);
+    }
+  }
+
+  /**
+   * Validates a range of pages of claims from a large submission which has been split into tasks.
+   * Once no claims in the submission are left to validate, the validation of the submission is
+   * completed from the claims already validated, without validating them again.
+   *
+   * @param claimPageRange the range of pages of claims to validate
+   * @throws SubmissionEventProcessingException if any claims need to be retried, so that the task
+   *     is delivered again
+   */
+  public void validateClaimPageRange(ClaimPageRange claimPageRange) {
+    UUID submissionId = claimPageRange.submissionId();
+    log.debug(
+        "Validating claim pages {} to {} of submission {}",
+        claimPageRange.firstPage(),
+        claimPageRange.lastPage(),
+        submissionId);
+
+    SubmissionResponse submission = dataClaimsRestClient.getSubmission(submissionId).getBody();
+    Assert.notNull(submission, "Submission not retrievable: " + submissionId.toString());
+    if (ALREADY_VALIDATED_STATUSES.contains(submission.getStatus())) {
+      log.info(
+          "Submission {} has already been validated with status {}, skipping claim pages",
+          submissionId,
+          submission.getStatus());
+      return;
+    }
+
+    SubmissionValidationContext context = initialiseValidationContext(submission);
+    claimValidationService.validateAndUpdateClaims(
+        submission, context, claimPageRange.firstPage(), claimPageRange.lastPage());
+    if (context.hasClaimsToRetry()) {
+      // Claims left ready to process would stop the submission ever completing, so the task is
+      // failed and delivered again to retry them.
+      eventServiceMetricService.recordClaimValidationTasks("retried", 1);
+      throw new SubmissionEventProcessingException(
+          "Claims on pages %d to %d of submission %s need to be retried"
+              .formatted(claimPageRange.firstPage(), claimPageRange.lastPage(), submissionId));
+    }
+    eventServiceMetricService.recordClaimValidationTasks("completed", 1);
+
+    if (distributedClaimValidationCoordinator.isClaimValidationComplete(submission)) {
+      completeClaimValidation(submissionId);
+    }
+  }
+
+  /**
+   * Completes the validation of a split submission once all of its claims have been validated.
+   *
+   * <p>Tasks finishing at the same time can each find no claims left to validate, so completion is
+   * recorded in the idempotency registry and only the first task completes the submission. A task
+   * finding completion in progress fails, so that it is delivered again and either finds the
+   * submission validated or completes it if the first attempt failed.
+   */
+  private void completeClaimValidation(UUID submissionId) {
+    if (!submissionEventIdempotencyRegistry.tryBegin(
+        SubmissionEventType.VALIDATE_SUBMISSION, submissionId, CLAIM_VALIDATION_COMPLETION)) {
+      log.info("Validation of submission {} has already been completed", submissionId);
+      return;
+    }
+    try {
+      // Fetched again so that the status reflects claims validated by every task, and so that a
+      // submission completed by another instance is not completed again.
+      SubmissionResponse submission = dataClaimsRestClient.getSubmission(submissionId).getBody();
+      Assert.notNull(submission, "Submission not retrievable: " + submissionId.toString());
+      if (ALREADY_VALIDATED_STATUSES.contains(submission.getStatus())) {
+        log.info(
+            "Submission {} has already been validated with status {}, not completing again",
+            submissionId,
+            submission.getStatus());
+      } else {
+        log.info("All claims of submission {} validated, completing validation", submissionId);
+        completeValidation(submissionId, submission, initialiseValidationContext(submission));
+      }
+      submissionEventIdempotencyRegistry.complete(
+          SubmissionEventType.VALIDATE_SUBMISSION, submissionId);
+    } catch (RuntimeException e) {
+      submissionEventIdempotencyRegistry.abandon(
+          SubmissionEventType.VALIDATE_SUBMISSION, submissionId);
+      throw e;
+    }
+  }
+
+  /**
+   * Validates claims of a submission again after they were flagged for retry, without validating
+   * the rest of the submission. If any are flagged for retry again, a further retry is scheduled;
+   * otherwise the status of the submission is set from all of its claims.
+   *
+   * @param claimRetryTask the claims to validate again
+   */
+  public void revalidateFlaggedClaims(ClaimRetryTask claimRetryTask) {
+    UUID submissionId = claimRetryTask.submissionId();
+    log.debug(
+        "Validating {} claims of submission {} again, attempt {}",
+        claimRetryTask.claimIds().size(),
+        submissionId,
+        claimRetryTask.attempt());
+
+    SubmissionResponse submission = dataClaimsRestClient.getSubmission(submissionId).getBody();
+    Assert.notNull(submission, "Submission not retrievable: " + submissionId.toString());
+    if (ALREADY_VALIDATED_STATUSES.contains(submission.getStatus())) {
+      log.info(
+          "Submission {} has already been validated with status {}, skipping retry",
+          submissionId,
+          submission.getStatus());
+      return;
+    }
+
+    SubmissionValidationContext context = new SubmissionValidationContext();
+    context.addClaimReports(
+        claimRetryTask.claimIds().stream().map(ClaimValidationReport::new).toList());
+    claimValidationService.validateAndUpdateClaims(
+        submission, context, claimRetryTask.claimIds());
+
+    List<String> claimIdsToRetry = context.getClaimIdsToRetry();
+    eventServiceMetricService.recordClaimRetries(
+        "recovered", claimRetryTask.claimIds().size() - claimIdsToRetry.size());
+    if (claimRetryScheduler.schedule(
+        submissionId, claimIdsToRetry, claimRetryTask.attempt() + 1)) {
+      return;
+    }
+
+    // The claims saved by earlier attempts decide the status, so the submission is fetched again
+    // and any invalid claims fail it.
+    SubmissionResponse updated = dataClaimsRestClient.getSubmission(submissionId).getBody();
+    Assert.notNull(updated, "Submission not retrievable: " + submissionId.toString());
+    completeValidation(submissionId, updated, initialiseValidationContext(updated));
+  }
+
+  private SubmissionValidationContext validateSubmission(
+      UUID submissionId, SubmissionResponse submission) {
+    eventServiceMetricService.startSubmissionValidationTimer(submissionId);
     SubmissionValidationContext context = initialiseValidationContext(submission);
 
     // Currently validating:
@@ -60,12 +225,33 @@ public class SubmissionValidationService {
 
     // Only validate claims if no submission level validation errors have been recorded.
     if (!context.hasSubmissionLevelErrors()) {
+      if (distributedClaimValidationCoordinator.shouldSplit(submission)) {
+        // The claims are validated as separate tasks, and the last task to finish completes the
+        // validation of the submission.
+        distributedClaimValidationCoordinator.split(submission);
+        eventServiceMetricService.stopSubmissionValidationTimer(submissionId);
+        return context;
+      }
       claimValidationService.validateAndUpdateClaims(submission, context);
+      if (claimRetryScheduler.schedule(submissionId, context.getClaimIdsToRetry(), 1)) {
+        // The claims flagged for retry are validated again on their own, and the last retry sets
+        // the status of the submission.
+        eventServiceMetricService.stopSubmissionValidationTimer(submissionId);
+        return context;
+      }
     } else {
       eventServiceMetricService.incrementTotalSubmissionsValidatedWithSubmissionErrors();
     }
 
-    // Update submission and bulk submission status after completion
+    // Stop submission validation timer
+    eventServiceMetricService.stopSubmissionValidationTimer(submissionId);
+    completeValidation(submissionId, submission, context);
+    return context;
+  }
+
+  /** Updates the submission and bulk submission status once validation has completed. */
+  private void completeValidation(
+      UUID submissionId, SubmissionResponse submission, SubmissionValidationContext context) {
     var bulkSubmissionId = submission.getBulkSubmissionId();
     SubmissionPatch submissionPatch = new SubmissionPatch().submissionId(submissionId);
     BulkSubmissionPatch bulkSubmissionPatch =
@@ -100,13 +286,10 @@ public class SubmissionValidationService {
     context
         .getSubmissionValidationErrors()
         .forEach(x -> eventServiceMetricService.recordValidationMessage(x, false));
-    // Stop submission validation timer
-    eventServiceMetricService.stopSubmissionValidationTimer(submissionId);
 
     dataClaimsRestClient.updateSubmission(submissionId.toString(), submissionPatch);
     dataClaimsRestClient.updateBulkSubmission(
         String.valueOf(bulkSubmissionId), bulkSubmissionPatch);
-    return context;
   }
 
   private SubmissionValidationContext initialiseValidationContext(SubmissionResponse submission) {
@@ -114,6 +297,13 @@ public class SubmissionValidationService {
     if (submission.getClaims() == null) {
       return submissionValidationContext;
     }
+    // Claims already marked invalid by an interrupted earlier attempt are not validated again, but
+    // must still fail the submission.
+    submission.getClaims().stream()
+        .filter(claim -> ClaimStatus.INVALID.equals(claim.getStatus()))
+        .map(SubmissionClaim::getClaimId)
+        .map(UUID::toString)
+        .forEach(submissionValidationContext::addPreviouslyInvalidClaim);
     List<ClaimValidationReport> claimReports =
         submission.getClaims().stream()
             .filter(claim -> ClaimStatus.READY_TO_PROCESS.equals(claim.getStatus()))
@@ -0,0 +1,11 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service.model;
+
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.GetBulkSubmission200Response;
+
+/**
+ * A bulk submission read without its outcomes, along with the number of outcomes it holds.
+ *
+ * @param bulkSubmission the bulk submission, with an empty list of outcomes
+ * @param outcomeCount the number of outcomes in the bulk submission
+ */
+public record BulkSubmissionHeader(GetBulkSubmission200Response bulkSubmission, int outcomeCount) {}
@@ -0,0 +1,26 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * A range of pages of claims from a single submission, validated as a separate task so that the
+ * claims of a large submission can be validated across several workers.
+ *
+ * @param submissionId the ID of the submission the claims belong to
+ * @param firstPage the first page of claims to validate
+ * @param lastPage the last page of claims to validate, inclusive
+ */
+public record ClaimPageRange(UUID submissionId, int firstPage, int lastPage) {
+
+  /**
+   * Returns an ID for the task which is the same each time the range is delivered, so that
+   * redeliveries of the task can be recognised.
+   *
+   * @return the ID of the task
+   */
+  public UUID taskId() {
+    return UUID.nameUUIDFromBytes(
+        "%s:%d-%d".formatted(submissionId, firstPage, lastPage).getBytes(StandardCharsets.UTF_8));
+  }
+}
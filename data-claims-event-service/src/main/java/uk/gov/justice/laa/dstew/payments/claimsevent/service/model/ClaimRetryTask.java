@@ -0,0 +1,27 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Claims from a single submission which were flagged for retry after a transient error, validated
+ * again as a separate task once a delay has passed.
+ *
+ * @param submissionId the ID of the submission the claims belong to
+ * @param claimIds the IDs of the claims to validate again
+ * @param attempt the number of the retry, starting at one
+ */
+public record ClaimRetryTask(UUID submissionId, List<String> claimIds, int attempt) {
+
+  /**
+   * Returns an ID for the task which is the same each time the task is delivered, so that
+   * redeliveries of the task can be recognised.
+   *
+   * @return the ID of the task
+   */
+  public UUID taskId() {
+    return UUID.nameUUIDFromBytes(
+        "%s:retry-%d".formatted(submissionId, attempt).getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,13 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.UUID;
+
+/**
+ * A claim created by a single request adding several claims to a submission.
+ *
+ * @param id the ID of the created claim
+ * @param lineNumber the line number of the claim which was created
+ */
+public record CreatedClaim(
+    @JsonProperty("id") UUID id, @JsonProperty("line_number") Integer lineNumber) {}
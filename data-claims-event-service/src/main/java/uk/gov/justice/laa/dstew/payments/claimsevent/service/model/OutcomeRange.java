@@ -0,0 +1,41 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.AreaOfLaw;
+
+/**
+ * A range of outcomes from a single bulk submission, parsed into claims as a separate task so that
+ * the outcomes of a large bulk submission can be parsed across several workers.
+ *
+ * @param bulkSubmissionId the ID of the bulk submission the outcomes belong to
+ * @param submissionId the ID of the submission the claims are created for
+ * @param createdSubmissionId the ID returned by the Data Claims API when the submission was
+ *     created
+ * @param officeAccountNumber the office account number of the submission
+ * @param areaOfLaw the area of law of the submission
+ * @param fromIndex the index of the first outcome to parse
+ * @param toIndex the index after the last outcome to parse
+ * @param totalOutcomes the total number of outcomes in the bulk submission
+ */
+public record OutcomeRange(
+    UUID bulkSubmissionId,
+    UUID submissionId,
+    String createdSubmissionId,
+    String officeAccountNumber,
+    AreaOfLaw areaOfLaw,
+    int fromIndex,
+    int toIndex,
+    int totalOutcomes) {
+
+  /**
+   * Returns an ID for the task which is the same each time the range is delivered, so that
+   * redeliveries of the task can be recognised.
+   *
+   * @return the ID of the task
+   */
+  public UUID taskId() {
+    return UUID.nameUUIDFromBytes(
+        "%s:%d-%d".formatted(submissionId, fromIndex, toIndex).getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,16 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service.model;
+
+import java.util.List;
+import java.util.Map;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.ClaimResponse;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.ValidationMessagePatch;
+
+/**
+ * The claims of a submission as they were created when its bulk submission was parsed, along with
+ * the messages found by the validators which could run on them straight away.
+ *
+ * @param claims the claims, in the order they were created
+ * @param messages the validation messages found for each claim, by claim ID
+ */
+public record ParsedClaims(
+    List<ClaimResponse> claims, Map<String, List<ValidationMessagePatch>> messages) {}
@@ -0,0 +1,16 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/** Outcome of parsing a single submission belonging to a bulk submission message. */
+@Getter
+@RequiredArgsConstructor
+public enum SubmissionParsingOutcome {
+  SUCCEEDED("succeeded"),
+  FAILED("failed"),
+  /** The submission was not parsed because another submission in the message had failed. */
+  SKIPPED("skipped");
+
+  private final String label;
+}
@@ -0,0 +1,46 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/** Size class of a submission, based on the number of claims it contains. */
+@Getter
+@RequiredArgsConstructor
+public enum SubmissionSizeClass {
+  /** A nil submission, or one without any claims. */
+  NIL("nil"),
+  /** A submission with no more than the configured number of claims for the fast lane. */
+  SMALL("small"),
+  /** Any other submission, including those whose number of claims is not known. */
+  LARGE("large");
+
+  private final String label;
+
+  /**
+   * Classifies a submission by its size.
+   *
+   * @param isNilSubmission whether the submission is a nil submission
+   * @param numberOfClaims the number of claims in the submission, if known
+   * @param smallMaxClaims the largest number of claims a small submission can contain
+   * @return the size class of the submission
+   */
+  public static SubmissionSizeClass of(
+      Boolean isNilSubmission, Integer numberOfClaims, int smallMaxClaims) {
+    if (Boolean.TRUE.equals(isNilSubmission) || Integer.valueOf(0).equals(numberOfClaims)) {
+      return NIL;
+    }
+    if (numberOfClaims != null && numberOfClaims <= smallMaxClaims) {
+      return SMALL;
+    }
+    return LARGE;
+  }
+
+  /**
+   * Returns whether submissions of this size class may use the fast lane.
+   *
+   * @return {@code true} for nil and small submissions
+   */
+  public boolean isFastLane() {
+    return this != LARGE;
+  }
+}
@@ -0,0 +1,43 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Utility class deriving the idempotency keys sent with requests which create resources in the
+ * Data Claims API, so that a request sent again is recognised rather than creating a duplicate.
+ */
+public final class IdempotencyKeyUtil {
+
+  private IdempotencyKeyUtil() {}
+
+  /**
+   * Derives the idempotency key of a claim from its submission and line number. The same claim is
+   * always given the same key, however many times, and by whichever instance, it is sent.
+   *
+   * @param submissionId the ID of the submission the claim belongs to
+   * @param lineNumber the line number of the claim in its bulk submission
+   * @return the idempotency key of the claim
+   */
+  public static String claimKey(String submissionId, Integer lineNumber) {
+    return UUID.nameUUIDFromBytes(
+            ("claim:" + submissionId + ":" + lineNumber).getBytes(StandardCharsets.UTF_8))
+        .toString();
+  }
+
+  /**
+   * Derives the idempotency key of a batch of claims from their submission and line numbers. The
+   * same claims are always given the same key, whichever batches the other claims of the
+   * submission are sent in.
+   *
+   * @param submissionId the ID of the submission the claims belong to
+   * @param lineNumbers the line numbers of the claims, in the order they are sent
+   * @return the idempotency key of the batch
+   */
+  public static String claimBatchKey(String submissionId, List<Integer> lineNumbers) {
+    return UUID.nameUUIDFromBytes(
+            ("claims:" + submissionId + ":" + lineNumbers).getBytes(StandardCharsets.UTF_8))
+        .toString();
+  }
+}
@@ -4,9 +4,11 @@ import static uk.gov.justice.laa.dstew.payments.claimsevent.validation.ClaimVali
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
@@ -25,6 +27,7 @@ public class SubmissionValidationContext {
   private final List<ClaimValidationReport> claimReports = new ArrayList<>();
   private final List<ValidationMessagePatch> submissionValidationErrors = new ArrayList<>();
   private final Map<String, String> authorisedCategoryOfLawCodes = new HashMap<>();
+  private final Set<String> previouslyInvalidClaimIds = new HashSet<>();
 
   /**
    * Adds a list of submission-level validation errors.
@@ -145,6 +148,16 @@ public class SubmissionValidationContext {
     claimReports.addAll(reports);
   }
 
+  /**
+   * Records a claim which an earlier validation attempt has already marked as invalid. The claim
+   * is not validated again, but still counts as a claim-level error for the submission.
+   *
+   * @param claimId the ID of the claim
+   */
+  public void addPreviouslyInvalidClaim(String claimId) {
+    previouslyInvalidClaimIds.add(claimId);
+  }
+
   /**
    * Retrieves the validation report for a specific claim.
    *
@@ -174,6 +187,29 @@ public class SubmissionValidationContext {
     return getClaimReport(claimId).map(ClaimValidationReport::isFlaggedForRetry).orElse(false);
   }
 
+  /**
+   * Checks if any claims are flagged for retry without errors, and so have been left ready to
+   * process rather than being updated.
+   *
+   * @return true if any claims are waiting to be retried, false otherwise
+   */
+  public boolean hasClaimsToRetry() {
+    return !getClaimIdsToRetry().isEmpty();
+  }
+
+  /**
+   * Returns the IDs of the claims flagged for retry without errors, which have been left ready to
+   * process rather than being updated.
+   *
+   * @return the IDs of the claims waiting to be retried
+   */
+  public List<String> getClaimIdsToRetry() {
+    return claimReports.stream()
+        .filter(report -> report.isFlaggedForRetry() && !report.hasErrors())
+        .map(ClaimValidationReport::getClaimId)
+        .toList();
+  }
+
   /**
    * Checks if a specific claim is flagged for retry.
    *
@@ -190,8 +226,7 @@ public class SubmissionValidationContext {
    * @return true if there are any errors, false otherwise
    */
   public boolean hasErrors() {
-    return !submissionValidationErrors.isEmpty()
-        || claimReports.stream().anyMatch(ClaimValidationReport::hasErrors);
+    return !submissionValidationErrors.isEmpty() || hasClaimLevelErrors();
   }
 
   /**
@@ -209,7 +244,8 @@ public class SubmissionValidationContext {
    * @return true if there are any claim-level errors, false otherwise
    */
   public boolean hasClaimLevelErrors() {
-    return claimReports.stream().anyMatch(ClaimValidationReport::hasErrors);
+    return !previouslyInvalidClaimIds.isEmpty()
+        || claimReports.stream().anyMatch(ClaimValidationReport::hasErrors);
   }
 
   /**
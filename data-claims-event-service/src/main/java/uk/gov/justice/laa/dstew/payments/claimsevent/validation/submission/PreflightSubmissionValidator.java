@@ -0,0 +1,10 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.validation.submission;
+
+/**
+ * A submission validator which only depends on the fields of a submission known before it is
+ * created. As well as validating the submission once its claims have been created, it is run on the
+ * submission mapped from a bulk submission before any of its claims are created.
+ *
+ * @see SubmissionValidator
+ */
+public interface PreflightSubmissionValidator extends SubmissionValidator {}
@@ -18,7 +18,7 @@ import uk.gov.justice.laa.dstew.payments.claimsevent.validation.SubmissionValida
 @Component
 @Slf4j
 @RequiredArgsConstructor
-public class SubmissionOfficeAreaOfLawAndPeriodValidator implements SubmissionValidator {
+public class SubmissionOfficeAreaOfLawAndPeriodValidator implements PreflightSubmissionValidator {
 
   /**
    * Statuses that leave a submission "live" for duplicate-detection purposes. A submission counts
@@ -20,7 +20,7 @@ import uk.gov.justice.laa.dstew.payments.claimsevent.validation.SubmissionValida
  * @author Jamie Briggs
  */
 @Component
-public class SubmissionPeriodValidator implements SubmissionValidator {
+public class SubmissionPeriodValidator implements PreflightSubmissionValidator {
 
   private final DateUtil dateUtil;
   private final String submissionValidationMinimumPeriod;
@@ -0,0 +1,152 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.codec.HttpMessageWriter;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.http.client.reactive.MockClientHttpRequest;
+import org.springframework.web.reactive.function.BodyInserter;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import reactor.core.publisher.Mono;
+import uk.gov.justice.laa.dstew.payments.claimsevent.metrics.EventServiceMetricService;
+
+@ExtendWith(MockitoExtension.class)
+class PayloadCompressionFilterTest {
+
+  private static final String CLIENT = "data_claims_api";
+  private static final URI CLAIM = URI.create("/submissions/1/claims/1");
+  private static final String LARGE_BODY = "validation message ".repeat(1000);
+
+  @Mock private EventServiceMetricService eventServiceMetricService;
+
+  private PayloadCompressionFilter filter;
+  private MockClientHttpRequest sent;
+
+  @BeforeEach
+  void beforeEach() {
+    filter =
+        new PayloadCompressionFilter(
+            CLIENT, eventServiceMetricService, new PayloadCompressionProperties(true, true, 1024));
+  }
+
+  @Test
+  @DisplayName("Should gzip a request body at least as large as the threshold")
+  void shouldCompressLargeRequestBodies() throws IOException {
+    // When
+    filter.filter(request(LARGE_BODY), exchange()).block();
+
+    // Then
+    assertThat(sent.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+    byte[] compressed = bytes(sent);
+    assertThat(compressed.length).isLessThan(LARGE_BODY.length());
+    try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+      assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(LARGE_BODY);
+    }
+    verify(eventServiceMetricService)
+        .recordDownstreamBytes(CLIENT, "sent", "before_compression", LARGE_BODY.length());
+    verify(eventServiceMetricService)
+        .recordDownstreamBytes(CLIENT, "sent", "after_compression", compressed.length);
+  }
+
+  @Test
+  @DisplayName("Should send a request body smaller than the threshold as it is")
+  void shouldNotCompressSmallRequestBodies() {
+    // When
+    filter.filter(request("{}"), exchange()).block();
+
+    // Then
+    assertThat(sent.getHeaders().containsHeader(HttpHeaders.CONTENT_ENCODING)).isFalse();
+    assertThat(new String(bytes(sent), StandardCharsets.UTF_8)).isEqualTo("{}");
+    verify(eventServiceMetricService).recordDownstreamBytes(CLIENT, "sent", "after_compression", 2);
+  }
+
+  @Test
+  @DisplayName("Should record the size of response bodies as they are read")
+  void shouldRecordResponseBytes() {
+    // When
+    String body =
+        filter
+            .filter(request("{}"), exchange())
+            .flatMap(response -> response.bodyToMono(String.class))
+            .block();
+
+    // Then
+    assertThat(body).isEqualTo("accepted");
+    verify(eventServiceMetricService)
+        .recordDownstreamBytes(eq(CLIENT), eq("received"), eq("before_compression"), anyLong());
+  }
+
+  private static ClientRequest request(String body) {
+    return ClientRequest.create(HttpMethod.PATCH, CLAIM)
+        .body(BodyInserters.fromValue(body))
+        .build();
+  }
+
+  /** Writes the request as the HTTP client would, then answers it. */
+  private ExchangeFunction exchange() {
+    return request -> {
+      sent = new MockClientHttpRequest(request.method(), request.url());
+      return request
+          .body()
+          .insert(sent, context())
+          .then(
+              Mono.fromSupplier(
+                  () -> ClientResponse.create(HttpStatus.OK).body("accepted").build()));
+    };
+  }
+
+  private static BodyInserter.Context context() {
+    List<HttpMessageWriter<?>> writers = ExchangeStrategies.withDefaults().messageWriters();
+    return new BodyInserter.Context() {
+      @Override
+      public List<HttpMessageWriter<?>> messageWriters() {
+        return writers;
+      }
+
+      @Override
+      public Optional<ServerHttpRequest> serverRequest() {
+        return Optional.empty();
+      }
+
+      @Override
+      public Map<String, Object> hints() {
+        return Map.of();
+      }
+    };
+  }
+
+  private static byte[] bytes(MockClientHttpRequest request) {
+    DataBuffer buffer = DataBufferUtils.join(request.getBody()).block();
+    byte[] bytes = new byte[buffer.readableByteCount()];
+    buffer.read(bytes);
+    DataBufferUtils.release(buffer);
+    return bytes;
+  }
+}
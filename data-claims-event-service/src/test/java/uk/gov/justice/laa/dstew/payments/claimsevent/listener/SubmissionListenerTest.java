@@ -16,21 +16,30 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.beans.factory.ObjectProvider;
 import software.amazon.awssdk.services.sqs.model.Message;
 import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.AreaOfLaw;
+import uk.gov.justice.laa.dstew.payments.claimsevent.exception.LaneFullException;
 import uk.gov.justice.laa.dstew.payments.claimsevent.exception.SubmissionEventProcessingException;
 import uk.gov.justice.laa.dstew.payments.claimsevent.metrics.EventServiceMetricService;
 import uk.gov.justice.laa.dstew.payments.claimsevent.model.BulkSubmissionMessage;
 import uk.gov.justice.laa.dstew.payments.claimsevent.model.SubmissionEventType;
 import uk.gov.justice.laa.dstew.payments.claimsevent.model.SubmissionValidationMessage;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.AdaptiveConcurrencyLimiter;
 import uk.gov.justice.laa.dstew.payments.claimsevent.service.BulkParsingService;
-import uk.gov.justice.laa.dstew.payments.claimsevent.service.SqsVisibilityExtender;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.ParallelSubmissionParsingService;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.SqsVisibilityHeartbeat;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.SubmissionEventIdempotencyRegistry;
 import uk.gov.justice.laa.dstew.payments.claimsevent.service.SubmissionValidationService;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.model.ClaimPageRange;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.model.ClaimRetryTask;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.model.OutcomeRange;
 
 @ExtendWith(MockitoExtension.class)
 public class SubmissionListenerTest {
 
+  @Mock ParallelSubmissionParsingService parallelSubmissionParsingService;
+
   @Mock BulkParsingService bulkParsingService;
 
   @Mock SubmissionValidationService submissionValidationService;
@@ -39,8 +48,11 @@ public class SubmissionListenerTest {
 
   @Mock ObjectMapper objectMapper;
 
-  @Mock SqsVisibilityExtender mockSqsVisibilityExtender;
-  @Mock ObjectProvider<SqsVisibilityExtender> mockVisibilityExtenderProvider;
+  @Mock SqsVisibilityHeartbeat mockSqsVisibilityHeartbeat;
+
+  @Mock AdaptiveConcurrencyLimiter mockAdaptiveConcurrencyLimiter;
+
+  @Mock SubmissionEventIdempotencyRegistry mockSubmissionEventIdempotencyRegistry;
 
   @InjectMocks SubmissionListener submissionListener;
 
@@ -55,6 +67,7 @@ public class SubmissionListenerTest {
       Message message =
           Message.builder()
               .body("body")
+              .messageId("messageId")
               .receiptHandle("receiptHandle")
               .messageAttributes(
                   Map.of(
@@ -73,19 +86,52 @@ public class SubmissionListenerTest {
 
       when(objectMapper.readValue("body", BulkSubmissionMessage.class))
           .thenReturn(bulkSubmissionMessage);
+      when(mockSubmissionEventIdempotencyRegistry.tryBegin(
+              SubmissionEventType.PARSE_BULK_SUBMISSION, bulkSubmissionId, "messageId"))
+          .thenReturn(true);
 
-      when(mockVisibilityExtenderProvider.getObject()).thenReturn(mockSqsVisibilityExtender);
-      doNothing().when(mockSqsVisibilityExtender).start("receiptHandle");
       // When
       submissionListener.receiveSubmissionEvent(message);
 
       // Then
-      verify(bulkParsingService).parseData(bulkSubmissionId, submissionId1);
-      verify(bulkParsingService).parseData(bulkSubmissionId, submissionId2);
-      verifyNoMoreInteractions(bulkParsingService);
+      verify(mockSubmissionEventIdempotencyRegistry)
+          .complete(SubmissionEventType.PARSE_BULK_SUBMISSION, bulkSubmissionId);
+      verify(parallelSubmissionParsingService)
+          .parseSubmissions(bulkSubmissionId, List.of(submissionId1, submissionId2));
+      verifyNoMoreInteractions(parallelSubmissionParsingService);
 
       verifyNoInteractions(submissionValidationService);
-      verify(mockSqsVisibilityExtender).start("receiptHandle");
+      verify(mockSqsVisibilityHeartbeat).register("receiptHandle");
+      verify(mockAdaptiveConcurrencyLimiter).acquire(SubmissionEventType.PARSE_BULK_SUBMISSION);
+    }
+
+    @Test
+    @DisplayName("Returns messages turned away by a full lane to the queue")
+    void returnsMessageTurnedAwayByFullLane() {
+      // Given
+      Message message =
+          Message.builder()
+              .body("body")
+              .messageId("messageId")
+              .receiptHandle("receiptHandle")
+              .messageAttributes(
+                  Map.of(
+                      "SubmissionEventType",
+                      MessageAttributeValue.builder()
+                          .stringValue(SubmissionEventType.VALIDATE_SUBMISSION.toString())
+                          .build()))
+              .build();
+      when(mockAdaptiveConcurrencyLimiter.acquire(SubmissionEventType.VALIDATE_SUBMISSION))
+          .thenThrow(new LaneFullException("Lane for VALIDATE_SUBMISSION is full"));
+
+      // When
+      ThrowingCallable result = () -> submissionListener.receiveSubmissionEvent(message);
+
+      // Then
+      assertThatThrownBy(result).isInstanceOf(LaneFullException.class);
+      verify(mockSqsVisibilityHeartbeat)
+          .returnToQueue("receiptHandle", SubmissionListener.LANE_FULL_REDELIVERY_DELAY_SECONDS);
+      verifyNoInteractions(submissionValidationService, mockSubmissionEventIdempotencyRegistry);
     }
 
     @Test
@@ -95,6 +141,7 @@ public class SubmissionListenerTest {
       Message message =
           Message.builder()
               .body("body")
+              .messageId("messageId")
               .receiptHandle("receiptHandle")
               .messageAttributes(
                   Map.of(
@@ -111,9 +158,10 @@ public class SubmissionListenerTest {
 
       when(objectMapper.readValue("body", SubmissionValidationMessage.class))
           .thenReturn(submissionValidationMessage);
+      when(mockSubmissionEventIdempotencyRegistry.tryBegin(
+              SubmissionEventType.VALIDATE_SUBMISSION, submissionId, "messageId"))
+          .thenReturn(true);
 
-      when(mockVisibilityExtenderProvider.getObject()).thenReturn(mockSqsVisibilityExtender);
-      doNothing().when(mockSqsVisibilityExtender).start("receiptHandle");
 
       // When
       submissionListener.receiveSubmissionEvent(message);
@@ -121,9 +169,235 @@ public class SubmissionListenerTest {
       // Then
       verify(submissionValidationService).validateSubmission(submissionId);
       verifyNoMoreInteractions(submissionValidationService);
+      verify(mockSubmissionEventIdempotencyRegistry)
+          .complete(SubmissionEventType.VALIDATE_SUBMISSION, submissionId);
+
+      verifyNoInteractions(parallelSubmissionParsingService);
+      verify(mockSqsVisibilityHeartbeat).register("receiptHandle");
+      verify(mockAdaptiveConcurrencyLimiter).acquire(SubmissionEventType.VALIDATE_SUBMISSION);
+    }
+
+    @Test
+    @DisplayName("Handles claim page range validation events")
+    void handlesClaimPageRangeValidationEvent() throws JsonProcessingException {
+      // Given
+      Message message =
+          Message.builder()
+              .body("body")
+              .messageId("messageId")
+              .receiptHandle("receiptHandle")
+              .messageAttributes(
+                  Map.of(
+                      "SubmissionEventType",
+                      MessageAttributeValue.builder()
+                          .stringValue(SubmissionEventType.VALIDATE_SUBMISSION.toString())
+                          .build(),
+                      "ValidationTask",
+                      MessageAttributeValue.builder().stringValue("CLAIM_PAGE_RANGE").build()))
+              .build();
+
+      ClaimPageRange claimPageRange = new ClaimPageRange(new UUID(0, 0), 10, 19);
+
+      when(objectMapper.readValue("body", ClaimPageRange.class)).thenReturn(claimPageRange);
+      when(mockSubmissionEventIdempotencyRegistry.tryBegin(
+              SubmissionEventType.VALIDATE_SUBMISSION, claimPageRange.taskId(), "messageId"))
+          .thenReturn(true);
+
+      // When
+      submissionListener.receiveSubmissionEvent(message);
+
+      // Then
+      verify(submissionValidationService).validateClaimPageRange(claimPageRange);
+      verifyNoMoreInteractions(submissionValidationService);
+      verify(mockSubmissionEventIdempotencyRegistry)
+          .complete(SubmissionEventType.VALIDATE_SUBMISSION, claimPageRange.taskId());
+    }
+
+    @Test
+    @DisplayName("Handles claim retry validation events")
+    void handlesClaimRetryValidationEvent() throws JsonProcessingException {
+      // Given
+      Message message =
+          Message.builder()
+              .body("body")
+              .messageId("messageId")
+              .receiptHandle("receiptHandle")
+              .messageAttributes(
+                  Map.of(
+                      "SubmissionEventType",
+                      MessageAttributeValue.builder()
+                          .stringValue(SubmissionEventType.VALIDATE_SUBMISSION.toString())
+                          .build(),
+                      "ValidationTask",
+                      MessageAttributeValue.builder().stringValue("CLAIM_RETRY").build()))
+              .build();
+
+      ClaimRetryTask claimRetryTask =
+          new ClaimRetryTask(new UUID(0, 0), List.of(new UUID(1, 1).toString()), 2);
+
+      when(objectMapper.readValue("body", ClaimRetryTask.class)).thenReturn(claimRetryTask);
+      when(mockSubmissionEventIdempotencyRegistry.tryBegin(
+              SubmissionEventType.VALIDATE_SUBMISSION, claimRetryTask.taskId(), "messageId"))
+          .thenReturn(true);
+
+      // When
+      submissionListener.receiveSubmissionEvent(message);
+
+      // Then
+      verify(submissionValidationService).revalidateFlaggedClaims(claimRetryTask);
+      verifyNoMoreInteractions(submissionValidationService);
+      verify(mockSubmissionEventIdempotencyRegistry)
+          .complete(SubmissionEventType.VALIDATE_SUBMISSION, claimRetryTask.taskId());
+    }
+
+    @Test
+    @DisplayName("Handles outcome range parsing events")
+    void handlesOutcomeRangeParsingEvent() throws JsonProcessingException {
+      // Given
+      Message message =
+          Message.builder()
+              .body("body")
+              .messageId("messageId")
+              .receiptHandle("receiptHandle")
+              .messageAttributes(
+                  Map.of(
+                      "SubmissionEventType",
+                      MessageAttributeValue.builder()
+                          .stringValue(SubmissionEventType.PARSE_BULK_SUBMISSION.toString())
+                          .build(),
+                      "ParsingTask",
+                      MessageAttributeValue.builder().stringValue("OUTCOME_RANGE").build()))
+              .build();
+
+      OutcomeRange outcomeRange =
+          new OutcomeRange(
+              new UUID(0, 0),
+              new UUID(0, 1),
+              "created-id",
+              "office1",
+              AreaOfLaw.LEGAL_HELP,
+              1000,
+              2000,
+              5000);
+
+      when(objectMapper.readValue("body", OutcomeRange.class)).thenReturn(outcomeRange);
+      when(mockSubmissionEventIdempotencyRegistry.tryBegin(
+              SubmissionEventType.PARSE_BULK_SUBMISSION, outcomeRange.taskId(), "messageId"))
+          .thenReturn(true);
+
+      // When
+      submissionListener.receiveSubmissionEvent(message);
 
-      verifyNoInteractions(bulkParsingService);
-      verify(mockSqsVisibilityExtender).start("receiptHandle");
+      // Then
+      verify(bulkParsingService).parseOutcomeRange(outcomeRange);
+      verifyNoInteractions(parallelSubmissionParsingService);
+      verify(mockSubmissionEventIdempotencyRegistry)
+          .complete(SubmissionEventType.PARSE_BULK_SUBMISSION, outcomeRange.taskId());
+    }
+
+    @Test
+    @DisplayName("Suppresses redelivered submission validation events")
+    void suppressesRedeliveredSubmissionValidationEvent() throws JsonProcessingException {
+      // Given
+      Message message =
+          Message.builder()
+              .body("body")
+              .messageId("messageId")
+              .receiptHandle("receiptHandle")
+              .messageAttributes(
+                  Map.of(
+                      "SubmissionEventType",
+                      MessageAttributeValue.builder()
+                          .stringValue(SubmissionEventType.VALIDATE_SUBMISSION.toString())
+                          .build()))
+              .build();
+
+      UUID submissionId = new UUID(0, 0);
+
+      when(objectMapper.readValue("body", SubmissionValidationMessage.class))
+          .thenReturn(new SubmissionValidationMessage(submissionId));
+      when(mockSubmissionEventIdempotencyRegistry.tryBegin(
+              SubmissionEventType.VALIDATE_SUBMISSION, submissionId, "messageId"))
+          .thenReturn(false);
+
+      // When
+      submissionListener.receiveSubmissionEvent(message);
+
+      // Then
+      verifyNoInteractions(submissionValidationService);
+      verify(mockSubmissionEventIdempotencyRegistry, never()).complete(any(), any());
+    }
+
+    @Test
+    @DisplayName("Leaves events already in progress on the queue")
+    void leavesEventsInProgressOnQueue() throws JsonProcessingException {
+      // Given
+      Message message =
+          Message.builder()
+              .body("body")
+              .messageId("messageId")
+              .receiptHandle("receiptHandle")
+              .messageAttributes(
+                  Map.of(
+                      "SubmissionEventType",
+                      MessageAttributeValue.builder()
+                          .stringValue(SubmissionEventType.VALIDATE_SUBMISSION.toString())
+                          .build()))
+              .build();
+
+      UUID submissionId = new UUID(0, 0);
+
+      when(objectMapper.readValue("body", SubmissionValidationMessage.class))
+          .thenReturn(new SubmissionValidationMessage(submissionId));
+      when(mockSubmissionEventIdempotencyRegistry.tryBegin(
+              SubmissionEventType.VALIDATE_SUBMISSION, submissionId, "messageId"))
+          .thenThrow(new SubmissionEventProcessingException("in progress"));
+
+      // When
+      ThrowingCallable result = () -> submissionListener.receiveSubmissionEvent(message);
+
+      // Then
+      assertThatThrownBy(result).isInstanceOf(SubmissionEventProcessingException.class);
+      verifyNoInteractions(submissionValidationService);
+      verify(mockSubmissionEventIdempotencyRegistry, never()).abandon(any(), any());
+      verify(mockSubmissionEventIdempotencyRegistry, never()).complete(any(), any());
+    }
+
+    @Test
+    @DisplayName("Forgets submission validation events which fail")
+    void forgetsFailedSubmissionValidationEvent() throws JsonProcessingException {
+      // Given
+      Message message =
+          Message.builder()
+              .body("body")
+              .messageId("messageId")
+              .receiptHandle("receiptHandle")
+              .messageAttributes(
+                  Map.of(
+                      "SubmissionEventType",
+                      MessageAttributeValue.builder()
+                          .stringValue(SubmissionEventType.VALIDATE_SUBMISSION.toString())
+                          .build()))
+              .build();
+
+      UUID submissionId = new UUID(0, 0);
+
+      when(objectMapper.readValue("body", SubmissionValidationMessage.class))
+          .thenReturn(new SubmissionValidationMessage(submissionId));
+      when(mockSubmissionEventIdempotencyRegistry.tryBegin(
+              SubmissionEventType.VALIDATE_SUBMISSION, submissionId, "messageId"))
+          .thenReturn(true);
+      when(submissionValidationService.validateSubmission(submissionId))
+          .thenThrow(new IllegalArgumentException("failed"));
+
+      // When
+      ThrowingCallable result = () -> submissionListener.receiveSubmissionEvent(message);
+
+      // Then
+      assertThatThrownBy(result).isInstanceOf(IllegalArgumentException.class);
+      verify(mockSubmissionEventIdempotencyRegistry)
+          .abandon(SubmissionEventType.VALIDATE_SUBMISSION, submissionId);
+      verify(mockSubmissionEventIdempotencyRegistry, never()).complete(any(), any());
     }
 
     @Test
@@ -131,8 +405,6 @@ public class SubmissionListenerTest {
     void handlesMissingSubmissionEventType() {
       // Given
       Message message = Message.builder().body("body").receiptHandle("receiptHandle").build();
-      when(mockVisibilityExtenderProvider.getObject()).thenReturn(mockSqsVisibilityExtender);
-      doNothing().when(mockSqsVisibilityExtender).start("receiptHandle");
 
       // When
       ThrowingCallable result = () -> submissionListener.receiveSubmissionEvent(message);
@@ -150,14 +422,13 @@ public class SubmissionListenerTest {
       Message message =
           Message.builder()
               .body("body")
+              .messageId("messageId")
               .receiptHandle("receiptHandle")
               .messageAttributes(
                   Map.of(
                       "SubmissionEventType",
                       MessageAttributeValue.builder().stringValue(null).build()))
               .build();
-      when(mockVisibilityExtenderProvider.getObject()).thenReturn(mockSqsVisibilityExtender);
-      doNothing().when(mockSqsVisibilityExtender).start("receiptHandle");
 
       // When
       ThrowingCallable result = () -> submissionListener.receiveSubmissionEvent(message);
@@ -175,14 +446,13 @@ public class SubmissionListenerTest {
       Message message =
           Message.builder()
               .body("body")
+              .messageId("messageId")
               .receiptHandle("receiptHandle")
               .messageAttributes(
                   Map.of(
                       "SubmissionEventType",
                       MessageAttributeValue.builder().stringValue("INVALID_EVENT_TYPE").build()))
               .build();
-      when(mockVisibilityExtenderProvider.getObject()).thenReturn(mockSqsVisibilityExtender);
-      doNothing().when(mockSqsVisibilityExtender).start("receiptHandle");
       // When
       ThrowingCallable result = () -> submissionListener.receiveSubmissionEvent(message);
 
@@ -0,0 +1,53 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("Bulk parsing profile test")
+class BulkParsingProfileTest {
+
+  @Test
+  @DisplayName("Should time work against the current profile only while it is active")
+  void shouldTimeWorkAgainstCurrentProfile() {
+    // Given
+    BulkParsingProfile profile = new BulkParsingProfile();
+
+    // When
+    try (BulkParsingProfile.Scope scope = profile.activate()) {
+      BulkParsingProfile.timeCurrent(BulkParsingProfile.MAP, () -> "mapped");
+    }
+    String result = BulkParsingProfile.timeCurrent(BulkParsingProfile.CLAIMS, () -> "created");
+
+    // Then
+    assertThat(result).isEqualTo("created");
+    assertThat(profile.getPhaseSeconds()).containsOnlyKeys(BulkParsingProfile.MAP);
+    assertThat(BulkParsingProfile.current()).isNull();
+  }
+
+  @Test
+  @DisplayName("Should carry the current profile onto tasks run on other threads")
+  void shouldPropagateProfileToTasks() throws Exception {
+    // Given
+    BulkParsingProfile profile = new BulkParsingProfile();
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    try {
+      // When
+      BulkParsingProfile seen;
+      try (BulkParsingProfile.Scope scope = profile.activate()) {
+        seen = executor.submit(BulkParsingProfile.propagate(BulkParsingProfile::current)).get();
+      }
+      BulkParsingProfile afterwards = executor.submit(BulkParsingProfile::current).get();
+
+      // Then
+      assertThat(seen).isSameAs(profile);
+      assertThat(afterwards).isNull();
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
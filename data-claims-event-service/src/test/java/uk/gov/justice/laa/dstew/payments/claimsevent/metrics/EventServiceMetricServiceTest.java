@@ -11,6 +11,8 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.justice.laa.dstew.payments.claimsevent.model.SubmissionEventType;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.model.SubmissionParsingOutcome;
 
 @ExtendWith(MockitoExtension.class)
 @DisplayName("Event service metric service test")
@@ -122,4 +124,116 @@ class EventServiceMetricServiceTest {
     // Then
     assertThat(eventServiceMetricService.getTotalInvalidSubmissionsCounter().get()).isEqualTo(1);
   }
+
+  @Test
+  @DisplayName("Should record submission parsing outcome")
+  void shouldRecordSubmissionParsingOutcome() {
+    // Given / When
+    eventServiceMetricService.recordSubmissionParsingOutcome(SubmissionParsingOutcome.FAILED);
+    // Then
+    assertThat(
+            eventServiceMetricService
+                .getSubmissionParsingOutcomeCounter()
+                .labelValues(SubmissionParsingOutcome.FAILED.getLabel())
+                .get())
+        .isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Should record downstream requests and sample their totals")
+  void shouldRecordDownstreamRequestsAndSampleTotals() {
+    // Given
+    eventServiceMetricService.recordDownstreamRequest("data_claims_api", 0.5, false);
+    eventServiceMetricService.recordDownstreamRequest("data_claims_api", 1.5, true);
+    eventServiceMetricService.recordDownstreamRequest("fee_scheme_platform_api", 1.0, false);
+
+    // When
+    DownstreamLoadSample sample = eventServiceMetricService.sampleDownstreamLoad();
+
+    // Then
+    assertThat(sample).isEqualTo(new DownstreamLoadSample(3, 3.0, 1));
+  }
+
+  @Test
+  @DisplayName("Should set listener concurrency limit gauge")
+  void shouldSetListenerConcurrencyLimit() {
+    // Given / When
+    eventServiceMetricService.setListenerConcurrencyLimit(7);
+    // Then
+    assertThat(eventServiceMetricService.getListenerConcurrencyLimitGauge().get()).isEqualTo(7);
+  }
+
+  @Test
+  @DisplayName("Should record office queue depth across all offices")
+  void shouldRecordOfficeQueueDepth() {
+    // Given / When
+    eventServiceMetricService.setOfficeQueueDepth(5, 2);
+    // Then
+    assertThat(eventServiceMetricService.getOfficeQueueDepthGauge().get()).isEqualTo(5);
+    assertThat(eventServiceMetricService.getOfficesWaitingGauge().get()).isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("Should record processing lane metrics")
+  void shouldRecordLaneMetrics() {
+    // Given / When
+    eventServiceMetricService.setLaneOccupancy(SubmissionEventType.VALIDATE_SUBMISSION, 3, 2);
+    // Then
+    assertThat(
+            eventServiceMetricService
+                .getLaneInFlightMessagesGauge()
+                .labelValues(SubmissionEventType.VALIDATE_SUBMISSION.name())
+                .get())
+        .isEqualTo(3);
+    assertThat(
+            eventServiceMetricService
+                .getLaneActiveMessagesGauge()
+                .labelValues(SubmissionEventType.VALIDATE_SUBMISSION.name())
+                .get())
+        .isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("Should record the profile of a bulk submission parse")
+  void shouldRecordBulkParsingProfile() {
+    // Given
+    BulkParsingProfile profile = new BulkParsingProfile();
+    profile.addNanos(BulkParsingProfile.CLAIMS, 2_000_000_000L);
+    profile.recordHttpCall();
+    profile.recordBytesSent(100);
+
+    // When
+    eventServiceMetricService.recordBulkParsingProfile(profile, null, 250);
+
+    // Then
+    assertThat(
+            eventServiceMetricService
+                .getBulkParsingPhaseHistogram()
+                .labelValues(BulkParsingProfile.CLAIMS, "unknown", "101-1000")
+                .getSum())
+        .isEqualTo(2.0);
+    assertThat(
+            eventServiceMetricService
+                .getBulkParsingHttpCallsHistogram()
+                .labelValues("unknown", "101-1000")
+                .getSum())
+        .isEqualTo(1.0);
+    assertThat(
+            eventServiceMetricService
+                .getBulkParsingBytesHistogram()
+                .labelValues("sent", "unknown", "101-1000")
+                .getSum())
+        .isEqualTo(100.0);
+  }
+
+  @Test
+  @DisplayName("Should bucket claim counts")
+  void shouldBucketClaimCounts() {
+    // Then
+    assertThat(EventServiceMetricService.claimCountBucket(0)).isEqualTo("0");
+    assertThat(EventServiceMetricService.claimCountBucket(100)).isEqualTo("1-100");
+    assertThat(EventServiceMetricService.claimCountBucket(101)).isEqualTo("101-1000");
+    assertThat(EventServiceMetricService.claimCountBucket(10_000)).isEqualTo("1001-10000");
+    assertThat(EventServiceMetricService.claimCountBucket(10_001)).isEqualTo("10001+");
+  }
 }
@@ -0,0 +1,337 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.justice.laa.dstew.payments.claimsevent.config.SubmissionEventLaneProperties;
+import uk.gov.justice.laa.dstew.payments.claimsevent.exception.LaneFullException;
+import uk.gov.justice.laa.dstew.payments.claimsevent.metrics.DownstreamLoadSample;
+import uk.gov.justice.laa.dstew.payments.claimsevent.metrics.EventServiceMetricService;
+import uk.gov.justice.laa.dstew.payments.claimsevent.model.SubmissionEventType;
+
+@ExtendWith(MockitoExtension.class)
+class AdaptiveConcurrencyLimiterTest {
+
+  private static final int MIN_LIMIT = 1;
+  private static final int MAX_LIMIT = 10;
+  private static final int LISTENER_THREADS = 10;
+
+  @Mock EventServiceMetricService eventServiceMetricService;
+
+  private AdaptiveConcurrencyLimiter limiter;
+
+  @BeforeEach
+  void beforeEach() {
+    limiter =
+        new AdaptiveConcurrencyLimiter(
+            eventServiceMetricService,
+            new SubmissionEventLaneProperties(Map.of()),
+            LISTENER_THREADS,
+            true,
+            MIN_LIMIT,
+            MAX_LIMIT,
+            2.0,
+            0.1,
+            0.5);
+  }
+
+  @Test
+  @DisplayName("Should start at the maximum limit")
+  void shouldStartAtMaximumLimit() {
+    // Then
+    assertThat(limiter.getLimit()).isEqualTo(MAX_LIMIT);
+    verify(eventServiceMetricService).setListenerConcurrencyLimit(MAX_LIMIT);
+  }
+
+  @Nested
+  @DisplayName("updateLimit")
+  class UpdateLimitTests {
+
+    @Test
+    @DisplayName("Should reduce the limit when the downstream error rate is too high")
+    void shouldReduceLimitWhenErrorRateTooHigh() {
+      // When
+      limiter.updateLimit(0.1, 0.5);
+
+      // Then
+      assertThat(limiter.getLimit()).isEqualTo(5);
+      verify(eventServiceMetricService).setListenerConcurrencyLimit(5);
+    }
+
+    @Test
+    @DisplayName("Should reduce the limit when downstream latency exceeds the baseline")
+    void shouldReduceLimitWhenLatencyExceedsBaseline() {
+      // Given
+      limiter.updateLimit(0.1, 0);
+
+      // When
+      limiter.updateLimit(0.5, 0);
+
+      // Then
+      assertThat(limiter.getLimit()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Should never reduce the limit below the minimum")
+    void shouldNotReduceBelowMinimum() {
+      // When
+      for (int i = 0; i < 10; i++) {
+        limiter.updateLimit(0.1, 1);
+      }
+
+      // Then
+      assertThat(limiter.getLimit()).isEqualTo(MIN_LIMIT);
+    }
+
+    @Test
+    @DisplayName("Should increase the limit by one when healthy and saturated")
+    void shouldIncreaseLimitWhenHealthyAndSaturated() {
+      // Given
+      limiter.updateLimit(0.1, 1);
+      limiter.updateLimit(0.1, 1);
+      assertThat(limiter.getLimit()).isEqualTo(2);
+      limiter.acquire(SubmissionEventType.VALIDATE_SUBMISSION);
+      limiter.acquire(SubmissionEventType.VALIDATE_SUBMISSION);
+
+      // When
+      limiter.updateLimit(0.1, 0);
+
+      // Then
+      assertThat(limiter.getLimit()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should not increase the limit when not saturated")
+    void shouldNotIncreaseLimitWhenNotSaturated() {
+      // Given
+      limiter.updateLimit(0.1, 1);
+      assertThat(limiter.getLimit()).isEqualTo(5);
+
+      // When
+      limiter.updateLimit(0.1, 0);
+
+      // Then
+      assertThat(limiter.getLimit()).isEqualTo(5);
+    }
+  }
+
+  @Nested
+  @DisplayName("acquire")
+  class AcquireTests {
+
+    @Test
+    @DisplayName("Should block once the limit is reached until a permit is released")
+    void shouldBlockUntilPermitReleased() throws Exception {
+      // Given
+      limiter.updateLimit(0.1, 1);
+      limiter.updateLimit(0.1, 1);
+      limiter.updateLimit(0.1, 1);
+      assertThat(limiter.getLimit()).isEqualTo(1);
+      AdaptiveConcurrencyLimiter.Permit permit =
+          limiter.acquire(SubmissionEventType.VALIDATE_SUBMISSION);
+
+      // When
+      CompletableFuture<AdaptiveConcurrencyLimiter.Permit> waiting =
+          CompletableFuture.supplyAsync(
+              () -> limiter.acquire(SubmissionEventType.VALIDATE_SUBMISSION));
+
+      // Then
+      Thread.sleep(100);
+      assertThat(waiting).isNotDone();
+      permit.close();
+      assertThat(waiting.get(5, TimeUnit.SECONDS)).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Should hold messages back while paused, even when disabled")
+    void shouldHoldMessagesBackWhilePaused() throws Exception {
+      // Given
+      AdaptiveConcurrencyLimiter disabled =
+          new AdaptiveConcurrencyLimiter(
+              eventServiceMetricService,
+              new SubmissionEventLaneProperties(Map.of()),
+              LISTENER_THREADS,
+              false,
+              MIN_LIMIT,
+              MAX_LIMIT,
+              2.0,
+              0.1,
+              0.5);
+      disabled.pause();
+
+      // When
+      CompletableFuture<AdaptiveConcurrencyLimiter.Permit> waiting =
+          CompletableFuture.supplyAsync(
+              () -> disabled.acquire(SubmissionEventType.PARSE_BULK_SUBMISSION));
+
+      // Then
+      Thread.sleep(100);
+      assertThat(waiting).isNotDone();
+      disabled.resume();
+      assertThat(waiting.get(5, TimeUnit.SECONDS)).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Should never block when disabled")
+    void shouldNeverBlockWhenDisabled() {
+      // Given
+      AdaptiveConcurrencyLimiter disabled =
+          new AdaptiveConcurrencyLimiter(
+              eventServiceMetricService,
+              new SubmissionEventLaneProperties(Map.of()),
+              LISTENER_THREADS,
+              false,
+              MIN_LIMIT,
+              MIN_LIMIT,
+              2.0,
+              0.1,
+              0.5);
+
+      // When
+      AdaptiveConcurrencyLimiter.Permit first =
+          disabled.acquire(SubmissionEventType.PARSE_BULK_SUBMISSION);
+      AdaptiveConcurrencyLimiter.Permit second =
+          disabled.acquire(SubmissionEventType.PARSE_BULK_SUBMISSION);
+      disabled.adjustLimit();
+
+      // Then
+      assertThat(first).isNotNull();
+      assertThat(second).isNotNull();
+      verifyNoInteractions(eventServiceMetricService);
+    }
+
+    @Test
+    @DisplayName("Should wait for a free slot in the lane of the event type, even when disabled")
+    void shouldWaitForFreeSlotInLane() throws Exception {
+      // Given
+      AdaptiveConcurrencyLimiter laned =
+          new AdaptiveConcurrencyLimiter(
+              eventServiceMetricService,
+              new SubmissionEventLaneProperties(
+                  Map.of(
+                      SubmissionEventType.VALIDATE_SUBMISSION,
+                      new SubmissionEventLaneProperties.Lane(1))),
+              LISTENER_THREADS,
+              false,
+              MIN_LIMIT,
+              MAX_LIMIT,
+              2.0,
+              0.1,
+              0.5);
+      AdaptiveConcurrencyLimiter.Permit first =
+          laned.acquire(SubmissionEventType.VALIDATE_SUBMISSION);
+      verify(eventServiceMetricService)
+          .setLaneOccupancy(SubmissionEventType.VALIDATE_SUBMISSION, 1, 1);
+
+      // When
+      CompletableFuture<AdaptiveConcurrencyLimiter.Permit> second =
+          CompletableFuture.supplyAsync(
+              () -> laned.acquire(SubmissionEventType.VALIDATE_SUBMISSION));
+      AdaptiveConcurrencyLimiter.Permit otherType =
+          laned.acquire(SubmissionEventType.PARSE_BULK_SUBMISSION);
+
+      // Then
+      Thread.sleep(100);
+      assertThat(second).isNotDone();
+      assertThat(otherType).isNotNull();
+      first.close();
+      assertThat(second.get(5, TimeUnit.SECONDS)).isNotNull();
+      second.get().close();
+      verify(eventServiceMetricService, times(2))
+          .recordLaneWaitTime(eq(SubmissionEventType.VALIDATE_SUBMISSION), anyDouble());
+    }
+
+    @Test
+    @DisplayName("Should turn a flooded lane's messages away, leaving threads for other lanes")
+    void shouldTurnAwayFloodedLaneLeavingThreadsForOtherLanes() throws Exception {
+      // Given four listener threads, with one reserved for parsing and two for validating
+      AdaptiveConcurrencyLimiter laned =
+          new AdaptiveConcurrencyLimiter(
+              eventServiceMetricService,
+              new SubmissionEventLaneProperties(
+                  Map.of(
+                      SubmissionEventType.PARSE_BULK_SUBMISSION,
+                      new SubmissionEventLaneProperties.Lane(1),
+                      SubmissionEventType.VALIDATE_SUBMISSION,
+                      new SubmissionEventLaneProperties.Lane(2))),
+              4,
+              false,
+              MIN_LIMIT,
+              MAX_LIMIT,
+              2.0,
+              0.1,
+              0.5);
+      laned.acquire(SubmissionEventType.VALIDATE_SUBMISSION);
+      laned.acquire(SubmissionEventType.VALIDATE_SUBMISSION);
+      CompletableFuture<AdaptiveConcurrencyLimiter.Permit> waiting =
+          CompletableFuture.supplyAsync(
+              () -> laned.acquire(SubmissionEventType.VALIDATE_SUBMISSION));
+      Thread.sleep(100);
+      assertThat(waiting).isNotDone();
+
+      // When
+      ThrowingCallable flooded = () -> laned.acquire(SubmissionEventType.VALIDATE_SUBMISSION);
+      AdaptiveConcurrencyLimiter.Permit parse =
+          laned.acquire(SubmissionEventType.PARSE_BULK_SUBMISSION);
+
+      // Then
+      assertThatThrownBy(flooded).isInstanceOf(LaneFullException.class);
+      assertThat(parse).isNotNull();
+      assertThat(waiting).isNotDone();
+    }
+  }
+
+  @Nested
+  @DisplayName("adjustLimit")
+  class AdjustLimitTests {
+
+    @Test
+    @DisplayName("Should use the difference between samples to adjust the limit")
+    void shouldUseDifferenceBetweenSamples() {
+      // Given
+      when(eventServiceMetricService.sampleDownstreamLoad())
+          .thenReturn(new DownstreamLoadSample(100, 10, 50))
+          .thenReturn(new DownstreamLoadSample(110, 11, 55));
+
+      // When
+      limiter.adjustLimit();
+      limiter.adjustLimit();
+
+      // Then
+      assertThat(limiter.getLimit()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Should not adjust the limit when there has been no downstream traffic")
+    void shouldNotAdjustWithoutTraffic() {
+      // Given
+      when(eventServiceMetricService.sampleDownstreamLoad())
+          .thenReturn(new DownstreamLoadSample(100, 10, 50))
+          .thenReturn(new DownstreamLoadSample(100, 10, 50));
+
+      // When
+      limiter.adjustLimit();
+      limiter.adjustLimit();
+
+      // Then
+      assertThat(limiter.getLimit()).isEqualTo(MAX_LIMIT);
+    }
+  }
+}
@@ -0,0 +1,208 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.verify;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import uk.gov.justice.laa.dstew.payments.claimsevent.exception.DownstreamWriteRejectedException;
+import uk.gov.justice.laa.dstew.payments.claimsevent.metrics.EventServiceMetricService;
+
+@ExtendWith(MockitoExtension.class)
+class AdaptiveWriteLimiterTest {
+
+  private static final String CLIENT = "data_claims_api";
+  private static final long USUAL_RTT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  @Mock EventServiceMetricService eventServiceMetricService;
+
+  private AdaptiveWriteLimiter limiter(int initialLimit, int maxLimit, long maxWaitMillis) {
+    return new AdaptiveWriteLimiter(
+        CLIENT, eventServiceMetricService, 1, initialLimit, maxLimit, 1.5, 0.5, maxWaitMillis);
+  }
+
+  @Test
+  @DisplayName("Should start at the initial limit")
+  void shouldStartAtInitialLimit() {
+    // When
+    AdaptiveWriteLimiter limiter = limiter(4, 10, 0);
+
+    // Then
+    assertThat(limiter.getLimit()).isEqualTo(4);
+    verify(eventServiceMetricService).setDownstreamWriteLimit(CLIENT, 4, 0);
+  }
+
+  @Nested
+  @DisplayName("onResponse")
+  class OnResponseTests {
+
+    @Test
+    @DisplayName("Should reduce the limit when a write request is refused")
+    void shouldReduceLimitWhenRefused() {
+      // Given
+      AdaptiveWriteLimiter limiter = limiter(8, 10, 0);
+      limiter.tryAcquire();
+
+      // When
+      limiter.onResponse(USUAL_RTT_NANOS, true);
+
+      // Then
+      assertThat(limiter.getLimit()).isEqualTo(4);
+      verify(eventServiceMetricService).setDownstreamWriteLimit(CLIENT, 4, 0);
+    }
+
+    @Test
+    @DisplayName("Should increase the limit while write requests are as fast as usual")
+    void shouldIncreaseLimitWhileLatencyIsUsual() {
+      // Given
+      AdaptiveWriteLimiter limiter = limiter(4, 10, 0);
+
+      // When
+      completeAtFullLimit(limiter, USUAL_RTT_NANOS, 50);
+
+      // Then
+      assertThat(limiter.getLimit()).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("Should reduce the limit when write requests become slower than usual")
+    void shouldReduceLimitWhenLatencyRises() {
+      // Given
+      AdaptiveWriteLimiter limiter = limiter(10, 10, 0);
+      completeAtFullLimit(limiter, USUAL_RTT_NANOS, 20);
+
+      // When
+      completeAtFullLimit(limiter, USUAL_RTT_NANOS * 10, 50);
+
+      // Then
+      assertThat(limiter.getLimit()).isLessThan(10).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should not increase a limit which is not being used")
+    void shouldNotIncreaseUnusedLimit() {
+      // Given
+      AdaptiveWriteLimiter limiter = limiter(4, 10, 0);
+
+      // When
+      for (int i = 0; i < 50; i++) {
+        limiter.tryAcquire();
+        limiter.onResponse(USUAL_RTT_NANOS, false);
+      }
+
+      // Then
+      assertThat(limiter.getLimit()).isEqualTo(4);
+    }
+
+    private void completeAtFullLimit(AdaptiveWriteLimiter limiter, long rttNanos, int requests) {
+      for (int i = 0; i < requests; i++) {
+        while (limiter.tryAcquire()) {
+          // Fill the limit, so that it is seen to be in use
+        }
+        limiter.onResponse(rttNanos, false);
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Should reject a write request which waits longer than the maximum wait")
+  void shouldRejectAfterMaxWait() {
+    // Given
+    AdaptiveWriteLimiter limiter = limiter(1, 1, 0);
+    limiter.tryAcquire();
+
+    // When / Then
+    assertThatThrownBy(limiter::acquire).isInstanceOf(DownstreamWriteRejectedException.class);
+    verify(eventServiceMetricService).incrementDownstreamWriteRejections(CLIENT);
+  }
+
+  @Nested
+  @DisplayName("filter")
+  class FilterTests {
+
+    private final ExchangeFunction ok =
+        request -> Mono.just(ClientResponse.create(HttpStatus.OK).build());
+
+    @Test
+    @DisplayName("Should release the permit of a write request once it has been answered")
+    void shouldReleasePermitOnResponse() {
+      // Given
+      AdaptiveWriteLimiter limiter = limiter(1, 1, 0);
+      ClientRequest request =
+          ClientRequest.create(HttpMethod.POST, URI.create("/submissions/1/claims")).build();
+
+      // When
+      limiter.filter(request, ok).block();
+
+      // Then
+      assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should release the permit of a write request cancelled while waiting for it")
+    void shouldReleasePermitWhenCancelledWhileWaiting() throws Exception {
+      // Given
+      AdaptiveWriteLimiter limiter = limiter(1, 1, 5_000);
+      limiter.tryAcquire();
+      ClientRequest request =
+          ClientRequest.create(HttpMethod.POST, URI.create("/submissions/1/claims")).build();
+      Disposable waiting = limiter.filter(request, ok).subscribe();
+      Thread.sleep(100);
+
+      // When
+      waiting.dispose();
+      limiter.onResponse(USUAL_RTT_NANOS, false);
+
+      // Then
+      await().atMost(5, TimeUnit.SECONDS).until(limiter::tryAcquire);
+    }
+
+    @Test
+    @DisplayName("Should release the permit of a write request cancelled while in flight")
+    void shouldReleasePermitWhenCancelledInFlight() {
+      // Given
+      AdaptiveWriteLimiter limiter = limiter(1, 1, 0);
+      ClientRequest request =
+          ClientRequest.create(HttpMethod.POST, URI.create("/submissions/1/claims")).build();
+      Disposable inFlight = limiter.filter(request, ignored -> Mono.never()).subscribe();
+
+      // When
+      inFlight.dispose();
+
+      // Then
+      assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should let read requests through when the limit is reached")
+    void shouldNotLimitReads() {
+      // Given
+      AdaptiveWriteLimiter limiter = limiter(1, 1, 0);
+      limiter.tryAcquire();
+      ClientRequest request =
+          ClientRequest.create(HttpMethod.GET, URI.create("/submissions/1")).build();
+
+      // When
+      ClientResponse response = limiter.filter(request, ok).block();
+
+      // Then
+      assertThat(response.statusCode()).isEqualTo(HttpStatus.OK);
+      assertThat(limiter.tryAcquire()).isFalse();
+    }
+  }
+}
@@ -0,0 +1,180 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.ClaimPost;
+import uk.gov.justice.laa.dstew.payments.claimsevent.client.DataClaimsRestClient;
+import uk.gov.justice.laa.dstew.payments.claimsevent.exception.ClaimCreateException;
+import uk.gov.justice.laa.dstew.payments.claimsevent.metrics.EventServiceMetricService;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.model.CreatedClaim;
+
+@ExtendWith(MockitoExtension.class)
+class BatchedClaimCreatorTest {
+
+  private static final String SUBMISSION_ID = "sub-1";
+
+  @Mock private DataClaimsRestClient dataClaimsRestClient;
+  @Mock private EventServiceMetricService eventServiceMetricService;
+
+  private BatchedClaimCreator creator;
+
+  @BeforeEach
+  void setUp() {
+    // Batches of two claims, sent one at a time so that the order of requests is deterministic,
+    // and sent twice at most
+    creator =
+        new BatchedClaimCreator(
+            dataClaimsRestClient,
+            new ClaimCreationExecutor(eventServiceMetricService, 1, 1),
+            new ClaimCreationRetryPolicy(eventServiceMetricService, 2, 0, 0),
+            eventServiceMetricService,
+            true,
+            2);
+  }
+
+  @Test
+  @DisplayName("Should create claims in batches and return their IDs in order")
+  void shouldCreateClaimsInBatches() {
+    // Given
+    List<ClaimPost> claims = claims(5);
+    when(dataClaimsRestClient.createClaims(any(), any()))
+        .thenAnswer(invocation -> created(invocation.getArgument(1)));
+
+    // When
+    List<String> ids = creator.createClaims(SUBMISSION_ID, claims);
+
+    // Then
+    assertThat(ids).containsExactly(id(1), id(2), id(3), id(4), id(5));
+    verify(dataClaimsRestClient).createClaims(SUBMISSION_ID, claims.subList(0, 2));
+    verify(dataClaimsRestClient).createClaims(SUBMISSION_ID, claims.subList(2, 4));
+    verify(dataClaimsRestClient).createClaims(SUBMISSION_ID, claims.subList(4, 5));
+    verify(eventServiceMetricService, times(5)).incrementTotalClaimsCreated();
+    verify(eventServiceMetricService, times(3)).recordClaimCreationBatches("created", 1);
+  }
+
+  @Test
+  @DisplayName("Should create no claims when bulk creation is unavailable")
+  void shouldFallBackWhenBulkCreationUnavailable() {
+    // Given
+    when(dataClaimsRestClient.createClaims(any(), any()))
+        .thenThrow(WebClientResponseException.create(HttpStatus.NOT_FOUND, "", null, null, null));
+
+    // Then
+    assertThat(creator.createClaims(SUBMISSION_ID, claims(5))).isEmpty();
+    verify(dataClaimsRestClient).createClaims(any(), any());
+    verify(eventServiceMetricService).recordClaimCreationBatches("fallback", 1);
+  }
+
+  @Test
+  @DisplayName("Should not try bulk creation again once found to be unavailable")
+  void shouldRememberBulkCreationUnavailable() {
+    // Given
+    when(dataClaimsRestClient.createClaims(any(), any()))
+        .thenThrow(
+            WebClientResponseException.create(HttpStatus.NOT_IMPLEMENTED, "", null, null, null));
+
+    // When
+    List<String> first = creator.createClaims(SUBMISSION_ID, claims(5));
+    List<String> second = creator.createClaims("sub-2", claims(5));
+
+    // Then
+    assertThat(first).isEmpty();
+    assertThat(second).isEmpty();
+    verify(dataClaimsRestClient, times(1)).createClaims(any(), any());
+    verify(eventServiceMetricService, times(2)).recordClaimCreationBatches("fallback", 1);
+  }
+
+  @Test
+  @DisplayName("Should retry a batch which fails with a transient error")
+  void shouldRetryBatchOnTransientError() {
+    // Given
+    List<ClaimPost> claims = claims(2);
+    when(dataClaimsRestClient.createClaims(any(), any()))
+        .thenThrow(
+            WebClientResponseException.create(
+                HttpStatus.SERVICE_UNAVAILABLE, "", null, null, null))
+        .thenAnswer(invocation -> created(invocation.getArgument(1)));
+
+    // When
+    List<String> ids = creator.createClaims(SUBMISSION_ID, claims);
+
+    // Then
+    assertThat(ids).containsExactly(id(1), id(2));
+    verify(dataClaimsRestClient, times(2)).createClaims(SUBMISSION_ID, claims);
+    verify(eventServiceMetricService).recordClaimCreationRetries("recovered");
+  }
+
+  @Test
+  @DisplayName("Should throw when a batch of claims could not be created")
+  void shouldThrowWhenBatchFails() {
+    // Given
+    when(dataClaimsRestClient.createClaims(any(), any()))
+        .thenAnswer(invocation -> created(invocation.getArgument(1)))
+        .thenThrow(
+            WebClientResponseException.create(
+                HttpStatus.INTERNAL_SERVER_ERROR, "", null, null, null));
+
+    // Then
+    assertThatThrownBy(() -> creator.createClaims(SUBMISSION_ID, claims(5)))
+        .isInstanceOf(ClaimCreateException.class)
+        .hasMessageContaining("index 2 to 3");
+  }
+
+  @Test
+  @DisplayName("Should throw when the IDs returned do not match the line numbers sent")
+  void shouldThrowWhenLineNumbersDoNotMatch() {
+    // Given
+    when(dataClaimsRestClient.createClaims(any(), any()))
+        .thenReturn(
+            ResponseEntity.status(HttpStatus.CREATED)
+                .body(List.of(new CreatedClaim(UUID.randomUUID(), 2))));
+
+    // Then
+    assertThatThrownBy(() -> creator.createClaims(SUBMISSION_ID, claims(1)))
+        .isInstanceOf(ClaimCreateException.class)
+        .hasMessageContaining("did not match the claim sent at line 1");
+  }
+
+  private static List<ClaimPost> claims(int count) {
+    return IntStream.rangeClosed(1, count)
+        .mapToObj(
+            lineNumber -> {
+              ClaimPost claim = new ClaimPost();
+              claim.setLineNumber(lineNumber);
+              return claim;
+            })
+        .toList();
+  }
+
+  private static ResponseEntity<List<CreatedClaim>> created(List<ClaimPost> batch) {
+    return ResponseEntity.status(HttpStatus.CREATED)
+        .body(
+            batch.stream()
+                .map(
+                    claim ->
+                        new CreatedClaim(
+                            new UUID(0, claim.getLineNumber()), claim.getLineNumber()))
+                .toList());
+  }
+
+  private static String id(int lineNumber) {
+    return new UUID(0, lineNumber).toString();
+  }
+}
@@ -3,44 +3,68 @@ package uk.gov.justice.laa.dstew.payments.claimsevent.service;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static uk.gov.justice.laa.dstew.payments.claimsevent.validation.ClaimValidationSource.EVENT_SERVICE;
 
 import java.net.URI;
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.IntStream;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.AreaOfLaw;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.BulkSubmissionMatterStart;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.BulkSubmissionOutcome;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.BulkSubmissionPatch;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.BulkSubmissionStatus;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.ClaimPost;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.ClaimResponse;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.ClaimResultSet;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.CreateClaim201Response;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.CreateMatterStart201Response;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.GetBulkSubmission200Response;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.GetBulkSubmission200ResponseDetails;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.MatterStartPost;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.SubmissionBase;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.SubmissionPatch;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.SubmissionPost;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.SubmissionResponse;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.SubmissionStatus;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.SubmissionsResultSet;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.ValidationMessagePatch;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.ValidationMessageType;
 import uk.gov.justice.laa.dstew.payments.claimsevent.client.DataClaimsRestClient;
 import uk.gov.justice.laa.dstew.payments.claimsevent.exception.*;
 import uk.gov.justice.laa.dstew.payments.claimsevent.mapper.BulkSubmissionMapper;
+import uk.gov.justice.laa.dstew.payments.claimsevent.metrics.BulkParsingProfile;
 import uk.gov.justice.laa.dstew.payments.claimsevent.metrics.EventServiceMetricService;
+import uk.gov.justice.laa.dstew.payments.claimsevent.model.SubmissionEventType;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.model.BulkSubmissionHeader;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.model.OutcomeRange;
+import uk.gov.justice.laa.dstew.payments.claimsevent.validation.submission.SubmissionOfficeAreaOfLawAndPeriodValidator;
 
 @ExtendWith(MockitoExtension.class)
 class BulkParsingServiceTest {
@@ -53,6 +77,22 @@ class BulkParsingServiceTest {
   @Mock private BulkSubmissionMapper bulkSubmissionMapper;
   @Mock private EventServiceMetricService eventServiceMetricService;
   @Mock private SubmissionDataNormaliser submissionDataNormaliser;
+  @Mock private DistributedBulkParsingCoordinator distributedBulkParsingCoordinator;
+  @Mock private BulkSubmissionStreamReader bulkSubmissionStreamReader;
+  @Mock private BatchedClaimCreator batchedClaimCreator;
+  @Mock private ClaimValidationService claimValidationService;
+  @Mock private PreflightSubmissionValidationService preflightSubmissionValidationService;
+
+  // Claims are created one at a time, so that the claim which fails first is deterministic, but
+  // may be created alongside matter starts
+  @Spy
+  private ClaimCreationExecutor claimCreationExecutor =
+      new ClaimCreationExecutor(mock(EventServiceMetricService.class), 2, 1);
+
+  // Claims are sent once, so that a failing claim fails straight away
+  @Spy
+  private ClaimCreationRetryPolicy claimCreationRetryPolicy =
+      new ClaimCreationRetryPolicy(mock(EventServiceMetricService.class), 1, 0, 0);
 
   @InjectMocks private BulkParsingService service;
 
@@ -134,6 +174,23 @@ class BulkParsingServiceTest {
         .updateBulkSubmission(
             eq(bulkSubmissionId.toString()),
             argThat(patch -> patch.getStatus() == BulkSubmissionStatus.PARSING_COMPLETED));
+    verify(eventServiceMetricService)
+        .recordBulkParsingProfile(
+            argThat(
+                profile ->
+                    profile
+                        .getPhaseSeconds()
+                        .keySet()
+                        .containsAll(
+                            List.of(
+                                BulkParsingProfile.FETCH,
+                                BulkParsingProfile.MAP,
+                                BulkParsingProfile.CREATE_SUBMISSION,
+                                BulkParsingProfile.CLAIMS,
+                                BulkParsingProfile.MATTER_STARTS,
+                                BulkParsingProfile.STATUS_UPDATES))),
+            eq(AreaOfLaw.LEGAL_HELP.name()),
+            eq(1));
   }
 
   @Test
@@ -180,6 +237,58 @@ class BulkParsingServiceTest {
                         && patch.getNumberOfClaims() == 0));
   }
 
+  @Test
+  void parseDataFailsSubmissionFailingPreflightChecksWithoutCreatingClaims() {
+    final UUID bulkSubmissionId = UUID.randomUUID();
+    final UUID submissionId = UUID.randomUUID();
+    final String createdSubmissionId = UUID.randomUUID().toString();
+
+    final GetBulkSubmission200Response bulkSubmission =
+        new GetBulkSubmission200Response()
+            .bulkSubmissionId(bulkSubmissionId)
+            .details(
+                new GetBulkSubmission200ResponseDetails()
+                    .outcomes(List.of(new BulkSubmissionOutcome()))
+                    .matterStarts(List.of(new BulkSubmissionMatterStart())));
+    final SubmissionPost submissionPost = new SubmissionPost().areaOfLaw(AreaOfLaw.LEGAL_HELP);
+    final ValidationMessagePatch error =
+        new ValidationMessagePatch().type(ValidationMessageType.ERROR).displayMessage("period");
+
+    when(dataClaimsRestClient.getBulkSubmission(bulkSubmissionId))
+        .thenReturn(ResponseEntity.ok(bulkSubmission));
+    when(submissionDataNormaliser.normalise(bulkSubmission)).thenReturn(bulkSubmission);
+    when(bulkSubmissionMapper.mapToSubmissionPost(bulkSubmission, submissionId))
+        .thenReturn(submissionPost);
+    when(preflightSubmissionValidationService.validate(submissionPost)).thenReturn(List.of(error));
+    when(dataClaimsRestClient.createSubmission(submissionPost))
+        .thenReturn(
+            ResponseEntity.created(URI.create("/submissions/" + createdSubmissionId)).build());
+    when(dataClaimsRestClient.updateSubmission(eq(createdSubmissionId), any(SubmissionPatch.class)))
+        .thenReturn(ResponseEntity.noContent().build());
+    when(dataClaimsRestClient.updateBulkSubmission(
+            eq(bulkSubmissionId.toString()), any(BulkSubmissionPatch.class)))
+        .thenReturn(ResponseEntity.noContent().build());
+
+    service.parseData(bulkSubmissionId, submissionId);
+
+    verify(dataClaimsRestClient).createSubmission(submissionPost);
+    verify(dataClaimsRestClient, never()).createClaim(any(), any());
+    verify(dataClaimsRestClient, never()).createMatterStart(any(), any());
+    verify(bulkSubmissionMapper, never()).mapToClaimPosts(any(), any());
+    verify(dataClaimsRestClient)
+        .updateSubmission(
+            eq(createdSubmissionId),
+            argThat(
+                patch ->
+                    patch.getStatus() == SubmissionStatus.VALIDATION_FAILED
+                        && patch.getValidationMessages().equals(List.of(error))));
+    verify(dataClaimsRestClient)
+        .updateBulkSubmission(
+            eq(bulkSubmissionId.toString()),
+            argThat(patch -> patch.getStatus() == BulkSubmissionStatus.VALIDATION_FAILED));
+    verify(eventServiceMetricService).incrementSubmissionsRejectedBeforeClaims();
+  }
+
   @Test
   void createSubmissionReturnsId() {
     SubmissionPost submission = new SubmissionPost();
@@ -464,6 +573,28 @@ class BulkParsingServiceTest {
                 + ". HTTP status: null response");
   }
 
+  @Test
+  void createClaimsCreatesClaimsInBatchesWhenEnabled() {
+    final List<ClaimPost> claims = List.of(new ClaimPost(), new ClaimPost());
+    when(batchedClaimCreator.isEnabled()).thenReturn(true);
+    when(batchedClaimCreator.createClaims("sub1", claims)).thenReturn(List.of("id-1", "id-2"));
+
+    assertThat(service.createClaims("sub1", claims)).containsExactly("id-1", "id-2");
+    assertThat(claims).extracting(ClaimPost::getLineNumber).containsExactly(1, 2);
+    verify(dataClaimsRestClient, never()).createClaim(any(), any());
+  }
+
+  @Test
+  void createClaimsFallsBackToSingleClaimsWhenBatchesUnavailable() {
+    final ClaimPost claim = claimPost();
+    when(batchedClaimCreator.isEnabled()).thenReturn(true);
+    when(batchedClaimCreator.createClaims("sub1", List.of(claim))).thenReturn(List.of());
+    when(dataClaimsRestClient.createClaim("sub1", claim))
+        .thenReturn(ResponseEntity.created(URI.create("/claims/claim-id")).build());
+
+    assertThat(service.createClaims("sub1", List.of(claim))).containsExactly("claim-id");
+  }
+
   @Test
   void createClaimsUpdatesSubmissionStatusToValidationFailedOnExceptionAfterClaimProcessing() {
     String bulkSubmissionId = "bulk-1";
@@ -752,6 +883,548 @@ class BulkParsingServiceTest {
         .createdByUserId(BULK_SUBMISSION_CREATED_BY_USER_ID);
   }
 
+  @Test
+  void parseDataSkipsSubmissionWhichHasAlreadyBeenParsed() {
+    final UUID submissionId = UUID.randomUUID();
+    when(dataClaimsRestClient.getSubmission(submissionId))
+        .thenReturn(
+            ResponseEntity.ok(
+                SubmissionResponse.builder()
+                    .submissionId(submissionId)
+                    .status(SubmissionStatus.READY_FOR_VALIDATION)
+                    .build()));
+
+    service.parseData(BULK_SUBMISSION_ID, submissionId);
+
+    verify(dataClaimsRestClient, never()).getBulkSubmission(any());
+    verify(dataClaimsRestClient, never()).createSubmission(any());
+    verify(dataClaimsRestClient, never()).updateBulkSubmission(any(), any());
+    verify(eventServiceMetricService)
+        .incrementRedeliveriesSuppressed(SubmissionEventType.PARSE_BULK_SUBMISSION, "status");
+  }
+
+  @Test
+  void parseDataResumesSubmissionCreatingOnlyMissingClaims() {
+    final UUID submissionId = UUID.randomUUID();
+    final GetBulkSubmission200Response bulkSubmission = bulkSubmissionWithOutcomes();
+    final SubmissionPost submissionPost = submissionPost().officeAccountNumber("office1");
+    final ClaimPost created = claimPost();
+    final ClaimPost missing = claimPost().lineNumber(2);
+    when(dataClaimsRestClient.getSubmission(submissionId))
+        .thenReturn(
+            ResponseEntity.ok(
+                SubmissionResponse.builder()
+                    .submissionId(submissionId)
+                    .status(SubmissionStatus.CREATED)
+                    .matterStarts(List.of(UUID.randomUUID()))
+                    .build()));
+    when(dataClaimsRestClient.getBulkSubmission(BULK_SUBMISSION_ID))
+        .thenReturn(ResponseEntity.ok(bulkSubmission));
+    when(submissionDataNormaliser.normalise(bulkSubmission)).thenReturn(bulkSubmission);
+    when(bulkSubmissionMapper.mapToSubmissionPost(bulkSubmission, submissionId))
+        .thenReturn(submissionPost);
+    when(bulkSubmissionMapper.mapToClaimPosts(any(), eq(AreaOfLaw.LEGAL_HELP)))
+        .thenReturn(List.of(created, missing));
+    when(dataClaimsRestClient.getClaims(
+            eq("office1"),
+            eq(submissionId.toString()),
+            any(),
+            any(),
+            any(),
+            any(),
+            any(),
+            any(),
+            eq(0),
+            any(),
+            any()))
+        .thenReturn(
+            ResponseEntity.ok(
+                new ClaimResultSet()
+                    .content(List.of(new ClaimResponse().lineNumber(1)))
+                    .totalPages(1)));
+    when(dataClaimsRestClient.createClaim(submissionId.toString(), missing))
+        .thenReturn(ResponseEntity.created(URI.create("/claims/claim-id")).build());
+
+    service.parseData(BULK_SUBMISSION_ID, submissionId);
+
+    verify(dataClaimsRestClient, never()).createSubmission(any());
+    verify(dataClaimsRestClient, never()).createClaim(submissionId.toString(), created);
+    verify(dataClaimsRestClient).createClaim(submissionId.toString(), missing);
+    verify(dataClaimsRestClient, never()).createMatterStart(any(), any());
+    verify(dataClaimsRestClient)
+        .updateSubmission(
+            eq(submissionId.toString()),
+            argThat((SubmissionPatch patch) -> patch.getNumberOfClaims() == 2));
+    verify(eventServiceMetricService)
+        .recordBulkParsingProfile(
+            argThat(
+                profile ->
+                    profile.getPhaseSeconds().containsKey(BulkParsingProfile.RESUME)
+                        && !profile
+                            .getPhaseSeconds()
+                            .containsKey(BulkParsingProfile.CREATE_SUBMISSION)),
+            any(),
+            anyInt());
+  }
+
+  @Test
+  void parseDataResumesSubmissionWithLaterLiveDuplicateWithoutRejectingIt() {
+    final UUID submissionId = UUID.randomUUID();
+    final OffsetDateTime submitted = OffsetDateTime.parse("2025-01-01T09:00:00Z");
+    final GetBulkSubmission200Response bulkSubmission = bulkSubmissionWithOutcomes();
+    final SubmissionPost submissionPost = submissionPost().officeAccountNumber("office1");
+    final ClaimPost created = claimPost();
+    final ClaimPost missing = claimPost().lineNumber(2);
+    final PreflightSubmissionValidationService preflight =
+        new PreflightSubmissionValidationService(
+            List.of(new SubmissionOfficeAreaOfLawAndPeriodValidator(dataClaimsRestClient)), true);
+    when(preflightSubmissionValidationService.validate(submissionPost))
+        .thenAnswer(invocation -> preflight.validate(invocation.getArgument(0)));
+    when(dataClaimsRestClient.getSubmissions(any(), any(), any()))
+        .thenReturn(
+            ResponseEntity.ok(
+                new SubmissionsResultSet()
+                    .addContentItem(
+                        new SubmissionBase()
+                            .submissionId(submissionId)
+                            .status(SubmissionStatus.CREATED)
+                            .submitted(submitted))
+                    .addContentItem(
+                        new SubmissionBase()
+                            .submissionId(UUID.randomUUID())
+                            .status(SubmissionStatus.READY_FOR_VALIDATION)
+                            .submitted(submitted.plusHours(1)))));
+    when(dataClaimsRestClient.getSubmission(submissionId))
+        .thenReturn(
+            ResponseEntity.ok(
+                SubmissionResponse.builder()
+                    .submissionId(submissionId)
+                    .status(SubmissionStatus.CREATED)
+                    .submitted(submitted)
+                    .matterStarts(List.of(UUID.randomUUID()))
+                    .build()));
+    when(dataClaimsRestClient.getBulkSubmission(BULK_SUBMISSION_ID))
+        .thenReturn(ResponseEntity.ok(bulkSubmission));
+    when(submissionDataNormaliser.normalise(bulkSubmission)).thenReturn(bulkSubmission);
+    when(bulkSubmissionMapper.mapToSubmissionPost(bulkSubmission, submissionId))
+        .thenReturn(submissionPost);
+    when(bulkSubmissionMapper.mapToClaimPosts(any(), eq(AreaOfLaw.LEGAL_HELP)))
+        .thenReturn(List.of(created, missing));
+    when(dataClaimsRestClient.getClaims(
+            eq("office1"),
+            eq(submissionId.toString()),
+            any(),
+            any(),
+            any(),
+            any(),
+            any(),
+            any(),
+            eq(0),
+            any(),
+            any()))
+        .thenReturn(
+            ResponseEntity.ok(
+                new ClaimResultSet()
+                    .content(List.of(new ClaimResponse().lineNumber(1)))
+                    .totalPages(1)));
+    when(dataClaimsRestClient.createClaim(submissionId.toString(), missing))
+        .thenReturn(ResponseEntity.created(URI.create("/claims/claim-id")).build());
+
+    service.parseData(BULK_SUBMISSION_ID, submissionId);
+
+    assertThat(submissionPost.getSubmitted()).isEqualTo(submitted);
+    verify(dataClaimsRestClient).createClaim(submissionId.toString(), missing);
+    verify(dataClaimsRestClient)
+        .updateSubmission(
+            eq(submissionId.toString()),
+            argThat(
+                (SubmissionPatch patch) ->
+                    patch.getStatus() == SubmissionStatus.READY_FOR_VALIDATION
+                        && patch.getNumberOfClaims() == 2));
+    verify(dataClaimsRestClient, never())
+        .updateSubmission(
+            any(),
+            argThat(
+                (SubmissionPatch patch) ->
+                    patch.getStatus() == SubmissionStatus.VALIDATION_FAILED));
+  }
+
+  @Test
+  void parseDataResumesAfterTransientClaimFailureCreatingOnlyMissingClaims() {
+    final UUID submissionId = UUID.randomUUID();
+    final GetBulkSubmission200Response bulkSubmission = bulkSubmissionWithOutcomes();
+    final SubmissionPost submissionPost = submissionPost().officeAccountNumber("office1");
+    final ClaimPost first = claimPost();
+    final ClaimPost second = claimPost().lineNumber(2);
+    when(dataClaimsRestClient.getSubmission(submissionId))
+        .thenThrow(
+            WebClientResponseException.create(
+                HttpStatus.NOT_FOUND.value(), "Not Found", null, null, null))
+        .thenReturn(
+            ResponseEntity.ok(
+                SubmissionResponse.builder()
+                    .submissionId(submissionId)
+                    .status(SubmissionStatus.CREATED)
+                    .build()));
+    when(dataClaimsRestClient.getBulkSubmission(BULK_SUBMISSION_ID))
+        .thenReturn(ResponseEntity.ok(bulkSubmission));
+    when(submissionDataNormaliser.normalise(bulkSubmission)).thenReturn(bulkSubmission);
+    when(bulkSubmissionMapper.mapToSubmissionPost(bulkSubmission, submissionId))
+        .thenReturn(submissionPost);
+    when(dataClaimsRestClient.createSubmission(submissionPost))
+        .thenReturn(ResponseEntity.created(URI.create("/submissions/" + submissionId)).build());
+    when(bulkSubmissionMapper.mapToClaimPosts(any(), eq(AreaOfLaw.LEGAL_HELP)))
+        .thenReturn(List.of(first, second));
+    when(dataClaimsRestClient.createClaim(submissionId.toString(), first))
+        .thenReturn(ResponseEntity.created(URI.create("/claims/claim-1")).build());
+    when(dataClaimsRestClient.createClaim(submissionId.toString(), second))
+        .thenThrow(
+            WebClientResponseException.create(
+                HttpStatus.SERVICE_UNAVAILABLE.value(), "Unavailable", null, null, null))
+        .thenReturn(ResponseEntity.created(URI.create("/claims/claim-2")).build());
+    when(dataClaimsRestClient.getClaims(
+            eq("office1"),
+            eq(submissionId.toString()),
+            any(),
+            any(),
+            any(),
+            any(),
+            any(),
+            any(),
+            eq(0),
+            any(),
+            any()))
+        .thenReturn(
+            ResponseEntity.ok(
+                new ClaimResultSet()
+                    .content(List.of(new ClaimResponse().lineNumber(1)))
+                    .totalPages(1)));
+
+    // The first attempt fails to create the second claim, leaving the statuses as they are
+    assertThatThrownBy(() -> service.parseData(BULK_SUBMISSION_ID, submissionId))
+        .isInstanceOf(ClaimCreateException.class);
+    verify(dataClaimsRestClient, never()).updateSubmission(any(), any());
+    verify(dataClaimsRestClient, never()).updateBulkSubmission(any(), any());
+
+    // The redelivered message resumes the submission
+    service.parseData(BULK_SUBMISSION_ID, submissionId);
+
+    verify(dataClaimsRestClient, times(1)).createSubmission(any());
+    verify(dataClaimsRestClient, times(1)).createClaim(submissionId.toString(), first);
+    verify(dataClaimsRestClient, times(2)).createClaim(submissionId.toString(), second);
+    verify(dataClaimsRestClient)
+        .updateSubmission(
+            eq(submissionId.toString()),
+            argThat(
+                (SubmissionPatch patch) ->
+                    patch.getStatus() == SubmissionStatus.READY_FOR_VALIDATION
+                        && patch.getNumberOfClaims() == 2));
+    verify(dataClaimsRestClient)
+        .updateBulkSubmission(
+            eq(BULK_SUBMISSION_ID.toString()),
+            argThat(patch -> patch.getStatus() == BulkSubmissionStatus.PARSING_COMPLETED));
+  }
+
+  @Test
+  void parseDataThrowsWhenSubmissionCannotBeChecked() {
+    final UUID submissionId = UUID.randomUUID();
+    when(dataClaimsRestClient.getSubmission(submissionId))
+        .thenThrow(
+            WebClientResponseException.create(
+                HttpStatus.SERVICE_UNAVAILABLE.value(), "Unavailable", null, null, null));
+
+    assertThatThrownBy(() -> service.parseData(BULK_SUBMISSION_ID, submissionId))
+        .isInstanceOf(WebClientResponseException.class);
+
+    verify(dataClaimsRestClient, never()).getBulkSubmission(any());
+    verify(dataClaimsRestClient, never()).createSubmission(any());
+  }
+
+  @Test
+  void parseDataParsesSubmissionWhichDoesNotExistYet() {
+    final UUID submissionId = UUID.randomUUID();
+    when(dataClaimsRestClient.getSubmission(submissionId))
+        .thenThrow(
+            WebClientResponseException.create(
+                HttpStatus.NOT_FOUND.value(), "Not Found", null, null, null));
+    when(dataClaimsRestClient.getBulkSubmission(BULK_SUBMISSION_ID))
+        .thenThrow(new BulkSubmissionRetrievalException(BULK_SUBMISSION_ID));
+
+    assertThatThrownBy(() -> service.parseData(BULK_SUBMISSION_ID, submissionId))
+        .isInstanceOf(BulkSubmissionRetrievalException.class);
+
+    verify(dataClaimsRestClient).getBulkSubmission(BULK_SUBMISSION_ID);
+  }
+
+  @Test
+  void parseDataShardsOutcomesOfLargeSubmission() {
+    final UUID submissionId = UUID.randomUUID();
+    final GetBulkSubmission200Response bulkSubmission = bulkSubmissionWithOutcomes();
+    final SubmissionPost submissionPost = submissionPost().officeAccountNumber("office1");
+    final MatterStartPost matterStartPost = matterStartPost();
+    when(dataClaimsRestClient.getBulkSubmission(BULK_SUBMISSION_ID))
+        .thenReturn(ResponseEntity.ok(bulkSubmission));
+    when(submissionDataNormaliser.normalise(bulkSubmission)).thenReturn(bulkSubmission);
+    when(bulkSubmissionMapper.mapToSubmissionPost(bulkSubmission, submissionId))
+        .thenReturn(submissionPost);
+    when(dataClaimsRestClient.createSubmission(submissionPost))
+        .thenReturn(ResponseEntity.created(URI.create("/submissions/" + SUBMISSION_ID)).build());
+    when(distributedBulkParsingCoordinator.shouldShard(1)).thenReturn(true);
+    when(bulkSubmissionMapper.mapToMatterStartRequests(any())).thenReturn(List.of(matterStartPost));
+    when(dataClaimsRestClient.createMatterStart(SUBMISSION_ID, matterStartPost))
+        .thenReturn(ResponseEntity.created(URI.create("/matter-starts/matter-id")).build());
+
+    service.parseData(BULK_SUBMISSION_ID, submissionId);
+
+    verify(distributedBulkParsingCoordinator)
+        .shard(
+            BULK_SUBMISSION_ID, submissionId, SUBMISSION_ID, "office1", AreaOfLaw.LEGAL_HELP, 1);
+    verify(dataClaimsRestClient).createMatterStart(SUBMISSION_ID, matterStartPost);
+    verify(dataClaimsRestClient, never()).createClaim(any(), any());
+    verify(dataClaimsRestClient, never()).updateSubmission(any(), any());
+    verify(dataClaimsRestClient, never()).updateBulkSubmission(any(), any());
+  }
+
+  @Test
+  void parseDataCreatesMatterStartsAlongsideClaims() {
+    final UUID submissionId = UUID.randomUUID();
+    final GetBulkSubmission200Response bulkSubmission = bulkSubmissionWithMatterStarts();
+    final SubmissionPost submissionPost = submissionPost();
+    final MatterStartPost matterStartPost = matterStartPost();
+    final CountDownLatch matterStartCreated = new CountDownLatch(1);
+    when(dataClaimsRestClient.getBulkSubmission(BULK_SUBMISSION_ID))
+        .thenReturn(ResponseEntity.ok(bulkSubmission));
+    when(submissionDataNormaliser.normalise(bulkSubmission)).thenReturn(bulkSubmission);
+    when(bulkSubmissionMapper.mapToSubmissionPost(bulkSubmission, submissionId))
+        .thenReturn(submissionPost);
+    when(dataClaimsRestClient.createSubmission(submissionPost))
+        .thenReturn(ResponseEntity.created(URI.create("/submissions/" + SUBMISSION_ID)).build());
+    when(bulkSubmissionMapper.mapToClaimPosts(any(), any())).thenReturn(List.of(claimPost()));
+    // The claim waits for the matter start, so is never created if they are created in turn
+    when(dataClaimsRestClient.createClaim(eq(SUBMISSION_ID), any(ClaimPost.class)))
+        .thenAnswer(
+            invocation -> {
+              assertThat(matterStartCreated.await(5, TimeUnit.SECONDS)).isTrue();
+              return ResponseEntity.created(URI.create("/claims/claim-id")).build();
+            });
+    when(bulkSubmissionMapper.mapToMatterStartRequests(any())).thenReturn(List.of(matterStartPost));
+    when(dataClaimsRestClient.createMatterStart(SUBMISSION_ID, matterStartPost))
+        .thenAnswer(
+            invocation -> {
+              matterStartCreated.countDown();
+              return ResponseEntity.created(URI.create("/matter-starts/matter-id")).build();
+            });
+    when(dataClaimsRestClient.updateSubmission(eq(SUBMISSION_ID), any(SubmissionPatch.class)))
+        .thenReturn(ResponseEntity.noContent().build());
+    when(dataClaimsRestClient.updateBulkSubmission(
+            eq(BULK_SUBMISSION_ID.toString()), any(BulkSubmissionPatch.class)))
+        .thenReturn(ResponseEntity.noContent().build());
+
+    service.parseData(BULK_SUBMISSION_ID, submissionId);
+
+    verify(dataClaimsRestClient).createMatterStart(SUBMISSION_ID, matterStartPost);
+    verify(dataClaimsRestClient)
+        .updateSubmission(
+            eq(SUBMISSION_ID),
+            argThat(
+                patch ->
+                    patch.getStatus() == SubmissionStatus.READY_FOR_VALIDATION
+                        && patch.getNumberOfClaims() == 1));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void parseDataStreamsOutcomesIntoClaimsInChunks() {
+    final UUID submissionId = UUID.randomUUID();
+    final GetBulkSubmission200Response bulkSubmission = bulkSubmissionWithOutcomes(0);
+    final SubmissionPost submissionPost = submissionPost();
+    final List<BulkSubmissionOutcome> firstChunk =
+        List.of(new BulkSubmissionOutcome(), new BulkSubmissionOutcome());
+    final List<BulkSubmissionOutcome> secondChunk = List.of(new BulkSubmissionOutcome());
+    when(bulkSubmissionStreamReader.isEnabled()).thenReturn(true);
+    when(bulkSubmissionStreamReader.readHeader(BULK_SUBMISSION_ID))
+        .thenReturn(new BulkSubmissionHeader(bulkSubmission, 3));
+    when(submissionDataNormaliser.normalise(bulkSubmission)).thenReturn(bulkSubmission);
+    when(bulkSubmissionMapper.mapToSubmissionPost(bulkSubmission, submissionId))
+        .thenReturn(submissionPost);
+    when(dataClaimsRestClient.createSubmission(submissionPost))
+        .thenReturn(ResponseEntity.created(URI.create("/submissions/" + SUBMISSION_ID)).build());
+    doAnswer(
+            invocation -> {
+              ObjIntConsumer<List<BulkSubmissionOutcome>> consumer = invocation.getArgument(1);
+              consumer.accept(firstChunk, 0);
+              consumer.accept(secondChunk, 2);
+              return 3;
+            })
+        .when(bulkSubmissionStreamReader)
+        .readOutcomes(eq(BULK_SUBMISSION_ID), any(ObjIntConsumer.class));
+    when(bulkSubmissionMapper.mapToClaimPosts(firstChunk, AreaOfLaw.LEGAL_HELP))
+        .thenReturn(List.of(new ClaimPost(), new ClaimPost()));
+    when(bulkSubmissionMapper.mapToClaimPosts(secondChunk, AreaOfLaw.LEGAL_HELP))
+        .thenReturn(List.of(new ClaimPost()));
+    when(dataClaimsRestClient.createClaim(eq(SUBMISSION_ID), any(ClaimPost.class)))
+        .thenReturn(ResponseEntity.created(URI.create("/claims/claim-id")).build());
+    when(dataClaimsRestClient.updateSubmission(eq(SUBMISSION_ID), any(SubmissionPatch.class)))
+        .thenReturn(ResponseEntity.noContent().build());
+    when(dataClaimsRestClient.updateBulkSubmission(
+            eq(BULK_SUBMISSION_ID.toString()), any(BulkSubmissionPatch.class)))
+        .thenReturn(ResponseEntity.noContent().build());
+
+    service.parseData(BULK_SUBMISSION_ID, submissionId);
+
+    verify(dataClaimsRestClient, never()).getBulkSubmission(any());
+    verify(distributedBulkParsingCoordinator).shouldShard(3);
+    verify(submissionDataNormaliser, times(3)).normaliseOutcome(any());
+    verify(dataClaimsRestClient)
+        .createClaim(eq(SUBMISSION_ID), argThat(claim -> claim.getLineNumber() == 1));
+    verify(dataClaimsRestClient)
+        .createClaim(eq(SUBMISSION_ID), argThat(claim -> claim.getLineNumber() == 3));
+    verify(dataClaimsRestClient)
+        .updateSubmission(
+            eq(SUBMISSION_ID),
+            argThat(
+                patch ->
+                    patch.getStatus() == SubmissionStatus.READY_FOR_VALIDATION
+                        && patch.getNumberOfClaims() == 3));
+    verify(dataClaimsRestClient)
+        .updateBulkSubmission(
+            eq(BULK_SUBMISSION_ID.toString()),
+            argThat(patch -> patch.getStatus() == BulkSubmissionStatus.PARSING_COMPLETED));
+  }
+
+  @Test
+  void parseOutcomeRangeCreatesClaimsAndCompletesSubmissionOnceAllClaimsCreated() {
+    final OutcomeRange range = outcomeRange(1, 3);
+    final List<BulkSubmissionOutcome> outcomes =
+        List.of(new BulkSubmissionOutcome(), new BulkSubmissionOutcome());
+    when(bulkSubmissionStreamReader.readOutcomeRange(BULK_SUBMISSION_ID, 1, 3))
+        .thenReturn(outcomes);
+    when(bulkSubmissionMapper.mapToClaimPosts(outcomes, AreaOfLaw.LEGAL_HELP))
+        .thenReturn(List.of(new ClaimPost(), new ClaimPost()));
+    when(dataClaimsRestClient.createClaim(eq(SUBMISSION_ID), any(ClaimPost.class)))
+        .thenReturn(ResponseEntity.created(URI.create("/claims/claim-id")).build());
+    when(distributedBulkParsingCoordinator.areAllClaimsCreated(range)).thenReturn(true);
+    when(dataClaimsRestClient.updateSubmission(eq(SUBMISSION_ID), any(SubmissionPatch.class)))
+        .thenReturn(ResponseEntity.noContent().build());
+    when(dataClaimsRestClient.updateBulkSubmission(
+            eq(BULK_SUBMISSION_ID.toString()), any(BulkSubmissionPatch.class)))
+        .thenReturn(ResponseEntity.noContent().build());
+
+    service.parseOutcomeRange(range);
+
+    verify(dataClaimsRestClient, never()).getBulkSubmission(any());
+    verify(submissionDataNormaliser, times(2)).normaliseOutcome(any(BulkSubmissionOutcome.class));
+    verify(dataClaimsRestClient)
+        .createClaim(eq(SUBMISSION_ID), argThat(claim -> claim.getLineNumber() == 2));
+    verify(dataClaimsRestClient)
+        .createClaim(eq(SUBMISSION_ID), argThat(claim -> claim.getLineNumber() == 3));
+    verify(dataClaimsRestClient)
+        .updateSubmission(
+            eq(SUBMISSION_ID),
+            argThat(
+                patch ->
+                    patch.getStatus() == SubmissionStatus.READY_FOR_VALIDATION
+                        && patch.getNumberOfClaims() == 3));
+    verify(dataClaimsRestClient)
+        .updateBulkSubmission(
+            eq(BULK_SUBMISSION_ID.toString()),
+            argThat(patch -> patch.getStatus() == BulkSubmissionStatus.PARSING_COMPLETED));
+    verify(eventServiceMetricService).recordBulkParsingShards("completed", 1);
+  }
+
+  @Test
+  void parseOutcomeRangeLeavesSubmissionWhileClaimsRemain() {
+    final OutcomeRange range = outcomeRange(0, 1);
+    when(bulkSubmissionStreamReader.readOutcomeRange(BULK_SUBMISSION_ID, 0, 1))
+        .thenReturn(List.of(new BulkSubmissionOutcome()));
+    when(bulkSubmissionMapper.mapToClaimPosts(any(), eq(AreaOfLaw.LEGAL_HELP)))
+        .thenReturn(List.of(claimPost()));
+    when(dataClaimsRestClient.createClaim(eq(SUBMISSION_ID), any(ClaimPost.class)))
+        .thenReturn(ResponseEntity.created(URI.create("/claims/claim-id")).build());
+
+    service.parseOutcomeRange(range);
+
+    verify(dataClaimsRestClient, times(1)).createClaim(eq(SUBMISSION_ID), any(ClaimPost.class));
+    verify(dataClaimsRestClient, never()).updateSubmission(any(), any());
+    verify(dataClaimsRestClient, never()).updateBulkSubmission(any(), any());
+  }
+
+  @Test
+  void parseOutcomeRangeMarksSubmissionAsFailedWhenClaimsCannotBeCreated() {
+    final OutcomeRange range = outcomeRange(0, 1);
+    when(bulkSubmissionStreamReader.readOutcomeRange(BULK_SUBMISSION_ID, 0, 1))
+        .thenReturn(List.of(new BulkSubmissionOutcome()));
+    when(bulkSubmissionMapper.mapToClaimPosts(any(), eq(AreaOfLaw.LEGAL_HELP)))
+        .thenReturn(List.of(claimPost()));
+    when(dataClaimsRestClient.createClaim(eq(SUBMISSION_ID), any(ClaimPost.class)))
+        .thenReturn(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+    when(dataClaimsRestClient.updateSubmission(eq(SUBMISSION_ID), any(SubmissionPatch.class)))
+        .thenReturn(ResponseEntity.noContent().build());
+    when(dataClaimsRestClient.updateBulkSubmission(
+            eq(BULK_SUBMISSION_ID.toString()), any(BulkSubmissionPatch.class)))
+        .thenReturn(ResponseEntity.noContent().build());
+
+    assertThatThrownBy(() -> service.parseOutcomeRange(range))
+        .isInstanceOf(ClaimCreateException.class);
+
+    verify(dataClaimsRestClient)
+        .updateBulkSubmission(
+            eq(BULK_SUBMISSION_ID.toString()),
+            argThat(patch -> patch.getStatus() == BulkSubmissionStatus.PARSING_FAILED));
+    verify(dataClaimsRestClient)
+        .updateSubmission(
+            eq(SUBMISSION_ID),
+            argThat(patch -> patch.getStatus() == SubmissionStatus.VALIDATION_FAILED));
+    verify(eventServiceMetricService).recordBulkParsingShards("failed", 1);
+  }
+
+  @Test
+  void parseOutcomeRangeSkipsSubmissionWhichHasAlreadyBeenParsed() {
+    final OutcomeRange range = outcomeRange(0, 1);
+    when(dataClaimsRestClient.getSubmission(range.submissionId()))
+        .thenReturn(
+            ResponseEntity.ok(
+                SubmissionResponse.builder()
+                    .submissionId(range.submissionId())
+                    .status(SubmissionStatus.VALIDATION_FAILED)
+                    .build()));
+
+    service.parseOutcomeRange(range);
+
+    verifyNoInteractions(bulkSubmissionStreamReader);
+    verify(dataClaimsRestClient, never()).createClaim(any(), any());
+    verify(eventServiceMetricService)
+        .incrementRedeliveriesSuppressed(SubmissionEventType.PARSE_BULK_SUBMISSION, "status");
+  }
+
+  // Helper method: returns a range of outcomes of a bulk submission with three outcomes
+  private OutcomeRange outcomeRange(int fromIndex, int toIndex) {
+    return new OutcomeRange(
+        BULK_SUBMISSION_ID,
+        UUID.fromString(SUBMISSION_ID),
+        SUBMISSION_ID,
+        "office1",
+        AreaOfLaw.LEGAL_HELP,
+        fromIndex,
+        toIndex,
+        3);
+  }
+
+  // Helper method: returns a BulkSubmission with the given number of outcomes
+  private GetBulkSubmission200Response bulkSubmissionWithOutcomes(int count) {
+    GetBulkSubmission200ResponseDetails details =
+        new GetBulkSubmission200ResponseDetails()
+            .outcomes(
+                IntStream.range(0, count)
+                    .mapToObj(i -> new BulkSubmissionOutcome())
+                    .toList())
+            .matterStarts(List.of());
+    return new GetBulkSubmission200Response()
+        .bulkSubmissionId(BULK_SUBMISSION_ID)
+        .details(details)
+        .createdByUserId(BULK_SUBMISSION_CREATED_BY_USER_ID);
+  }
+
   // Helper method: returns a BulkSubmission with outcomes for test scenarios
   private GetBulkSubmission200Response bulkSubmissionWithOutcomes() {
     BulkSubmissionOutcome outcome = new BulkSubmissionOutcome();
@@ -0,0 +1,182 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.BulkSubmissionOutcome;
+import uk.gov.justice.laa.dstew.payments.claimsevent.client.DataClaimsRestClient;
+import uk.gov.justice.laa.dstew.payments.claimsevent.exception.BulkSubmissionRetrievalException;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.model.BulkSubmissionHeader;
+
+@ExtendWith(MockitoExtension.class)
+class BulkSubmissionStreamReaderTest {
+
+  private static final UUID BULK_SUBMISSION_ID = new UUID(0, 1);
+
+  private static final String BULK_SUBMISSION =
+      """
+      {
+        "bulk_submission_id": "00000000-0000-0000-0000-000000000001",
+        "details": {
+          "outcomes": [
+            {"ufn": "010101/001", "line_number": "1"},
+            {"ufn": "010101/002", "line_number": "2"},
+            {"ufn": "010101/003", "line_number": "3"}
+          ],
+          "matter_starts": [{"schedule_ref": "M1"}]
+        },
+        "created_by_user_id": "a-provider-user-id"
+      }
+      """;
+
+  @Mock private DataClaimsRestClient dataClaimsRestClient;
+
+  private BulkSubmissionStreamReader reader;
+
+  @BeforeEach
+  void setUp() {
+    reader = new BulkSubmissionStreamReader(dataClaimsRestClient, true, 2, false);
+  }
+
+  @Test
+  @DisplayName("Should read the bulk submission without its outcomes, counting them")
+  void shouldReadHeaderWithoutOutcomes() {
+    // Given
+    when(dataClaimsRestClient.streamBulkSubmission(BULK_SUBMISSION_ID))
+        .thenReturn(body(BULK_SUBMISSION));
+
+    // When
+    BulkSubmissionHeader header = reader.readHeader(BULK_SUBMISSION_ID);
+
+    // Then
+    assertThat(header.outcomeCount()).isEqualTo(3);
+    assertThat(header.bulkSubmission().getBulkSubmissionId()).isEqualTo(BULK_SUBMISSION_ID);
+    assertThat(header.bulkSubmission().getCreatedByUserId()).isEqualTo("a-provider-user-id");
+    assertThat(header.bulkSubmission().getDetails().getOutcomes()).isEmpty();
+    assertThat(header.bulkSubmission().getDetails().getMatterStarts()).hasSize(1);
+  }
+
+  @Test
+  @DisplayName("Should hand on outcomes in chunks with the index of their first outcome")
+  void shouldReadOutcomesInChunks() {
+    // Given
+    when(dataClaimsRestClient.streamBulkSubmission(BULK_SUBMISSION_ID))
+        .thenReturn(body(BULK_SUBMISSION));
+    List<List<BulkSubmissionOutcome>> chunks = new ArrayList<>();
+    List<Integer> offsets = new ArrayList<>();
+
+    // When
+    int outcomeCount =
+        reader.readOutcomes(
+            BULK_SUBMISSION_ID,
+            (chunk, offset) -> {
+              chunks.add(chunk);
+              offsets.add(offset);
+            });
+
+    // Then
+    assertThat(outcomeCount).isEqualTo(3);
+    assertThat(offsets).containsExactly(0, 2);
+    assertThat(chunks).extracting(List::size).containsExactly(2, 1);
+    assertThat(chunks.getLast().getFirst().getUfn()).isEqualTo("010101/003");
+  }
+
+  @Test
+  @DisplayName("Should normalise the outcomes as they are read when enabled")
+  void shouldNormaliseOutcomesAsTheyAreRead() {
+    // Given
+    reader = new BulkSubmissionStreamReader(dataClaimsRestClient, true, 2, true);
+    when(dataClaimsRestClient.streamBulkSubmission(BULK_SUBMISSION_ID))
+        .thenReturn(
+            body(
+                BULK_SUBMISSION.replace(
+                    "\"010101/001\"", "\"  010101/001 \", \"gender\": \"f\"")));
+    List<BulkSubmissionOutcome> outcomes = new ArrayList<>();
+
+    // When
+    reader.readOutcomes(BULK_SUBMISSION_ID, (chunk, offset) -> outcomes.addAll(chunk));
+
+    // Then
+    assertThat(outcomes.getFirst().getUfn()).isEqualTo("010101/001");
+    assertThat(outcomes.getFirst().getGender()).isEqualTo("F");
+  }
+
+  @Test
+  @DisplayName("Should read only the outcomes in a range")
+  void shouldReadOutcomeRange() {
+    // Given
+    when(dataClaimsRestClient.streamBulkSubmission(BULK_SUBMISSION_ID))
+        .thenReturn(body(BULK_SUBMISSION));
+
+    // When
+    List<BulkSubmissionOutcome> outcomes = reader.readOutcomeRange(BULK_SUBMISSION_ID, 1, 2);
+
+    // Then
+    assertThat(outcomes).extracting(BulkSubmissionOutcome::getUfn).containsExactly("010101/002");
+  }
+
+  @Test
+  @DisplayName("Should stop reading once the range has been read")
+  void shouldStopReadingOnceRangeRead() {
+    // Given
+    when(dataClaimsRestClient.streamBulkSubmission(BULK_SUBMISSION_ID))
+        .thenReturn(body(BULK_SUBMISSION.substring(0, BULK_SUBMISSION.indexOf("010101/003"))));
+
+    // When
+    List<BulkSubmissionOutcome> outcomes = reader.readOutcomeRange(BULK_SUBMISSION_ID, 0, 2);
+
+    // Then
+    assertThat(outcomes)
+        .extracting(BulkSubmissionOutcome::getUfn)
+        .containsExactly("010101/001", "010101/002");
+  }
+
+  @Test
+  @DisplayName("Should throw when the bulk submission has fewer outcomes than the range")
+  void shouldThrowWhenRangeIsBeyondOutcomes() {
+    // Given
+    when(dataClaimsRestClient.streamBulkSubmission(BULK_SUBMISSION_ID))
+        .thenReturn(body(BULK_SUBMISSION));
+
+    // Then
+    assertThatThrownBy(() -> reader.readOutcomeRange(BULK_SUBMISSION_ID, 2, 4))
+        .isInstanceOf(BulkSubmissionRetrievalException.class);
+  }
+
+  @Test
+  @DisplayName("Should throw when the bulk submission ends part way through")
+  void shouldThrowWhenBulkSubmissionIsTruncated() {
+    // Given
+    when(dataClaimsRestClient.streamBulkSubmission(BULK_SUBMISSION_ID))
+        .thenReturn(body(BULK_SUBMISSION.substring(0, BULK_SUBMISSION.indexOf("010101/002"))));
+
+    // Then
+    assertThatThrownBy(() -> reader.readOutcomes(BULK_SUBMISSION_ID, (chunk, offset) -> {}))
+        .isInstanceOf(BulkSubmissionRetrievalException.class);
+  }
+
+  private static Flux<DataBuffer> body(String json) {
+    byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+    // Split the body across buffers, as it would arrive from the network
+    int middle = bytes.length / 2;
+    return Flux.just(
+        DefaultDataBufferFactory.sharedInstance.wrap(Arrays.copyOfRange(bytes, 0, middle)),
+        DefaultDataBufferFactory.sharedInstance.wrap(
+            Arrays.copyOfRange(bytes, middle, bytes.length)));
+  }
+}
@@ -14,6 +14,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.HttpServerErrorException;
@@ -29,6 +30,8 @@ class CategoryOfLawValidationServiceTest {
 
   @Mock FeeSchemePlatformRestClient feeSchemePlatformRestClient;
 
+  @Spy FeeDetailsCache feeDetailsCache = new FeeDetailsCache(false, 0, 1);
+
   @InjectMocks CategoryOfLawValidationService categoryOfLawValidationService;
 
   @Nested
@@ -0,0 +1,121 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.justice.laa.dstew.payments.claimsevent.exception.ClaimCreateException;
+import uk.gov.justice.laa.dstew.payments.claimsevent.metrics.EventServiceMetricService;
+
+@ExtendWith(MockitoExtension.class)
+class ClaimCreationExecutorTest {
+
+  @Mock private EventServiceMetricService eventServiceMetricService;
+
+  private ClaimCreationExecutor executor;
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdown();
+  }
+
+  @Test
+  @DisplayName("Should return the results of the creations in order")
+  void shouldReturnResultsInOrder() {
+    // Given
+    executor = new ClaimCreationExecutor(eventServiceMetricService, 4, 4);
+    List<Callable<String>> creations =
+        IntStream.range(0, 20).<Callable<String>>mapToObj(i -> () -> "claim-" + i).toList();
+
+    // When
+    List<String> ids = executor.invokeAll(creations);
+
+    // Then
+    assertThat(ids).hasSize(20).startsWith("claim-0", "claim-1").endsWith("claim-19");
+    verifyNoInteractions(eventServiceMetricService);
+  }
+
+  @Test
+  @DisplayName("Should keep the creations in flight within the limit across all submissions")
+  void shouldBoundCreationsInFlight() {
+    // Given
+    executor = new ClaimCreationExecutor(eventServiceMetricService, 2, 4);
+    AtomicInteger inFlight = new AtomicInteger();
+    AtomicInteger maxInFlight = new AtomicInteger();
+    List<Callable<Integer>> creations = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      creations.add(
+          () -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            inFlight.decrementAndGet();
+            return 1;
+          });
+    }
+
+    // When
+    executor.invokeAll(creations);
+
+    // Then
+    assertThat(maxInFlight.get()).isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("Should cancel creations in flight and not start any more once one has failed")
+  void shouldCancelRemainingCreationsOnFirstFailure() throws InterruptedException {
+    // Given
+    executor = new ClaimCreationExecutor(eventServiceMetricService, 10, 2);
+    CountDownLatch firstStarted = new CountDownLatch(1);
+    CountDownLatch firstInterrupted = new CountDownLatch(1);
+    CountDownLatch neverReleased = new CountDownLatch(1);
+    AtomicInteger started = new AtomicInteger();
+    List<Callable<String>> creations = new ArrayList<>();
+    creations.add(
+        () -> {
+          started.incrementAndGet();
+          firstStarted.countDown();
+          try {
+            neverReleased.await();
+          } catch (InterruptedException ex) {
+            firstInterrupted.countDown();
+            throw ex;
+          }
+          return "claim-0";
+        });
+    creations.add(
+        () -> {
+          started.incrementAndGet();
+          firstStarted.await();
+          throw new ClaimCreateException("Failed to create claim at index 1");
+        });
+    for (int i = 2; i < 10; i++) {
+      creations.add(
+          () -> {
+            started.incrementAndGet();
+            return "claim";
+          });
+    }
+
+    // Then
+    assertThatThrownBy(() -> executor.invokeAll(creations))
+        .isInstanceOf(ClaimCreateException.class)
+        .hasMessageContaining("index 1");
+    assertThat(firstInterrupted.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(started).hasValue(2);
+    verify(eventServiceMetricService).recordClaimCreationsCancelled(9);
+  }
+}
@@ -0,0 +1,113 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import uk.gov.justice.laa.dstew.payments.claimsevent.exception.DownstreamWriteRejectedException;
+import uk.gov.justice.laa.dstew.payments.claimsevent.metrics.EventServiceMetricService;
+
+@ExtendWith(MockitoExtension.class)
+class ClaimCreationRetryPolicyTest {
+
+  @Mock private EventServiceMetricService eventServiceMetricService;
+
+  @Test
+  @DisplayName("Should retry a creation which failed with a transient error until it succeeds")
+  void shouldRetryTransientFailures() {
+    // Given
+    ClaimCreationRetryPolicy policy =
+        new ClaimCreationRetryPolicy(eventServiceMetricService, 3, 1, 2);
+    AtomicInteger attempts = new AtomicInteger();
+    Supplier<String> creation =
+        () -> {
+          if (attempts.incrementAndGet() < 3) {
+            throw error(HttpStatus.SERVICE_UNAVAILABLE);
+          }
+          return "claim-id";
+        };
+
+    // When
+    String result = policy.call(creation);
+
+    // Then
+    assertThat(result).isEqualTo("claim-id");
+    assertThat(attempts).hasValue(3);
+    verify(eventServiceMetricService, times(2)).recordClaimCreationRetries("retried");
+    verify(eventServiceMetricService).recordClaimCreationRetries("recovered");
+  }
+
+  @Test
+  @DisplayName("Should not retry a creation which was rejected")
+  void shouldNotRetryRejectedCreations() {
+    // Given
+    ClaimCreationRetryPolicy policy =
+        new ClaimCreationRetryPolicy(eventServiceMetricService, 3, 1, 2);
+    AtomicInteger attempts = new AtomicInteger();
+
+    // When / Then
+    assertThatThrownBy(
+            () ->
+                policy.call(
+                    () -> {
+                      attempts.incrementAndGet();
+                      throw error(HttpStatus.BAD_REQUEST);
+                    }))
+        .isInstanceOf(WebClientResponseException.BadRequest.class);
+    assertThat(attempts).hasValue(1);
+    verifyNoInteractions(eventServiceMetricService);
+  }
+
+  @Test
+  @DisplayName("Should give up once the most attempts have been made")
+  void shouldGiveUpAfterMaxAttempts() {
+    // Given
+    ClaimCreationRetryPolicy policy =
+        new ClaimCreationRetryPolicy(eventServiceMetricService, 2, 1, 2);
+    AtomicInteger attempts = new AtomicInteger();
+
+    // When / Then
+    assertThatThrownBy(
+            () ->
+                policy.call(
+                    () -> {
+                      attempts.incrementAndGet();
+                      throw error(HttpStatus.TOO_MANY_REQUESTS);
+                    }))
+        .isInstanceOf(WebClientResponseException.TooManyRequests.class);
+    assertThat(attempts).hasValue(2);
+    verify(eventServiceMetricService).recordClaimCreationRetries("retried");
+    verify(eventServiceMetricService).recordClaimCreationRetries("failed");
+  }
+
+  @Test
+  @DisplayName("Should treat a transient error wrapped in another exception as transient")
+  void shouldFindTransientCauses() {
+    assertThat(
+            ClaimCreationRetryPolicy.isTransient(
+                new IllegalStateException(error(HttpStatus.BAD_GATEWAY))))
+        .isTrue();
+    assertThat(
+            ClaimCreationRetryPolicy.isTransient(
+                new DownstreamWriteRejectedException("limit reached")))
+        .isTrue();
+    assertThat(ClaimCreationRetryPolicy.isTransient(new IllegalStateException("bad claim")))
+        .isFalse();
+  }
+
+  private static WebClientResponseException error(HttpStatus status) {
+    return WebClientResponseException.create(
+        status.value(), status.getReasonPhrase(), null, null, null);
+  }
+}
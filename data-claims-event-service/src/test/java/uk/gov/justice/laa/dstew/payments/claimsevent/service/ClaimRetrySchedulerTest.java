@@ -0,0 +1,96 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.justice.laa.dstew.payments.claimsevent.metrics.EventServiceMetricService;
+import uk.gov.justice.laa.dstew.payments.claimsevent.model.SubmissionEventType;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.model.ClaimRetryTask;
+
+@ExtendWith(MockitoExtension.class)
+class ClaimRetrySchedulerTest {
+
+  private static final UUID SUBMISSION_ID = new UUID(0, 1);
+  private static final List<String> CLAIM_IDS = List.of("claim1", "claim2");
+
+  @Mock private SubmissionTaskPublisher submissionTaskPublisher;
+  @Mock private EventServiceMetricService eventServiceMetricService;
+
+  private ClaimRetryScheduler scheduler;
+
+  @BeforeEach
+  void setUp() {
+    // Three retries, starting after 30 seconds and waiting no longer than 100 seconds.
+    scheduler =
+        new ClaimRetryScheduler(
+            submissionTaskPublisher, eventServiceMetricService, true, 3, 30, 100);
+  }
+
+  @Test
+  @DisplayName("Should send a delayed task listing only the claims to retry")
+  void shouldSendDelayedTask() {
+    // When
+    boolean scheduled = scheduler.schedule(SUBMISSION_ID, CLAIM_IDS, 2);
+
+    // Then
+    assertThat(scheduled).isTrue();
+    verify(submissionTaskPublisher)
+        .publish(
+            SubmissionEventType.VALIDATE_SUBMISSION,
+            "ValidationTask",
+            "CLAIM_RETRY",
+            List.of(new ClaimRetryTask(SUBMISSION_ID, CLAIM_IDS, 2)),
+            Duration.ofSeconds(60));
+    verify(eventServiceMetricService).recordClaimRetries("scheduled", 2);
+  }
+
+  @Test
+  @DisplayName("Should double the delay with each attempt up to the maximum")
+  void shouldDoubleDelayUpToMaximum() {
+    assertThat(scheduler.delay(1)).isEqualTo(Duration.ofSeconds(30));
+    assertThat(scheduler.delay(2)).isEqualTo(Duration.ofSeconds(60));
+    assertThat(scheduler.delay(3)).isEqualTo(Duration.ofSeconds(100));
+    assertThat(scheduler.delay(50)).isEqualTo(Duration.ofSeconds(100));
+  }
+
+  @Test
+  @DisplayName("Should leave the claims once the maximum number of attempts has been made")
+  void shouldLeaveClaimsAfterMaxAttempts() {
+    // When
+    boolean scheduled = scheduler.schedule(SUBMISSION_ID, CLAIM_IDS, 4);
+
+    // Then
+    assertThat(scheduled).isFalse();
+    verify(submissionTaskPublisher, never())
+        .publish(any(), anyString(), anyString(), anyList(), any(Duration.class));
+    verify(eventServiceMetricService).recordClaimRetries("exhausted", 2);
+  }
+
+  @Test
+  @DisplayName("Should not schedule a retry when there are no claims or retries are disabled")
+  void shouldNotScheduleWhenNothingToRetryOrDisabled() {
+    // Given
+    ClaimRetryScheduler disabled =
+        new ClaimRetryScheduler(
+            submissionTaskPublisher, eventServiceMetricService, false, 3, 30, 100);
+
+    // Then
+    assertThat(scheduler.schedule(SUBMISSION_ID, List.of(), 1)).isFalse();
+    assertThat(disabled.schedule(SUBMISSION_ID, CLAIM_IDS, 1)).isFalse();
+    verifyNoInteractions(submissionTaskPublisher, eventServiceMetricService);
+  }
+}
@@ -0,0 +1,118 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class ClaimValidationCheckpointStoreTest {
+
+  private static final UUID SUBMISSION_ID = new UUID(0, 1);
+  private static final int PAGE_SIZE = 100;
+  private static final Duration TTL = Duration.ofHours(1);
+
+  private MutableClock clock;
+  private ClaimValidationCheckpointStore store;
+
+  @BeforeEach
+  void beforeEach() {
+    clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+    store = new ClaimValidationCheckpointStore(TTL, clock);
+  }
+
+  @Test
+  @DisplayName("Should start from the first page without a checkpoint")
+  void shouldStartFromFirstPageWithoutCheckpoint() {
+    // Then
+    assertThat(store.getResumePage(SUBMISSION_ID, PAGE_SIZE)).isZero();
+  }
+
+  @Test
+  @DisplayName("Should resume from the page after the last flushed page")
+  void shouldResumeFromPageAfterLastFlushed() {
+    // Given
+    store.recordFlushedPage(SUBMISSION_ID, 0, PAGE_SIZE);
+    store.recordFlushedPage(SUBMISSION_ID, 1, PAGE_SIZE);
+
+    // When
+    int resumePage = store.getResumePage(SUBMISSION_ID, PAGE_SIZE);
+
+    // Then
+    assertThat(resumePage).isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("Should ignore a checkpoint recorded with a different page size")
+  void shouldIgnoreCheckpointWithDifferentPageSize() {
+    // Given
+    store.recordFlushedPage(SUBMISSION_ID, 3, PAGE_SIZE);
+
+    // When
+    int resumePage = store.getResumePage(SUBMISSION_ID, 50);
+
+    // Then
+    assertThat(resumePage).isZero();
+  }
+
+  @Test
+  @DisplayName("Should ignore an expired checkpoint")
+  void shouldIgnoreExpiredCheckpoint() {
+    // Given
+    store.recordFlushedPage(SUBMISSION_ID, 3, PAGE_SIZE);
+    clock.advance(TTL);
+
+    // When
+    int resumePage = store.getResumePage(SUBMISSION_ID, PAGE_SIZE);
+
+    // Then
+    assertThat(resumePage).isZero();
+  }
+
+  @Test
+  @DisplayName("Should start from the first page once cleared")
+  void shouldStartFromFirstPageOnceCleared() {
+    // Given
+    store.recordFlushedPage(SUBMISSION_ID, 3, PAGE_SIZE);
+
+    // When
+    store.clear(SUBMISSION_ID);
+
+    // Then
+    assertThat(store.getResumePage(SUBMISSION_ID, PAGE_SIZE)).isZero();
+  }
+
+  private static final class MutableClock extends Clock {
+
+    private Instant instant;
+
+    private MutableClock(Instant instant) {
+      this.instant = instant;
+    }
+
+    private void advance(Duration duration) {
+      instant = instant.plus(duration);
+    }
+
+    @Override
+    public ZoneOffset getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+  }
+}
@@ -1,15 +1,24 @@
 package uk.gov.justice.laa.dstew.payments.claimsevent.service;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -24,8 +33,12 @@ import uk.gov.justice.laa.dstew.payments.claimsdata.model.ClaimResultSet;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.ClaimStatus;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.SubmissionClaim;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.SubmissionResponse;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.ValidationMessagePatch;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.ValidationMessageType;
 import uk.gov.justice.laa.dstew.payments.claimsevent.client.DataClaimsRestClient;
 import uk.gov.justice.laa.dstew.payments.claimsevent.metrics.EventServiceMetricService;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.model.ParsedClaims;
+import uk.gov.justice.laa.dstew.payments.claimsevent.validation.ClaimValidationReport;
 import uk.gov.justice.laa.dstew.payments.claimsevent.validation.SubmissionValidationContext;
 import uk.gov.justice.laa.dstew.payments.claimsevent.validation.claim.BasicClaimValidator;
 import uk.gov.justice.laa.dstew.payments.claimsevent.validation.claim.ClaimValidator;
@@ -44,6 +57,8 @@ class ClaimValidationServiceTest {
   @Mock CategoryOfLawValidationService categoryOfLawValidationService;
   @Mock DataClaimsRestClient dataClaimsRestClient;
   @Mock private BulkClaimUpdater bulkClaimUpdater;
+  @Mock private ClaimValidationCheckpointStore claimValidationCheckpointStore;
+  @Mock private ParsedClaimStore parsedClaimStore;
 
   public interface StubBasicClaimValidator extends ClaimValidator, BasicClaimValidator {}
 
@@ -65,6 +80,8 @@ class ClaimValidationServiceTest {
             dataClaimsRestClient,
             eventServiceMetricService,
             bulkClaimUpdater,
+            claimValidationCheckpointStore,
+            parsedClaimStore,
             Arrays.asList(
                 basicClaimValidator,
                 claimWithAreaOfLawValidator,
@@ -167,4 +184,370 @@ class ClaimValidationServiceTest {
             eq(context),
             eq(feeDetailsResponseMap));
   }
+
+  @Test
+  @DisplayName("Should validate claims held from parsing without fetching them")
+  void shouldValidateClaimsHeldFromParsing() {
+    // Given
+    UUID submissionId = new UUID(0, 0);
+    UUID claimId = new UUID(1, 1);
+    SubmissionResponse submissionResponse =
+        SubmissionResponse.builder()
+            .submissionId(submissionId)
+            .areaOfLaw(AreaOfLaw.LEGAL_HELP)
+            .officeAccountNumber("officeAccountNumber")
+            .build();
+    SubmissionValidationContext context = new SubmissionValidationContext();
+
+    ClaimResponse claim =
+        new ClaimResponse()
+            .id(claimId.toString())
+            .feeCode("feeCode1")
+            .status(ClaimStatus.READY_TO_PROCESS);
+    ValidationMessagePatch message =
+        new ValidationMessagePatch()
+            .type(ValidationMessageType.ERROR)
+            .technicalMessage("unique_file_number is invalid");
+    when(parsedClaimStore.take(submissionId))
+        .thenReturn(
+            Optional.of(
+                new ParsedClaims(List.of(claim), Map.of(claimId.toString(), List.of(message)))));
+    HashMap<String, FeeDetailsResponseWrapper> feeDetailsResponseMap = new HashMap<>();
+    feeDetailsResponseMap.put(
+        "feeCode1",
+        FeeDetailsResponseWrapper.withFeeDetailsResponse(
+            new FeeDetailsResponseV2().feeType("feeType")));
+    when(categoryOfLawValidationService.getFeeDetailsResponseForAllFeeCodesInClaims(
+            List.of(claim)))
+        .thenReturn(feeDetailsResponseMap);
+
+    // When
+    claimValidationService.validateAndUpdateClaims(submissionResponse, context);
+
+    // Then
+    verifyNoInteractions(dataClaimsRestClient);
+    verify(basicClaimValidator, never()).validate(any(), any());
+    verify(claimWithAreaOfLawValidator, never()).validate(any(), any(), any());
+    verify(mandatoryFieldClaimValidator)
+        .validate(claim, context, AreaOfLaw.LEGAL_HELP, "feeType");
+    assertThat(context.hasErrors(claimId.toString())).isTrue();
+    verify(bulkClaimUpdater)
+        .updateClaims(
+            eq(submissionId),
+            eq(List.of(claim)),
+            eq(AreaOfLaw.LEGAL_HELP),
+            eq(context),
+            eq(feeDetailsResponseMap));
+    verify(claimValidationCheckpointStore).clear(submissionId);
+    verify(eventServiceMetricService).incrementClaimsValidatedFromParsing(1);
+  }
+
+  @Test
+  @DisplayName("Should hold parsed claims with the messages of the standalone validators")
+  void shouldHoldParsedClaimsWithStandaloneMessages() {
+    // Given
+    UUID submissionId = new UUID(0, 0);
+    ClaimResponse claim = new ClaimResponse().id("claim-1").status(ClaimStatus.READY_TO_PROCESS);
+    doAnswer(
+            invocation -> {
+              SubmissionValidationContext context = invocation.getArgument(1);
+              context.addClaimError("claim-1", "invalid", "EVENT_SERVICE");
+              return null;
+            })
+        .when(basicClaimValidator)
+        .validate(eq(claim), any());
+
+    // When
+    claimValidationService.holdParsedClaims(submissionId, List.of(claim), AreaOfLaw.LEGAL_HELP);
+
+    // Then
+    verify(claimWithAreaOfLawValidator).validate(eq(claim), any(), eq(AreaOfLaw.LEGAL_HELP));
+    verifyNoInteractions(
+        mandatoryFieldClaimValidator,
+        duplicateClaimValidator,
+        effectiveCategoryOfLawClaimValidator);
+    verify(parsedClaimStore)
+        .put(
+            eq(submissionId),
+            argThat(
+                parsed ->
+                    parsed.claims().equals(List.of(claim))
+                        && parsed.messages().get("claim-1").size() == 1));
+  }
+
+  @Test
+  @DisplayName("Should resume from the page after the last flushed page")
+  void shouldResumeFromCheckpoint() {
+    // Given
+    UUID submissionId = new UUID(0, 0);
+    UUID claimId = new UUID(1, 1);
+    SubmissionResponse submissionResponse =
+        SubmissionResponse.builder()
+            .submissionId(submissionId)
+            .areaOfLaw(AreaOfLaw.LEGAL_HELP)
+            .officeAccountNumber("officeAccountNumber")
+            .build();
+    SubmissionValidationContext context = new SubmissionValidationContext();
+
+    ClaimResponse claim =
+        new ClaimResponse()
+            .id(claimId.toString())
+            .feeCode("feeCode1")
+            .status(ClaimStatus.READY_TO_PROCESS);
+    ClaimResultSet claimResultSet =
+        ClaimResultSet.builder()
+            .number(2)
+            .totalPages(3)
+            .totalElements(201)
+            .content(List.of(claim))
+            .build();
+    when(claimValidationCheckpointStore.getResumePage(submissionId, CLAIM_VALIDATION_BATCH_SIZE))
+        .thenReturn(2);
+    when(dataClaimsRestClient.getClaims(
+            "officeAccountNumber",
+            String.valueOf(submissionId),
+            Collections.emptyList(),
+            null,
+            null,
+            null,
+            null,
+            null,
+            2,
+            CLAIM_VALIDATION_BATCH_SIZE,
+            "id,asc"))
+        .thenReturn(ResponseEntity.ok(claimResultSet));
+    HashMap<String, FeeDetailsResponseWrapper> feeDetailsResponseMap = new HashMap<>();
+    feeDetailsResponseMap.put(
+        "feeCode1",
+        FeeDetailsResponseWrapper.withFeeDetailsResponse(
+            new FeeDetailsResponseV2().feeType("feeType")));
+    when(categoryOfLawValidationService.getFeeDetailsResponseForAllFeeCodesInClaims(
+            List.of(claim)))
+        .thenReturn(feeDetailsResponseMap);
+
+    // When
+    claimValidationService.validateAndUpdateClaims(submissionResponse, context);
+
+    // Then
+    verify(dataClaimsRestClient, times(1))
+        .getClaims(any(), any(), any(), any(), any(), any(), any(), any(), any(), any(), any());
+    verify(basicClaimValidator).validate(claim, context);
+    verify(eventServiceMetricService).incrementClaimValidationPagesResumed(2);
+    verify(claimValidationCheckpointStore)
+        .recordFlushedPage(submissionId, 2, CLAIM_VALIDATION_BATCH_SIZE);
+    verify(claimValidationCheckpointStore).clear(submissionId);
+  }
+
+  @Test
+  @DisplayName("Should not record a checkpoint past a page with claims flagged for retry")
+  void shouldNotCheckpointPastClaimsFlaggedForRetry() {
+    // Given
+    UUID submissionId = new UUID(0, 0);
+    String claimId = new UUID(1, 1).toString();
+    SubmissionResponse submissionResponse =
+        SubmissionResponse.builder()
+            .submissionId(submissionId)
+            .areaOfLaw(AreaOfLaw.LEGAL_HELP)
+            .officeAccountNumber("officeAccountNumber")
+            .build();
+    SubmissionValidationContext context = new SubmissionValidationContext();
+    context.addClaimReports(List.of(new ClaimValidationReport(claimId)));
+
+    ClaimResponse claim =
+        new ClaimResponse().id(claimId).feeCode("feeCode1").status(ClaimStatus.READY_TO_PROCESS);
+    ClaimResultSet claimResultSet =
+        ClaimResultSet.builder().totalPages(2).totalElements(101).content(List.of(claim)).build();
+    when(dataClaimsRestClient.getClaims(
+            any(), any(), any(), any(), any(), any(), any(), any(), any(), any(), any()))
+        .thenReturn(ResponseEntity.ok(claimResultSet));
+    HashMap<String, FeeDetailsResponseWrapper> feeDetailsResponseMap = new HashMap<>();
+    feeDetailsResponseMap.put(
+        "feeCode1",
+        FeeDetailsResponseWrapper.withFeeDetailsResponse(
+            new FeeDetailsResponseV2().feeType("feeType")));
+    when(categoryOfLawValidationService.getFeeDetailsResponseForAllFeeCodesInClaims(any()))
+        .thenReturn(feeDetailsResponseMap);
+    doAnswer(
+            invocation -> {
+              context.flagForRetry(claimId);
+              return null;
+            })
+        .when(basicClaimValidator)
+        .validate(claim, context);
+
+    // When
+    claimValidationService.validateAndUpdateClaims(submissionResponse, context);
+
+    // Then
+    verify(dataClaimsRestClient, times(2))
+        .getClaims(any(), any(), any(), any(), any(), any(), any(), any(), any(), any(), any());
+    verify(claimValidationCheckpointStore, never()).recordFlushedPage(any(), anyInt(), anyInt());
+    verify(claimValidationCheckpointStore).clear(submissionId);
+  }
+
+  @Test
+  @DisplayName("Should validate only the pages in a range without recording a checkpoint")
+  void shouldValidateOnlyPagesInRange() {
+    // Given
+    UUID submissionId = new UUID(0, 0);
+    SubmissionResponse submissionResponse =
+        SubmissionResponse.builder()
+            .submissionId(submissionId)
+            .areaOfLaw(AreaOfLaw.LEGAL_HELP)
+            .officeAccountNumber("officeAccountNumber")
+            .build();
+    SubmissionValidationContext context = new SubmissionValidationContext();
+
+    ClaimResponse claim =
+        new ClaimResponse()
+            .id(new UUID(1, 1).toString())
+            .feeCode("feeCode1")
+            .status(ClaimStatus.READY_TO_PROCESS);
+    ClaimResultSet claimResultSet =
+        ClaimResultSet.builder()
+            .totalPages(10)
+            .totalElements(1000)
+            .content(List.of(claim))
+            .build();
+    when(dataClaimsRestClient.getClaims(
+            eq("officeAccountNumber"),
+            eq(String.valueOf(submissionId)),
+            eq(Collections.emptyList()),
+            any(),
+            any(),
+            any(),
+            any(),
+            any(),
+            any(),
+            eq(CLAIM_VALIDATION_BATCH_SIZE),
+            eq("id,asc")))
+        .thenReturn(ResponseEntity.ok(claimResultSet));
+    HashMap<String, FeeDetailsResponseWrapper> feeDetailsResponseMap = new HashMap<>();
+    feeDetailsResponseMap.put(
+        "feeCode1",
+        FeeDetailsResponseWrapper.withFeeDetailsResponse(
+            new FeeDetailsResponseV2().feeType("feeType")));
+    when(categoryOfLawValidationService.getFeeDetailsResponseForAllFeeCodesInClaims(
+            List.of(claim)))
+        .thenReturn(feeDetailsResponseMap);
+
+    // When
+    claimValidationService.validateAndUpdateClaims(submissionResponse, context, 3, 4);
+
+    // Then
+    verify(dataClaimsRestClient)
+        .getClaims(any(), any(), any(), any(), any(), any(), any(), any(), eq(3), any(), any());
+    verify(dataClaimsRestClient)
+        .getClaims(any(), any(), any(), any(), any(), any(), any(), any(), eq(4), any(), any());
+    verify(dataClaimsRestClient, times(2))
+        .getClaims(any(), any(), any(), any(), any(), any(), any(), any(), any(), any(), any());
+    verify(bulkClaimUpdater, times(2))
+        .updateClaims(eq(submissionId), eq(List.of(claim)), any(), eq(context), any());
+    verifyNoInteractions(claimValidationCheckpointStore);
+  }
+
+  @Test
+  @DisplayName("Should validate only the given claims which are still ready to process")
+  void shouldValidateOnlyGivenClaims() {
+    // Given
+    UUID submissionId = new UUID(0, 0);
+    UUID claimId = new UUID(1, 1);
+    UUID validClaimId = new UUID(1, 2);
+    SubmissionResponse submissionResponse =
+        SubmissionResponse.builder()
+            .submissionId(submissionId)
+            .areaOfLaw(AreaOfLaw.LEGAL_HELP)
+            .officeAccountNumber("officeAccountNumber")
+            .build();
+    SubmissionValidationContext context = new SubmissionValidationContext();
+
+    ClaimResponse claim =
+        new ClaimResponse()
+            .id(claimId.toString())
+            .feeCode("feeCode1")
+            .status(ClaimStatus.READY_TO_PROCESS);
+    ClaimResponse validClaim =
+        new ClaimResponse().id(validClaimId.toString()).status(ClaimStatus.VALID);
+    when(dataClaimsRestClient.getClaim(submissionId, claimId)).thenReturn(ResponseEntity.ok(claim));
+    when(dataClaimsRestClient.getClaim(submissionId, validClaimId))
+        .thenReturn(ResponseEntity.ok(validClaim));
+    HashMap<String, FeeDetailsResponseWrapper> feeDetailsResponseMap = new HashMap<>();
+    feeDetailsResponseMap.put(
+        "feeCode1",
+        FeeDetailsResponseWrapper.withFeeDetailsResponse(
+            new FeeDetailsResponseV2().feeType("feeType")));
+    when(categoryOfLawValidationService.getFeeDetailsResponseForAllFeeCodesInClaims(
+            List.of(claim)))
+        .thenReturn(feeDetailsResponseMap);
+
+    // When
+    claimValidationService.validateAndUpdateClaims(
+        submissionResponse, context, List.of(claimId.toString(), validClaimId.toString()));
+
+    // Then
+    verify(basicClaimValidator).validate(claim, context);
+    verify(bulkClaimUpdater)
+        .updateClaims(eq(submissionId), eq(List.of(claim)), any(), eq(context), any());
+    verify(dataClaimsRestClient, never())
+        .getClaims(any(), any(), any(), any(), any(), any(), any(), any(), any(), any(), any());
+    verifyNoInteractions(claimValidationCheckpointStore);
+  }
+
+  @Test
+  @DisplayName("Should skip claims which are no longer ready to process")
+  void shouldSkipClaimsNoLongerReadyToProcess() {
+    // Given
+    UUID submissionId = new UUID(0, 0);
+    SubmissionResponse submissionResponse =
+        SubmissionResponse.builder()
+            .submissionId(submissionId)
+            .areaOfLaw(AreaOfLaw.LEGAL_HELP)
+            .officeAccountNumber("officeAccountNumber")
+            .build();
+    SubmissionValidationContext context = new SubmissionValidationContext();
+
+    ClaimResponse validClaim =
+        new ClaimResponse()
+            .id(new UUID(1, 1).toString())
+            .feeCode("feeCode1")
+            .status(ClaimStatus.VALID);
+    ClaimResponse invalidClaim =
+        new ClaimResponse()
+            .id(new UUID(1, 2).toString())
+            .feeCode("feeCode1")
+            .status(ClaimStatus.INVALID);
+    ClaimResultSet claimResultSet =
+        ClaimResultSet.builder()
+            .number(0)
+            .totalPages(1)
+            .totalElements(2)
+            .content(List.of(validClaim, invalidClaim))
+            .build();
+    when(dataClaimsRestClient.getClaims(
+            "officeAccountNumber",
+            String.valueOf(submissionId),
+            Collections.emptyList(),
+            null,
+            null,
+            null,
+            null,
+            null,
+            0,
+            CLAIM_VALIDATION_BATCH_SIZE,
+            "id,asc"))
+        .thenReturn(ResponseEntity.ok(claimResultSet));
+
+    // When
+    claimValidationService.validateAndUpdateClaims(submissionResponse, context);
+
+    // Then
+    verify(basicClaimValidator, never()).validate(any(), any());
+    verify(categoryOfLawValidationService, never())
+        .getFeeDetailsResponseForAllFeeCodesInClaims(any());
+    verify(bulkClaimUpdater, never()).updateClaims(any(), any(), any(), any(), any());
+    verify(eventServiceMetricService).incrementClaimsAlreadyValidated(2);
+    verify(eventServiceMetricService, never()).incrementClaimValidationPagesResumed(anyInt());
+    verify(claimValidationCheckpointStore)
+        .recordFlushedPage(submissionId, 0, CLAIM_VALIDATION_BATCH_SIZE);
+  }
 }
@@ -0,0 +1,215 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.AreaOfLaw;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.ClaimResponse;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.ClaimResultSet;
+import uk.gov.justice.laa.dstew.payments.claimsevent.client.DataClaimsRestClient;
+import uk.gov.justice.laa.dstew.payments.claimsevent.metrics.EventServiceMetricService;
+import uk.gov.justice.laa.dstew.payments.claimsevent.model.SubmissionEventType;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.model.OutcomeRange;
+
+@ExtendWith(MockitoExtension.class)
+class DistributedBulkParsingCoordinatorTest {
+
+  private static final UUID BULK_SUBMISSION_ID = new UUID(0, 1);
+  private static final UUID SUBMISSION_ID = new UUID(0, 2);
+  private static final String CREATED_SUBMISSION_ID = "created-id";
+
+  @Mock private SubmissionTaskPublisher submissionTaskPublisher;
+  @Mock private DataClaimsRestClient dataClaimsRestClient;
+  @Mock private EventServiceMetricService eventServiceMetricService;
+  @Captor private ArgumentCaptor<List<OutcomeRange>> rangesCaptor;
+
+  private DistributedBulkParsingCoordinator coordinator;
+
+  @BeforeEach
+  void setUp() {
+    // Bulk submissions of 5000 outcomes or more are sharded into tasks of 1000 outcomes.
+    coordinator =
+        new DistributedBulkParsingCoordinator(
+            submissionTaskPublisher,
+            dataClaimsRestClient,
+            eventServiceMetricService,
+            true,
+            5000,
+            1000);
+  }
+
+  @Test
+  @DisplayName("Should shard large bulk submissions")
+  void shouldShardLargeBulkSubmissions() {
+    assertThat(coordinator.shouldShard(5000)).isTrue();
+    assertThat(coordinator.shouldShard(4999)).isFalse();
+  }
+
+  @Test
+  @DisplayName("Should not shard when disabled")
+  void shouldNotShardWhenDisabled() {
+    // Given
+    DistributedBulkParsingCoordinator disabled =
+        new DistributedBulkParsingCoordinator(
+            submissionTaskPublisher,
+            dataClaimsRestClient,
+            eventServiceMetricService,
+            false,
+            5000,
+            1000);
+
+    // Then
+    assertThat(disabled.shouldShard(50000)).isFalse();
+  }
+
+  @Test
+  @DisplayName("Should send a parsing task for each range of outcomes")
+  void shouldSendTaskForEachRange() {
+    // When
+    List<OutcomeRange> ranges =
+        coordinator.shard(
+            BULK_SUBMISSION_ID,
+            SUBMISSION_ID,
+            CREATED_SUBMISSION_ID,
+            "office1",
+            AreaOfLaw.LEGAL_HELP,
+            5500);
+
+    // Then
+    assertThat(ranges).hasSize(6);
+    assertThat(ranges.getFirst()).isEqualTo(range(0, 1000));
+    assertThat(ranges.getLast()).isEqualTo(range(5000, 5500));
+    verify(submissionTaskPublisher)
+        .publish(
+            eq(SubmissionEventType.PARSE_BULK_SUBMISSION),
+            eq("ParsingTask"),
+            eq("OUTCOME_RANGE"),
+            rangesCaptor.capture());
+    assertThat(rangesCaptor.getValue()).isEqualTo(ranges);
+    verify(eventServiceMetricService).recordBulkParsingShards("enqueued", 6);
+  }
+
+  @Test
+  @DisplayName("Should be complete once a claim has been created for every outcome")
+  void shouldBeCompleteOnceEveryClaimCreated() {
+    // Given
+    when(dataClaimsRestClient.getClaims(
+            eq("office1"),
+            eq(CREATED_SUBMISSION_ID),
+            eq(Collections.emptyList()),
+            any(),
+            any(),
+            any(),
+            any(),
+            eq(Collections.emptyList()),
+            eq(0),
+            eq(1),
+            any()))
+        .thenReturn(ResponseEntity.ok(ClaimResultSet.builder().totalElements(3).build()));
+    whenClaimLinesRequested(1, 2, 3);
+
+    // Then
+    assertThat(coordinator.areAllClaimsCreated(range(0, 3, 3))).isTrue();
+  }
+
+  @Test
+  @DisplayName("Should not be complete while claims are missing")
+  void shouldNotBeCompleteWhileClaimsMissing() {
+    // Given
+    when(dataClaimsRestClient.getClaims(
+            eq("office1"),
+            eq(CREATED_SUBMISSION_ID),
+            eq(Collections.emptyList()),
+            any(),
+            any(),
+            any(),
+            any(),
+            eq(Collections.emptyList()),
+            eq(0),
+            eq(1),
+            any()))
+        .thenReturn(ResponseEntity.ok(ClaimResultSet.builder().totalElements(5499).build()));
+
+    // Then
+    assertThat(coordinator.areAllClaimsCreated(range(0, 1000))).isFalse();
+  }
+
+  @Test
+  @DisplayName("Should not be complete when a retried task created claims twice")
+  void shouldNotBeCompleteWhenClaimsCreatedTwice() {
+    // Given
+    when(dataClaimsRestClient.getClaims(
+            eq("office1"),
+            eq(CREATED_SUBMISSION_ID),
+            eq(Collections.emptyList()),
+            any(),
+            any(),
+            any(),
+            any(),
+            eq(Collections.emptyList()),
+            eq(0),
+            eq(1),
+            any()))
+        .thenReturn(ResponseEntity.ok(ClaimResultSet.builder().totalElements(3).build()));
+    whenClaimLinesRequested(1, 2, 2);
+
+    // Then
+    assertThat(coordinator.areAllClaimsCreated(range(0, 3, 3))).isFalse();
+  }
+
+  private void whenClaimLinesRequested(Integer... lineNumbers) {
+    when(dataClaimsRestClient.getClaims(
+            eq("office1"),
+            eq(CREATED_SUBMISSION_ID),
+            eq(Collections.emptyList()),
+            any(),
+            any(),
+            any(),
+            any(),
+            eq(Collections.emptyList()),
+            eq(0),
+            eq(500),
+            eq("id,asc")))
+        .thenReturn(
+            ResponseEntity.ok(
+                ClaimResultSet.builder()
+                    .content(
+                        Arrays.stream(lineNumbers)
+                            .map(lineNumber -> new ClaimResponse().lineNumber(lineNumber))
+                            .toList())
+                    .totalPages(1)
+                    .build()));
+  }
+
+  private static OutcomeRange range(int fromIndex, int toIndex) {
+    return range(fromIndex, toIndex, 5500);
+  }
+
+  private static OutcomeRange range(int fromIndex, int toIndex, int totalOutcomes) {
+    return new OutcomeRange(
+        BULK_SUBMISSION_ID,
+        SUBMISSION_ID,
+        CREATED_SUBMISSION_ID,
+        "office1",
+        AreaOfLaw.LEGAL_HELP,
+        fromIndex,
+        toIndex,
+        totalOutcomes);
+  }
+}
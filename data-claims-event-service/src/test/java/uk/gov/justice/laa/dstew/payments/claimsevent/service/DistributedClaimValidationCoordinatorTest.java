@@ -0,0 +1,122 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.ClaimResultSet;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.ClaimStatus;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.SubmissionResponse;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.SubmissionStatus;
+import uk.gov.justice.laa.dstew.payments.claimsevent.client.DataClaimsRestClient;
+import uk.gov.justice.laa.dstew.payments.claimsevent.metrics.EventServiceMetricService;
+import uk.gov.justice.laa.dstew.payments.claimsevent.model.SubmissionEventType;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.model.ClaimPageRange;
+
+@ExtendWith(MockitoExtension.class)
+class DistributedClaimValidationCoordinatorTest {
+
+  private static final UUID SUBMISSION_ID = new UUID(0, 1);
+
+  @Mock private SubmissionTaskPublisher submissionTaskPublisher;
+  @Mock private DataClaimsRestClient dataClaimsRestClient;
+  @Mock private EventServiceMetricService eventServiceMetricService;
+  @Captor private ArgumentCaptor<List<ClaimPageRange>> rangesCaptor;
+
+  private DistributedClaimValidationCoordinator coordinator;
+
+  @BeforeEach
+  void setUp() {
+    // Submissions of 1000 claims or more are split into tasks of two pages of 100 claims.
+    coordinator =
+        new DistributedClaimValidationCoordinator(
+            submissionTaskPublisher,
+            dataClaimsRestClient,
+            eventServiceMetricService,
+            true,
+            1000,
+            2,
+            100);
+  }
+
+  @Test
+  @DisplayName("Should split large submissions being validated for the first time")
+  void shouldSplitLargeSubmissions() {
+    assertThat(coordinator.shouldSplit(submission(SubmissionStatus.READY_FOR_VALIDATION, 1000)))
+        .isTrue();
+    assertThat(coordinator.shouldSplit(submission(SubmissionStatus.READY_FOR_VALIDATION, 999)))
+        .isFalse();
+    assertThat(coordinator.shouldSplit(submission(SubmissionStatus.VALIDATION_IN_PROGRESS, 1000)))
+        .isFalse();
+  }
+
+  @Test
+  @DisplayName("Should send a validation task for each range of pages")
+  void shouldSendTaskForEachRange() {
+    // When
+    List<ClaimPageRange> ranges =
+        coordinator.split(submission(SubmissionStatus.READY_FOR_VALIDATION, 2150));
+
+    // Then
+    assertThat(ranges)
+        .hasSize(11)
+        .startsWith(new ClaimPageRange(SUBMISSION_ID, 0, 1))
+        .endsWith(new ClaimPageRange(SUBMISSION_ID, 20, 21));
+    verify(submissionTaskPublisher)
+        .publish(
+            eq(SubmissionEventType.VALIDATE_SUBMISSION),
+            eq("ValidationTask"),
+            eq("CLAIM_PAGE_RANGE"),
+            rangesCaptor.capture());
+    assertThat(rangesCaptor.getValue()).isEqualTo(ranges);
+    verify(eventServiceMetricService).recordClaimValidationTasks("enqueued", 11);
+  }
+
+  @Test
+  @DisplayName("Should be complete once no claims are left ready to process")
+  void shouldBeCompleteOnceNoClaimsReadyToProcess() {
+    // Given
+    when(dataClaimsRestClient.getClaims(
+            eq("office1"),
+            eq(SUBMISSION_ID.toString()),
+            eq(Collections.emptyList()),
+            any(),
+            any(),
+            any(),
+            any(),
+            eq(List.of(ClaimStatus.READY_TO_PROCESS)),
+            eq(0),
+            eq(1),
+            any()))
+        .thenReturn(ResponseEntity.ok(ClaimResultSet.builder().totalElements(0).build()))
+        .thenReturn(ResponseEntity.ok(ClaimResultSet.builder().totalElements(3).build()));
+    SubmissionResponse submission = submission(SubmissionStatus.VALIDATION_IN_PROGRESS, 1000);
+
+    // Then
+    assertThat(coordinator.isClaimValidationComplete(submission)).isTrue();
+    assertThat(coordinator.isClaimValidationComplete(submission)).isFalse();
+  }
+
+  private static SubmissionResponse submission(SubmissionStatus status, int numberOfClaims) {
+    return SubmissionResponse.builder()
+        .submissionId(SUBMISSION_ID)
+        .officeAccountNumber("office1")
+        .status(status)
+        .numberOfClaims(numberOfClaims)
+        .build();
+  }
+}
@@ -0,0 +1,139 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.gov.justice.laa.fee.scheme.model.FeeDetailsResponseV2;
+
+class FeeDetailsCacheTest {
+
+  private static final Duration TTL = Duration.ofMinutes(10);
+  private static final FeeDetailsResponseWrapper FEE_DETAILS =
+      FeeDetailsResponseWrapper.withFeeDetailsResponse(
+          new FeeDetailsResponseV2().categoryOfLawCodes(List.of("categoryOfLaw")));
+
+  private final List<String> lookups = new ArrayList<>();
+  private final Function<String, FeeDetailsResponseWrapper> loader =
+      feeCode -> {
+        lookups.add(feeCode);
+        return FEE_DETAILS;
+      };
+
+  private MutableClock clock;
+  private FeeDetailsCache cache;
+
+  @BeforeEach
+  void beforeEach() {
+    clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+    cache = new FeeDetailsCache(true, TTL, 2, clock);
+  }
+
+  @Test
+  @DisplayName("Should look up the fee details of a fee code once")
+  void shouldLookUpFeeCodeOnce() {
+    // When
+    FeeDetailsResponseWrapper first = cache.getFeeDetails("feeCode", loader);
+    FeeDetailsResponseWrapper second = cache.getFeeDetails("feeCode", loader);
+
+    // Then
+    assertThat(first).isEqualTo(FEE_DETAILS);
+    assertThat(second).isEqualTo(FEE_DETAILS);
+    assertThat(lookups).containsExactly("feeCode");
+  }
+
+  @Test
+  @DisplayName("Should look up every time when disabled")
+  void shouldLookUpEveryTimeWhenDisabled() {
+    // Given
+    FeeDetailsCache disabled = new FeeDetailsCache(false, TTL, 2, clock);
+
+    // When
+    disabled.getFeeDetails("feeCode", loader);
+    disabled.getFeeDetails("feeCode", loader);
+
+    // Then
+    assertThat(lookups).containsExactly("feeCode", "feeCode");
+  }
+
+  @Test
+  @DisplayName("Should not cache failed lookups")
+  void shouldNotCacheFailedLookups() {
+    // Given
+    cache.getFeeDetails("feeCode", feeCode -> FeeDetailsResponseWrapper.error());
+
+    // When
+    FeeDetailsResponseWrapper result = cache.getFeeDetails("feeCode", loader);
+
+    // Then
+    assertThat(result).isEqualTo(FEE_DETAILS);
+    assertThat(lookups).containsExactly("feeCode");
+  }
+
+  @Test
+  @DisplayName("Should look up fee details again once they have expired")
+  void shouldLookUpAgainOnceExpired() {
+    // Given
+    cache.getFeeDetails("feeCode", loader);
+
+    // When
+    clock.advance(TTL);
+    cache.getFeeDetails("feeCode", loader);
+
+    // Then
+    assertThat(lookups).containsExactly("feeCode", "feeCode");
+  }
+
+  @Test
+  @DisplayName("Should evict the oldest fee code once full")
+  void shouldEvictOldestOnceFull() {
+    // Given
+    cache.getFeeDetails("first", loader);
+    cache.getFeeDetails("second", loader);
+    cache.getFeeDetails("third", loader);
+
+    // When
+    cache.getFeeDetails("second", loader);
+    cache.getFeeDetails("first", loader);
+
+    // Then
+    assertThat(lookups).containsExactly("first", "second", "third", "first");
+  }
+
+  private static final class MutableClock extends Clock {
+
+    private Instant instant;
+
+    private MutableClock(Instant instant) {
+      this.instant = instant;
+    }
+
+    private void advance(Duration duration) {
+      instant = instant.plus(duration);
+    }
+
+    @Override
+    public ZoneOffset getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+  }
+}
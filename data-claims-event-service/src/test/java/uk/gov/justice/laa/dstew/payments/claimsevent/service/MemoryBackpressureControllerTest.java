@@ -0,0 +1,86 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.justice.laa.dstew.payments.claimsevent.metrics.EventServiceMetricService;
+
+@ExtendWith(MockitoExtension.class)
+class MemoryBackpressureControllerTest {
+
+  @Mock AdaptiveConcurrencyLimiter adaptiveConcurrencyLimiter;
+  @Mock EventServiceMetricService eventServiceMetricService;
+
+  private MemoryBackpressureController controller;
+
+  @BeforeEach
+  void beforeEach() {
+    controller =
+        new MemoryBackpressureController(
+            adaptiveConcurrencyLimiter,
+            eventServiceMetricService,
+            true,
+            0.85,
+            0.7,
+            100);
+  }
+
+  @Test
+  @DisplayName("Should pause processing once old generation occupancy reaches the pause watermark")
+  void shouldPauseAtPauseWatermark() {
+    // When
+    controller.evaluate(0.9, 10);
+
+    // Then
+    assertThat(controller.isPaused()).isTrue();
+    verify(eventServiceMetricService).recordListenerBackpressureEvent("pause");
+    verify(eventServiceMetricService).setListenerPaused(true);
+    verify(adaptiveConcurrencyLimiter).pause();
+  }
+
+  @Test
+  @DisplayName("Should stay paused until occupancy falls to the resume watermark")
+  void shouldResumeAtResumeWatermark() {
+    // Given
+    controller.evaluate(0.9, 10);
+
+    // When
+    controller.evaluate(0.8, 10);
+    assertThat(controller.isPaused()).isTrue();
+    controller.evaluate(0.6, 10);
+
+    // Then
+    assertThat(controller.isPaused()).isFalse();
+    verify(eventServiceMetricService).recordListenerBackpressureEvent("resume");
+    verify(eventServiceMetricService, times(2))
+        .incrementListenerThrottledTime(anyDouble());
+    verify(adaptiveConcurrencyLimiter).resume();
+  }
+
+  @Test
+  @DisplayName("Should pause on a high allocation rate only above the resume watermark")
+  void shouldPauseOnAllocationRateAboveResumeWatermark() {
+    // When
+    controller.evaluate(0.5, 500);
+
+    // Then
+    assertThat(controller.isPaused()).isFalse();
+    verify(eventServiceMetricService, never()).recordListenerBackpressureEvent("pause");
+    verify(adaptiveConcurrencyLimiter, never()).pause();
+
+    // When
+    controller.evaluate(0.75, 500);
+
+    // Then
+    assertThat(controller.isPaused()).isTrue();
+  }
+}
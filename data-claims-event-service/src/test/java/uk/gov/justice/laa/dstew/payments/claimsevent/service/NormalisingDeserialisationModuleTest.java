@@ -0,0 +1,94 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.BulkSubmissionOutcome;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.GetBulkSubmission200Response;
+
+class NormalisingDeserialisationModuleTest {
+
+  private static final String BULK_SUBMISSION =
+      """
+      {
+        "bulk_submission_id": "00000000-0000-0000-0000-000000000001",
+        "details": {
+          "office": {"account": "  2Q286D "},
+          "schedule": {"area_of_law": " legal help ", "schedule_num": "   "},
+          "outcomes": [
+            {"ufn": "  010101/001 ", "ucn": "\\t", "gender": " f ", "case_id": " 013"}
+          ],
+          "matter_starts": [{"schedule_ref": " M1 "}],
+          "immigration_clr": [{"  Key1 ": "  Val1 ", " Key2 ": "   ", " ": "value 4"}]
+        },
+        "created_by_user_id": " a-provider-user-id "
+      }
+      """;
+
+  private final ObjectMapper normalisingMapper = mapper(true);
+
+  @Test
+  @DisplayName("Should normalise strings as they are read, as the normaliser would once read")
+  void shouldNormaliseAsTheNormaliserWould() throws Exception {
+    // Given
+    GetBulkSubmission200Response read =
+        mapper(false).readValue(BULK_SUBMISSION, GetBulkSubmission200Response.class);
+    GetBulkSubmission200Response expected = new SubmissionDataNormaliser().normalise(read);
+
+    // When
+    GetBulkSubmission200Response actual =
+        normalisingMapper.readValue(BULK_SUBMISSION, GetBulkSubmission200Response.class);
+
+    // Then
+    assertThat(actual).isEqualTo(expected);
+    assertThat(actual.getCreatedByUserId()).isEqualTo("a-provider-user-id");
+    assertThat(actual.getDetails().getSchedule().getAreaOfLaw()).isEqualTo("LEGAL HELP");
+    assertThat(actual.getDetails().getSchedule().getScheduleNum()).isNull();
+    assertThat(actual.getDetails().getMatterStarts().getFirst().getScheduleRef()).isEqualTo("M1");
+  }
+
+  @Test
+  @DisplayName("Should uppercase only the properties listed for the class they belong to")
+  void shouldUppercaseListedProperties() throws Exception {
+    // When
+    BulkSubmissionOutcome outcome =
+        normalisingMapper.readValue(
+            "{\"ufn\": \" abc/001 \", \"gender\": \" f \", \"client_2_gender\": \"m\"}",
+            BulkSubmissionOutcome.class);
+
+    // Then
+    assertThat(outcome.getUfn()).isEqualTo("abc/001");
+    assertThat(outcome.getGender()).isEqualTo("F");
+    assertThat(outcome.getClient2Gender()).isEqualTo("M");
+  }
+
+  @Test
+  @DisplayName("Should trim map keys and values, dropping entries with a blank key")
+  void shouldNormaliseMaps() throws Exception {
+    // When
+    GetBulkSubmission200Response response =
+        normalisingMapper.readValue(BULK_SUBMISSION, GetBulkSubmission200Response.class);
+
+    // Then
+    Map<String, String> immigrationClr = response.getDetails().getImmigrationClr().getFirst();
+    assertThat(immigrationClr).containsOnlyKeys("Key1", "Key2");
+    assertThat(immigrationClr.get("Key1")).isEqualTo("Val1");
+    assertThat(immigrationClr.get("Key2")).isNull();
+  }
+
+  private static ObjectMapper mapper(boolean normalising) {
+    JsonMapper.Builder builder =
+        JsonMapper.builder()
+            .findAndAddModules()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    if (normalising) {
+      builder.addModule(new NormalisingDeserialisationModule());
+    }
+    return builder.build();
+  }
+}
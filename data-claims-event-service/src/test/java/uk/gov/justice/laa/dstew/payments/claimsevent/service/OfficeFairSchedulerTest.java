@@ -0,0 +1,132 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.SubmissionResponse;
+import uk.gov.justice.laa.dstew.payments.claimsevent.config.OfficeFairSchedulingProperties;
+import uk.gov.justice.laa.dstew.payments.claimsevent.metrics.EventServiceMetricService;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.model.SubmissionSizeClass;
+
+@ExtendWith(MockitoExtension.class)
+class OfficeFairSchedulerTest {
+
+  @Mock EventServiceMetricService eventServiceMetricService;
+
+  private OfficeFairScheduler scheduler(
+      int maxConcurrent, int maxConcurrentPerOffice, int fastLaneConcurrency) {
+    return new OfficeFairScheduler(
+        new OfficeFairSchedulingProperties(
+            maxConcurrent,
+            maxConcurrentPerOffice,
+            10,
+            Map.of(),
+            new OfficeFairSchedulingProperties.FastLane(5, fastLaneConcurrency)),
+        eventServiceMetricService);
+  }
+
+  private static SubmissionResponse submission(String office, int numberOfClaims) {
+    return SubmissionResponse.builder()
+        .officeAccountNumber(office)
+        .numberOfClaims(numberOfClaims)
+        .isNilSubmission(false)
+        .build();
+  }
+
+  @Test
+  @DisplayName("Should dispatch immediately when there is capacity")
+  void shouldDispatchImmediatelyWithCapacity() {
+    // Given
+    OfficeFairScheduler scheduler = scheduler(2, 2, 0);
+
+    // When
+    OfficeFairScheduler.Slot slot = scheduler.acquire(submission("office1", 500));
+
+    // Then
+    assertThat(slot).isNotNull();
+    verify(eventServiceMetricService).recordOfficeWaitTime(anyDouble());
+    slot.close();
+  }
+
+  @Test
+  @DisplayName("Should limit how many submissions from one office are validated at once")
+  void shouldLimitConcurrentSubmissionsPerOffice() throws Exception {
+    // Given
+    OfficeFairScheduler scheduler = scheduler(2, 1, 0);
+    OfficeFairScheduler.Slot first = scheduler.acquire(submission("office1", 1));
+
+    // When
+    CompletableFuture<OfficeFairScheduler.Slot> sameOffice =
+        CompletableFuture.supplyAsync(() -> scheduler.acquire(submission("office1", 1)));
+    OfficeFairScheduler.Slot otherOffice = scheduler.acquire(submission("office2", 1));
+
+    // Then
+    assertThat(otherOffice).isNotNull();
+    Thread.sleep(100);
+    assertThat(sameOffice).isNotDone();
+    first.close();
+    assertThat(sameOffice.get(5, TimeUnit.SECONDS)).isNotNull();
+    sameOffice.get().close();
+    otherOffice.close();
+  }
+
+  @Test
+  @DisplayName("Should dispatch small submissions from other offices ahead of a large submission")
+  void shouldDispatchSmallSubmissionsAheadOfLarge() throws Exception {
+    // Given
+    OfficeFairScheduler scheduler = scheduler(1, 1, 0);
+    OfficeFairScheduler.Slot running = scheduler.acquire(submission("office1", 1));
+    CompletableFuture<OfficeFairScheduler.Slot> large =
+        CompletableFuture.supplyAsync(() -> scheduler.acquire(submission("office2", 1000)));
+    verify(eventServiceMetricService, timeout(5000)).setOfficeQueueDepth(1, 1);
+    CompletableFuture<OfficeFairScheduler.Slot> small =
+        CompletableFuture.supplyAsync(() -> scheduler.acquire(submission("office3", 5)));
+    verify(eventServiceMetricService, timeout(5000)).setOfficeQueueDepth(2, 2);
+
+    // When
+    running.close();
+
+    // Then
+    assertThat(small.get(5, TimeUnit.SECONDS)).isNotNull();
+    assertThat(large).isNotDone();
+    small.get().close();
+    assertThat(large.get(5, TimeUnit.SECONDS)).isNotNull();
+    large.get().close();
+  }
+
+  @Test
+  @DisplayName("Should validate small submissions in the fast lane while shared capacity is full")
+  void shouldUseFastLaneForSmallSubmissions() throws Exception {
+    // Given
+    OfficeFairScheduler scheduler = scheduler(1, 1, 1);
+    OfficeFairScheduler.Slot large = scheduler.acquire(submission("office1", 1000));
+
+    // When
+    OfficeFairScheduler.Slot small = scheduler.acquire(submission("office2", 3));
+    CompletableFuture<OfficeFairScheduler.Slot> anotherLarge =
+        CompletableFuture.supplyAsync(() -> scheduler.acquire(submission("office3", 1000)));
+
+    // Then
+    assertThat(small).isNotNull();
+    Thread.sleep(100);
+    assertThat(anotherLarge).isNotDone();
+    small.close();
+    verify(eventServiceMetricService)
+        .recordSubmissionLatency(eq(SubmissionSizeClass.SMALL), anyDouble());
+    assertThat(anotherLarge).isNotDone();
+    large.close();
+    assertThat(anotherLarge.get(5, TimeUnit.SECONDS)).isNotNull();
+    anotherLarge.get().close();
+  }
+}
@@ -0,0 +1,183 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import uk.gov.justice.laa.dstew.payments.claimsevent.exception.ClaimCreateException;
+import uk.gov.justice.laa.dstew.payments.claimsevent.exception.SubmissionCreateException;
+import uk.gov.justice.laa.dstew.payments.claimsevent.metrics.EventServiceMetricService;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.model.SubmissionParsingOutcome;
+
+@ExtendWith(MockitoExtension.class)
+class ParallelSubmissionParsingServiceTest {
+
+  private static final UUID BULK_SUBMISSION_ID = new UUID(0, 0);
+  private static final UUID SUBMISSION_ID_ONE = new UUID(1, 1);
+  private static final UUID SUBMISSION_ID_TWO = new UUID(2, 2);
+  private static final UUID SUBMISSION_ID_THREE = new UUID(3, 3);
+
+  @Mock BulkParsingService bulkParsingService;
+  @Mock EventServiceMetricService eventServiceMetricService;
+
+  @Nested
+  @DisplayName("Sequential parsing")
+  class SequentialParsingTests {
+
+    private ParallelSubmissionParsingService service;
+
+    @BeforeEach
+    void beforeEach() {
+      service =
+          new ParallelSubmissionParsingService(bulkParsingService, eventServiceMetricService, 1);
+    }
+
+    @Test
+    @DisplayName("Should parse each submission in order")
+    void shouldParseEachSubmission() {
+      // When
+      service.parseSubmissions(BULK_SUBMISSION_ID, List.of(SUBMISSION_ID_ONE, SUBMISSION_ID_TWO));
+
+      // Then
+      verify(bulkParsingService).parseData(BULK_SUBMISSION_ID, SUBMISSION_ID_ONE);
+      verify(bulkParsingService).parseData(BULK_SUBMISSION_ID, SUBMISSION_ID_TWO);
+      verify(eventServiceMetricService, times(2))
+          .recordSubmissionParsingOutcome(SubmissionParsingOutcome.SUCCEEDED);
+      verify(bulkParsingService, never()).markBulkSubmissionAsFailed(BULK_SUBMISSION_ID);
+    }
+
+    @Test
+    @DisplayName("Should stop parsing after the first failure")
+    void shouldStopAfterFirstFailure() {
+      // Given
+      doThrow(new SubmissionCreateException("failed"))
+          .when(bulkParsingService)
+          .parseData(BULK_SUBMISSION_ID, SUBMISSION_ID_ONE);
+
+      // When / Then
+      assertThatThrownBy(
+              () ->
+                  service.parseSubmissions(
+                      BULK_SUBMISSION_ID,
+                      List.of(SUBMISSION_ID_ONE, SUBMISSION_ID_TWO, SUBMISSION_ID_THREE)))
+          .isInstanceOf(SubmissionCreateException.class)
+          .hasMessage("failed");
+      verify(bulkParsingService, never()).parseData(BULK_SUBMISSION_ID, SUBMISSION_ID_TWO);
+      verify(eventServiceMetricService)
+          .recordSubmissionParsingOutcome(SubmissionParsingOutcome.FAILED);
+      verify(eventServiceMetricService, times(2))
+          .recordSubmissionParsingOutcome(SubmissionParsingOutcome.SKIPPED);
+    }
+  }
+
+  @Nested
+  @DisplayName("Concurrent parsing")
+  class ConcurrentParsingTests {
+
+    private ParallelSubmissionParsingService service;
+
+    @BeforeEach
+    void beforeEach() {
+      service =
+          new ParallelSubmissionParsingService(bulkParsingService, eventServiceMetricService, 2);
+    }
+
+    @Test
+    @DisplayName("Should parse submissions concurrently up to the parallelism limit")
+    void shouldParseSubmissionsConcurrently() {
+      // Given
+      CountDownLatch bothStarted = new CountDownLatch(2);
+      AtomicInteger inFlight = new AtomicInteger();
+      AtomicInteger maxInFlight = new AtomicInteger();
+      ConcurrentHashMap<UUID, Boolean> parsed = new ConcurrentHashMap<>();
+      doAnswer(
+              invocation -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                bothStarted.countDown();
+                bothStarted.await(5, TimeUnit.SECONDS);
+                parsed.put(invocation.getArgument(1), true);
+                inFlight.decrementAndGet();
+                return null;
+              })
+          .when(bulkParsingService)
+          .parseData(eq(BULK_SUBMISSION_ID), any(UUID.class));
+
+      // When
+      service.parseSubmissions(
+          BULK_SUBMISSION_ID, List.of(SUBMISSION_ID_ONE, SUBMISSION_ID_TWO, SUBMISSION_ID_THREE));
+
+      // Then
+      assertThat(parsed)
+          .containsOnlyKeys(SUBMISSION_ID_ONE, SUBMISSION_ID_TWO, SUBMISSION_ID_THREE);
+      assertThat(maxInFlight.get()).isEqualTo(2);
+      verify(eventServiceMetricService, times(3))
+          .recordSubmissionParsingOutcome(SubmissionParsingOutcome.SUCCEEDED);
+    }
+
+    @Test
+    @DisplayName("Should mark bulk submission as failed when any submission fails")
+    void shouldMarkBulkSubmissionAsFailedWhenAnySubmissionFails() {
+      // Given
+      doThrow(new SubmissionCreateException("second failed"))
+          .when(bulkParsingService)
+          .parseData(BULK_SUBMISSION_ID, SUBMISSION_ID_TWO);
+
+      // When / Then
+      assertThatThrownBy(
+              () ->
+                  service.parseSubmissions(
+                      BULK_SUBMISSION_ID, List.of(SUBMISSION_ID_ONE, SUBMISSION_ID_TWO)))
+          .isInstanceOf(SubmissionCreateException.class)
+          .hasMessage("second failed");
+      verify(bulkParsingService).parseData(BULK_SUBMISSION_ID, SUBMISSION_ID_ONE);
+      verify(bulkParsingService).markBulkSubmissionAsFailed(BULK_SUBMISSION_ID);
+      verify(eventServiceMetricService)
+          .recordSubmissionParsingOutcome(SubmissionParsingOutcome.FAILED);
+    }
+
+    @Test
+    @DisplayName("Should leave bulk submission status alone when a submission fails transiently")
+    void shouldNotMarkBulkSubmissionAsFailedWhenFailureIsTransient() {
+      // Given
+      ClaimCreateException transientFailure =
+          new ClaimCreateException(
+              "second failed",
+              WebClientResponseException.create(
+                  HttpStatus.SERVICE_UNAVAILABLE.value(), "Unavailable", null, null, null));
+      doThrow(transientFailure)
+          .when(bulkParsingService)
+          .parseData(BULK_SUBMISSION_ID, SUBMISSION_ID_TWO);
+
+      // When / Then
+      assertThatThrownBy(
+              () ->
+                  service.parseSubmissions(
+                      BULK_SUBMISSION_ID, List.of(SUBMISSION_ID_ONE, SUBMISSION_ID_TWO)))
+          .isSameAs(transientFailure);
+      verify(bulkParsingService, never()).markBulkSubmissionAsFailed(BULK_SUBMISSION_ID);
+      verify(eventServiceMetricService)
+          .recordSubmissionParsingOutcome(SubmissionParsingOutcome.FAILED);
+    }
+  }
+}
@@ -0,0 +1,103 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.ClaimResponse;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.model.ParsedClaims;
+
+class ParsedClaimStoreTest {
+
+  private static final UUID SUBMISSION_ID = new UUID(0, 1);
+  private static final Duration TTL = Duration.ofMinutes(15);
+  private static final ParsedClaims PARSED_CLAIMS =
+      new ParsedClaims(List.of(new ClaimResponse().id("claim-1")), Map.of());
+
+  private MutableClock clock;
+  private ParsedClaimStore store;
+
+  @BeforeEach
+  void beforeEach() {
+    clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+    store = new ParsedClaimStore(true, 10, TTL, clock);
+  }
+
+  @Test
+  @DisplayName("Should only accept submissions with claims, up to the maximum")
+  void shouldAcceptSubmissionsUpToMaximum() {
+    // Then
+    assertThat(store.accepts(0)).isFalse();
+    assertThat(store.accepts(10)).isTrue();
+    assertThat(store.accepts(11)).isFalse();
+  }
+
+  @Test
+  @DisplayName("Should not accept any submission when disabled")
+  void shouldNotAcceptWhenDisabled() {
+    // Given
+    ParsedClaimStore disabled = new ParsedClaimStore(false, 10, TTL, clock);
+
+    // Then
+    assertThat(disabled.accepts(1)).isFalse();
+  }
+
+  @Test
+  @DisplayName("Should return held claims only once")
+  void shouldReturnHeldClaimsOnce() {
+    // Given
+    store.put(SUBMISSION_ID, PARSED_CLAIMS);
+
+    // When / Then
+    assertThat(store.take(SUBMISSION_ID)).contains(PARSED_CLAIMS);
+    assertThat(store.take(SUBMISSION_ID)).isEmpty();
+  }
+
+  @Test
+  @DisplayName("Should not return expired claims")
+  void shouldNotReturnExpiredClaims() {
+    // Given
+    store.put(SUBMISSION_ID, PARSED_CLAIMS);
+    clock.advance(TTL);
+
+    // When / Then
+    assertThat(store.take(SUBMISSION_ID)).isEmpty();
+  }
+
+  private static final class MutableClock extends Clock {
+
+    private Instant instant;
+
+    private MutableClock(Instant instant) {
+      this.instant = instant;
+    }
+
+    private void advance(Duration duration) {
+      instant = instant.plus(duration);
+    }
+
+    @Override
+    public ZoneOffset getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+  }
+}
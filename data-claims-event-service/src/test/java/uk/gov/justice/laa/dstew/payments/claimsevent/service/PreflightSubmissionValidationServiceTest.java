@@ -0,0 +1,110 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.AreaOfLaw;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.SubmissionPost;
+import uk.gov.justice.laa.dstew.payments.claimsdata.model.ValidationMessagePatch;
+import uk.gov.justice.laa.dstew.payments.claimsevent.validation.SubmissionValidationContext;
+import uk.gov.justice.laa.dstew.payments.claimsevent.validation.SubmissionValidationError;
+import uk.gov.justice.laa.dstew.payments.claimsevent.validation.submission.PreflightSubmissionValidator;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Preflight submission validation service test")
+class PreflightSubmissionValidationServiceTest {
+
+  private static final UUID SUBMISSION_ID = new UUID(0, 1);
+
+  @Mock PreflightSubmissionValidator periodValidator;
+  @Mock PreflightSubmissionValidator duplicateValidator;
+
+  @Test
+  @DisplayName("Should not validate when disabled")
+  void shouldNotValidateWhenDisabled() {
+    // Given
+    PreflightSubmissionValidationService service =
+        new PreflightSubmissionValidationService(List.of(periodValidator), false);
+
+    // When
+    List<ValidationMessagePatch> errors = service.validate(submissionPost());
+
+    // Then
+    assertThat(errors).isEmpty();
+    verify(periodValidator, never()).validate(any(), any());
+  }
+
+  @Test
+  @DisplayName("Should return the errors found in the mapped submission")
+  void shouldReturnErrorsFoundInMappedSubmission() {
+    // Given
+    doAnswer(
+            invocation -> {
+              SubmissionValidationContext context = invocation.getArgument(1);
+              context.addSubmissionValidationError(
+                  SubmissionValidationError.SUBMISSION_PERIOD_MISSING);
+              return null;
+            })
+        .when(periodValidator)
+        .validate(any(), any());
+    PreflightSubmissionValidationService service =
+        new PreflightSubmissionValidationService(List.of(periodValidator), true);
+
+    // When
+    List<ValidationMessagePatch> errors = service.validate(submissionPost());
+
+    // Then
+    assertThat(errors).hasSize(1);
+    verify(periodValidator)
+        .validate(
+            argThat(
+                submission ->
+                    SUBMISSION_ID.equals(submission.getSubmissionId())
+                        && "office".equals(submission.getOfficeAccountNumber())
+                        && AreaOfLaw.LEGAL_HELP.equals(submission.getAreaOfLaw())
+                        && "MAR-2025".equals(submission.getSubmissionPeriod())
+                        && submission.getSubmitted() != null),
+            any());
+  }
+
+  @Test
+  @DisplayName("Should skip a validator which fails, leaving it to validation")
+  void shouldSkipValidatorWhichFails() {
+    // Given
+    doThrow(new IllegalStateException("unavailable"))
+        .when(duplicateValidator)
+        .validate(any(), any());
+    PreflightSubmissionValidationService service =
+        new PreflightSubmissionValidationService(List.of(duplicateValidator), true);
+
+    // When
+    List<ValidationMessagePatch> errors = service.validate(submissionPost());
+
+    // Then
+    assertThat(errors).isEmpty();
+  }
+
+  private static SubmissionPost submissionPost() {
+    SubmissionPost submissionPost =
+        new SubmissionPost()
+            .submissionId(SUBMISSION_ID)
+            .officeAccountNumber("office")
+            .areaOfLaw(AreaOfLaw.LEGAL_HELP)
+            .submissionPeriod("MAR-2025");
+    submissionPost.setSubmitted(OffsetDateTime.now());
+    return submissionPost;
+  }
+}
@@ -0,0 +1,197 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchResponse;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchResultEntry;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityRequest;
+import software.amazon.awssdk.services.sqs.model.GetQueueUrlRequest;
+import software.amazon.awssdk.services.sqs.model.GetQueueUrlResponse;
+
+@ExtendWith(MockitoExtension.class)
+class SqsVisibilityHeartbeatTest {
+
+  private static final String QUEUE_NAME = "test-queue";
+  private static final String QUEUE_URL = "http://test-queue-url";
+  private static final int VISIBILITY_TIMEOUT_SECONDS = 60;
+  // Long enough that the scheduled beat never runs during a test; beats are triggered directly.
+  private static final int HEARTBEAT_INTERVAL_SECONDS = 3600;
+
+  @Captor private ArgumentCaptor<ChangeMessageVisibilityBatchRequest> batchRequestCaptor;
+  @Mock private SqsClient mockSqsClient;
+  private SqsVisibilityHeartbeat heartbeat;
+
+  @BeforeEach
+  void setUp() {
+    heartbeat =
+        new SqsVisibilityHeartbeat(
+            mockSqsClient, QUEUE_NAME, VISIBILITY_TIMEOUT_SECONDS, HEARTBEAT_INTERVAL_SECONDS);
+  }
+
+  @AfterEach
+  void tearDown() {
+    heartbeat.shutdown();
+  }
+
+  @Test
+  @DisplayName("Should extend all registered messages in a single batch")
+  void shouldExtendRegisteredMessagesInBatch() {
+    // Given
+    stubQueueUrl();
+    stubAllSuccessful();
+    heartbeat.register("handle-1");
+    heartbeat.register("handle-2");
+
+    // When
+    heartbeat.extendDueMessages();
+
+    // Then
+    verify(mockSqsClient).changeMessageVisibilityBatch(batchRequestCaptor.capture());
+    ChangeMessageVisibilityBatchRequest request = batchRequestCaptor.getValue();
+    assertThat(request.queueUrl()).isEqualTo(QUEUE_URL);
+    assertThat(request.entries())
+        .extracting(ChangeMessageVisibilityBatchRequestEntry::receiptHandle)
+        .containsExactlyInAnyOrder("handle-1", "handle-2");
+    assertThat(request.entries())
+        .extracting(ChangeMessageVisibilityBatchRequestEntry::visibilityTimeout)
+        .containsOnly(VISIBILITY_TIMEOUT_SECONDS);
+  }
+
+  @Test
+  @DisplayName("Should split more than ten messages across batches and look up queue URL once")
+  void shouldSplitIntoBatchesOfTen() {
+    // Given
+    stubQueueUrl();
+    stubAllSuccessful();
+    IntStream.range(0, 12).forEach(i -> heartbeat.register("handle-" + i));
+
+    // When
+    heartbeat.extendDueMessages();
+
+    // Then
+    verify(mockSqsClient, times(2)).changeMessageVisibilityBatch(batchRequestCaptor.capture());
+    assertThat(batchRequestCaptor.getAllValues())
+        .extracting(request -> request.entries().size())
+        .containsExactlyInAnyOrder(10, 2);
+    verify(mockSqsClient, times(1)).getQueueUrl(any(GetQueueUrlRequest.class));
+  }
+
+  @Test
+  @DisplayName("Should not extend a message again until half the visibility timeout has passed")
+  void shouldNotExtendAgainUntilDue() {
+    // Given
+    stubQueueUrl();
+    stubAllSuccessful();
+    heartbeat.register("handle-1");
+
+    // When
+    heartbeat.extendDueMessages();
+    heartbeat.extendDueMessages();
+
+    // Then
+    verify(mockSqsClient, times(1))
+        .changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class));
+  }
+
+  @Test
+  @DisplayName("Should stop extending a message once its registration is closed")
+  void shouldStopExtendingClosedRegistration() {
+    // Given
+    heartbeat.register("handle-1").close();
+
+    // When
+    heartbeat.extendDueMessages();
+
+    // Then
+    assertThat(heartbeat.getInFlightCount()).isZero();
+    verify(mockSqsClient, never())
+        .changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class));
+  }
+
+  @Test
+  @DisplayName("Should stop extending a message whose receipt handle is invalid")
+  void shouldDropInvalidReceiptHandles() {
+    // Given
+    stubQueueUrl();
+    when(mockSqsClient.changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class)))
+        .thenReturn(
+            ChangeMessageVisibilityBatchResponse.builder()
+                .failed(
+                    BatchResultErrorEntry.builder()
+                        .id("0")
+                        .code("ReceiptHandleIsInvalid")
+                        .senderFault(true)
+                        .build())
+                .build());
+    heartbeat.register("handle-1");
+
+    // When
+    heartbeat.extendDueMessages();
+
+    // Then
+    assertThat(heartbeat.getInFlightCount()).isZero();
+  }
+
+  @Test
+  @DisplayName("Should stop extending a returned message and make it visible after the delay")
+  void shouldReturnMessageToQueue() {
+    // Given
+    stubQueueUrl();
+    heartbeat.register("handle-1");
+
+    // When
+    heartbeat.returnToQueue("handle-1", 5);
+
+    // Then
+    assertThat(heartbeat.getInFlightCount()).isZero();
+    verify(mockSqsClient)
+        .changeMessageVisibility(
+            ChangeMessageVisibilityRequest.builder()
+                .queueUrl(QUEUE_URL)
+                .receiptHandle("handle-1")
+                .visibilityTimeout(5)
+                .build());
+  }
+
+  private void stubQueueUrl() {
+    when(mockSqsClient.getQueueUrl(any(GetQueueUrlRequest.class)))
+        .thenReturn(GetQueueUrlResponse.builder().queueUrl(QUEUE_URL).build());
+  }
+
+  private void stubAllSuccessful() {
+    when(mockSqsClient.changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class)))
+        .thenAnswer(
+            invocation -> {
+              ChangeMessageVisibilityBatchRequest request = invocation.getArgument(0);
+              List<ChangeMessageVisibilityBatchResultEntry> successful =
+                  request.entries().stream()
+                      .map(
+                          entry ->
+                              ChangeMessageVisibilityBatchResultEntry.builder()
+                                  .id(entry.id())
+                                  .build())
+                      .toList();
+              return ChangeMessageVisibilityBatchResponse.builder().successful(successful).build();
+            });
+  }
+}
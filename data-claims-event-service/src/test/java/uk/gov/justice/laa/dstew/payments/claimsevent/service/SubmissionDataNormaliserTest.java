@@ -1,11 +1,7 @@
 package uk.gov.justice.laa.dstew.payments.claimsevent.service;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.doThrow;
-import static org.mockito.Mockito.mock;
 
-import java.lang.reflect.Field;
 import java.math.BigDecimal;
 import java.util.*;
 import java.util.stream.Stream;
@@ -46,6 +42,35 @@ class SubmissionDataNormaliserTest {
     assertNull(normaliser.normalise(null));
   }
 
+  @Test
+  @DisplayName("normaliseOutcome: a single outcome is normalised as part of a bulk submission")
+  void normaliseOutcome_normalisesOutcome() {
+    BulkSubmissionOutcome outcome = new BulkSubmissionOutcome();
+    outcome.setUfn("  010101/001  ");
+    outcome.setGender(" f ");
+
+    assertSame(outcome, normaliser.normaliseOutcome(outcome));
+    assertEquals("010101/001", outcome.getUfn());
+    assertEquals("F", outcome.getGender());
+    assertNull(normaliser.normaliseOutcome(null));
+  }
+
+  @Test
+  @DisplayName("normalise: left unchanged when already normalised as it was deserialised")
+  void normalise_normalisedOnDeserialisation_isUnchanged() {
+    SubmissionDataNormaliser skipping = new SubmissionDataNormaliser(true);
+    BulkSubmissionOutcome outcome = new BulkSubmissionOutcome();
+    outcome.setUfn("  010101/001  ");
+    GetBulkSubmission200ResponseDetails details = new GetBulkSubmission200ResponseDetails();
+    details.setOutcomes(List.of(outcome));
+    GetBulkSubmission200Response response = new GetBulkSubmission200Response();
+    response.setDetails(details);
+
+    assertSame(response, skipping.normalise(response));
+    assertSame(outcome, skipping.normaliseOutcome(outcome));
+    assertEquals("  010101/001  ", outcome.getUfn());
+  }
+
   @Test
   @DisplayName("GetBulkSubmission200ResponseDetails: office and schedule String fields trimmed")
   void normalise_details_office_schedule() {
@@ -679,38 +704,65 @@ class SubmissionDataNormaliserTest {
       assertEquals(" m ", outcome.getGender());
     }
 
+    @Test
+    @DisplayName("normaliseObject — equal but distinct objects are each normalised (identity)")
+    void normaliseObject_equalObjects_areEachNormalised() {
+      BulkSubmissionOutcome first = new BulkSubmissionOutcome();
+      first.setGender(" m ");
+      BulkSubmissionOutcome second = new BulkSubmissionOutcome();
+      second.setGender(" m ");
+      GetBulkSubmission200Response response =
+          new GetBulkSubmission200Response()
+              .details(
+                  new GetBulkSubmission200ResponseDetails()
+                      .outcomes(new ArrayList<>(List.of(first, second))));
+
+      normaliser.normalise(response);
+
+      assertEquals("M", first.getGender());
+      assertEquals("M", second.getGender());
+    }
+
     // -------------------------------------------------------------------------
-    // normaliseFieldValue
+    // FieldPlan
     // -------------------------------------------------------------------------
 
-    @ParameterizedTest(name = "normaliseFieldValue with null {0} does not throw")
-    @MethodSource("nullFieldValueCases")
-    @DisplayName("normaliseFieldValue — null object or null field is silently ignored")
-    void normaliseFieldValue_nullArgs_doNotThrow(Object object, Field field) {
-      assertDoesNotThrow(() -> normaliser.normaliseFieldValue(object, field, new HashSet<>()));
-    }
+    @Test
+    @DisplayName("FieldPlan — lists String fields with their uppercase flags, and nested fields")
+    void fieldPlan_listsStringAndNestedFields() {
+      SubmissionDataNormaliser.FieldPlan outcomePlan =
+          SubmissionDataNormaliser.FieldPlan.compile(BulkSubmissionOutcome.class);
+      Map<String, Boolean> uppercaseByField = new HashMap<>();
+      outcomePlan
+          .strings()
+          .forEach(field -> uppercaseByField.put(field.name(), field.uppercase()));
 
-    static Stream<Arguments> nullFieldValueCases() throws Exception {
-      Field realField = BulkSubmissionOutcome.class.getDeclaredField("gender");
-      return Stream.of(
-          Arguments.of(null, realField), Arguments.of(new BulkSubmissionOutcome(), null));
+      assertEquals(Boolean.TRUE, uppercaseByField.get("gender"));
+      assertEquals(Boolean.FALSE, uppercaseByField.get("ufn"));
+      assertFalse(uppercaseByField.containsKey("profitCost"));
+
+      SubmissionDataNormaliser.FieldPlan detailsPlan =
+          SubmissionDataNormaliser.FieldPlan.compile(GetBulkSubmission200ResponseDetails.class);
+      assertFalse(detailsPlan.nested().isEmpty());
     }
 
     @Test
     @DisplayName(
-        "normaliseFieldValue — IllegalAccessException is wrapped in SubmissionDataNormalisationException")
-    void normaliseFieldValue_illegalAccess_throwsNormalisationException() throws Exception {
-      Field mockField = mock(Field.class);
-      doThrow(new IllegalAccessException("access denied")).when(mockField).get(any());
-      org.mockito.Mockito.when(mockField.getName()).thenReturn("testField");
+        "FieldPlan — a field which cannot be normalised is wrapped in"
+            + " SubmissionDataNormalisationException")
+    void fieldPlan_failure_throwsNormalisationException() {
+      // A field of one class cannot be read from an instance of another
+      SubmissionDataNormaliser.StringField matterStartField =
+          SubmissionDataNormaliser.FieldPlan.compile(BulkSubmissionMatterStart.class)
+              .strings()
+              .getFirst();
 
-      BulkSubmissionOutcome outcome = new BulkSubmissionOutcome();
       var ex =
           assertThrows(
               SubmissionDataNormalisationException.class,
-              () -> normaliser.normaliseFieldValue(outcome, mockField, new HashSet<>()));
+              () -> matterStartField.normalise(normaliser, new BulkSubmissionOutcome()));
 
-      assertTrue(ex.getMessage().contains("testField"));
+      assertTrue(ex.getMessage().contains(matterStartField.name()));
     }
 
     // -------------------------------------------------------------------------
@@ -0,0 +1,218 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.verify;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.justice.laa.dstew.payments.claimsevent.exception.SubmissionEventProcessingException;
+import uk.gov.justice.laa.dstew.payments.claimsevent.metrics.EventServiceMetricService;
+import uk.gov.justice.laa.dstew.payments.claimsevent.model.SubmissionEventType;
+
+@ExtendWith(MockitoExtension.class)
+class SubmissionEventIdempotencyRegistryTest {
+
+  private static final UUID SUBMISSION_ID = new UUID(1, 1);
+  private static final String MESSAGE_ID = "messageId";
+  private static final Duration IN_PROGRESS_TTL = Duration.ofMinutes(10);
+  private static final Duration COMPLETED_TTL = Duration.ofMinutes(10);
+
+  @Mock EventServiceMetricService eventServiceMetricService;
+
+  private MutableClock clock;
+  private SubmissionEventIdempotencyRegistry registry;
+
+  @BeforeEach
+  void beforeEach() {
+    clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+    registry =
+        new SubmissionEventIdempotencyRegistry(
+            eventServiceMetricService, IN_PROGRESS_TTL, COMPLETED_TTL, 2, clock);
+  }
+
+  @Test
+  @DisplayName("Should leave a message on the queue while its event is in progress")
+  void shouldLeaveMessageOnQueueWhileInProgress() {
+    // Given
+    registry.tryBegin(SubmissionEventType.VALIDATE_SUBMISSION, SUBMISSION_ID, MESSAGE_ID);
+
+    // When
+    ThrowingCallable result =
+        () -> registry.tryBegin(SubmissionEventType.VALIDATE_SUBMISSION, SUBMISSION_ID, MESSAGE_ID);
+
+    // Then
+    assertThatThrownBy(result)
+        .isInstanceOf(SubmissionEventProcessingException.class)
+        .hasMessageContaining("already in progress");
+    verify(eventServiceMetricService)
+        .incrementRedeliveriesSuppressed(SubmissionEventType.VALIDATE_SUBMISSION, "in_progress");
+  }
+
+  @Test
+  @DisplayName("Should suppress a redelivered message of a completed event until it expires")
+  void shouldSuppressRedeliveredMessageUntilExpired() {
+    // Given
+    registry.tryBegin(SubmissionEventType.VALIDATE_SUBMISSION, SUBMISSION_ID, MESSAGE_ID);
+    registry.complete(SubmissionEventType.VALIDATE_SUBMISSION, SUBMISSION_ID);
+
+    // When / Then
+    clock.advance(COMPLETED_TTL.minusSeconds(1));
+    assertThat(
+            registry.tryBegin(SubmissionEventType.VALIDATE_SUBMISSION, SUBMISSION_ID, MESSAGE_ID))
+        .isFalse();
+    verify(eventServiceMetricService)
+        .incrementRedeliveriesSuppressed(SubmissionEventType.VALIDATE_SUBMISSION, "completed");
+    clock.advance(Duration.ofSeconds(1));
+    assertThat(
+            registry.tryBegin(SubmissionEventType.VALIDATE_SUBMISSION, SUBMISSION_ID, MESSAGE_ID))
+        .isTrue();
+  }
+
+  @Test
+  @DisplayName("Should process a new message for an event which has completed")
+  void shouldProcessNewMessageForCompletedEvent() {
+    // Given
+    registry.tryBegin(SubmissionEventType.VALIDATE_SUBMISSION, SUBMISSION_ID, MESSAGE_ID);
+    registry.complete(SubmissionEventType.VALIDATE_SUBMISSION, SUBMISSION_ID);
+
+    // When
+    boolean result =
+        registry.tryBegin(SubmissionEventType.VALIDATE_SUBMISSION, SUBMISSION_ID, "another");
+
+    // Then
+    assertThat(result).isTrue();
+  }
+
+  @Test
+  @DisplayName("Should allow an abandoned event to be retried")
+  void shouldAllowAbandonedEventToBeRetried() {
+    // Given
+    registry.tryBegin(SubmissionEventType.VALIDATE_SUBMISSION, SUBMISSION_ID, MESSAGE_ID);
+    registry.abandon(SubmissionEventType.VALIDATE_SUBMISSION, SUBMISSION_ID);
+
+    // When
+    boolean result =
+        registry.tryBegin(SubmissionEventType.VALIDATE_SUBMISSION, SUBMISSION_ID, MESSAGE_ID);
+
+    // Then
+    assertThat(result).isTrue();
+  }
+
+  @Test
+  @DisplayName("Should track each event type separately")
+  void shouldTrackEventTypesSeparately() {
+    // Given
+    registry.tryBegin(SubmissionEventType.VALIDATE_SUBMISSION, SUBMISSION_ID, MESSAGE_ID);
+
+    // When
+    boolean result =
+        registry.tryBegin(SubmissionEventType.PARSE_BULK_SUBMISSION, SUBMISSION_ID, MESSAGE_ID);
+
+    // Then
+    assertThat(result).isTrue();
+  }
+
+  @Test
+  @DisplayName("Should evict the oldest completed event once full")
+  void shouldEvictOldestCompletedEventOnceFull() {
+    // Given
+    UUID second = new UUID(2, 2);
+    UUID third = new UUID(3, 3);
+    registry.tryBegin(SubmissionEventType.VALIDATE_SUBMISSION, second, MESSAGE_ID);
+    registry.tryBegin(SubmissionEventType.VALIDATE_SUBMISSION, SUBMISSION_ID, MESSAGE_ID);
+    registry.complete(SubmissionEventType.VALIDATE_SUBMISSION, SUBMISSION_ID);
+
+    // When
+    registry.tryBegin(SubmissionEventType.VALIDATE_SUBMISSION, third, MESSAGE_ID);
+
+    // Then
+    assertThatThrownBy(
+            () -> registry.tryBegin(SubmissionEventType.VALIDATE_SUBMISSION, second, MESSAGE_ID))
+        .isInstanceOf(SubmissionEventProcessingException.class);
+    assertThat(
+            registry.tryBegin(SubmissionEventType.VALIDATE_SUBMISSION, SUBMISSION_ID, MESSAGE_ID))
+        .isTrue();
+  }
+
+  @Test
+  @DisplayName("Should keep every event in progress, even once full")
+  void shouldKeepEventsInProgressOnceFull() {
+    // Given
+    UUID second = new UUID(2, 2);
+    UUID third = new UUID(3, 3);
+    registry.tryBegin(SubmissionEventType.VALIDATE_SUBMISSION, SUBMISSION_ID, MESSAGE_ID);
+    registry.tryBegin(SubmissionEventType.VALIDATE_SUBMISSION, second, MESSAGE_ID);
+
+    // When
+    registry.tryBegin(SubmissionEventType.VALIDATE_SUBMISSION, third, MESSAGE_ID);
+
+    // Then
+    for (UUID id : List.of(SUBMISSION_ID, second, third)) {
+      assertThatThrownBy(
+              () -> registry.tryBegin(SubmissionEventType.VALIDATE_SUBMISSION, id, MESSAGE_ID))
+          .isInstanceOf(SubmissionEventProcessingException.class);
+    }
+  }
+
+  @Test
+  @DisplayName("Should remove expired events, oldest first")
+  void shouldRemoveExpiredEventsOldestFirst() {
+    // Given
+    UUID second = new UUID(2, 2);
+    registry.tryBegin(SubmissionEventType.VALIDATE_SUBMISSION, SUBMISSION_ID, MESSAGE_ID);
+    clock.advance(Duration.ofMinutes(5));
+    registry.tryBegin(SubmissionEventType.VALIDATE_SUBMISSION, second, MESSAGE_ID);
+
+    // When
+    clock.advance(Duration.ofMinutes(5));
+
+    // Then
+    assertThat(
+            registry.tryBegin(SubmissionEventType.VALIDATE_SUBMISSION, SUBMISSION_ID, MESSAGE_ID))
+        .isTrue();
+    assertThatThrownBy(
+            () -> registry.tryBegin(SubmissionEventType.VALIDATE_SUBMISSION, second, MESSAGE_ID))
+        .isInstanceOf(SubmissionEventProcessingException.class);
+  }
+
+  private static final class MutableClock extends Clock {
+
+    private Instant instant;
+
+    private MutableClock(Instant instant) {
+      this.instant = instant;
+    }
+
+    private void advance(Duration duration) {
+      instant = instant.plus(duration);
+    }
+
+    @Override
+    public ZoneOffset getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+  }
+}
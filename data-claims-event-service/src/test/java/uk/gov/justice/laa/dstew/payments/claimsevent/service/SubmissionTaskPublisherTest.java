@@ -0,0 +1,134 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.GetQueueUrlRequest;
+import software.amazon.awssdk.services.sqs.model.GetQueueUrlResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+import uk.gov.justice.laa.dstew.payments.claimsevent.exception.SubmissionEventProcessingException;
+import uk.gov.justice.laa.dstew.payments.claimsevent.model.SubmissionEventType;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.model.ClaimPageRange;
+
+@ExtendWith(MockitoExtension.class)
+class SubmissionTaskPublisherTest {
+
+  private static final String QUEUE_NAME = "test-queue";
+  private static final String QUEUE_URL = "http://test-queue-url";
+  private static final UUID SUBMISSION_ID = new UUID(0, 1);
+
+  @Mock private SqsClient mockSqsClient;
+  @Captor private ArgumentCaptor<SendMessageBatchRequest> batchRequestCaptor;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private SubmissionTaskPublisher publisher;
+
+  @BeforeEach
+  void setUp() {
+    publisher = new SubmissionTaskPublisher(mockSqsClient, objectMapper, QUEUE_NAME);
+    when(mockSqsClient.getQueueUrl(any(GetQueueUrlRequest.class)))
+        .thenReturn(GetQueueUrlResponse.builder().queueUrl(QUEUE_URL).build());
+  }
+
+  @Test
+  @DisplayName("Should send tasks in batches with the event type and task attributes")
+  void shouldSendTasksInBatches() throws Exception {
+    // Given
+    when(mockSqsClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+        .thenReturn(SendMessageBatchResponse.builder().build());
+    List<ClaimPageRange> tasks =
+        IntStream.range(0, 11).mapToObj(i -> new ClaimPageRange(SUBMISSION_ID, i, i)).toList();
+
+    // When
+    publisher.publish(
+        SubmissionEventType.VALIDATE_SUBMISSION, "ValidationTask", "CLAIM_PAGE_RANGE", tasks);
+
+    // Then
+    verify(mockSqsClient, times(2)).sendMessageBatch(batchRequestCaptor.capture());
+    List<SendMessageBatchRequest> requests = batchRequestCaptor.getAllValues();
+    assertThat(requests.getFirst().queueUrl()).isEqualTo(QUEUE_URL);
+    assertThat(requests.getFirst().entries()).hasSize(10);
+    assertThat(requests.getLast().entries()).hasSize(1);
+    SendMessageBatchRequestEntry entry = requests.getFirst().entries().getFirst();
+    assertThat(objectMapper.readValue(entry.messageBody(), ClaimPageRange.class))
+        .isEqualTo(new ClaimPageRange(SUBMISSION_ID, 0, 0));
+    assertThat(entry.messageAttributes().get("SubmissionEventType").stringValue())
+        .isEqualTo("VALIDATE_SUBMISSION");
+    assertThat(entry.messageAttributes().get("ValidationTask").stringValue())
+        .isEqualTo("CLAIM_PAGE_RANGE");
+    verify(mockSqsClient).getQueueUrl(any(GetQueueUrlRequest.class));
+  }
+
+  @Test
+  @DisplayName("Should delay tasks by no more than SQS allows")
+  void shouldDelayTasks() {
+    // Given
+    when(mockSqsClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+        .thenReturn(SendMessageBatchResponse.builder().build());
+    List<ClaimPageRange> tasks = List.of(new ClaimPageRange(SUBMISSION_ID, 0, 1));
+
+    // When
+    publisher.publish(
+        SubmissionEventType.VALIDATE_SUBMISSION,
+        "ValidationTask",
+        "CLAIM_PAGE_RANGE",
+        tasks,
+        Duration.ofSeconds(60));
+    publisher.publish(
+        SubmissionEventType.VALIDATE_SUBMISSION,
+        "ValidationTask",
+        "CLAIM_PAGE_RANGE",
+        tasks,
+        Duration.ofHours(1));
+
+    // Then
+    verify(mockSqsClient, times(2)).sendMessageBatch(batchRequestCaptor.capture());
+    assertThat(batchRequestCaptor.getAllValues())
+        .extracting(request -> request.entries().getFirst().delaySeconds())
+        .containsExactly(60, 900);
+  }
+
+  @Test
+  @DisplayName("Should fail when tasks could not be sent")
+  void shouldFailWhenTasksNotSent() {
+    // Given
+    when(mockSqsClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+        .thenReturn(
+            SendMessageBatchResponse.builder()
+                .failed(BatchResultErrorEntry.builder().id("0").message("throttled").build())
+                .build());
+    List<ClaimPageRange> tasks = List.of(new ClaimPageRange(SUBMISSION_ID, 0, 1));
+
+    // Then
+    assertThatThrownBy(
+            () ->
+                publisher.publish(
+                    SubmissionEventType.VALIDATE_SUBMISSION,
+                    "ValidationTask",
+                    "CLAIM_PAGE_RANGE",
+                    tasks))
+        .isInstanceOf(SubmissionEventProcessingException.class)
+        .hasMessageContaining("throttled");
+  }
+}
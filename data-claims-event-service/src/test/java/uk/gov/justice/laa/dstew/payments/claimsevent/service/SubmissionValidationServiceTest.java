@@ -1,12 +1,17 @@
 package uk.gov.justice.laa.dstew.payments.claimsevent.service;
 
 import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static uk.gov.justice.laa.dstew.payments.claimsevent.ValidationServiceTestUtils.assertContextClaimError;
 
@@ -29,7 +34,11 @@ import uk.gov.justice.laa.dstew.payments.claimsdata.model.SubmissionPatch;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.SubmissionResponse;
 import uk.gov.justice.laa.dstew.payments.claimsdata.model.SubmissionStatus;
 import uk.gov.justice.laa.dstew.payments.claimsevent.client.DataClaimsRestClient;
+import uk.gov.justice.laa.dstew.payments.claimsevent.exception.SubmissionEventProcessingException;
 import uk.gov.justice.laa.dstew.payments.claimsevent.metrics.EventServiceMetricService;
+import uk.gov.justice.laa.dstew.payments.claimsevent.model.SubmissionEventType;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.model.ClaimPageRange;
+import uk.gov.justice.laa.dstew.payments.claimsevent.service.model.ClaimRetryTask;
 import uk.gov.justice.laa.dstew.payments.claimsevent.validation.SubmissionValidationContext;
 import uk.gov.justice.laa.dstew.payments.claimsevent.validation.SubmissionValidationError;
 import uk.gov.justice.laa.dstew.payments.claimsevent.validation.submission.SubmissionValidator;
@@ -47,6 +56,14 @@ class SubmissionValidationServiceTest {
 
   @Mock private EventServiceMetricService eventServiceMetricService;
 
+  @Mock private OfficeFairScheduler officeFairScheduler;
+
+  @Mock private DistributedClaimValidationCoordinator distributedClaimValidationCoordinator;
+
+  @Mock private ClaimRetryScheduler claimRetryScheduler;
+
+  @Mock private SubmissionEventIdempotencyRegistry submissionEventIdempotencyRegistry;
+
   private SubmissionValidationService submissionValidationService;
 
   @BeforeEach
@@ -57,7 +74,11 @@ class SubmissionValidationServiceTest {
             bulkClaimUpdater,
             dataClaimsRestClient,
             singletonList(submissionValidator),
-            eventServiceMetricService);
+            eventServiceMetricService,
+            officeFairScheduler,
+            distributedClaimValidationCoordinator,
+            claimRetryScheduler,
+            submissionEventIdempotencyRegistry);
   }
 
   @Nested
@@ -124,6 +145,133 @@ class SubmissionValidationServiceTest {
       }
     }
 
+    @Test
+    @DisplayName("Should skip submissions which have already been validated")
+    void shouldSkipAlreadyValidatedSubmissions() {
+      // Given
+      UUID submissionId = new UUID(0, 0);
+      SubmissionResponse submission =
+          getSubmission(
+              SubmissionStatus.VALIDATION_SUCCEEDED,
+              submissionId,
+              AreaOfLaw.LEGAL_HELP,
+              "officeAccountNumber",
+              false,
+              List.of());
+      when(dataClaimsRestClient.getSubmission(submissionId))
+          .thenReturn(ResponseEntity.ok(submission));
+
+      // When
+      SubmissionValidationContext result =
+          submissionValidationService.validateSubmission(submissionId);
+
+      // Then
+      assertFalse(result.hasErrors());
+      verifyNoInteractions(submissionValidator, claimValidationService);
+      verify(dataClaimsRestClient, never()).updateSubmission(any(), any());
+      verify(dataClaimsRestClient, never()).updateBulkSubmission(any(), any());
+      verify(eventServiceMetricService)
+          .incrementRedeliveriesSuppressed(SubmissionEventType.VALIDATE_SUBMISSION, "status");
+    }
+
+    @Test
+    @DisplayName("Should fail a resumed submission with claims already marked invalid")
+    void shouldFailResumedSubmissionWithClaimsAlreadyInvalid() {
+      // Given
+      UUID submissionId = new UUID(0, 0);
+      SubmissionClaim invalidClaim =
+          new SubmissionClaim().claimId(new UUID(1, 1)).status(ClaimStatus.INVALID);
+      SubmissionClaim validClaim =
+          new SubmissionClaim().claimId(new UUID(1, 2)).status(ClaimStatus.VALID);
+      SubmissionResponse submission =
+          getSubmission(
+              SubmissionStatus.VALIDATION_IN_PROGRESS,
+              submissionId,
+              AreaOfLaw.LEGAL_HELP,
+              "officeAccountNumber",
+              false,
+              List.of(invalidClaim, validClaim));
+      when(dataClaimsRestClient.getSubmission(submissionId))
+          .thenReturn(ResponseEntity.ok(submission));
+
+      // When
+      SubmissionValidationContext result =
+          submissionValidationService.validateSubmission(submissionId);
+
+      // Then
+      assertTrue(result.hasClaimLevelErrors());
+      verify(dataClaimsRestClient)
+          .updateSubmission(
+              eq(submissionId.toString()),
+              argThat(patch -> SubmissionStatus.VALIDATION_FAILED.equals(patch.getStatus())));
+    }
+
+    @Test
+    @DisplayName("Should wait for the office's turn before validating")
+    void shouldWaitForOfficeTurnBeforeValidating() {
+      // Given
+      UUID submissionId = new UUID(0, 0);
+      SubmissionResponse submission = buildSubmission(submissionId, new UUID(1, 1), false);
+      when(dataClaimsRestClient.getSubmission(submissionId))
+          .thenReturn(ResponseEntity.ok(submission));
+
+      // When
+      submissionValidationService.validateSubmission(submissionId);
+
+      // Then
+      verify(officeFairScheduler).acquire(submission);
+      verify(claimValidationService).validateAndUpdateClaims(eq(submission), any());
+    }
+
+    @Test
+    @DisplayName("Should split the claims of a large submission into tasks")
+    void shouldSplitClaimsOfLargeSubmission() {
+      // Given
+      UUID submissionId = new UUID(0, 0);
+      SubmissionResponse submission = buildSubmission(submissionId, new UUID(1, 1), false);
+      when(dataClaimsRestClient.getSubmission(submissionId))
+          .thenReturn(ResponseEntity.ok(submission));
+      when(distributedClaimValidationCoordinator.shouldSplit(submission)).thenReturn(true);
+
+      // When
+      submissionValidationService.validateSubmission(submissionId);
+
+      // Then
+      verify(distributedClaimValidationCoordinator).split(submission);
+      verify(claimValidationService, never()).validateAndUpdateClaims(any(), any());
+      verify(dataClaimsRestClient, never()).updateSubmission(any(), any());
+      verify(dataClaimsRestClient, never()).updateBulkSubmission(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should schedule a retry of claims flagged for retry before completing")
+    void shouldScheduleRetryOfFlaggedClaims() {
+      // Given
+      UUID submissionId = new UUID(0, 0);
+      UUID claimId = new UUID(1, 1);
+      SubmissionResponse submission = buildSubmission(submissionId, claimId, false);
+      when(dataClaimsRestClient.getSubmission(submissionId))
+          .thenReturn(ResponseEntity.ok(submission));
+      doAnswer(
+              invocation -> {
+                SubmissionValidationContext context = invocation.getArgument(1);
+                context.flagForRetry(claimId.toString());
+                return null;
+              })
+          .when(claimValidationService)
+          .validateAndUpdateClaims(eq(submission), any());
+      when(claimRetryScheduler.schedule(submissionId, List.of(claimId.toString()), 1))
+          .thenReturn(true);
+
+      // When
+      submissionValidationService.validateSubmission(submissionId);
+
+      // Then
+      verify(claimRetryScheduler).schedule(submissionId, List.of(claimId.toString()), 1);
+      verify(dataClaimsRestClient, never()).updateSubmission(any(), any());
+      verify(dataClaimsRestClient, never()).updateBulkSubmission(any(), any());
+    }
+
     private SubmissionResponse buildSubmission(
         UUID submissionId, UUID claimId, boolean isNilSubmission) {
       SubmissionClaim claim = new SubmissionClaim();
@@ -154,6 +302,308 @@ class SubmissionValidationServiceTest {
     }
   }
 
+  @Nested
+  @DisplayName("validateClaimPageRange")
+  class ValidateClaimPageRangeTests {
+
+    private final UUID submissionId = new UUID(0, 0);
+    private final ClaimPageRange claimPageRange = new ClaimPageRange(submissionId, 10, 19);
+
+    @Test
+    @DisplayName("Should validate the range of claims without completing the submission")
+    void shouldValidateRangeWithoutCompletingSubmission() {
+      // Given
+      SubmissionResponse submission = buildSubmission(SubmissionStatus.VALIDATION_IN_PROGRESS);
+      when(dataClaimsRestClient.getSubmission(submissionId))
+          .thenReturn(ResponseEntity.ok(submission));
+      when(distributedClaimValidationCoordinator.isClaimValidationComplete(submission))
+          .thenReturn(false);
+
+      // When
+      submissionValidationService.validateClaimPageRange(claimPageRange);
+
+      // Then
+      verify(claimValidationService).validateAndUpdateClaims(eq(submission), any(), eq(10), eq(19));
+      verify(eventServiceMetricService).recordClaimValidationTasks("completed", 1);
+      verify(dataClaimsRestClient, never()).updateSubmission(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should complete the submission once no claims are left to validate")
+    void shouldCompleteSubmissionOnceAllClaimsValidated() {
+      // Given
+      SubmissionResponse submission = buildSubmission(SubmissionStatus.VALIDATION_IN_PROGRESS);
+      SubmissionResponse validated =
+          buildSubmission(SubmissionStatus.VALIDATION_IN_PROGRESS, ClaimStatus.VALID);
+      when(dataClaimsRestClient.getSubmission(submissionId))
+          .thenReturn(ResponseEntity.ok(submission))
+          .thenReturn(ResponseEntity.ok(validated));
+      when(distributedClaimValidationCoordinator.isClaimValidationComplete(submission))
+          .thenReturn(true);
+      when(submissionEventIdempotencyRegistry.tryBegin(
+              eq(SubmissionEventType.VALIDATE_SUBMISSION), eq(submissionId), any()))
+          .thenReturn(true);
+
+      // When
+      submissionValidationService.validateClaimPageRange(claimPageRange);
+
+      // Then
+      verify(claimValidationService, never()).validateAndUpdateClaims(any(), any());
+      verifyNoInteractions(submissionValidator, officeFairScheduler);
+      verify(dataClaimsRestClient)
+          .updateSubmission(
+              eq(submissionId.toString()),
+              argThat(patch -> SubmissionStatus.VALIDATION_SUCCEEDED.equals(patch.getStatus())));
+      verify(submissionEventIdempotencyRegistry)
+          .complete(SubmissionEventType.VALIDATE_SUBMISSION, submissionId);
+    }
+
+    @Test
+    @DisplayName("Should fail the submission when claims validated by other tasks are invalid")
+    void shouldFailSubmissionWhenClaimsValidatedByOtherTasksAreInvalid() {
+      // Given
+      SubmissionResponse submission = buildSubmission(SubmissionStatus.VALIDATION_IN_PROGRESS);
+      SubmissionResponse validated =
+          buildSubmission(SubmissionStatus.VALIDATION_IN_PROGRESS, ClaimStatus.INVALID);
+      when(dataClaimsRestClient.getSubmission(submissionId))
+          .thenReturn(ResponseEntity.ok(submission))
+          .thenReturn(ResponseEntity.ok(validated));
+      when(distributedClaimValidationCoordinator.isClaimValidationComplete(submission))
+          .thenReturn(true);
+      when(submissionEventIdempotencyRegistry.tryBegin(
+              eq(SubmissionEventType.VALIDATE_SUBMISSION), eq(submissionId), any()))
+          .thenReturn(true);
+
+      // When
+      submissionValidationService.validateClaimPageRange(claimPageRange);
+
+      // Then
+      verify(dataClaimsRestClient)
+          .updateSubmission(
+              eq(submissionId.toString()),
+              argThat(patch -> SubmissionStatus.VALIDATION_FAILED.equals(patch.getStatus())));
+    }
+
+    @Test
+    @DisplayName("Should not complete the submission again once completed")
+    void shouldNotCompleteSubmissionAgain() {
+      // Given
+      SubmissionResponse submission = buildSubmission(SubmissionStatus.VALIDATION_IN_PROGRESS);
+      when(dataClaimsRestClient.getSubmission(submissionId))
+          .thenReturn(ResponseEntity.ok(submission));
+      when(distributedClaimValidationCoordinator.isClaimValidationComplete(submission))
+          .thenReturn(true);
+      when(submissionEventIdempotencyRegistry.tryBegin(
+              eq(SubmissionEventType.VALIDATE_SUBMISSION), eq(submissionId), any()))
+          .thenReturn(false);
+
+      // When
+      submissionValidationService.validateClaimPageRange(claimPageRange);
+
+      // Then
+      verify(dataClaimsRestClient, never()).updateSubmission(any(), any());
+      verify(dataClaimsRestClient, never()).updateBulkSubmission(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should not complete a submission another instance has already completed")
+    void shouldNotCompleteSubmissionCompletedByAnotherInstance() {
+      // Given
+      SubmissionResponse submission = buildSubmission(SubmissionStatus.VALIDATION_IN_PROGRESS);
+      SubmissionResponse completed = buildSubmission(SubmissionStatus.VALIDATION_SUCCEEDED);
+      when(dataClaimsRestClient.getSubmission(submissionId))
+          .thenReturn(ResponseEntity.ok(submission))
+          .thenReturn(ResponseEntity.ok(completed));
+      when(distributedClaimValidationCoordinator.isClaimValidationComplete(submission))
+          .thenReturn(true);
+      when(submissionEventIdempotencyRegistry.tryBegin(
+              eq(SubmissionEventType.VALIDATE_SUBMISSION), eq(submissionId), any()))
+          .thenReturn(true);
+
+      // When
+      submissionValidationService.validateClaimPageRange(claimPageRange);
+
+      // Then
+      verify(dataClaimsRestClient, never()).updateSubmission(any(), any());
+      verify(submissionEventIdempotencyRegistry)
+          .complete(SubmissionEventType.VALIDATE_SUBMISSION, submissionId);
+    }
+
+    @Test
+    @DisplayName("Should allow completion to be retried when it fails")
+    void shouldAllowCompletionToBeRetriedWhenItFails() {
+      // Given
+      SubmissionResponse submission = buildSubmission(SubmissionStatus.VALIDATION_IN_PROGRESS);
+      when(dataClaimsRestClient.getSubmission(submissionId))
+          .thenReturn(ResponseEntity.ok(submission))
+          .thenThrow(new IllegalStateException("unavailable"));
+      when(distributedClaimValidationCoordinator.isClaimValidationComplete(submission))
+          .thenReturn(true);
+      when(submissionEventIdempotencyRegistry.tryBegin(
+              eq(SubmissionEventType.VALIDATE_SUBMISSION), eq(submissionId), any()))
+          .thenReturn(true);
+
+      // When
+      assertThrows(
+          IllegalStateException.class,
+          () -> submissionValidationService.validateClaimPageRange(claimPageRange));
+
+      // Then
+      verify(submissionEventIdempotencyRegistry)
+          .abandon(SubmissionEventType.VALIDATE_SUBMISSION, submissionId);
+    }
+
+    @Test
+    @DisplayName("Should fail the task when claims need to be retried")
+    void shouldFailTaskWhenClaimsNeedRetry() {
+      // Given
+      SubmissionResponse submission = buildSubmission(SubmissionStatus.VALIDATION_IN_PROGRESS);
+      when(dataClaimsRestClient.getSubmission(submissionId))
+          .thenReturn(ResponseEntity.ok(submission));
+      doAnswer(
+              invocation -> {
+                SubmissionValidationContext context = invocation.getArgument(1);
+                context.flagForRetry(new UUID(1, 1).toString());
+                return null;
+              })
+          .when(claimValidationService)
+          .validateAndUpdateClaims(eq(submission), any(), eq(10), eq(19));
+
+      // When
+      assertThrows(
+          SubmissionEventProcessingException.class,
+          () -> submissionValidationService.validateClaimPageRange(claimPageRange));
+
+      // Then
+      verify(eventServiceMetricService).recordClaimValidationTasks("retried", 1);
+      verify(distributedClaimValidationCoordinator, never()).isClaimValidationComplete(any());
+    }
+
+    @Test
+    @DisplayName("Should skip the range when the submission has already been validated")
+    void shouldSkipRangeWhenSubmissionAlreadyValidated() {
+      // Given
+      SubmissionResponse submission = buildSubmission(SubmissionStatus.VALIDATION_FAILED);
+      when(dataClaimsRestClient.getSubmission(submissionId))
+          .thenReturn(ResponseEntity.ok(submission));
+
+      // When
+      submissionValidationService.validateClaimPageRange(claimPageRange);
+
+      // Then
+      verifyNoInteractions(claimValidationService);
+    }
+
+    private SubmissionResponse buildSubmission(SubmissionStatus status) {
+      return buildSubmission(status, ClaimStatus.READY_TO_PROCESS);
+    }
+
+    private SubmissionResponse buildSubmission(SubmissionStatus status, ClaimStatus claimStatus) {
+      SubmissionClaim claim = new SubmissionClaim();
+      claim.setClaimId(new UUID(1, 1));
+      claim.setStatus(claimStatus);
+
+      return getSubmission(
+          status,
+          submissionId,
+          AreaOfLaw.LEGAL_HELP,
+          "officeAccountNumber",
+          false,
+          List.of(claim));
+    }
+  }
+
+  @Nested
+  @DisplayName("revalidateFlaggedClaims")
+  class RevalidateFlaggedClaimsTests {
+
+    private final UUID submissionId = new UUID(0, 0);
+    private final List<String> claimIds = List.of(new UUID(1, 1).toString());
+    private final ClaimRetryTask claimRetryTask = new ClaimRetryTask(submissionId, claimIds, 1);
+
+    @Test
+    @DisplayName("Should complete the submission from its claims once none need retrying")
+    void shouldCompleteSubmissionOnceNoClaimsNeedRetrying() {
+      // Given
+      SubmissionResponse submission =
+          buildSubmission(SubmissionStatus.VALIDATION_IN_PROGRESS, ClaimStatus.READY_TO_PROCESS);
+      SubmissionResponse revalidated =
+          buildSubmission(SubmissionStatus.VALIDATION_IN_PROGRESS, ClaimStatus.INVALID);
+      when(dataClaimsRestClient.getSubmission(submissionId))
+          .thenReturn(ResponseEntity.ok(submission))
+          .thenReturn(ResponseEntity.ok(revalidated));
+
+      // When
+      submissionValidationService.revalidateFlaggedClaims(claimRetryTask);
+
+      // Then
+      verify(claimValidationService).validateAndUpdateClaims(eq(submission), any(), eq(claimIds));
+      verify(claimRetryScheduler).schedule(submissionId, List.of(), 2);
+      verify(eventServiceMetricService).recordClaimRetries("recovered", 1);
+      verify(dataClaimsRestClient)
+          .updateSubmission(
+              eq(submissionId.toString()),
+              argThat(patch -> SubmissionStatus.VALIDATION_FAILED.equals(patch.getStatus())));
+    }
+
+    @Test
+    @DisplayName("Should schedule another retry when claims are flagged for retry again")
+    void shouldScheduleAnotherRetryWhenClaimsFlaggedAgain() {
+      // Given
+      SubmissionResponse submission =
+          buildSubmission(SubmissionStatus.VALIDATION_IN_PROGRESS, ClaimStatus.READY_TO_PROCESS);
+      when(dataClaimsRestClient.getSubmission(submissionId))
+          .thenReturn(ResponseEntity.ok(submission));
+      doAnswer(
+              invocation -> {
+                SubmissionValidationContext context = invocation.getArgument(1);
+                context.flagForRetry(claimIds.getFirst());
+                return null;
+              })
+          .when(claimValidationService)
+          .validateAndUpdateClaims(eq(submission), any(), eq(claimIds));
+      when(claimRetryScheduler.schedule(submissionId, claimIds, 2)).thenReturn(true);
+
+      // When
+      submissionValidationService.revalidateFlaggedClaims(claimRetryTask);
+
+      // Then
+      verify(eventServiceMetricService).recordClaimRetries("recovered", 0);
+      verify(dataClaimsRestClient, never()).updateSubmission(any(), any());
+      verify(dataClaimsRestClient, never()).updateBulkSubmission(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should skip the retry when the submission has already been validated")
+    void shouldSkipRetryWhenSubmissionAlreadyValidated() {
+      // Given
+      SubmissionResponse submission =
+          buildSubmission(SubmissionStatus.VALIDATION_SUCCEEDED, ClaimStatus.VALID);
+      when(dataClaimsRestClient.getSubmission(submissionId))
+          .thenReturn(ResponseEntity.ok(submission));
+
+      // When
+      submissionValidationService.revalidateFlaggedClaims(claimRetryTask);
+
+      // Then
+      verifyNoInteractions(claimValidationService, claimRetryScheduler);
+    }
+
+    private SubmissionResponse buildSubmission(SubmissionStatus status, ClaimStatus claimStatus) {
+      SubmissionClaim claim = new SubmissionClaim();
+      claim.setClaimId(new UUID(1, 1));
+      claim.setStatus(claimStatus);
+
+      return getSubmission(
+          status,
+          submissionId,
+          AreaOfLaw.LEGAL_HELP,
+          "officeAccountNumber",
+          false,
+          List.of(claim));
+    }
+  }
+
   private static SubmissionResponse getSubmission(
       SubmissionStatus submissionStatus,
       UUID submissionId,
@@ -0,0 +1,34 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.service.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class SubmissionSizeClassTest {
+
+  private static final int SMALL_MAX_CLAIMS = 20;
+
+  @Test
+  void nilSubmissionsAreNil() {
+    assertThat(SubmissionSizeClass.of(true, null, SMALL_MAX_CLAIMS))
+        .isEqualTo(SubmissionSizeClass.NIL);
+    assertThat(SubmissionSizeClass.of(false, 0, SMALL_MAX_CLAIMS))
+        .isEqualTo(SubmissionSizeClass.NIL);
+  }
+
+  @Test
+  void submissionsUpToTheLimitAreSmall() {
+    assertThat(SubmissionSizeClass.of(false, SMALL_MAX_CLAIMS, SMALL_MAX_CLAIMS))
+        .isEqualTo(SubmissionSizeClass.SMALL);
+    assertThat(SubmissionSizeClass.SMALL.isFastLane()).isTrue();
+  }
+
+  @Test
+  void largerOrUnknownSubmissionsAreLarge() {
+    assertThat(SubmissionSizeClass.of(false, SMALL_MAX_CLAIMS + 1, SMALL_MAX_CLAIMS))
+        .isEqualTo(SubmissionSizeClass.LARGE);
+    assertThat(SubmissionSizeClass.of(null, null, SMALL_MAX_CLAIMS))
+        .isEqualTo(SubmissionSizeClass.LARGE);
+    assertThat(SubmissionSizeClass.LARGE.isFastLane()).isFalse();
+  }
+}
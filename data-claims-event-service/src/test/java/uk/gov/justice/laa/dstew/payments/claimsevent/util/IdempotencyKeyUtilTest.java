@@ -0,0 +1,43 @@
+package uk.gov.justice.laa.dstew.payments.claimsevent.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static uk.gov.justice.laa.dstew.payments.claimsevent.util.IdempotencyKeyUtil.claimBatchKey;
+import static uk.gov.justice.laa.dstew.payments.claimsevent.util.IdempotencyKeyUtil.claimKey;
+
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("IdempotencyKeyUtil")
+class IdempotencyKeyUtilTest {
+
+  @Test
+  @DisplayName("Should give the same claim the same key every time")
+  void shouldBeDeterministic() {
+    assertThat(claimKey("sub-1", 7)).isEqualTo(claimKey("sub-1", 7));
+  }
+
+  @Test
+  @DisplayName("Should give claims on different lines or submissions different keys")
+  void shouldDifferBetweenClaims() {
+    assertThat(claimKey("sub-1", 7))
+        .isNotEqualTo(claimKey("sub-1", 8))
+        .isNotEqualTo(claimKey("sub-2", 7));
+  }
+
+  @Test
+  @DisplayName("Should give the same batch of claims the same key every time")
+  void shouldGiveBatchSameKey() {
+    assertThat(claimBatchKey("sub-1", List.of(1, 2)))
+        .isEqualTo(claimBatchKey("sub-1", List.of(1, 2)));
+  }
+
+  @Test
+  @DisplayName("Should give batches of different claims different keys")
+  void shouldDifferBetweenBatches() {
+    assertThat(claimBatchKey("sub-1", List.of(1, 2)))
+        .isNotEqualTo(claimBatchKey("sub-1", List.of(1, 3)))
+        .isNotEqualTo(claimBatchKey("sub-2", List.of(1, 2)))
+        .isNotEqualTo(claimKey("sub-1", 1));
+  }
+}